@@ -0,0 +1,22 @@
+-- ==============================================
+-- Checkout Idempotency-Key records (CheckoutIdempotencyStore).
+--
+-- A row is inserted in the checkout transaction together with the master order and holds the serialized
+-- response, so a retry routed to another node, or arriving after a restart, replays it. The unique key makes
+-- a concurrent duplicate on another node wait for the first checkout and then fail instead of checking out
+-- again. Expired rows are deleted by the store's purge.
+-- ==============================================
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id              BIGSERIAL    PRIMARY KEY,
+    user_id         BIGINT       NOT NULL REFERENCES users (id),
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_json    TEXT         NOT NULL,
+    response_json   TEXT,
+    created_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    expires_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_idempotency_keys_user_key UNIQUE (user_id, idempotency_key)
+);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_idempotency_keys_expires_at
+    ON idempotency_keys (expires_at);
@@ -0,0 +1,24 @@
+-- ==============================================
+-- Id sequences of the order tables (allocationSize 50 in the entities).
+--
+-- These tables used IDENTITY columns before, so each sequence is moved past the ids already taken. The
+-- alignment only ever moves a sequence forward and can be re-run. order_status_history_seq is created here
+-- as well because the table already has rows; V031 creates it again as a no-op.
+-- ==============================================
+
+CREATE SEQUENCE IF NOT EXISTS master_orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS payments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_status_history_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('master_orders_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM master_orders) + 50, (SELECT last_value FROM master_orders_seq)));
+SELECT setval('orders_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM orders) + 50, (SELECT last_value FROM orders_seq)));
+SELECT setval('order_items_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM order_items) + 50, (SELECT last_value FROM order_items_seq)));
+SELECT setval('payments_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM payments) + 50, (SELECT last_value FROM payments_seq)));
+SELECT setval('order_status_history_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM order_status_history) + 50, (SELECT last_value FROM order_status_history_seq)));
@@ -0,0 +1,44 @@
+-- ==============================================
+-- Order status tracking: when an order entered its current status, and how long it stayed in
+-- the previous one for every status history row.
+--
+-- Migrations in this directory are plain, idempotent SQL applied in file name order:
+--   make db-migrate                                     (docker-compose database)
+--   for f in docker/postgres/migrations/*.sql; do psql "$DATABASE_URL" -v ON_ERROR_STOP=1 -f "$f"; done
+-- Profiles running with ddl-auto=none (prod) need them before the new application version starts.
+-- Index builds use CONCURRENTLY, so the files must not be wrapped in a transaction.
+-- ==============================================
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS status_updated_at TIMESTAMP(6) WITH TIME ZONE;
+
+ALTER TABLE order_status_history ADD COLUMN IF NOT EXISTS time_in_previous_status_ms BIGINT;
+
+CREATE SEQUENCE IF NOT EXISTS order_status_history_seq START WITH 1 INCREMENT BY 50;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_order_status_history_order_changed
+    ON order_status_history (order_id, changed_at);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_order_status_history_changed_id
+    ON order_status_history (changed_at, id);
+
+-- Durations of rows written before the column existed: time since the previous row of the same
+-- order, or since the order was placed for its first transition
+UPDATE order_status_history h
+SET time_in_previous_status_ms = GREATEST(0, (EXTRACT(EPOCH FROM (h.changed_at - p.entered_at)) * 1000)::BIGINT)
+FROM (
+    SELECT h2.id,
+           COALESCE(LAG(h2.changed_at) OVER (PARTITION BY h2.order_id ORDER BY h2.changed_at, h2.id),
+                    o.ordered_at) AS entered_at
+    FROM order_status_history h2
+    JOIN orders o ON o.id = h2.order_id
+) p
+WHERE p.id = h.id
+  AND h.status_from IS NOT NULL
+  AND h.time_in_previous_status_ms IS NULL
+  AND p.entered_at IS NOT NULL;
+
+-- Orders keep the time of their latest status change
+UPDATE orders o
+SET status_updated_at = latest.changed_at
+FROM (SELECT order_id, MAX(changed_at) AS changed_at FROM order_status_history GROUP BY order_id) latest
+WHERE latest.order_id = o.id
+  AND o.status_updated_at IS NULL;
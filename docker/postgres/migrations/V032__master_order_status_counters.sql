@@ -0,0 +1,12 @@
+-- ==============================================
+-- Per-status child order counters on master_orders (MasterOrderStatusCounters).
+--
+-- NULL means "not built yet": counters are built on the master order's next child transition, and
+-- MasterOrderCounterReconcileJob builds the rest in chunks in the background, so no backfill runs here.
+-- ==============================================
+
+ALTER TABLE master_orders ADD COLUMN IF NOT EXISTS child_order_count INTEGER;
+ALTER TABLE master_orders ADD COLUMN IF NOT EXISTS pending_payment_count INTEGER;
+ALTER TABLE master_orders ADD COLUMN IF NOT EXISTS awaiting_confirmation_count INTEGER;
+ALTER TABLE master_orders ADD COLUMN IF NOT EXISTS completed_count INTEGER;
+ALTER TABLE master_orders ADD COLUMN IF NOT EXISTS cancelled_count INTEGER;
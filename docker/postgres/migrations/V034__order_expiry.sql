@@ -0,0 +1,38 @@
+-- ==============================================
+-- Overdue order expiry (OrderExpiryJob).
+--
+-- The job claims overdue orders by keyset on (order_status, created_at, id), and its lag gauge reads the
+-- oldest created_at of a status; without idx_orders_status_created both scan the orders table every run.
+-- Expired orders get their own status, CANCELLED_EXPIRED. Tables created by Hibernate carry a CHECK
+-- constraint listing the statuses known at creation time, which would reject it, so those are dropped;
+-- the application maps the column to the OrderStatus enum.
+-- ==============================================
+
+ALTER TABLE orders DROP CONSTRAINT IF EXISTS orders_order_status_check;
+ALTER TABLE order_status_history DROP CONSTRAINT IF EXISTS order_status_history_status_from_check;
+ALTER TABLE order_status_history DROP CONSTRAINT IF EXISTS order_status_history_status_to_check;
+ALTER TABLE IF EXISTS buyer_order_view DROP CONSTRAINT IF EXISTS buyer_order_view_order_status_check;
+
+-- Plain table
+SELECT 'CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_status_created '
+       'ON orders (order_status, created_at, id)'
+FROM pg_class c
+WHERE c.oid = 'public.orders'::regclass AND c.relkind = 'r'
+\gexec
+
+-- Partitioned table (make db-partition): empty parent index, then each partition indexed concurrently
+-- and attached
+SELECT 'CREATE INDEX IF NOT EXISTS idx_orders_status_created '
+       'ON ONLY orders (order_status, created_at, id)'
+FROM pg_class c
+WHERE c.oid = 'public.orders'::regclass AND c.relkind = 'p'
+\gexec
+
+SELECT format('CREATE INDEX CONCURRENTLY IF NOT EXISTS %I ON %s (order_status, created_at, id)',
+              p.relname || '_status_created', p.oid::regclass),
+       format('ALTER INDEX idx_orders_status_created ATTACH PARTITION %I', p.relname || '_status_created')
+FROM pg_inherits i
+JOIN pg_class p ON p.oid = i.inhrelid
+WHERE i.inhparent = 'public.orders'::regclass
+  AND EXISTS (SELECT 1 FROM pg_class c WHERE c.relname = 'idx_orders_status_created' AND c.relkind = 'I')
+\gexec
@@ -0,0 +1,72 @@
+-- ==============================================
+-- Buyer order history read model (BuyerOrderView): one row per shop order, written at checkout and
+-- kept in step with status changes by BuyerOrderViewProjector.
+--
+-- Creates the table and fills it for orders placed before it existed, so history is complete as soon
+-- as the new version starts. Re-running only inserts rows that are still missing. Until every order has
+-- its row (e.g. the migration has not run yet), buyer history falls back to the order tables.
+-- ==============================================
+
+CREATE TABLE IF NOT EXISTS buyer_order_view (
+    order_id             BIGINT         NOT NULL PRIMARY KEY,
+    user_id              BIGINT         NOT NULL,
+    order_number         VARCHAR(50)    NOT NULL,
+    order_group_number   VARCHAR(50)    NOT NULL,
+    shop_id              BIGINT         NOT NULL,
+    shop_name            VARCHAR(255),
+    customer_email       VARCHAR(255),
+    shipping_address     TEXT,
+    contact_name         VARCHAR(255),
+    contact_phone        VARCHAR(20),
+    order_status         VARCHAR(255)   NOT NULL,
+    subtotal_amount      NUMERIC(12, 2) NOT NULL,
+    shipping_fee         NUMERIC(10, 2) NOT NULL,
+    total_amount         NUMERIC(12, 2) NOT NULL,
+    total_items          INTEGER        NOT NULL,
+    total_quantity       INTEGER        NOT NULL,
+    thumbnail_public_ids JSONB,
+    ordered_at           TIMESTAMP(6) WITH TIME ZONE,
+    created_at           TIMESTAMP(6)   NOT NULL,
+    updated_at           TIMESTAMP(6)   NOT NULL
+);
+
+-- Same values as BuyerOrderViewProjector.backfill: thumbnails are the variant image, else the product
+-- image, of each item without duplicates, in item order
+INSERT INTO buyer_order_view (order_id, user_id, order_number, order_group_number, shop_id, shop_name,
+                              customer_email, shipping_address, contact_name, contact_phone, order_status,
+                              subtotal_amount, shipping_fee, total_amount, total_items, total_quantity,
+                              thumbnail_public_ids, ordered_at, created_at, updated_at)
+SELECT o.id, mo.user_id, o.order_number, mo.order_group_number, o.shop_id, s.name,
+       mo.customer_email, mo.shipping_address_snapshot, mo.shipping_contact_name, mo.shipping_contact_phone,
+       o.order_status, o.subtotal_amount, o.shipping_fee,
+       o.subtotal_amount + o.shipping_fee - o.item_discount_amount - o.shipping_discount_amount,
+       COALESCE(items.total_items, 0), COALESCE(items.total_quantity, 0),
+       COALESCE(images.public_ids, '[]'::jsonb),
+       o.ordered_at, COALESCE(o.created_at, now()), now()
+FROM orders o
+JOIN master_orders mo ON mo.id = o.master_order_id
+JOIN shops s ON s.id = o.shop_id
+LEFT JOIN LATERAL (
+    SELECT COUNT(*) AS total_items, SUM(oi.quantity) AS total_quantity
+    FROM order_items oi
+    WHERE oi.order_id = o.id
+) items ON TRUE
+LEFT JOIN LATERAL (
+    SELECT jsonb_agg(img.public_id ORDER BY img.first_item_id) AS public_ids
+    FROM (
+        SELECT COALESCE(oi.variant_image_cloudinary_public_id_snapshot,
+                        oi.product_image_cloudinary_public_id_snapshot) AS public_id,
+               MIN(oi.id) AS first_item_id
+        FROM order_items oi
+        WHERE oi.order_id = o.id
+          AND COALESCE(oi.variant_image_cloudinary_public_id_snapshot,
+                       oi.product_image_cloudinary_public_id_snapshot) IS NOT NULL
+        GROUP BY 1
+    ) img
+) images ON TRUE
+WHERE NOT EXISTS (SELECT 1 FROM buyer_order_view v WHERE v.order_id = o.id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_buyer_order_view_user_created
+    ON buyer_order_view (user_id, created_at DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_buyer_order_view_user_status_created
+    ON buyer_order_view (user_id, order_status, created_at DESC);
@@ -0,0 +1,44 @@
+-- ==============================================
+-- Admin order search column (orders.search_text) and its pg_trgm index.
+--
+-- Existing orders are filled in the background by OrderSearchTextBackfillJob, so nothing here
+-- rewrites the table. Without the pg_trgm extension (missing privileges) the index is skipped and
+-- search falls back to a sequential LIKE.
+-- ==============================================
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS search_text TEXT;
+
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+EXCEPTION WHEN insufficient_privilege THEN
+    RAISE WARNING 'pg_trgm is not available, order search runs without its index: %', SQLERRM;
+END
+$$;
+
+-- Plain table: build the index without blocking writes
+SELECT 'CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_search_text_trgm '
+       'ON orders USING gin (search_text gin_trgm_ops)'
+FROM pg_class c
+WHERE c.oid = 'public.orders'::regclass AND c.relkind = 'r'
+  AND EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')
+\gexec
+
+-- Partitioned table (make db-partition): CONCURRENTLY is not allowed on the parent, so the parent
+-- index is created empty, each partition is indexed concurrently and attached to it. Partitions
+-- created later inherit the index.
+SELECT 'CREATE INDEX IF NOT EXISTS idx_orders_search_text_trgm '
+       'ON ONLY orders USING gin (search_text gin_trgm_ops)'
+FROM pg_class c
+WHERE c.oid = 'public.orders'::regclass AND c.relkind = 'p'
+  AND EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')
+\gexec
+
+SELECT format('CREATE INDEX CONCURRENTLY IF NOT EXISTS %I ON %s USING gin (search_text gin_trgm_ops)',
+              p.relname || '_search_text_trgm', p.oid::regclass),
+       format('ALTER INDEX idx_orders_search_text_trgm ATTACH PARTITION %I', p.relname || '_search_text_trgm')
+FROM pg_inherits i
+JOIN pg_class p ON p.oid = i.inhrelid
+WHERE i.inhparent = 'public.orders'::regclass
+  AND EXISTS (SELECT 1 FROM pg_class c WHERE c.relname = 'idx_orders_search_text_trgm' AND c.relkind = 'I')
+\gexec
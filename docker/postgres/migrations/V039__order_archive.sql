@@ -0,0 +1,12 @@
+-- ==============================================
+-- Cold order archive (OrderArchiver).
+--
+-- master_orders.archived_at marks master orders whose child orders were moved to the archive; their
+-- status counters stay as they were and the counter reconcile job skips them. Archived orders keep their
+-- buyer_order_view rows, which also back the summaries of archived master orders (by order group number).
+-- ==============================================
+
+ALTER TABLE master_orders ADD COLUMN IF NOT EXISTS archived_at TIMESTAMP(6);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_buyer_order_view_group
+    ON buyer_order_view (order_group_number);
@@ -0,0 +1,27 @@
+-- ==============================================
+-- Shipping rate tables (ShippingRate), compiled in memory by ShippingFeeEngine.
+--
+-- A rate with no shop applies to every shop, with no shipping method to checkouts without one, and with
+-- no region anywhere. Weight bands are [min_weight_grams, max_weight_grams), open-ended when max is NULL.
+-- Without any rows checkout keeps using the shipping method's base cost or the configured default fee.
+-- ==============================================
+
+CREATE TABLE IF NOT EXISTS shipping_rates (
+    id                      BIGSERIAL      PRIMARY KEY,
+    shop_id                 BIGINT         REFERENCES shops (id),
+    shipping_method_id      INTEGER        REFERENCES shipping_methods (id),
+    region                  VARCHAR(100),
+    min_weight_grams        INTEGER        NOT NULL DEFAULT 0,
+    max_weight_grams        INTEGER,
+    fee                     NUMERIC(10, 2) NOT NULL,
+    free_shipping_threshold NUMERIC(15, 2),
+    is_active               BOOLEAN        NOT NULL DEFAULT TRUE,
+    created_at              TIMESTAMP(6)   NOT NULL,
+    updated_at              TIMESTAMP(6)   NOT NULL,
+    deleted_at              TIMESTAMP(6),
+    CONSTRAINT chk_shipping_rates_weight_band
+        CHECK (min_weight_grams >= 0 AND (max_weight_grams IS NULL OR max_weight_grams > min_weight_grams))
+);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shipping_rates_shop_method
+    ON shipping_rates (shop_id, shipping_method_id);
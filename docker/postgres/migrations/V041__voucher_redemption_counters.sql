@@ -0,0 +1,19 @@
+-- ==============================================
+-- Voucher and promotion usage counters (VoucherUsageCounters).
+--
+-- Rows are created by the application on first use of a counter, seeded from vouchers.times_used and
+-- user_applied_vouchers, so nothing is backfilled here. VoucherUsageSyncJob copies the global totals
+-- back to vouchers.times_used.
+-- ==============================================
+
+CREATE TABLE IF NOT EXISTS redemption_counters (
+    id          BIGSERIAL   PRIMARY KEY,
+    counter_key VARCHAR(64) NOT NULL,
+    slot        INTEGER     NOT NULL,
+    times_used  INTEGER     NOT NULL DEFAULT 0,
+    CONSTRAINT uk_redemption_counters_key_slot UNIQUE (counter_key, slot)
+);
+
+-- Per-user counters are seeded by counting the user's earlier redemptions
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_applied_vouchers_user_voucher
+    ON user_applied_vouchers (user_id, voucher_id);
@@ -0,0 +1,44 @@
+-- ==============================================
+-- COD payment reconciliation (CodPaymentReconciliationJob).
+--
+-- job_checkpoints holds the keyset cursor of incremental background jobs, one row per job; the jobs create
+-- their row on first run. payments.settled_at / settled_amount record when a COD payment was settled and
+-- how much of it was collected (only the delivered shop orders). Payments settled before this migration
+-- keep settled_amount NULL, and revenue falls back to the payment amount for them.
+-- ==============================================
+
+CREATE TABLE IF NOT EXISTS job_checkpoints (
+    job_name   VARCHAR(100)                NOT NULL PRIMARY KEY,
+    cursor_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    cursor_id  BIGINT                      NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS settled_at TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS settled_amount NUMERIC(12, 2);
+
+-- The sweep walks pending payments by id; pending ones are a small, recent share of the table
+
+-- Plain table
+SELECT 'CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payments_pending_id '
+       'ON payments (id) WHERE status = ''PENDING'''
+FROM pg_class c
+WHERE c.oid = 'public.payments'::regclass AND c.relkind = 'r'
+\gexec
+
+-- Partitioned table (make db-partition): empty parent index, then each partition indexed concurrently
+-- and attached
+SELECT 'CREATE INDEX IF NOT EXISTS idx_payments_pending_id '
+       'ON ONLY payments (id) WHERE status = ''PENDING'''
+FROM pg_class c
+WHERE c.oid = 'public.payments'::regclass AND c.relkind = 'p'
+\gexec
+
+SELECT format('CREATE INDEX CONCURRENTLY IF NOT EXISTS %I ON %s (id) WHERE status = ''PENDING''',
+              p.relname || '_pending_id', p.oid::regclass),
+       format('ALTER INDEX idx_payments_pending_id ATTACH PARTITION %I', p.relname || '_pending_id')
+FROM pg_inherits i
+JOIN pg_class p ON p.oid = i.inhrelid
+WHERE i.inhparent = 'public.payments'::regclass
+  AND EXISTS (SELECT 1 FROM pg_class c WHERE c.relname = 'idx_payments_pending_id' AND c.relkind = 'I')
+\gexec
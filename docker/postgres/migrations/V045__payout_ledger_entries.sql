@@ -0,0 +1,61 @@
+-- ==============================================
+-- Seller payout ledger (PayoutSettlementEngine).
+--
+-- One immutable SETTLEMENT row per completed order, plus a negated REVERSAL row when the order is
+-- returned after it was settled. Order and shop are plain ids, without foreign keys into the
+-- partitioned order tables. Settlement cursors live in job_checkpoints (V044).
+-- Unsettled orders are found per shop by keyset on (shop_id, order_status, id) through
+-- idx_orders_shop_status_id.
+-- ==============================================
+
+CREATE SEQUENCE IF NOT EXISTS payout_ledger_entries_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS payout_ledger_entries (
+    id                 BIGINT                      PRIMARY KEY,
+    shop_id            BIGINT                      NOT NULL,
+    order_id           BIGINT                      NOT NULL,
+    entry_type         VARCHAR(20)                 NOT NULL DEFAULT 'SETTLEMENT',
+    order_number       VARCHAR(50)                 NOT NULL,
+    period             VARCHAR(7)                  NOT NULL,
+    completed_at       TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    gross_amount       NUMERIC(14, 2)              NOT NULL,
+    commission_rate    NUMERIC(6, 4)               NOT NULL,
+    commission_amount  NUMERIC(14, 2)              NOT NULL,
+    gateway_fee_rate   NUMERIC(6, 4)               NOT NULL,
+    gateway_fee_amount NUMERIC(14, 2)              NOT NULL,
+    net_amount         NUMERIC(14, 2)              NOT NULL,
+    settled_at         TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_payout_ledger_order_type UNIQUE (order_id, entry_type),
+    CONSTRAINT chk_payout_ledger_entry_type CHECK (entry_type IN ('SETTLEMENT', 'REVERSAL'))
+);
+
+ALTER SEQUENCE payout_ledger_entries_seq OWNED BY payout_ledger_entries.id;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payout_ledger_shop_period
+    ON payout_ledger_entries (shop_id, period, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payout_ledger_period_shop
+    ON payout_ledger_entries (period, shop_id);
+
+-- Plain table
+SELECT 'CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_shop_status_id '
+       'ON orders (shop_id, order_status, id)'
+FROM pg_class c
+WHERE c.oid = 'public.orders'::regclass AND c.relkind = 'r'
+\gexec
+
+-- Partitioned table (make db-partition): empty parent index, then each partition indexed concurrently
+-- and attached
+SELECT 'CREATE INDEX IF NOT EXISTS idx_orders_shop_status_id '
+       'ON ONLY orders (shop_id, order_status, id)'
+FROM pg_class c
+WHERE c.oid = 'public.orders'::regclass AND c.relkind = 'p'
+\gexec
+
+SELECT format('CREATE INDEX CONCURRENTLY IF NOT EXISTS %I ON %s (shop_id, order_status, id)',
+              p.relname || '_shop_status_id', p.oid::regclass),
+       format('ALTER INDEX idx_orders_shop_status_id ATTACH PARTITION %I', p.relname || '_shop_status_id')
+FROM pg_inherits i
+JOIN pg_class p ON p.oid = i.inhrelid
+WHERE i.inhparent = 'public.orders'::regclass
+  AND EXISTS (SELECT 1 FROM pg_class c WHERE c.relname = 'idx_orders_shop_status_id' AND c.relkind = 'I')
+\gexec
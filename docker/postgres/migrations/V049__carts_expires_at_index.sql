@@ -0,0 +1,9 @@
+-- ==============================================
+-- Expired cart cleanup (CartCleanupJob).
+--
+-- The job claims the oldest expired carts chunk by chunk (expires_at < now ORDER BY expires_at, FOR UPDATE
+-- SKIP LOCKED); without this index every chunk scans the whole carts table.
+-- ==============================================
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_carts_expires_at
+    ON carts (expires_at);
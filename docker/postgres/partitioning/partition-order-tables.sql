@@ -0,0 +1,122 @@
+-- ==============================================
+-- Monthly range partitioning on created_at for the order tables
+-- (master_orders, orders, order_items, payments).
+--
+-- One-time, opt-in migration for PostgreSQL 12+. Run it with the application stopped:
+--   make db-partition
+-- It is idempotent: tables that are already partitioned are skipped.
+--
+-- What changes per table:
+--   * the table becomes PARTITION BY RANGE (created_at) with one partition per month
+--     (<table>_pYYYYMM) from the oldest row up to three months ahead, plus <table>_default
+--   * the primary key becomes (id, created_at); ids keep coming from a sequence
+--   * unique constraints get created_at appended (PostgreSQL requires the partition key in them)
+--   * foreign keys pointing AT the table are dropped, because the referenced id alone is no
+--     longer unique at the database level; the application still links rows by id.
+--     Foreign keys FROM the table to other tables are kept.
+--
+-- With id no longer unique on its own, a lookup by id probes every partition. The application bounds
+-- its hot queries by created_at so PostgreSQL prunes partitions: entity UPDATEs and DELETEs carry
+-- created_at (PartitionedEntity), bulk status updates use the range of the loaded orders, and lookups
+-- by order id take the range from buyer_order_view, which is keyed by order id alone.
+-- OrderPartitionedTablesTest checks this against a partitioned database: make test-partitioned
+--
+-- Later partitions are created (and old ones detached) by OrderPartitionMaintenance in the
+-- application. With ddl-auto=update Hibernate will log warnings when it tries to re-add the
+-- dropped foreign keys; they are harmless.
+-- ==============================================
+
+CREATE OR REPLACE FUNCTION sc_partition_by_created_at(p_table text) RETURNS void AS $$
+DECLARE
+    v_legacy     text := p_table || '_unpartitioned';
+    v_seq        text := p_table || '_id_seq_partitioned';
+    v_indexes    text[];
+    v_constraints text[];
+    v_first      date;
+    v_last       date := (date_trunc('month', now()) + interval '3 months')::date;
+    v_month      date;
+    v_def        text;
+    r            record;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table pt
+               JOIN pg_class c ON c.oid = pt.partrelid
+               WHERE c.relname = p_table AND c.relnamespace = 'public'::regnamespace) THEN
+        RAISE NOTICE '% is already partitioned, skipping', p_table;
+        RETURN;
+    END IF;
+
+    -- Foreign keys referencing this table cannot survive partitioning
+    FOR r IN SELECT conname, conrelid::regclass AS referencing
+             FROM pg_constraint WHERE contype = 'f' AND confrelid = ('public.' || p_table)::regclass LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', r.referencing, r.conname);
+        RAISE NOTICE 'Dropped foreign key % on %', r.conname, r.referencing;
+    END LOOP;
+
+    -- Remember secondary indexes and constraints before the old table goes away
+    SELECT array_agg(pg_get_indexdef(i.indexrelid)) INTO v_indexes
+    FROM pg_index i
+    WHERE i.indrelid = ('public.' || p_table)::regclass
+      AND NOT i.indisprimary
+      AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid);
+
+    SELECT array_agg(CASE WHEN contype = 'u'
+                          THEN format('ALTER TABLE %I ADD CONSTRAINT %I %s', p_table, conname,
+                                      regexp_replace(pg_get_constraintdef(oid), '\)$', ', created_at)'))
+                          ELSE format('ALTER TABLE %I ADD CONSTRAINT %I %s', p_table, conname,
+                                      pg_get_constraintdef(oid)) END)
+    INTO v_constraints
+    FROM pg_constraint
+    WHERE conrelid = ('public.' || p_table)::regclass AND contype IN ('u', 'f', 'c');
+
+    EXECUTE format('SELECT date_trunc(''month'', COALESCE(MIN(created_at), now()))::date FROM %I', p_table)
+        INTO v_first;
+
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', p_table, v_legacy);
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING STORAGE INCLUDING COMMENTS) '
+                   'PARTITION BY RANGE (created_at)', p_table, v_legacy);
+
+    v_month := v_first;
+    WHILE v_month <= v_last LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                       p_table || '_p' || to_char(v_month, 'YYYYMM'), p_table,
+                       v_month, (v_month + interval '1 month')::date);
+        v_month := (v_month + interval '1 month')::date;
+    END LOOP;
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', p_table || '_default', p_table);
+
+    EXECUTE format('INSERT INTO %I SELECT * FROM %I', p_table, v_legacy);
+
+    -- Identity columns are not supported on partitioned tables before PostgreSQL 17
+    EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I', v_seq);
+    EXECUTE format('SELECT setval(%L, COALESCE((SELECT MAX(id) FROM %I), 0) + 1, false)', v_seq, p_table);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', p_table, v_seq);
+    EXECUTE format('ALTER SEQUENCE %I OWNED BY %I.id', v_seq, p_table);
+
+    EXECUTE format('DROP TABLE %I', v_legacy);
+
+    EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id, created_at)', p_table);
+    IF v_constraints IS NOT NULL THEN
+        FOREACH v_def IN ARRAY v_constraints LOOP
+            EXECUTE v_def;
+        END LOOP;
+    END IF;
+    IF v_indexes IS NOT NULL THEN
+        FOREACH v_def IN ARRAY v_indexes LOOP
+            EXECUTE v_def;
+        END LOOP;
+    END IF;
+
+    RAISE NOTICE 'Partitioned % by month from % to %', p_table, v_first, v_last;
+END;
+$$ LANGUAGE plpgsql;
+
+BEGIN;
+-- Parents first, so the foreign keys of the children that point at them are dropped before
+-- their own constraint definitions are captured
+SELECT sc_partition_by_created_at('master_orders');
+SELECT sc_partition_by_created_at('orders');
+SELECT sc_partition_by_created_at('order_items');
+SELECT sc_partition_by_created_at('payments');
+COMMIT;
+
+DROP FUNCTION sc_partition_by_created_at(text);
@@ -2,6 +2,7 @@ package com.simplecommerce_mdm.cart.controller;
 
 import com.simplecommerce_mdm.cart.dto.*;
 import com.simplecommerce_mdm.cart.service.CartService;
+import com.simplecommerce_mdm.cart.service.CartVariantFeed;
 import com.simplecommerce_mdm.common.dto.ApiResponse;
 import com.simplecommerce_mdm.config.CustomUserDetails;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,11 +12,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Slf4j
 @RestController
@@ -26,6 +31,7 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private final CartService cartService;
+    private final CartVariantFeed cartVariantFeed;
 
     @GetMapping
     @Operation(
@@ -163,23 +169,50 @@ public class CartController {
     @GetMapping("/count")
     @Operation(
             summary = "Đếm số lượng items trong giỏ hàng",
-            description = "Lấy tổng số items (không phải quantity) trong giỏ hàng của user"
+            description = "Lấy tổng số items (không phải quantity) trong giỏ hàng của user. " +
+                    "Trả về ETag; gửi lại qua If-None-Match để nhận 304 khi số lượng không đổi"
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Lấy số lượng thành công"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Số lượng không đổi"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Chưa đăng nhập")
     })
     public ResponseEntity<ApiResponse<Long>> getCartItemCount(
-            @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails) {
+            @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(hidden = true) WebRequest webRequest) {
         
         Long count = cartService.getCartItemCount(userDetails);
-        
-        return ResponseEntity.ok(
-                ApiResponse.<Long>builder()
+        // Phản hồi riêng cho từng user nên ETag chỉ cần số lượng
+        String eTag = "W/\"cart-count-" + count + "\"";
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .body(ApiResponse.<Long>builder()
                         .statusCode(HttpStatus.OK.value())
                         .message("Lấy số lượng items thành công")
                         .data(count)
-                        .build()
-        );
+                        .build());
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Theo dõi thay đổi giá và tồn kho trong giỏ hàng",
+            description = "Mở kết nối Server-Sent Events. Mỗi khi giá hoặc tồn kho của một variant trong giỏ thay đổi, " +
+                    "server gửi sự kiện \"" + CartVariantFeed.EVENT_NAME + "\" kèm các cờ hasPriceChanges/hasOutOfStockItems mới"
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Đã mở kết nối"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Chưa đăng nhập")
+    })
+    public SseEmitter subscribeCartChanges(
+            @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails) {
+        
+        return cartVariantFeed.subscribe(userDetails.getUser().getId());
     }
-} 
\ No newline at end of file
+}
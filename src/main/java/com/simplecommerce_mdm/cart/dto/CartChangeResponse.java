@@ -0,0 +1,26 @@
+package com.simplecommerce_mdm.cart.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Sự kiện gửi qua SSE khi giá hoặc tồn kho của variant trong giỏ hàng thay đổi")
+public class CartChangeResponse {
+
+    @Schema(description = "ID các variant trong giỏ vừa thay đổi", example = "[1, 2]")
+    private List<Long> variantIds;
+
+    @Schema(description = "Có item nào thay đổi giá không", example = "true")
+    private Boolean hasPriceChanges;
+
+    @Schema(description = "Có item nào hết hàng không", example = "false")
+    private Boolean hasOutOfStockItems;
+}
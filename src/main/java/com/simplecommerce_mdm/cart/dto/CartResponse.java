@@ -1,5 +1,6 @@
 package com.simplecommerce_mdm.cart.dto;
 
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -37,6 +38,12 @@ public class CartResponse {
     @Schema(description = "Tổng tiền tạm tính (chưa ship + tax)", example = "2999.97")
     private BigDecimal subtotal;
     
+    @Schema(description = "Tổng giảm giá từ khuyến mãi tự động (chưa gồm phí ship)", example = "300.00")
+    private BigDecimal promotionDiscount;
+    
+    @Schema(description = "Các khuyến mãi tự động được áp dụng cho giỏ hàng")
+    private List<PromotionEvaluation.AppliedPromotion> appliedPromotions;
+    
     @Schema(description = "Thời gian hết hạn giỏ hàng")
     private OffsetDateTime expiresAt;
     
@@ -16,7 +16,9 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = {
+    @Index(name = "idx_carts_expires_at", columnList = "expires_at")
+})
 public class Cart extends BaseEntity {
 
     @Id
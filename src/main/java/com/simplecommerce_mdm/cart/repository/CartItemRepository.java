@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -32,6 +33,34 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
      */
     @Query("SELECT ci FROM CartItem ci WHERE ci.cart.user.id = :userId AND ci.id IN :cartItemIds ORDER BY ci.addedAt DESC")
     List<CartItem> findByCartUserIdAndIdIn(@Param("userId") Long userId, @Param("cartItemIds") List<Long> cartItemIds);
+
+    /**
+     * Tìm tất cả items của user kèm variant, product và shop (dùng cho checkout, tránh lazy load từng item)
+     */
+    @Query("SELECT ci FROM CartItem ci " +
+           "JOIN FETCH ci.variant v JOIN FETCH v.product p JOIN FETCH p.shop " +
+           "WHERE ci.cart.user.id = :userId ORDER BY ci.addedAt DESC")
+    List<CartItem> findForCheckoutByCartUserId(@Param("userId") Long userId);
+    
+    /**
+     * Tìm specific items của user theo IDs kèm variant, product và shop (dùng cho checkout)
+     */
+    @Query("SELECT ci FROM CartItem ci " +
+           "JOIN FETCH ci.variant v JOIN FETCH v.product p JOIN FETCH p.shop " +
+           "WHERE ci.cart.user.id = :userId AND ci.id IN :cartItemIds ORDER BY ci.addedAt DESC")
+    List<CartItem> findForCheckoutByCartUserIdAndIdIn(@Param("userId") Long userId, @Param("cartItemIds") List<Long> cartItemIds);
+    
+    /**
+     * Lấy variant IDs trong giỏ hàng của user (kiểm tra hàng hot trước khi checkout)
+     */
+    @Query("SELECT ci.variant.id FROM CartItem ci WHERE ci.cart.user.id = :userId")
+    List<Long> findVariantIdsByCartUserId(@Param("userId") Long userId);
+    
+    /**
+     * Lấy variant IDs của các items được chọn trong giỏ hàng của user
+     */
+    @Query("SELECT ci.variant.id FROM CartItem ci WHERE ci.cart.user.id = :userId AND ci.id IN :cartItemIds")
+    List<Long> findVariantIdsByCartUserIdAndIdIn(@Param("userId") Long userId, @Param("cartItemIds") List<Long> cartItemIds);
     
     /**
      * Tìm item theo ID và userId (để bảo mật)
@@ -39,6 +68,13 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("SELECT ci FROM CartItem ci WHERE ci.id = :itemId AND ci.cart.user.id = :userId")
     Optional<CartItem> findByIdAndUserId(@Param("itemId") Long itemId, @Param("userId") Long userId);
     
+    /**
+     * Cập nhật số lượng của item (ghi trễ từ cart store)
+     */
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = :quantity WHERE ci.id = :itemId")
+    int updateQuantity(@Param("itemId") Long itemId, @Param("quantity") Integer quantity);
+    
     /**
      * Xóa tất cả items trong giỏ hàng của user
      */
@@ -53,6 +89,13 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("DELETE FROM CartItem ci WHERE ci.cart.user.id = :userId AND ci.id IN :cartItemIds")
     void deleteByCartUserIdAndIdIn(@Param("userId") Long userId, @Param("cartItemIds") List<Long> cartItemIds);
     
+    /**
+     * Xóa tất cả items của các cart theo IDs
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN :cartIds")
+    int deleteByCartIdIn(@Param("cartIds") Collection<UUID> cartIds);
+    
     /**
      * Xóa tất cả items của một cart
      */
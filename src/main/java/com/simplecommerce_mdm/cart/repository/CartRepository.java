@@ -2,12 +2,20 @@ package com.simplecommerce_mdm.cart.repository;
 
 import com.simplecommerce_mdm.cart.model.Cart;
 import com.simplecommerce_mdm.user.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,10 +35,72 @@ public interface CartRepository extends JpaRepository<Cart, UUID> {
     Optional<Cart> findByUserId(@Param("userId") Long userId);
     
     /**
-     * Tìm các giỏ hàng đã hết hạn để cleanup
+     * Tìm giỏ hàng của user kèm items trong một query (nạp vào cart store)
      */
-    @Query("SELECT c FROM Cart c WHERE c.expiresAt IS NOT NULL AND c.expiresAt < :currentTime")
-    List<Cart> findExpiredCarts(@Param("currentTime") OffsetDateTime currentTime);
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.cartItems WHERE c.user.id = :userId")
+    Optional<Cart> findWithItemsByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Version (updated_at) của giỏ hàng theo userId; cart store so với bản đang giữ trong bộ nhớ
+     */
+    @Query("SELECT c.updatedAt FROM Cart c WHERE c.user.id = :userId")
+    Optional<LocalDateTime> findUpdatedAtByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Version (updated_at) của giỏ hàng theo ID
+     */
+    @Query("SELECT c.updatedAt FROM Cart c WHERE c.id = :cartId")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("cartId") UUID cartId);
+    
+    /**
+     * Gia hạn giỏ hàng (ghi trễ từ cart store)
+     */
+    @Modifying
+    @Query("UPDATE Cart c SET c.expiresAt = :expiresAt, c.updatedAt = :updatedAt WHERE c.id = :cartId")
+    int touch(@Param("cartId") UUID cartId, @Param("expiresAt") OffsetDateTime expiresAt,
+              @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Gia hạn giỏ hàng và đổi version, chỉ khi version chưa bị node khác đổi; trả về 0 nếu đã bị đổi
+     */
+    @Modifying
+    @Query("UPDATE Cart c SET c.expiresAt = :expiresAt, c.updatedAt = :updatedAt " +
+           "WHERE c.id = :cartId AND c.updatedAt = :expectedUpdatedAt")
+    int touchIfUnchanged(@Param("cartId") UUID cartId, @Param("expiresAt") OffsetDateTime expiresAt,
+                         @Param("updatedAt") LocalDateTime updatedAt,
+                         @Param("expectedUpdatedAt") LocalDateTime expectedUpdatedAt);
+    
+    /**
+     * Đổi version của giỏ hàng sau khi items thay đổi, chỉ khi version chưa bị node khác đổi
+     */
+    @Modifying
+    @Query("UPDATE Cart c SET c.updatedAt = :updatedAt WHERE c.id = :cartId AND c.updatedAt = :expectedUpdatedAt")
+    int bumpVersionIfUnchanged(@Param("cartId") UUID cartId, @Param("updatedAt") LocalDateTime updatedAt,
+                               @Param("expectedUpdatedAt") LocalDateTime expectedUpdatedAt);
+    
+    /**
+     * Đổi version của giỏ hàng theo userId, để các node khác nạp lại giỏ hàng
+     */
+    @Modifying
+    @Query("UPDATE Cart c SET c.updatedAt = :updatedAt WHERE c.user.id = :userId")
+    int bumpVersionByUserId(@Param("userId") Long userId, @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Tìm và khóa một lô giỏ hàng đã hết hạn để cleanup, cũ nhất trước. Giỏ đang bị node khác khóa sẽ bị bỏ qua.
+     * Lấy kèm userId từ cột user_id (không join users, chỉ khóa dòng carts)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT c.id AS id, c.user.id AS userId FROM Cart c " +
+           "WHERE c.expiresAt IS NOT NULL AND c.expiresAt < :currentTime ORDER BY c.expiresAt ASC")
+    List<ExpiredCartRow> findExpiredChunkForUpdate(@Param("currentTime") OffsetDateTime currentTime, Pageable pageable);
+    
+    /**
+     * Xóa các giỏ hàng theo IDs (items phải được xóa trước)
+     */
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.id IN :cartIds")
+    int deleteByIdIn(@Param("cartIds") Collection<UUID> cartIds);
     
     /**
      * Đếm số lượng item trong giỏ hàng của user
@@ -42,4 +112,10 @@ public interface CartRepository extends JpaRepository<Cart, UUID> {
      * Kiểm tra user đã có giỏ hàng chưa
      */
     boolean existsByUser(User user);
-} 
\ No newline at end of file
+    
+    interface ExpiredCartRow {
+        UUID getId();
+        
+        Long getUserId();
+    }
+}
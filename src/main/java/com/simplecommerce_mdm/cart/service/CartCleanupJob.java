@@ -0,0 +1,156 @@
+package com.simplecommerce_mdm.cart.service;
+
+import com.simplecommerce_mdm.cart.repository.CartItemRepository;
+import com.simplecommerce_mdm.cart.repository.CartRepository;
+import com.simplecommerce_mdm.cart.repository.CartRepository.ExpiredCartRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes carts whose {@code expires_at} has passed, with their items. Works in bounded chunks, one short
+ * transaction per chunk, sleeping {@code pause-ms} between chunks so row locks are held briefly and
+ * cart traffic gets its turn. Each chunk is claimed with FOR UPDATE SKIP LOCKED, so several nodes can
+ * run the job at once without waiting on or deleting the same carts. A cart being added to holds its row
+ * lock ({@link CartStore#findOrCreate}), so it is skipped rather than deleted under the new item.
+ */
+@Slf4j(topic = "CART-CLEANUP")
+@Component
+public class CartCleanupJob {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final CartCountCache cartCountCache;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter cartCounter;
+    private final Counter itemCounter;
+    private final Counter chunkCounter;
+    private final Timer runTimer;
+
+    @Value("${business.cart.cleanup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${business.cart.cleanup.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${business.cart.cleanup.max-chunks-per-run:100}")
+    private int maxChunksPerRun;
+
+    @Value("${business.cart.cleanup.pause-ms:200}")
+    private long pauseMs;
+
+    public CartCleanupJob(CartRepository cartRepository,
+                          CartItemRepository cartItemRepository,
+                          CartStore cartStore,
+                          CartCountCache cartCountCache,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.cartStore = cartStore;
+        this.cartCountCache = cartCountCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.cartCounter = Counter.builder("carts.cleanup.carts")
+                .description("Expired carts deleted")
+                .register(meterRegistry);
+        this.itemCounter = Counter.builder("carts.cleanup.items")
+                .description("Items of expired carts deleted")
+                .register(meterRegistry);
+        this.chunkCounter = Counter.builder("carts.cleanup.chunks")
+                .description("Chunks processed by the cart cleanup job")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("carts.cleanup.run")
+                .description("Duration of cart cleanup runs")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${business.cart.cleanup.interval-ms:3600000}",
+            initialDelayString = "${business.cart.cleanup.initial-delay-ms:300000}")
+    public void purgeExpiredCarts() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runTimer.record(this::runOnce);
+        } catch (Exception e) {
+            log.error("Cart cleanup run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public record Purged(int carts, int items) {
+    }
+
+    /**
+     * Delete up to {@code max-chunks-per-run} chunks of expired carts and return how many rows went
+     */
+    public Purged runOnce() {
+        OffsetDateTime now = OffsetDateTime.now();
+        int carts = 0;
+        int items = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            if (chunk > 0 && !pause()) {
+                break;
+            }
+            Purged purged = transactionTemplate.execute(status -> purgeChunk(now));
+            if (purged == null || purged.carts() == 0) {
+                break;
+            }
+            chunkCounter.increment();
+            cartCounter.increment(purged.carts());
+            itemCounter.increment(purged.items());
+            carts += purged.carts();
+            items += purged.items();
+            if (purged.carts() < chunkSize) {
+                break;
+            }
+        }
+
+        log.info("Purged {} expired carts and {} cart items", carts, items);
+        return new Purged(carts, items);
+    }
+
+    /**
+     * Claim one chunk of expired carts and delete them with their items; runs in its own transaction
+     */
+    private Purged purgeChunk(OffsetDateTime now) {
+        List<ExpiredCartRow> expired = cartRepository.findExpiredChunkForUpdate(now, PageRequest.of(0, chunkSize));
+        if (expired.isEmpty()) {
+            return new Purged(0, 0);
+        }
+        List<UUID> cartIds = expired.stream().map(ExpiredCartRow::getId).collect(Collectors.toList());
+        int items = cartItemRepository.deleteByCartIdIn(cartIds);
+        int carts = cartRepository.deleteByIdIn(cartIds);
+
+        expired.stream().map(ExpiredCartRow::getUserId).filter(Objects::nonNull).forEach(userId -> {
+            cartStore.forgetAfterCommit(userId);
+            cartCountCache.invalidateAfterCommit(userId);
+        });
+        return new Purged(carts, items);
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
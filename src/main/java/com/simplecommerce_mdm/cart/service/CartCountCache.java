@@ -0,0 +1,131 @@
+package com.simplecommerce_mdm.cart.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cart item counts for the header badge, by user id. Every change to a user's cart items marks the count
+ * stale once the change commits, and the next read loads it again. Each mark gets a new stamp, and a load
+ * is only kept if the stamp it started from is still current, so a load racing a commit can never
+ * put back the old count. Marks only reach the node that made the change, so counts are also reloaded
+ * once older than {@code max-age-ms}; changes made on other nodes show within that time. Holds up to
+ * {@code capacity} users, dropping the least recently read ones beyond that.
+ */
+@Component
+public class CartCountCache {
+
+    private static final long ABSENT = 0;
+
+    private record Entry(Long count, long stamp, long loadedAt) {
+    }
+
+    // Access-ordered, guarded by itself
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLong clock = new AtomicLong();
+    // Bumped before entries are dropped, so loads that started before then are not kept
+    private final AtomicLong trims = new AtomicLong();
+    private final int capacity;
+    private final long maxAgeNanos;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public CartCountCache(MeterRegistry meterRegistry,
+                          @Value("${business.cart.count-cache.capacity:100000}") int capacity,
+                          @Value("${business.cart.count-cache.max-age-ms:5000}") long maxAgeMs) {
+        this.capacity = capacity;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+        this.hitCounter = Counter.builder("cart.count.cache.requests").tag("result", "hit")
+                .description("Cart count lookups served by the count cache")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("cart.count.cache.requests").tag("result", "miss")
+                .description("Cart count lookups served by the count cache")
+                .register(meterRegistry);
+        Gauge.builder("cart.count.cache.size", this, CartCountCache::size)
+                .description("Users with a cached cart count")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The user's cart item count, loaded with {@code loader} when not cached or older than the max age
+     */
+    public long get(Long userId, LongSupplier loader) {
+        long now = System.nanoTime();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+        }
+        if (entry != null && entry.count() != null && now - entry.loadedAt() < maxAgeNanos) {
+            hitCounter.increment();
+            return entry.count();
+        }
+        missCounter.increment();
+        long seen = entry != null ? entry.stamp() : ABSENT;
+        long trimsSeen = trims.get();
+        long count = loader.getAsLong();
+        synchronized (entries) {
+            Entry current = entries.get(userId);
+            long stamp = current != null ? current.stamp() : ABSENT;
+            if (stamp == seen && (current != null || trims.get() == trimsSeen)) {
+                entries.put(userId, new Entry(count, clock.incrementAndGet(), now));
+                trim();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Mark the user's count stale once the current transaction commits (at once outside a transaction)
+     */
+    public void invalidateAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(userId);
+            }
+        });
+    }
+
+    public void invalidate(Long userId) {
+        synchronized (entries) {
+            entries.put(userId, new Entry(null, clock.incrementAndGet(), 0));
+            trim();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Drop least recently read users down to capacity; called holding the entries lock
+     */
+    private void trim() {
+        if (entries.size() <= capacity) {
+            return;
+        }
+        trims.incrementAndGet();
+        Iterator<Long> eldest = entries.keySet().iterator();
+        while (entries.size() > capacity && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,914 @@
+package com.simplecommerce_mdm.cart.service;
+
+import com.simplecommerce_mdm.cart.model.Cart;
+import com.simplecommerce_mdm.cart.model.CartItem;
+import com.simplecommerce_mdm.cart.repository.CartItemRepository;
+import com.simplecommerce_mdm.cart.repository.CartRepository;
+import com.simplecommerce_mdm.category.model.Category;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.product.repository.ProductVariantRepository;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Active carts kept in memory by user id, in front of {@code carts}/{@code cart_items}. Quantity changes
+ * and expiry bumps are applied in memory and written behind by {@link #flushDirty()}; repeated changes
+ * to the same item coalesce, so only the latest quantity is written. Adding and removing items is written
+ * through at once, since new rows need their database id. A miss loads the cart from the database.
+ * Pending writes are flushed on shutdown. The store holds up to {@code capacity} carts, evicting the
+ * least recently used clean ones; carts with unwritten changes stay until flushed. Pushing out the
+ * expiry of a cart already expired in the database is written through, so the expired-cart cleanup
+ * never deletes a cart that is in use again.
+ * <p>
+ * The price, stock and display data of the variants in cached carts are kept once per variant, with a
+ * reverse index from variant to the users holding it. {@link #refreshVariants} reloads changed variants
+ * and updates the price-change and out-of-stock flags of the carts holding them, so rendering a cached
+ * cart reads nothing from the database. Snapshots older than {@code variant-snapshot.max-age-ms} are
+ * reloaded on the next render, covering changes made on other nodes.
+ * <p>
+ * {@code carts.updated_at} is the cart's version: every write from any node moves it. A cached cart is
+ * checked against it when used, at most every {@code write-behind.revalidate-ms}, and reloaded when
+ * another node changed or deleted the cart; writes behind only apply while the version is still the one
+ * the cart was loaded with. Otherwise the cart is reloaded and the unwritten quantities are applied on top
+ * of it, the last write per item winning; quantities of items removed meanwhile are dropped.
+ * Sticky sessions keep this rare. With {@code write-behind.enabled=false} nothing is cached and every change is written in the caller's
+ * transaction.
+ */
+@Slf4j(topic = "CART-STORE")
+@Component
+public class CartStore {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final TransactionTemplate flushTransaction;
+    private final boolean writeBehind;
+    private final int capacity;
+    private final long snapshotMaxAgeNanos;
+    private final long revalidateNanos;
+
+    // Access-ordered, guarded by itself
+    private final LinkedHashMap<Long, CachedCart> carts = new LinkedHashMap<>(256, 0.75f, true);
+    // Carts with unwritten changes, cached or already evicted
+    private final Map<Long, CachedCart> dirty = new ConcurrentHashMap<>();
+    // Variants of cached carts, and the users whose cached cart holds each of them
+    private final Map<Long, CartVariant> variants = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> holders = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter staleCounter;
+    private final Counter conflictCounter;
+    private final Counter flushedItemCounter;
+    private final Timer flushTimer;
+
+    public CartStore(CartRepository cartRepository,
+                     CartItemRepository cartItemRepository,
+                     ProductVariantRepository productVariantRepository,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     @Value("${business.cart.write-behind.enabled:true}") boolean writeBehind,
+                     @Value("${business.cart.write-behind.capacity:10000}") int capacity,
+                     @Value("${business.cart.variant-snapshot.max-age-ms:300000}") long snapshotMaxAgeMs,
+                     @Value("${business.cart.write-behind.revalidate-ms:1000}") long revalidateMs) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeBehind = writeBehind;
+        this.capacity = capacity;
+        this.snapshotMaxAgeNanos = TimeUnit.MILLISECONDS.toNanos(snapshotMaxAgeMs);
+        this.revalidateNanos = TimeUnit.MILLISECONDS.toNanos(revalidateMs);
+
+        this.hitCounter = Counter.builder("cart.store.requests").tag("result", "hit")
+                .description("Cart lookups served by the cart store")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("cart.store.requests").tag("result", "miss")
+                .description("Cart lookups served by the cart store")
+                .register(meterRegistry);
+        this.staleCounter = Counter.builder("cart.store.requests").tag("result", "stale")
+                .description("Cart lookups served by the cart store")
+                .register(meterRegistry);
+        this.conflictCounter = Counter.builder("cart.store.write.conflicts")
+                .description("Written-behind changes re-applied because another node changed the cart first")
+                .register(meterRegistry);
+        this.flushedItemCounter = Counter.builder("cart.store.flushed.items")
+                .description("Coalesced cart item quantities written behind")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("cart.store.flush")
+                .description("Duration of cart store flushes")
+                .register(meterRegistry);
+        Gauge.builder("cart.store.size", this, CartStore::size)
+                .description("Carts held in memory")
+                .register(meterRegistry);
+        Gauge.builder("cart.store.dirty", dirty, Map::size)
+                .description("Carts with changes not yet written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find the user's cart, loading it on a miss; empty when the user has no cart
+     */
+    public Optional<CachedCart> find(Long userId) {
+        CachedCart cached = lookup(userId);
+        if (cached != null && isCurrent(userId, cached)) {
+            hitCounter.increment();
+            return Optional.of(cached);
+        }
+        missCounter.increment();
+        return cartRepository.findWithItemsByUserId(userId)
+                .map(cart -> cache(userId, CachedCart.of(userId, cart)));
+    }
+
+    /**
+     * Find the user's cart or create it, to add items to in the caller's transaction. The cart's row is
+     * locked until that transaction ends, so the expired-cart cleanup on any node skips it; a cached cart
+     * that another node changed or deleted meanwhile is reloaded or created again. A new cart is inserted
+     * in the caller's transaction.
+     */
+    public CachedCart findOrCreate(User user, OffsetDateTime expiresAt) {
+        Long userId = user.getId();
+        Optional<CachedCart> found = find(userId);
+        if (found.isPresent() && lock(found.get())) {
+            return found.get();
+        }
+        if (found.isPresent()) {
+            staleCounter.increment();
+            evict(userId);
+        }
+
+        // Lock the stored cart before loading it, so no other node changes or deletes it in between
+        LocalDateTime version = CachedCart.nextVersion(null);
+        if (cartRepository.bumpVersionByUserId(userId, version) == 1) {
+            CachedCart loaded = cartRepository.findWithItemsByUserId(userId)
+                    .map(cart -> CachedCart.of(userId, cart))
+                    .orElseThrow();
+            loaded.versionWritten(version);
+            return cache(userId, loaded);
+        }
+
+        Cart cart = cartRepository.saveAndFlush(Cart.builder().user(user).expiresAt(expiresAt).build());
+        // The version as the database stored it, not the in-memory audit timestamp it was rounded from
+        CachedCart created = CachedCart.of(userId, cart);
+        cartRepository.findUpdatedAtById(cart.getId()).ifPresent(created::versionWritten);
+        return cache(userId, created);
+    }
+
+    /**
+     * Cached item count when the cart is in memory, otherwise null
+     */
+    public Integer cachedItemCount(Long userId) {
+        CachedCart cached = lookup(userId);
+        return cached != null ? cached.size() : null;
+    }
+
+    /**
+     * Record an item just inserted by the caller
+     */
+    public void itemAdded(CachedCart cart, CartItem item) {
+        CachedItem added = CachedItem.of(item);
+        cart.put(added);
+        index(cart, added.variantId());
+        refreshFlags(cart);
+        itemsChanged(cart);
+    }
+
+    /**
+     * Set an item's quantity; written behind
+     */
+    public void updateQuantity(Long userId, CachedCart cart, Long itemId, int quantity) {
+        cart.setQuantity(itemId, quantity);
+        refreshFlags(cart);
+        changed(userId, cart);
+    }
+
+    /**
+     * Push the cart's expiry out; written behind unless the stored expiry has passed
+     */
+    public void touch(Long userId, CachedCart cart, OffsetDateTime expiresAt) {
+        boolean expired = cart.isStoredExpired();
+        cart.touch(expiresAt);
+        if (expired) {
+            writeNow(userId, cart);
+        } else {
+            changed(userId, cart);
+        }
+    }
+
+    /**
+     * Delete an item in the caller's transaction and drop it from the cart
+     */
+    public void removeItem(CachedCart cart, Long itemId) {
+        cartItemRepository.deleteById(itemId);
+        cart.remove(itemId).ifPresent(removed -> unindex(cart.getUserId(), removed.variantId()));
+        refreshFlags(cart);
+        itemsChanged(cart);
+    }
+
+    /**
+     * Delete all items in the caller's transaction and empty the cart
+     */
+    public void clearItems(Long userId, CachedCart cart) {
+        cartItemRepository.deleteByCartUserId(userId);
+        unindex(cart);
+        cart.clear();
+        refreshFlags(cart);
+        itemsChanged(cart);
+    }
+
+    /**
+     * Current data of the cart's variants, loading only the ones not held yet or held too long
+     */
+    public Map<Long, CartVariant> variants(CachedCart cart) {
+        Set<Long> variantIds = cart.variantIds();
+        Map<Long, CartVariant> result = new HashMap<>();
+        List<Long> toLoad = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Long variantId : variantIds) {
+            CartVariant held = writeBehind ? variants.get(variantId) : null;
+            if (held != null && now - held.loadedAt() < snapshotMaxAgeNanos) {
+                result.put(variantId, held);
+            } else {
+                toLoad.add(variantId);
+            }
+        }
+        if (!toLoad.isEmpty()) {
+            Map<Long, CartVariant> loaded = load(toLoad);
+            result.putAll(loaded);
+            if (writeBehind) {
+                variants.putAll(loaded);
+            }
+            cart.refreshFlags(result);
+        }
+        return result;
+    }
+
+    /**
+     * The variant as currently stored, for checks that must not go by a snapshot; a held snapshot is
+     * replaced with it
+     */
+    public Optional<CartVariant> loadVariant(Long variantId) {
+        CartVariant variant = load(List.of(variantId)).get(variantId);
+        if (variant != null && writeBehind && holders.containsKey(variantId)) {
+            variants.put(variantId, variant);
+        }
+        return Optional.ofNullable(variant);
+    }
+
+    /**
+     * Reload changed variants held by cached carts and update those carts' flags; returns the carts affected
+     */
+    public List<CachedCart> refreshVariants(Collection<Long> variantIds) {
+        List<Long> held = variantIds.stream().filter(holders::containsKey).distinct().collect(Collectors.toList());
+        if (held.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, CartVariant> loaded = load(held);
+        // Variants no longer found (deleted) are rendered as before: left out of the cart
+        held.stream().filter(variantId -> !loaded.containsKey(variantId)).forEach(variants::remove);
+        variants.putAll(loaded);
+
+        Set<Long> userIds = new HashSet<>();
+        held.forEach(variantId -> userIds.addAll(holders.getOrDefault(variantId, Set.of())));
+        List<CachedCart> affected = new ArrayList<>();
+        for (Long userId : userIds) {
+            CachedCart cart;
+            synchronized (carts) {
+                cart = carts.get(userId);
+            }
+            if (cart != null) {
+                refreshFlags(cart);
+                affected.add(cart);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Write the user's pending changes now, in their own transaction; call before reading the cart from the database
+     */
+    public void flush(Long userId) {
+        CachedCart cart = dirty.get(userId);
+        if (cart != null) {
+            write(userId, cart);
+        }
+    }
+
+    /**
+     * Forget the user's cart once the current transaction commits, after its rows were changed elsewhere.
+     * The cart's version moves in the same transaction, so other nodes reload it too; for deleted carts
+     * use {@link #forgetAfterCommit}.
+     */
+    public void evictAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            evict(userId);
+            return;
+        }
+        cartRepository.bumpVersionByUserId(userId, CachedCart.nextVersion(null));
+        forgetAfterCommit(userId);
+    }
+
+    /**
+     * Forget the user's cart once the current transaction commits, after the cart was deleted; other nodes
+     * notice the deletion when they next check the cart's version
+     */
+    public void forgetAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${business.cart.write-behind.flush-interval-ms:1000}",
+            initialDelayString = "${business.cart.write-behind.flush-interval-ms:1000}")
+    public void flushDirty() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> {
+            for (Map.Entry<Long, CachedCart> entry : dirty.entrySet()) {
+                try {
+                    write(entry.getKey(), entry.getValue());
+                } catch (Exception e) {
+                    log.error("Cart write-behind for user {} failed, retrying next flush: {}",
+                            entry.getKey(), e.getMessage());
+                }
+            }
+        });
+        trim();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushDirty();
+        if (!dirty.isEmpty()) {
+            log.error("{} carts still had unwritten changes at shutdown", dirty.size());
+        }
+    }
+
+    public int size() {
+        synchronized (carts) {
+            return carts.size();
+        }
+    }
+
+    private CachedCart lookup(Long userId) {
+        if (!writeBehind) {
+            return null;
+        }
+        synchronized (carts) {
+            CachedCart cached = carts.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // Evicted with changes still to write: the database copy is stale
+        CachedCart pending = dirty.get(userId);
+        return pending != null ? cache(userId, pending) : null;
+    }
+
+    /**
+     * Whether the cached cart still has the stored version, checked at most every {@code revalidate-ms};
+     * a cart changed or deleted on another node is dropped with its unwritten changes
+     */
+    private boolean isCurrent(Long userId, CachedCart cart) {
+        long now = System.nanoTime();
+        if (!cart.needsCheck(now, revalidateNanos)) {
+            return true;
+        }
+        Optional<LocalDateTime> stored = cartRepository.findUpdatedAtByUserId(userId);
+        if (stored.isPresent() && cart.isCurrent(stored.get(), now)) {
+            return true;
+        }
+        staleCounter.increment();
+        log.debug("Cart of user {} changed on another node, reloading", userId);
+        evict(userId);
+        return false;
+    }
+
+    /**
+     * Move the cart's version in the caller's transaction, holding its row lock until that transaction
+     * ends; false when another node changed or deleted the cart since this copy was loaded
+     */
+    private boolean lock(CachedCart cart) {
+        LocalDateTime version = CachedCart.nextVersion(cart.getVersion());
+        if (cartRepository.bumpVersionIfUnchanged(cart.getId(), version, cart.getVersion()) == 0) {
+            return false;
+        }
+        cart.versionWritten(version);
+        return true;
+    }
+
+    /**
+     * Move the cart's version after an item was added or removed in the caller's transaction. If another
+     * node moved it first, the version still moves so that node reloads, and this copy is reloaded too.
+     */
+    private void itemsChanged(CachedCart cart) {
+        if (!writeBehind) {
+            return;
+        }
+        LocalDateTime version = CachedCart.nextVersion(cart.getVersion());
+        if (cartRepository.bumpVersionIfUnchanged(cart.getId(), version, cart.getVersion()) == 1) {
+            cart.versionWritten(version);
+        } else {
+            cartRepository.bumpVersionByUserId(cart.getUserId(), version);
+            forgetAfterCommit(cart.getUserId());
+        }
+    }
+
+    private CachedCart cache(Long userId, CachedCart cart) {
+        if (!writeBehind) {
+            return cart;
+        }
+        CachedCart cached;
+        boolean full;
+        synchronized (carts) {
+            cached = carts.putIfAbsent(userId, cart);
+            full = carts.size() > capacity;
+        }
+        if (cached == null) {
+            cart.variantIds().forEach(variantId -> index(cart, variantId));
+            refreshFlags(cart);
+        }
+        if (full) {
+            trim();
+        }
+        return cached != null ? cached : cart;
+    }
+
+    private Map<Long, CartVariant> load(Collection<Long> variantIds) {
+        long loadedAt = System.nanoTime();
+        return productVariantRepository.findWithProductAndShopByIdIn(variantIds).stream()
+                .collect(Collectors.toMap(ProductVariant::getId, variant -> CartVariant.of(variant, loadedAt)));
+    }
+
+    private void refreshFlags(CachedCart cart) {
+        if (writeBehind) {
+            cart.refreshFlags(variants);
+        }
+    }
+
+    private void index(CachedCart cart, Long variantId) {
+        if (writeBehind) {
+            holders.computeIfAbsent(variantId, id -> ConcurrentHashMap.newKeySet()).add(cart.getUserId());
+        }
+    }
+
+    private void unindex(Long userId, Long variantId) {
+        holders.computeIfPresent(variantId, (id, userIds) -> {
+            userIds.remove(userId);
+            if (!userIds.isEmpty()) {
+                return userIds;
+            }
+            variants.remove(variantId);
+            return null;
+        });
+    }
+
+    private void unindex(CachedCart cart) {
+        cart.variantIds().forEach(variantId -> unindex(cart.getUserId(), variantId));
+    }
+
+    private void changed(Long userId, CachedCart cart) {
+        if (writeBehind) {
+            dirty.put(userId, cart);
+        } else {
+            writeNow(userId, cart);
+        }
+    }
+
+    /**
+     * Write the cart's pending changes in the caller's transaction. The user is acting on the cart right
+     * now, so the changes are written even when another node changed the cart; this copy is then reloaded.
+     */
+    private void writeNow(Long userId, CachedCart cart) {
+        CachedCart.Pending pending = cart.drain();
+        if (!persist(pending)) {
+            cartRepository.touch(pending.cartId(), pending.expiresAt(), pending.version());
+            pending.quantities().forEach(cartItemRepository::updateQuantity);
+            forgetAfterCommit(userId);
+        }
+        cart.written(pending);
+    }
+
+    private void write(Long userId, CachedCart cart) {
+        // Unregister first: a change made while writing registers the cart again
+        dirty.remove(userId, cart);
+        CachedCart.Pending pending = cart.drain();
+        if (pending.isEmpty()) {
+            cart.written(pending);
+            return;
+        }
+        try {
+            Boolean persisted = flushTransaction.execute(status -> persist(pending));
+            if (!Boolean.TRUE.equals(persisted) && cart.hasVersionMoved(pending.expectedVersion())) {
+                // This node added or removed an item meanwhile: write again against the new version
+                cart.restore(pending);
+                dirty.put(userId, cart);
+                return;
+            }
+            if (!Boolean.TRUE.equals(persisted)) {
+                // Another node changed or deleted the cart since it was loaded
+                conflictCounter.increment();
+                cart.restore(pending);
+                evict(userId);
+                reapply(userId, cart);
+                return;
+            }
+            flushedItemCounter.increment(pending.quantities().size());
+            cart.written(pending);
+        } catch (RuntimeException e) {
+            cart.restore(pending);
+            dirty.put(userId, cart);
+            throw e;
+        }
+    }
+
+    /**
+     * Reload a cart another node changed and apply the changes this node had not written on top of it;
+     * the next flush writes them against the reloaded version
+     */
+    private void reapply(Long userId, CachedCart stale) {
+        CachedCart.Pending unwritten = stale.drain();
+        CachedCart reloaded = flushTransaction.execute(status -> cartRepository.findWithItemsByUserId(userId)
+                .map(cart -> CachedCart.of(userId, cart))
+                .orElse(null));
+        if (reloaded == null) {
+            log.warn("Cart of user {} was deleted on another node, dropping {} unwritten quantities",
+                    userId, unwritten.quantities().size());
+            return;
+        }
+        CachedCart cart = cache(userId, reloaded);
+        int dropped = cart.reapply(unwritten);
+        if (dropped > 0) {
+            log.info("Cart of user {} changed on another node, dropping quantities of {} removed items",
+                    userId, dropped);
+        }
+        refreshFlags(cart);
+        if (!cart.isClean()) {
+            dirty.put(userId, cart);
+        }
+    }
+
+    /**
+     * Move the version and write the changes, unless another node moved the version first
+     */
+    private boolean persist(CachedCart.Pending pending) {
+        if (cartRepository.touchIfUnchanged(pending.cartId(), pending.expiresAt(), pending.version(),
+                pending.expectedVersion()) == 0) {
+            return false;
+        }
+        pending.quantities().forEach(cartItemRepository::updateQuantity);
+        return true;
+    }
+
+    private void evict(Long userId) {
+        CachedCart evicted;
+        synchronized (carts) {
+            evicted = carts.remove(userId);
+        }
+        dirty.remove(userId);
+        if (evicted != null) {
+            unindex(evicted);
+        }
+    }
+
+    /**
+     * Drop least recently used clean carts down to capacity
+     */
+    private void trim() {
+        List<CachedCart> evicted = new ArrayList<>();
+        synchronized (carts) {
+            Iterator<CachedCart> eldest = carts.values().iterator();
+            while (carts.size() > capacity && eldest.hasNext()) {
+                CachedCart cart = eldest.next();
+                if (cart.isClean()) {
+                    eldest.remove();
+                    evicted.add(cart);
+                }
+            }
+        }
+        evicted.forEach(this::unindex);
+    }
+
+    /**
+     * A cart as the store holds it. Callers lock the cart for read-check-write sequences such as
+     * checking stock against the current quantity.
+     */
+    public static final class CachedCart {
+
+        private final UUID id;
+        private final Long userId;
+        private OffsetDateTime expiresAt;
+        // Expiry as last written to the database
+        private OffsetDateTime storedExpiresAt;
+        private LocalDateTime updatedAt;
+        // carts.updated_at as last loaded or written by this node, and when it was last compared
+        private LocalDateTime version;
+        private long checkedAt;
+        private final Map<Long, CachedItem> items = new LinkedHashMap<>();
+        private final Set<Long> dirtyItemIds = new HashSet<>();
+        private boolean touched;
+        private boolean writing;
+        private boolean priceChanges;
+        private boolean outOfStockItems;
+
+        private CachedCart(UUID id, Long userId, OffsetDateTime expiresAt, LocalDateTime updatedAt) {
+            this.id = id;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+            this.storedExpiresAt = expiresAt;
+            this.updatedAt = updatedAt;
+            this.version = updatedAt;
+            this.checkedAt = System.nanoTime();
+        }
+
+        static CachedCart of(Long userId, Cart cart) {
+            CachedCart cached = new CachedCart(cart.getId(), userId, cart.getExpiresAt(), cart.getUpdatedAt());
+            cart.getCartItems().forEach(item -> cached.put(CachedItem.of(item)));
+            return cached;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        /**
+         * Whether an item's price differs from when it was added, as of the last variant change seen
+         */
+        public synchronized boolean hasPriceChanges() {
+            return priceChanges;
+        }
+
+        /**
+         * Whether an item wants more than is in stock, as of the last variant change seen
+         */
+        public synchronized boolean hasOutOfStockItems() {
+            return outOfStockItems;
+        }
+
+        public synchronized OffsetDateTime getExpiresAt() {
+            return expiresAt;
+        }
+
+        public synchronized LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+
+        /**
+         * Items, most recently added first
+         */
+        public synchronized List<CachedItem> items() {
+            List<CachedItem> snapshot = new ArrayList<>(items.values());
+            snapshot.sort(Comparator.comparing(CachedItem::addedAt).reversed());
+            return snapshot;
+        }
+
+        public synchronized Optional<CachedItem> item(Long itemId) {
+            return Optional.ofNullable(items.get(itemId));
+        }
+
+        public synchronized Optional<CachedItem> itemForVariant(Long variantId) {
+            return items.values().stream().filter(item -> item.variantId().equals(variantId)).findFirst();
+        }
+
+        synchronized int size() {
+            return items.size();
+        }
+
+        public synchronized Set<Long> variantIds() {
+            return items.values().stream().map(CachedItem::variantId).collect(Collectors.toSet());
+        }
+
+        /**
+         * Recompute the flags from the given variant data; items without data are left out
+         */
+        synchronized void refreshFlags(Map<Long, CartVariant> variants) {
+            boolean priceChanged = false;
+            boolean outOfStock = false;
+            for (CachedItem item : items.values()) {
+                CartVariant variant = variants.get(item.variantId());
+                if (variant != null) {
+                    priceChanged |= item.priceAtAddition().compareTo(variant.finalPrice()) != 0;
+                    outOfStock |= variant.stockQuantity() < item.quantity();
+                }
+            }
+            this.priceChanges = priceChanged;
+            this.outOfStockItems = outOfStock;
+        }
+
+        synchronized void put(CachedItem item) {
+            items.put(item.id(), item);
+        }
+
+        synchronized void setQuantity(Long itemId, int quantity) {
+            CachedItem item = items.get(itemId);
+            if (item != null) {
+                items.put(itemId, item.withQuantity(quantity));
+                dirtyItemIds.add(itemId);
+            }
+        }
+
+        synchronized void touch(OffsetDateTime expiresAt) {
+            this.expiresAt = expiresAt;
+            this.updatedAt = LocalDateTime.now();
+            this.touched = true;
+        }
+
+        synchronized Optional<CachedItem> remove(Long itemId) {
+            dirtyItemIds.remove(itemId);
+            return Optional.ofNullable(items.remove(itemId));
+        }
+
+        synchronized void clear() {
+            items.clear();
+            dirtyItemIds.clear();
+        }
+
+        synchronized boolean isStoredExpired() {
+            return storedExpiresAt != null && storedExpiresAt.isBefore(OffsetDateTime.now());
+        }
+
+        synchronized LocalDateTime getVersion() {
+            return version;
+        }
+
+        synchronized void versionWritten(LocalDateTime version) {
+            this.version = version;
+        }
+
+        synchronized boolean hasVersionMoved(LocalDateTime since) {
+            return !version.equals(since);
+        }
+
+        synchronized boolean needsCheck(long now, long maxAgeNanos) {
+            return now - checkedAt >= maxAgeNanos;
+        }
+
+        /**
+         * Whether the stored version is the one this copy has; a write in progress counts as current
+         */
+        synchronized boolean isCurrent(LocalDateTime storedVersion, long now) {
+            if (writing || storedVersion.equals(version)) {
+                checkedAt = now;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * A new version after the given one, at the database's microsecond precision
+         */
+        static LocalDateTime nextVersion(LocalDateTime after) {
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            return after != null && !now.isAfter(after) ? after.plus(1, ChronoUnit.MICROS) : now;
+        }
+
+        synchronized boolean isClean() {
+            return dirtyItemIds.isEmpty() && !touched && !writing;
+        }
+
+        /**
+         * Take the latest values of everything changed since the last write
+         */
+        synchronized Pending drain() {
+            Map<Long, Integer> quantities = new HashMap<>();
+            dirtyItemIds.forEach(itemId -> quantities.put(itemId, items.get(itemId).quantity()));
+            Pending pending = new Pending(id, quantities, expiresAt, touched, nextVersion(version), version);
+            dirtyItemIds.clear();
+            touched = false;
+            writing = true;
+            return pending;
+        }
+
+        synchronized void written(Pending pending) {
+            if (pending.touched()) {
+                storedExpiresAt = pending.expiresAt();
+            }
+            version = pending.version();
+            writing = false;
+        }
+
+        /**
+         * Mark a failed write's changes dirty again; the values written next time are the latest ones
+         */
+        synchronized void restore(Pending pending) {
+            pending.quantities().keySet().stream().filter(items::containsKey).forEach(dirtyItemIds::add);
+            touched |= pending.touched();
+            writing = false;
+        }
+
+        /**
+         * Apply changes not written to another copy of this cart: quantities of items this copy still has and
+         * a later expiry; returns how many quantities were dropped because the item is gone
+         */
+        synchronized int reapply(Pending unwritten) {
+            int dropped = 0;
+            for (Map.Entry<Long, Integer> quantity : unwritten.quantities().entrySet()) {
+                if (items.containsKey(quantity.getKey())) {
+                    setQuantity(quantity.getKey(), quantity.getValue());
+                } else {
+                    dropped++;
+                }
+            }
+            if (unwritten.touched() && (expiresAt == null || unwritten.expiresAt().isAfter(expiresAt))) {
+                touch(unwritten.expiresAt());
+            }
+            return dropped;
+        }
+
+        /**
+         * Changes to write; expiresAt is the current expiry, changed by this node when touched
+         */
+        record Pending(UUID cartId, Map<Long, Integer> quantities, OffsetDateTime expiresAt, boolean touched,
+                       LocalDateTime version, LocalDateTime expectedVersion) {
+            boolean isEmpty() {
+                return quantities.isEmpty() && !touched;
+            }
+        }
+    }
+
+    public record CachedItem(Long id, Long variantId, int quantity, BigDecimal priceAtAddition, OffsetDateTime addedAt) {
+
+        static CachedItem of(CartItem item) {
+            return new CachedItem(item.getId(), item.getVariant().getId(), item.getQuantity(),
+                    item.getPriceAtAddition(), item.getAddedAt());
+        }
+
+        CachedItem withQuantity(int quantity) {
+            return new CachedItem(id, variantId, quantity, priceAtAddition, addedAt);
+        }
+    }
+
+    /**
+     * What a cart shows of a variant, detached from the persistence context. Inactive variants and variants
+     * of deleted products show as out of stock.
+     */
+    public record CartVariant(Long id, String sku, String options, String imagePublicId,
+                              BigDecimal finalPrice, int stockQuantity,
+                              Long productId, String productName, String productSlug, Integer categoryId,
+                              Long shopId, String shopName, long loadedAt) {
+
+        static CartVariant of(ProductVariant variant, long loadedAt) {
+            Product product = variant.getProduct();
+            boolean available = !Boolean.FALSE.equals(variant.getIsActive()) && product.getDeletedAt() == null;
+            return new CartVariant(variant.getId(), variant.getSku(), variant.getOptions(),
+                    variant.getMainImageCloudinaryPublicId(), variant.getFinalPrice(),
+                    available && variant.getStockQuantity() != null ? variant.getStockQuantity() : 0,
+                    product.getId(), product.getName(), product.getSlug(),
+                    product.getCategory() != null ? product.getCategory().getId() : null,
+                    product.getShop().getId(), product.getShop().getName(), loadedAt);
+        }
+
+        /**
+         * Detached variant with its product, shop and category ids, for code that works on entities
+         */
+        public ProductVariant toVariant() {
+            Product product = Product.builder()
+                    .id(productId).name(productName).slug(productSlug)
+                    .shop(Shop.builder().id(shopId).name(shopName).build())
+                    .category(categoryId != null ? Category.builder().id(categoryId).build() : null)
+                    .build();
+            return ProductVariant.builder()
+                    .id(id).product(product).sku(sku).options(options)
+                    .mainImageCloudinaryPublicId(imagePublicId)
+                    .finalPrice(finalPrice).stockQuantity(stockQuantity)
+                    .build();
+        }
+    }
+}
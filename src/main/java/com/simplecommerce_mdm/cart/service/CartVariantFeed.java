@@ -0,0 +1,133 @@
+package com.simplecommerce_mdm.cart.service;
+
+import com.simplecommerce_mdm.cart.dto.CartChangeResponse;
+import com.simplecommerce_mdm.cart.service.CartStore.CachedCart;
+import com.simplecommerce_mdm.product.events.ProductVariantChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Applies committed variant changes to the carts in the {@link CartStore} and pushes the result to
+ * buyers subscribed over server-sent events. Changes are collected per variant and applied together every
+ * {@code coalesce-ms}, so a variant changed many times in between (stock under a flash sale) is reloaded
+ * and pushed to the carts holding it once. Only carts cached on this node, and subscribers connected
+ * to it, hear about a change; other nodes pick it up when their variant snapshots age out.
+ */
+@Slf4j(topic = "CART-VARIANT-FEED")
+@Component
+public class CartVariantFeed {
+
+    public static final String EVENT_NAME = "cart-changed";
+
+    private final CartStore cartStore;
+    private final long subscriptionTimeoutMs;
+    private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    // Variants changed since the last apply
+    private final Set<Long> pendingVariantIds = ConcurrentHashMap.newKeySet();
+
+    private final Counter refreshedCartCounter;
+    private final Counter pushCounter;
+
+    public CartVariantFeed(CartStore cartStore,
+                           MeterRegistry meterRegistry,
+                           @Value("${business.cart.changes.subscription-timeout-ms:1800000}") long subscriptionTimeoutMs) {
+        this.cartStore = cartStore;
+        this.subscriptionTimeoutMs = subscriptionTimeoutMs;
+
+        this.refreshedCartCounter = Counter.builder("cart.variant.feed.carts")
+                .description("Cached carts whose flags were updated by a variant change")
+                .register(meterRegistry);
+        this.pushCounter = Counter.builder("cart.variant.feed.pushes")
+                .description("Cart changes pushed to subscribers")
+                .register(meterRegistry);
+        Gauge.builder("cart.variant.feed.subscribers", subscribers, Map::size)
+                .description("Users subscribed to cart changes")
+                .register(meterRegistry);
+        Gauge.builder("cart.variant.feed.pending", pendingVariantIds, Set::size)
+                .description("Changed variants waiting to be applied to carts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribe the user to changes of the variants in their cart
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(subscriptionTimeoutMs);
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+        Runnable unsubscribe = () -> subscribers.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVariantsChanged(ProductVariantChangedEvent event) {
+        pendingVariantIds.addAll(event.getVariantIds());
+    }
+
+    /**
+     * Apply the variants changed since the last run to the cached carts, each variant and cart once
+     */
+    @Scheduled(fixedDelayString = "${business.cart.changes.coalesce-ms:500}")
+    public void applyPendingChanges() {
+        if (pendingVariantIds.isEmpty()) {
+            return;
+        }
+        Set<Long> variantIds = new HashSet<>();
+        for (Iterator<Long> pending = pendingVariantIds.iterator(); pending.hasNext(); ) {
+            variantIds.add(pending.next());
+            pending.remove();
+        }
+        try {
+            List<CachedCart> carts = cartStore.refreshVariants(variantIds);
+            refreshedCartCounter.increment(carts.size());
+            carts.forEach(cart -> push(cart, variantIds));
+        } catch (Exception e) {
+            // The carts catch up when their variant snapshots age out
+            log.error("Failed to apply variant changes {} to carts: {}", variantIds, e.getMessage(), e);
+        }
+    }
+
+    private void push(CachedCart cart, Set<Long> changedVariantIds) {
+        Set<SseEmitter> emitters = subscribers.get(cart.getUserId());
+        if (emitters == null) {
+            return;
+        }
+        Set<Long> inCart = cart.variantIds();
+        CartChangeResponse change = CartChangeResponse.builder()
+                .variantIds(changedVariantIds.stream().filter(inCart::contains).sorted().collect(Collectors.toList()))
+                .hasPriceChanges(cart.hasPriceChanges())
+                .hasOutOfStockItems(cart.hasOutOfStockItems())
+                .build();
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(change));
+                pushCounter.increment();
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the completion callback unsubscribes it
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -1,17 +1,23 @@
 package com.simplecommerce_mdm.cart.service.impl;
 
 import com.simplecommerce_mdm.cart.dto.*;
-import com.simplecommerce_mdm.cart.model.Cart;
 import com.simplecommerce_mdm.cart.model.CartItem;
 import com.simplecommerce_mdm.cart.repository.CartItemRepository;
 import com.simplecommerce_mdm.cart.repository.CartRepository;
+import com.simplecommerce_mdm.cart.service.CartCountCache;
 import com.simplecommerce_mdm.cart.service.CartService;
+import com.simplecommerce_mdm.cart.service.CartStore;
+import com.simplecommerce_mdm.cart.service.CartStore.CachedCart;
+import com.simplecommerce_mdm.cart.service.CartStore.CachedItem;
+import com.simplecommerce_mdm.cart.service.CartStore.CartVariant;
 import com.simplecommerce_mdm.cloudinary.service.CloudinaryService;
 import com.simplecommerce_mdm.config.CustomUserDetails;
 import com.simplecommerce_mdm.exception.InvalidDataException;
 import com.simplecommerce_mdm.exception.ResourceNotFoundException;
 import com.simplecommerce_mdm.product.model.ProductVariant;
 import com.simplecommerce_mdm.product.repository.ProductVariantRepository;
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
+import com.simplecommerce_mdm.promotion.service.PromotionRuleEngine;
 import com.simplecommerce_mdm.user.model.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +28,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -35,6 +42,9 @@ public class CartServiceImpl implements CartService {
     private final ProductVariantRepository productVariantRepository;
     private final CloudinaryService cloudinaryService;
     private final ModelMapper modelMapper;
+    private final PromotionRuleEngine promotionRuleEngine;
+    private final CartStore cartStore;
+    private final CartCountCache cartCountCache;
 
     // Cart expiration time: 30 days
     private static final int CART_EXPIRATION_DAYS = 30;
@@ -45,7 +55,7 @@ public class CartServiceImpl implements CartService {
         User user = userDetails.getUser();
         log.info("Getting cart for user: {}", user.getEmail());
 
-        Optional<Cart> cartOptional = cartRepository.findByUser(user);
+        Optional<CachedCart> cartOptional = cartStore.find(user.getId());
         
         if (cartOptional.isEmpty()) {
             // Return empty cart
@@ -62,8 +72,7 @@ public class CartServiceImpl implements CartService {
                     .build();
         }
 
-        Cart cart = cartOptional.get();
-        return buildCartResponse(cart);
+        return buildCartResponse(user.getId(), cartOptional.get());
     }
 
     @Override
@@ -86,45 +95,47 @@ public class CartServiceImpl implements CartService {
         }
 
         // Get or create cart
-        Cart cart = getOrCreateCart(user);
-
-        // Check if item already exists in cart
-        Optional<CartItem> existingItem = cartItemRepository.findByCartAndVariant(cart, variant);
-
-        if (existingItem.isPresent()) {
-            // Update existing item
-            CartItem cartItem = existingItem.get();
-            int newQuantity = cartItem.getQuantity() + request.getQuantity();
-            
-            // Check total stock for new quantity
-            if (variant.getStockQuantity() < newQuantity) {
-                throw new InvalidDataException(
-                        String.format("Insufficient stock. Available: %d, In cart: %d, Requesting additional: %d", 
-                                variant.getStockQuantity(), cartItem.getQuantity(), request.getQuantity()));
+        OffsetDateTime expiresAt = OffsetDateTime.now().plusDays(CART_EXPIRATION_DAYS);
+        CachedCart cart = cartStore.findOrCreate(user, expiresAt);
+
+        synchronized (cart) {
+            // Check if item already exists in cart
+            Optional<CachedItem> existingItem = cart.itemForVariant(variant.getId());
+
+            if (existingItem.isPresent()) {
+                // Update existing item (written behind)
+                CachedItem cartItem = existingItem.get();
+                int newQuantity = cartItem.quantity() + request.getQuantity();
+                
+                // Check total stock for new quantity
+                if (variant.getStockQuantity() < newQuantity) {
+                    throw new InvalidDataException(
+                            String.format("Insufficient stock. Available: %d, In cart: %d, Requesting additional: %d", 
+                                    variant.getStockQuantity(), cartItem.quantity(), request.getQuantity()));
+                }
+                
+                cartStore.updateQuantity(user.getId(), cart, cartItem.id(), newQuantity);
+                log.info("Updated existing cart item. New quantity: {}", newQuantity);
+            } else {
+                // Create new cart item (written through, the response needs its id)
+                CartItem newCartItem = CartItem.builder()
+                        .cart(cartRepository.getReferenceById(cart.getId()))
+                        .variant(variant)
+                        .quantity(request.getQuantity())
+                        .priceAtAddition(variant.getFinalPrice())
+                        .addedAt(OffsetDateTime.now())
+                        .build();
+                
+                cartStore.itemAdded(cart, cartItemRepository.save(newCartItem));
+                cartCountCache.invalidateAfterCommit(user.getId());
+                log.info("Created new cart item for variant: {}", variant.getId());
             }
-            
-            cartItem.setQuantity(newQuantity);
-            cartItemRepository.save(cartItem);
-            log.info("Updated existing cart item. New quantity: {}", newQuantity);
-        } else {
-            // Create new cart item
-            CartItem newCartItem = CartItem.builder()
-                    .cart(cart)
-                    .variant(variant)
-                    .quantity(request.getQuantity())
-                    .priceAtAddition(variant.getFinalPrice())
-                    .addedAt(OffsetDateTime.now())
-                    .build();
-            
-            cartItemRepository.save(newCartItem);
-            log.info("Created new cart item for variant: {}", variant.getId());
-        }
 
-        // Update cart expiration
-        cart.setExpiresAt(OffsetDateTime.now().plusDays(CART_EXPIRATION_DAYS));
-        cartRepository.save(cart);
+            // Update cart expiration
+            cartStore.touch(user.getId(), cart, expiresAt);
+        }
 
-        return buildCartResponse(cart);
+        return buildCartResponse(user.getId(), cart);
     }
 
     @Override
@@ -135,30 +146,36 @@ public class CartServiceImpl implements CartService {
                 itemId, user.getEmail(), request.getQuantity());
 
         // Find cart item with security check
-        CartItem cartItem = cartItemRepository.findByIdAndUserId(itemId, user.getId())
+        CachedCart cart = cartStore.find(user.getId())
+                .filter(found -> found.item(itemId).isPresent())
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Cart item not found or you don't have permission to access it: " + itemId));
 
-        // Check stock availability
-        ProductVariant variant = cartItem.getVariant();
-        if (variant.getStockQuantity() < request.getQuantity()) {
-            throw new InvalidDataException(
-                    String.format("Insufficient stock. Available: %d, Requested: %d", 
-                            variant.getStockQuantity(), request.getQuantity()));
-        }
-
-        // Update quantity
-        cartItem.setQuantity(request.getQuantity());
-        cartItemRepository.save(cartItem);
+        CachedItem cartItem;
+        CartVariant variant;
+        synchronized (cart) {
+            cartItem = cart.item(itemId).orElseThrow(() -> new ResourceNotFoundException(
+                    "Cart item not found or you don't have permission to access it: " + itemId));
+
+            // Check stock availability against the current row, not the cart's variant snapshot
+            Long variantId = cartItem.variantId();
+            variant = cartStore.loadVariant(variantId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product variant not found: " + variantId));
+            if (variant.stockQuantity() < request.getQuantity()) {
+                throw new InvalidDataException(
+                        String.format("Insufficient stock. Available: %d, Requested: %d", 
+                                variant.stockQuantity(), request.getQuantity()));
+            }
 
-        // Update cart expiration
-        Cart cart = cartItem.getCart();
-        cart.setExpiresAt(OffsetDateTime.now().plusDays(CART_EXPIRATION_DAYS));
-        cartRepository.save(cart);
+            // Update quantity and cart expiration (written behind)
+            cartStore.updateQuantity(user.getId(), cart, itemId, request.getQuantity());
+            cartStore.touch(user.getId(), cart, OffsetDateTime.now().plusDays(CART_EXPIRATION_DAYS));
+            cartItem = cart.item(itemId).orElseThrow();
+        }
 
         log.info("Updated cart item {} to quantity: {}", itemId, request.getQuantity());
         
-        return buildCartItemResponse(cartItem);
+        return buildCartItemResponse(toCartItem(cartItem, variant.toVariant()));
     }
 
     @Override
@@ -168,11 +185,13 @@ public class CartServiceImpl implements CartService {
         log.info("Removing cart item {} for user: {}", itemId, user.getEmail());
 
         // Find cart item with security check
-        CartItem cartItem = cartItemRepository.findByIdAndUserId(itemId, user.getId())
+        CachedCart cart = cartStore.find(user.getId())
+                .filter(found -> found.item(itemId).isPresent())
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Cart item not found or you don't have permission to access it: " + itemId));
 
-        cartItemRepository.delete(cartItem);
+        cartStore.removeItem(cart, itemId);
+        cartCountCache.invalidateAfterCommit(user.getId());
         log.info("Removed cart item: {}", itemId);
     }
 
@@ -182,37 +201,34 @@ public class CartServiceImpl implements CartService {
         User user = userDetails.getUser();
         log.info("Clearing cart for user: {}", user.getEmail());
 
-        cartItemRepository.deleteByCartUserId(user.getId());
+        Optional<CachedCart> cart = cartStore.find(user.getId());
+        if (cart.isPresent()) {
+            cartStore.clearItems(user.getId(), cart.get());
+            cartCountCache.invalidateAfterCommit(user.getId());
+        }
         log.info("Cleared all cart items for user: {}", user.getEmail());
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Long getCartItemCount(CustomUserDetails userDetails) {
+        // Không mở transaction: số lượng đã cache thì không cần tới database
         User user = userDetails.getUser();
-        return cartRepository.countItemsByUserId(user.getId());
+        return cartCountCache.get(user.getId(), () -> {
+            Integer cached = cartStore.cachedItemCount(user.getId());
+            return cached != null ? cached : cartRepository.countItemsByUserId(user.getId());
+        });
     }
 
     // ===== PRIVATE HELPER METHODS =====
 
-    private Cart getOrCreateCart(User user) {
-        Optional<Cart> cartOptional = cartRepository.findByUser(user);
-        
-        if (cartOptional.isPresent()) {
-            return cartOptional.get();
-        } else {
-            // Create new cart
-            Cart newCart = Cart.builder()
-                    .user(user)
-                    .expiresAt(OffsetDateTime.now().plusDays(CART_EXPIRATION_DAYS))
-                    .build();
-            
-            return cartRepository.save(newCart);
-        }
-    }
-
-    private CartResponse buildCartResponse(Cart cart) {
-        List<CartItem> cartItems = cartItemRepository.findByCartUserId(cart.getUser().getId());
+    private CartResponse buildCartResponse(Long userId, CachedCart cart) {
+        // Cart lines and variant data both come from the store; only variants it does not hold yet are read
+        List<CachedItem> items = cart.items();
+        Map<Long, CartVariant> variants = cartStore.variants(cart);
+        List<CartItem> cartItems = items.stream()
+                .filter(item -> variants.containsKey(item.variantId()))
+                .map(item -> toCartItem(item, variants.get(item.variantId()).toVariant()))
+                .collect(Collectors.toList());
         
         List<CartItemResponse> itemResponses = cartItems.stream()
                 .map(this::buildCartItemResponse)
@@ -228,40 +244,48 @@ public class CartServiceImpl implements CartService {
                 .map(CartItemResponse::getSubtotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        // Check for price changes and out of stock items
-        boolean hasPriceChanges = itemResponses.stream()
-                .anyMatch(CartItemResponse::getPriceChanged);
-        
-        boolean hasOutOfStockItems = itemResponses.stream()
-                .anyMatch(item -> !item.getInStock());
+        // Shipping is not known before checkout, so only item promotions are shown here
+        PromotionEvaluation promotions = promotionRuleEngine.evaluate(userId, cartItems, Map.of());
 
         return CartResponse.builder()
                 .id(cart.getId())
-                .userId(cart.getUser().getId())
+                .userId(userId)
                 .items(itemResponses)
                 .totalItems(totalItems)
                 .totalQuantity(totalQuantity)
                 .subtotal(subtotal)
+                .promotionDiscount(promotions.getItemDiscount())
+                .appliedPromotions(promotions.getPromotions())
                 .expiresAt(cart.getExpiresAt())
                 .updatedAt(cart.getUpdatedAt())
-                .hasPriceChanges(hasPriceChanges)
-                .hasOutOfStockItems(hasOutOfStockItems)
+                // Precomputed by the store, kept current by the variant change feed
+                .hasPriceChanges(cart.hasPriceChanges())
+                .hasOutOfStockItems(cart.hasOutOfStockItems())
                 .isEmpty(totalItems == 0)
                 .build();
     }
 
+    /**
+     * Detached view of a cart line for rendering; never persisted
+     */
+    private static CartItem toCartItem(CachedItem item, ProductVariant variant) {
+        return CartItem.builder()
+                .id(item.id())
+                .variant(variant)
+                .quantity(item.quantity())
+                .priceAtAddition(item.priceAtAddition())
+                .addedAt(item.addedAt())
+                .build();
+    }
+
     private CartItemResponse buildCartItemResponse(CartItem cartItem) {
         ProductVariant variant = cartItem.getVariant();
-        
-        // Get current variant data
-        ProductVariant currentVariant = productVariantRepository.findById(variant.getId())
-                .orElse(variant); // Fallback to cached variant if not found
 
         // Calculate price change
-        boolean priceChanged = !cartItem.getPriceAtAddition().equals(currentVariant.getFinalPrice());
+        boolean priceChanged = cartItem.getPriceAtAddition().compareTo(variant.getFinalPrice()) != 0;
         
         // Check stock
-        boolean inStock = currentVariant.getStockQuantity() >= cartItem.getQuantity();
+        boolean inStock = variant.getStockQuantity() >= cartItem.getQuantity();
         
         // Calculate subtotal
         BigDecimal subtotal = cartItem.getPriceAtAddition()
@@ -269,8 +293,8 @@ public class CartServiceImpl implements CartService {
 
         // Get variant image URL
         String imageUrl = null;
-        if (currentVariant.getMainImageCloudinaryPublicId() != null) {
-            imageUrl = cloudinaryService.getImageUrl(currentVariant.getMainImageCloudinaryPublicId());
+        if (variant.getMainImageCloudinaryPublicId() != null) {
+            imageUrl = cloudinaryService.getImageUrl(variant.getMainImageCloudinaryPublicId());
         }
 
         return CartItemResponse.builder()
@@ -285,11 +309,11 @@ public class CartServiceImpl implements CartService {
                 .variantImageUrl(imageUrl)
                 .quantity(cartItem.getQuantity())
                 .priceAtAddition(cartItem.getPriceAtAddition())
-                .currentPrice(currentVariant.getFinalPrice())
+                .currentPrice(variant.getFinalPrice())
                 .subtotal(subtotal)
                 .priceChanged(priceChanged)
                 .inStock(inStock)
-                .stockQuantity(currentVariant.getStockQuantity())
+                .stockQuantity(variant.getStockQuantity())
                 .addedAt(cartItem.getAddedAt())
                 .build();
     }
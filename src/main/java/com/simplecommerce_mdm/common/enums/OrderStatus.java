@@ -10,6 +10,8 @@ public enum OrderStatus {
     CANCELLED_BY_USER,
     CANCELLED_BY_SELLER,
     CANCELLED_BY_ADMIN,
+    // Not confirmed by the seller before the deadline (OrderExpiryJob)
+    CANCELLED_EXPIRED,
     RETURN_REQUESTED,
     RETURN_APPROVED,
     RETURNED,
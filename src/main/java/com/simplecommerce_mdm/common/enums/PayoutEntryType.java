@@ -0,0 +1,6 @@
+package com.simplecommerce_mdm.common.enums;
+
+public enum PayoutEntryType {
+    SETTLEMENT,
+    REVERSAL
+}
@@ -45,4 +45,15 @@ public class OrderEmailEventListener {
             log.error("[EMAIL] Failed to send status update: {}", e.getMessage(), e);
         }
     }
-} 
\ No newline at end of file
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusDigest(OrderEmailEvents.OrderStatusDigestEvent event) {
+        try {
+            emailService.sendOrderStatusDigestEmail(event.getCustomerEmail(), event.getCustomerName(),
+                    event.getNewStatus(), event.getOrderNumbers());
+        } catch (Exception e) {
+            log.error("[EMAIL] Failed to send status digest: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.simplecommerce_mdm.order.model.MasterOrder;
 import com.simplecommerce_mdm.order.model.Order;
 import lombok.Value;
 
+import java.util.List;
+
 public class OrderEmailEvents {
 
     @Value
@@ -22,4 +24,15 @@ public class OrderEmailEvents {
         String oldStatus;
         String newStatus;
     }
-} 
\ No newline at end of file
+
+    /**
+     * One buyer's orders moved to the same status by a bulk transition
+     */
+    @Value
+    public static class OrderStatusDigestEvent {
+        String customerEmail;
+        String customerName;
+        String newStatus;
+        List<String> orderNumbers;
+    }
+}
@@ -2,6 +2,7 @@ package com.simplecommerce_mdm.email.service;
 
 import com.simplecommerce_mdm.order.model.MasterOrder;
 import com.simplecommerce_mdm.order.model.Order;
+import java.util.List;
 import java.util.Map;
 
 public interface EmailService {
@@ -53,6 +54,17 @@ public interface EmailService {
      */
     void sendOrderStatusUpdateEmail(Order order, String oldStatus, String newStatus);
 
+    /**
+     * Sends a single email to a buyer listing several orders that moved to the same status
+     * (bulk seller transitions), instead of one email per order.
+     *
+     * @param to           The buyer's email address
+     * @param customerName The buyer's name
+     * @param newStatus    The status all listed orders moved to
+     * @param orderNumbers The affected order numbers
+     */
+    void sendOrderStatusDigestEmail(String to, String customerName, String newStatus, List<String> orderNumbers);
+
     // === AUTH-RELATED EMAIL METHODS ===
 
     /**
@@ -166,6 +166,25 @@ public class BrevoEmailService implements EmailService {
         }
     }
 
+    @Override
+    public void sendOrderStatusDigestEmail(String to, String customerName, String newStatus, List<String> orderNumbers) {
+        try {
+            String status = translateStatus(newStatus);
+            StringBuilder content = new StringBuilder();
+            content.append("Xin chào ").append(customerName != null ? customerName : "quý khách").append(",\n\n");
+            content.append("Các đơn hàng sau của bạn đã được cập nhật sang trạng thái \"").append(status).append("\":\n");
+            for (String orderNumber : orderNumbers) {
+                content.append("- ").append(orderNumber).append(" (").append(buildOrderDetailsUrl(orderNumber)).append(")\n");
+            }
+            content.append("\nCảm ơn bạn đã mua sắm tại SimpleCommerce MDM.");
+
+            sendSimpleMessage(to, "Cập nhật " + orderNumbers.size() + " đơn hàng: " + status, content.toString());
+            log.info("Order status digest email sent to {} for {} orders ({})", to, orderNumbers.size(), newStatus);
+        } catch (Exception e) {
+            log.error("Failed to send order status digest email to {}", to, e);
+        }
+    }
+
     @Override
     public void sendPasswordResetOtpEmail(String to, String otpCode, int expireMinutes, String userName) {
         try {
@@ -414,7 +433,8 @@ public class BrevoEmailService implements EmailService {
     private boolean isCancelledStatus(OrderStatus status) {
         return status == OrderStatus.CANCELLED_BY_USER ||
                 status == OrderStatus.CANCELLED_BY_SELLER ||
-                status == OrderStatus.CANCELLED_BY_ADMIN;
+                status == OrderStatus.CANCELLED_BY_ADMIN ||
+                status == OrderStatus.CANCELLED_EXPIRED;
     }
 
     /**
@@ -528,6 +548,7 @@ public class BrevoEmailService implements EmailService {
             case "CANCELLED_BY_USER" -> "Đã hủy bởi khách hàng";
             case "CANCELLED_BY_SELLER" -> "Đã hủy bởi người bán";
             case "CANCELLED_BY_ADMIN" -> "Đã hủy bởi admin";
+            case "CANCELLED_EXPIRED" -> "Đã hủy do quá hạn xác nhận";
             default -> status;
         };
     }
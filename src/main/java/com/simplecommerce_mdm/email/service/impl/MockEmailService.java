@@ -7,6 +7,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -51,6 +52,12 @@ public class MockEmailService implements EmailService {
                 order.getOrderNumber(), oldStatus, newStatus, order.getMasterOrder().getUser().getEmail());
     }
 
+    @Override
+    public void sendOrderStatusDigestEmail(String to, String customerName, String newStatus, List<String> orderNumbers) {
+        log.info("[MOCK EMAIL] Sending order status digest email for {} orders {} to {} to customer: {}",
+                orderNumbers.size(), orderNumbers, newStatus, to);
+    }
+
     @Override
     public void sendPasswordResetOtpEmail(String to, String otpCode, int expireMinutes, String userName) {
         log.info("[MOCK EMAIL] Sending password reset OTP to {} - user: {}, otp: {}, expire: {}m",
@@ -7,6 +7,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.ConstraintViolationException;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -220,6 +222,44 @@ public class GlobalException {
         return errorResponse;
     }
 
+    /**
+     * Handle exception when the request is turned away under load
+     *
+     * @param e
+     * @param request
+     * @return errorResponse with a Retry-After header
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "429", description = "Too Many Requests",
+                    content = {@Content(mediaType = APPLICATION_JSON_VALUE,
+                            examples = @ExampleObject(
+                                    name = "429 Response",
+                                    summary = "Handle exception when the request is turned away under load",
+                                    value = """
+                                            {
+                                              "timestamp": "2023-10-19T06:07:35.321+00:00",
+                                              "status": 429,
+                                              "path": "/api/v1/orders",
+                                              "error": "Too Many Requests",
+                                              "message": "Checkout is busy, 120 buyers are waiting ahead of you. Please retry in about 15 seconds"
+                                            }
+                                            """
+                            ))})
+    })
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(TooManyRequestsException e, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse();
+        errorResponse.setTimestamp(new Date());
+        errorResponse.setPath(request.getDescription(false).replace("uri=", ""));
+        errorResponse.setStatus(TOO_MANY_REQUESTS.value());
+        errorResponse.setError(TOO_MANY_REQUESTS.getReasonPhrase());
+        errorResponse.setMessage(e.getMessage());
+
+        return ResponseEntity.status(TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
     /**
      * Handle exception when internal server error
      *
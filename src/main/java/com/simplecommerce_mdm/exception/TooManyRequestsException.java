@@ -0,0 +1,17 @@
+package com.simplecommerce_mdm.exception;
+
+import lombok.Getter;
+
+/**
+ * The request was turned away under load; the client should retry after {@link #getRetryAfterSeconds()}
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,59 @@
+package com.simplecommerce_mdm.order.controller;
+
+import com.simplecommerce_mdm.common.dto.ApiResponse;
+import com.simplecommerce_mdm.order.dto.CheckoutAdmissionStatusResponse;
+import com.simplecommerce_mdm.order.dto.HotVariantsRequest;
+import com.simplecommerce_mdm.order.service.CheckoutAdmissionGate;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/admin/checkout-admission")
+@RequiredArgsConstructor
+@Tag(name = "Admin Checkout Admission", description = "Flash-sale checkout queue for hot variants")
+@PreAuthorize("hasRole('ADMIN')")
+public class CheckoutAdmissionAdminController {
+
+    private final CheckoutAdmissionGate checkoutAdmissionGate;
+
+    @GetMapping
+    @Operation(summary = "Get checkout admission status", description = "Hot variants, running checkouts and queue depth on this instance")
+    public ResponseEntity<ApiResponse<CheckoutAdmissionStatusResponse>> getStatus() {
+        return ResponseEntity.ok(ApiResponse.<CheckoutAdmissionStatusResponse>builder()
+                .statusCode(200)
+                .message("Checkout admission status retrieved successfully")
+                .data(status())
+                .build());
+    }
+
+    @PutMapping("/hot-variants")
+    @Operation(summary = "Set hot variants", description = "Checkouts containing these variants go through the admission queue; "
+            + "send an empty list when the sale is over")
+    public ResponseEntity<ApiResponse<CheckoutAdmissionStatusResponse>> setHotVariants(@Valid @RequestBody HotVariantsRequest request) {
+        checkoutAdmissionGate.setHotVariantIds(request.getVariantIds());
+        return ResponseEntity.ok(ApiResponse.<CheckoutAdmissionStatusResponse>builder()
+                .statusCode(200)
+                .message("Hot variants updated successfully")
+                .data(status())
+                .build());
+    }
+
+    private CheckoutAdmissionStatusResponse status() {
+        int queueDepth = checkoutAdmissionGate.getQueueDepth();
+        return CheckoutAdmissionStatusResponse.builder()
+                .hotVariantIds(checkoutAdmissionGate.getHotVariantIds())
+                .concurrency(checkoutAdmissionGate.getConcurrency())
+                .inFlight(checkoutAdmissionGate.getInFlight())
+                .queueDepth(queueDepth)
+                .queueCapacity(checkoutAdmissionGate.getQueueCapacity())
+                .estimatedWaitSeconds(checkoutAdmissionGate.estimatedWaitSeconds(queueDepth + 1))
+                .build();
+    }
+}
@@ -1,8 +1,12 @@
 package com.simplecommerce_mdm.order.controller;
 
+import com.simplecommerce_mdm.order.service.OrderExportService;
 import com.simplecommerce_mdm.order.service.OrderService;
 import com.simplecommerce_mdm.order.dto.*;
 import com.simplecommerce_mdm.common.dto.ApiResponse;
+import com.simplecommerce_mdm.common.enums.ExportFormat;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.config.CustomUserDetails;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,9 +17,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -26,6 +37,7 @@ import org.springframework.web.bind.annotation.*;
 public class OrderAdminController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
 
     @GetMapping
     @Operation(summary = "Get all orders", description = "Retrieve paginated list of all orders for admin")
@@ -46,7 +58,7 @@ public class OrderAdminController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Search orders", description = "Search orders by keyword (order number, customer email, shop name)")
+    @Operation(summary = "Search orders", description = "Search orders by keyword (order/group number, customer email or phone, contact name, shop name)")
     public ResponseEntity<ApiResponse<Page<OrderListResponse>>> searchOrders(
             @Parameter(description = "Search keyword")
             @RequestParam String keyword,
@@ -65,14 +77,56 @@ public class OrderAdminController {
                 .build());
     }
 
+    @GetMapping("/search/scroll")
+    @Operation(summary = "Search orders with filters", description = "Keyword search combined with status and creation date filters, keyset paged: pass nextCursor to get the following page")
+    public ResponseEntity<ApiResponse<OrderSearchResponse>> scrollOrders(
+            @Parameter(description = "Search keyword (optional)")
+            @RequestParam(required = false) String keyword,
+            @Parameter(description = "Filter by order status")
+            @RequestParam(required = false) OrderStatus status,
+            @Parameter(description = "Created on or after (yyyy-MM-dd)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Created on or before (yyyy-MM-dd)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20") int size) {
+        OrderSearchResponse result = orderService.scrollOrdersForAdmin(keyword, status, from, to, cursor, size);
+        return ResponseEntity.ok(ApiResponse.<OrderSearchResponse>builder()
+                .statusCode(200)
+                .message("Orders searched successfully")
+                .data(result)
+                .build());
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export orders", description = "Streams orders with their items as CSV (one line per item) or NDJSON (one order per line), gzip-compressed when the client accepts it")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "Export format")
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @Parameter(description = "Created on or after (yyyy-MM-dd), defaults to 30 days before 'to'")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Created on or before (yyyy-MM-dd), defaults to today")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Filter by order status")
+            @RequestParam(required = false) OrderStatus status,
+            @Parameter(description = "Filter by shop")
+            @RequestParam(required = false) Long shopId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        return orderExportService.exportOrders(format, from, to, status, shopId, gzip);
+    }
+
     @PutMapping("/{orderId}/status")
     @Operation(summary = "Update order status (Admin)", description = "Admin override of order status")
     public ResponseEntity<ApiResponse<OrderResponse>> updateOrderStatus(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
             @Parameter(description = "Order ID")
             @PathVariable Long orderId,
             @Valid @RequestBody OrderStatusUpdateRequest request) {
         
-        OrderResponse order = orderService.updateOrderStatus(orderId, request);
+        OrderResponse order = orderService.updateOrderStatus(orderId, request, userDetails.getUser().getId());
         
         return ResponseEntity.ok(ApiResponse.<OrderResponse>builder()
                 .statusCode(200)
@@ -81,6 +135,21 @@ public class OrderAdminController {
                 .build());
     }
 
+    @GetMapping("/timeline")
+    @Operation(summary = "Get order status timelines (Admin)", description = "Status history of several orders in one call")
+    public ResponseEntity<ApiResponse<List<OrderTimelineResponse>>> getOrderTimelines(
+            @Parameter(description = "Order IDs (max 100)")
+            @RequestParam List<Long> orderIds) {
+        
+        List<OrderTimelineResponse> timelines = orderService.getOrderTimelinesForAdmin(orderIds);
+        
+        return ResponseEntity.ok(ApiResponse.<List<OrderTimelineResponse>>builder()
+                .statusCode(200)
+                .message("Order timelines retrieved successfully")
+                .data(timelines)
+                .build());
+    }
+
     @GetMapping("/statistics")
     @Operation(summary = "Get order statistics", description = "Retrieve order statistics for admin dashboard")
     public ResponseEntity<ApiResponse<OrderStatisticsResponse>> getOrderStatistics() {
@@ -106,19 +175,47 @@ public class OrderAdminController {
     }
 
     @GetMapping("/master")
-    @Operation(summary = "Get master orders (Admin)")
-    public ResponseEntity<ApiResponse<Page<MasterOrderResponse>>> getMasterOrders(
+    @Operation(summary = "Get master orders (Admin)", description = "Summary rows; use /master/{masterOrderId} for sub-orders and items")
+    public ResponseEntity<ApiResponse<Page<MasterOrderSummaryResponse>>> getMasterOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<MasterOrderResponse> mos = orderService.getAllMasterOrdersForAdmin(pageable);
-        return ResponseEntity.ok(ApiResponse.<Page<MasterOrderResponse>>builder()
+        Page<MasterOrderSummaryResponse> mos = orderService.getAllMasterOrdersForAdmin(pageable);
+        return ResponseEntity.ok(ApiResponse.<Page<MasterOrderSummaryResponse>>builder()
                 .statusCode(200)
                 .message("Master orders retrieved successfully")
                 .data(mos)
                 .build());
     }
 
+    @PostMapping("/master/counters/verify")
+    @Operation(summary = "Verify master order status counters (Admin)",
+            description = "Compare per-status child counters with the child orders for a page of master orders (by id); rebuild=true fixes mismatches")
+    public ResponseEntity<ApiResponse<MasterOrderCounterCheckResponse>> verifyMasterOrderCounters(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "500") int size,
+            @RequestParam(defaultValue = "false") boolean rebuild) {
+        MasterOrderCounterCheckResponse result = orderService.verifyMasterOrderCounters(PageRequest.of(page, size), rebuild);
+        return ResponseEntity.ok(ApiResponse.<MasterOrderCounterCheckResponse>builder()
+                .statusCode(200)
+                .message("Master order counters verified")
+                .data(result)
+                .build());
+    }
+
+    @PostMapping("/buyer-view/backfill")
+    @Operation(summary = "Backfill buyer order view (Admin)",
+            description = "Create buyer order history rows for up to batchSize orders that have none; call until it returns 0")
+    public ResponseEntity<ApiResponse<Integer>> backfillBuyerOrderViews(
+            @RequestParam(defaultValue = "500") int batchSize) {
+        int created = orderService.backfillBuyerOrderViews(Math.min(Math.max(batchSize, 1), 5000));
+        return ResponseEntity.ok(ApiResponse.<Integer>builder()
+                .statusCode(200)
+                .message("Buyer order view backfilled")
+                .data(created)
+                .build());
+    }
+
     @GetMapping("/master/{masterOrderId}")
     @Operation(summary = "Get master order details (Admin)")
     public ResponseEntity<ApiResponse<MasterOrderResponse>> getMasterOrderDetails(@PathVariable Long masterOrderId) {
@@ -129,4 +226,4 @@ public class OrderAdminController {
                 .data(mo)
                 .build());
     }
-} 
\ No newline at end of file
+}
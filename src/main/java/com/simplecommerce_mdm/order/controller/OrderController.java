@@ -1,5 +1,7 @@
 package com.simplecommerce_mdm.order.controller;
 
+import com.simplecommerce_mdm.order.service.CheckoutAdmissionGate;
+import com.simplecommerce_mdm.order.service.CheckoutIdempotencyStore;
 import com.simplecommerce_mdm.order.service.OrderService;
 import com.simplecommerce_mdm.order.dto.*;
 import com.simplecommerce_mdm.common.dto.ApiResponse;
@@ -21,6 +23,10 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/v1/orders")
@@ -29,19 +35,46 @@ import org.springframework.web.bind.annotation.*;
 @PreAuthorize("hasRole('USER') or hasRole('SELLER') or hasRole('ADMIN')")
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final CheckoutIdempotencyStore checkoutIdempotencyStore;
+    private final CheckoutAdmissionGate checkoutAdmissionGate;
 
     @PostMapping
-    @Operation(summary = "Create order from cart (Checkout)", description = "Place order from user's cart items")
+    @Operation(summary = "Create order from cart (Checkout)", description = "Place order from user's cart items. "
+            + "Send an Idempotency-Key header to make retries safe: a repeated key returns the original result. "
+            + "During a flash sale, checkouts of hot variants may get 429 with a Retry-After header.")
     public ResponseEntity<ApiResponse<MasterOrderResponse>> createOrder(
             @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Client-generated key identifying this checkout attempt")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody CheckoutRequest request) {
         
-        log.info("Creating order for user: {}", userDetails.getUser().getId());
+        Long userId = userDetails.getUser().getId();
+        log.info("Creating order for user: {}", userId);
         
-        MasterOrderResponse response = orderService.createOrderFromCart(userDetails.getUser().getId(), request);
+        // Checkouts of flash-sale variants queue for a slot; replays of a finished checkout do not
+        Function<Supplier<MasterOrderResponse>, MasterOrderResponse> admission = transaction -> checkoutAdmissionGate.admit(
+                userId, request.getSelectedCartItemIds(), transaction);
+        Supplier<MasterOrderResponse> checkout = () -> orderService.createOrderFromCart(userId, request);
+        MasterOrderResponse response;
+        boolean replayed = false;
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            response = admission.apply(checkout);
+        } else {
+            CheckoutIdempotencyStore.Outcome outcome = checkoutIdempotencyStore.execute(
+                    userId, idempotencyKey.trim(), request, admission, checkout);
+            response = outcome.response();
+            replayed = outcome.replayed();
+            if (replayed) {
+                log.info("Replayed checkout for user: {} with idempotency key: {}", userId, idempotencyKey);
+            }
+        }
         
         return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(replayed))
                 .body(ApiResponse.<MasterOrderResponse>builder()
                         .statusCode(201)
                         .message("Order created successfully")
@@ -76,6 +109,44 @@ public class OrderController {
                 .build());
     }
 
+    @GetMapping("/timeline")
+    @Operation(summary = "Get order status timelines", description = "Status history of several of the user's orders in one call")
+    public ResponseEntity<ApiResponse<List<OrderTimelineResponse>>> getOrderTimelines(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Order IDs (max 100)")
+            @RequestParam List<Long> orderIds) {
+        
+        List<OrderTimelineResponse> timelines = orderService.getOrderTimelines(userDetails.getUser().getId(), orderIds);
+        
+        return ResponseEntity.ok(ApiResponse.<List<OrderTimelineResponse>>builder()
+                .statusCode(200)
+                .message("Order timelines retrieved successfully")
+                .data(timelines)
+                .build());
+    }
+
+    @GetMapping("/shipping-quote")
+    @Operation(summary = "Quote shipping fees for the cart", description = "Shipping fee per shop that checkout would charge "
+            + "for the cart (or the selected items). Uses the default shipping address when none is given.")
+    public ResponseEntity<ApiResponse<ShippingQuoteResponse>> getShippingQuote(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Shipping address ID (defaults to the user's default shipping address)")
+            @RequestParam(required = false) Long shippingAddressId,
+            @Parameter(description = "Shipping method ID (defaults to standard shipping)")
+            @RequestParam(required = false) Long shippingMethodId,
+            @Parameter(description = "Cart item IDs to quote (defaults to the whole cart)")
+            @RequestParam(required = false) List<Long> selectedCartItemIds) {
+        
+        ShippingQuoteResponse quote = orderService.getShippingQuote(
+                userDetails.getUser().getId(), shippingAddressId, shippingMethodId, selectedCartItemIds);
+        
+        return ResponseEntity.ok(ApiResponse.<ShippingQuoteResponse>builder()
+                .statusCode(200)
+                .message("Shipping quote calculated successfully")
+                .data(quote)
+                .build());
+    }
+
     @GetMapping("/{orderId}")
     @Operation(summary = "Get order details", description = "Retrieve detailed information about a specific order")
     public ResponseEntity<ApiResponse<OrderResponse>> getOrderDetails(
@@ -1,8 +1,10 @@
 package com.simplecommerce_mdm.order.controller;
 
+import com.simplecommerce_mdm.order.service.OrderExportService;
 import com.simplecommerce_mdm.order.service.OrderService;
 import com.simplecommerce_mdm.order.dto.*;
 import com.simplecommerce_mdm.common.dto.ApiResponse;
+import com.simplecommerce_mdm.common.enums.ExportFormat;
 import com.simplecommerce_mdm.common.enums.OrderStatus;
 import com.simplecommerce_mdm.config.CustomUserDetails;
 import com.simplecommerce_mdm.product.repository.ShopRepository;
@@ -16,10 +18,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -31,6 +39,7 @@ public class OrderSellerController {
 
     private final OrderService orderService;
     private final ShopRepository shopRepository;
+    private final OrderExportService orderExportService;
 
     @GetMapping
     @Operation(summary = "Get seller's orders", description = "Retrieve paginated list of orders for seller's shop")
@@ -70,7 +79,7 @@ public class OrderSellerController {
             @PathVariable Long orderId,
             @Valid @RequestBody OrderStatusUpdateRequest request) {
         
-        OrderResponse order = orderService.updateOrderStatus(orderId, request);
+        OrderResponse order = orderService.updateOrderStatus(orderId, request, userDetails.getUser().getId());
         
         return ResponseEntity.ok(ApiResponse.<OrderResponse>builder()
                 .statusCode(200)
@@ -79,6 +88,38 @@ public class OrderSellerController {
                 .build());
     }
 
+    @PutMapping("/status")
+    @Operation(summary = "Bulk update order status", description = "Move several of the seller's orders to the same status and report the outcome per order")
+    public ResponseEntity<ApiResponse<BulkOrderStatusUpdateResponse>> bulkUpdateOrderStatus(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody BulkOrderStatusUpdateRequest request) {
+        Long shopId = getSellerShopId(userDetails.getUser().getId());
+        BulkOrderStatusUpdateResponse result = orderService.bulkUpdateOrderStatus(shopId, request, userDetails.getUser().getId());
+        return ResponseEntity.ok(ApiResponse.<BulkOrderStatusUpdateResponse>builder()
+                .statusCode(200)
+                .message("Bulk order status update processed")
+                .data(result)
+                .build());
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export seller orders", description = "Streams the shop's orders with their items as CSV (one line per item) or NDJSON (one order per line), gzip-compressed when the client accepts it")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Export format")
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @Parameter(description = "Created on or after (yyyy-MM-dd), defaults to 30 days before 'to'")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Created on or before (yyyy-MM-dd), defaults to today")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Filter by order status")
+            @RequestParam(required = false) OrderStatus status,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Long shopId = getSellerShopId(userDetails.getUser().getId());
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        return orderExportService.exportOrders(format, from, to, status, shopId, gzip);
+    }
+
     @GetMapping("/{orderId}")
     @Operation(summary = "Get seller order details", description = "Retrieve order details with items for seller's shop")
     public ResponseEntity<ApiResponse<OrderResponse>> getSellerOrderDetails(
@@ -93,9 +134,22 @@ public class OrderSellerController {
                 .build());
     }
 
+    @GetMapping("/metrics/time-in-status")
+    @Operation(summary = "Get time in status", description = "Average and max time the shop's orders spent in each status, over the last 90 days by default")
+    public ResponseEntity<ApiResponse<List<StatusDurationResponse>>> getTimeInStatus(
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        Long shopId = getSellerShopId(userDetails.getUser().getId());
+        List<StatusDurationResponse> durations = orderService.getShopStatusDurations(shopId);
+        return ResponseEntity.ok(ApiResponse.<List<StatusDurationResponse>>builder()
+                .statusCode(200)
+                .message("Time in status retrieved successfully")
+                .data(durations)
+                .build());
+    }
+
     private Long getSellerShopId(Long userId) {
         return shopRepository.findByUserId(userId)
                 .orElseThrow(() -> new RuntimeException("Seller shop not found"))
                 .getId();
     }
-} 
\ No newline at end of file
+}
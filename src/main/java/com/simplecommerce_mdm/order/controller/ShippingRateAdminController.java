@@ -0,0 +1,71 @@
+package com.simplecommerce_mdm.order.controller;
+
+import com.simplecommerce_mdm.common.dto.ApiResponse;
+import com.simplecommerce_mdm.order.dto.ShippingRateRequest;
+import com.simplecommerce_mdm.order.dto.ShippingRateResponse;
+import com.simplecommerce_mdm.order.service.ShippingRateService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/admin/shipping-rates")
+@RequiredArgsConstructor
+@Tag(name = "Admin Shipping Rates", description = "Per-shop and per-method shipping rate tables")
+@PreAuthorize("hasRole('ADMIN')")
+public class ShippingRateAdminController {
+
+    private final ShippingRateService shippingRateService;
+
+    @GetMapping
+    @Operation(summary = "Get all shipping rates")
+    public ResponseEntity<ApiResponse<List<ShippingRateResponse>>> getAllRates() {
+        return ResponseEntity.ok(ApiResponse.<List<ShippingRateResponse>>builder()
+                .statusCode(200)
+                .message("Shipping rates retrieved successfully")
+                .data(shippingRateService.getAllRates())
+                .build());
+    }
+
+    @PostMapping
+    @Operation(summary = "Create shipping rate", description = "Weight band [minWeightGrams, maxWeightGrams) for a shop, "
+            + "shipping method and region; leave shop, method or region empty to apply to all")
+    public ResponseEntity<ApiResponse<ShippingRateResponse>> createRate(@Valid @RequestBody ShippingRateRequest request) {
+        ShippingRateResponse rate = shippingRateService.createRate(request);
+        return new ResponseEntity<>(ApiResponse.<ShippingRateResponse>builder()
+                .statusCode(HttpStatus.CREATED.value())
+                .message("Shipping rate created successfully")
+                .data(rate)
+                .build(), HttpStatus.CREATED);
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update shipping rate")
+    public ResponseEntity<ApiResponse<ShippingRateResponse>> updateRate(@PathVariable Long id,
+                                                                         @Valid @RequestBody ShippingRateRequest request) {
+        return ResponseEntity.ok(ApiResponse.<ShippingRateResponse>builder()
+                .statusCode(200)
+                .message("Shipping rate updated successfully")
+                .data(shippingRateService.updateRate(id, request))
+                .build());
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete shipping rate")
+    public ResponseEntity<ApiResponse<Void>> deleteRate(@PathVariable Long id) {
+        shippingRateService.deleteRate(id);
+        return ResponseEntity.ok(ApiResponse.<Void>builder()
+                .statusCode(200)
+                .message("Shipping rate deleted successfully")
+                .build());
+    }
+}
@@ -0,0 +1,47 @@
+package com.simplecommerce_mdm.order.dto;
+
+import com.simplecommerce_mdm.common.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * An order as stored in the cold archive: the detail response it had when it was archived,
+ * plus what is needed to check access and to export it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrder {
+
+    private Long userId;
+    private String customerEmail;
+    private OrderResponse order;
+    // Payments of the master order, repeated for each of its orders
+    private List<ArchivedPayment> payments;
+    private LocalDateTime archivedAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ArchivedPayment {
+        private Long id;
+        private String paymentMethodCode;
+        private String transactionId;
+        private BigDecimal amount;
+        private String currencyCode;
+        private PaymentStatus status;
+        private OffsetDateTime paidAt;
+        private OffsetDateTime settledAt;
+        private BigDecimal settledAmount;
+        private LocalDateTime createdAt;
+    }
+}
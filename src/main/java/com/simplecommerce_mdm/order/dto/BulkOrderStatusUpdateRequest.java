@@ -0,0 +1,29 @@
+package com.simplecommerce_mdm.order.dto;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusUpdateRequest {
+
+    @NotEmpty(message = "Order IDs are required")
+    @Size(max = 500, message = "At most 500 orders can be updated at once")
+    private List<@NotNull Long> orderIds;
+
+    @NotNull(message = "Order status is required")
+    private OrderStatus orderStatus;
+
+    @Size(max = 1000, message = "Internal notes must not exceed 1000 characters")
+    private String internalNotes;
+}
@@ -0,0 +1,37 @@
+package com.simplecommerce_mdm.order.dto;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk status transition, one result per requested order id
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusUpdateResponse {
+
+    private OrderStatus targetStatus;
+    private Integer requested;
+    private Integer updated;
+    private Integer failed;
+    private List<OrderResult> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderResult {
+        private Long orderId;
+        private String orderNumber;
+        private OrderStatus previousStatus;
+        private Boolean success;
+        private String message;
+    }
+}
@@ -0,0 +1,21 @@
+package com.simplecommerce_mdm.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutAdmissionStatusResponse {
+    private Set<Long> hotVariantIds;
+    private Integer concurrency;
+    private Integer inFlight;
+    private Integer queueDepth;
+    private Integer queueCapacity;
+    private Long estimatedWaitSeconds; // for a caller joining the queue now
+}
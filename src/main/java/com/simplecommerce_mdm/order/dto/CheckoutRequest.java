@@ -34,6 +34,10 @@ public class CheckoutRequest {
     // Optional: specific shipping method (can be null for default)
     private Long shippingMethodId;
 
+    // Optional: voucher code to redeem
+    @Size(max = 50, message = "Voucher code must not exceed 50 characters")
+    private String voucherCode;
+
     // Optional: specific cart item IDs to checkout (if null, checkout all items in cart)
     private List<Long> selectedCartItemIds;
 } 
\ No newline at end of file
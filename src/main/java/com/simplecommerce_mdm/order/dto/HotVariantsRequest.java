@@ -0,0 +1,21 @@
+package com.simplecommerce_mdm.order.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotVariantsRequest {
+
+    @NotNull(message = "Variant ids are required")
+    @Size(max = 1000, message = "At most 1000 hot variants")
+    private Set<Long> variantIds; // empty turns admission control off
+}
@@ -0,0 +1,23 @@
+package com.simplecommerce_mdm.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of comparing master order status counters with the actual child orders
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MasterOrderCounterCheckResponse {
+
+    private Integer checked;
+    private Integer mismatched;
+    private Integer rebuilt;
+    private List<Long> mismatchedMasterOrderIds;
+}
@@ -0,0 +1,51 @@
+package com.simplecommerce_mdm.order.dto;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Master order row for admin lists (no sub-order or item details)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MasterOrderSummaryResponse {
+
+    private Long id;
+    private String orderGroupNumber;
+    
+    // Customer info
+    private Long userId;
+    private String customerEmail;
+    private String customerPhone;
+    private String shippingContactName;
+    
+    // Overall status
+    private MasterOrderStatus overallStatus;
+    
+    // Payment info
+    private BigDecimal totalAmountPaid;
+    private BigDecimal totalDiscountAmount;
+    private String paymentMethodSnapshot;
+    
+    // Timestamps
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    // Summary
+    private Integer totalOrders;
+    private Integer totalItems;
+    private Integer totalQuantity;
+    
+    // Number of sub-orders per status
+    private Map<OrderStatus, Integer> orderStatusCounts;
+}
@@ -0,0 +1,22 @@
+package com.simplecommerce_mdm.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of admin order search results; pass {@code nextCursor} back to get the next page
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchResponse {
+
+    private List<OrderListResponse> orders;
+    private String nextCursor;
+    private Boolean hasMore;
+}
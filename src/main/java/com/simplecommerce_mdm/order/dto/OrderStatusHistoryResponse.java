@@ -0,0 +1,22 @@
+package com.simplecommerce_mdm.order.dto;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusHistoryResponse {
+
+    private OrderStatus statusFrom;
+    private OrderStatus statusTo;
+    private OffsetDateTime changedAt;
+    private Long changedByUserId;
+    private String notes;
+}
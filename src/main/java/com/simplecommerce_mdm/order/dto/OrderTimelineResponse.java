@@ -0,0 +1,20 @@
+package com.simplecommerce_mdm.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTimelineResponse {
+
+    private Long orderId;
+    
+    // Status changes, oldest first
+    private List<OrderStatusHistoryResponse> entries;
+}
@@ -0,0 +1,39 @@
+package com.simplecommerce_mdm.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShippingQuoteResponse {
+
+    private Long shippingAddressId; // null when the user has no address yet (region-independent rates only)
+    private List<ShopShippingQuote> shops;
+    private BigDecimal totalShippingFee;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ShopShippingQuote {
+        private Long shopId;
+        private String shopName;
+        private BigDecimal subtotal;
+        private Integer totalWeightGrams;
+        private BigDecimal shippingFee;
+        private Boolean freeShipping;
+        private BigDecimal freeShippingThreshold; // null when this shop's rate is never free
+        private BigDecimal amountToFreeShipping;
+        private Integer shippingMethodId;
+        private String shippingMethodName;
+        private Integer estimatedDeliveryMinDays;
+        private Integer estimatedDeliveryMaxDays;
+    }
+}
@@ -0,0 +1,41 @@
+package com.simplecommerce_mdm.order.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShippingRateRequest {
+
+    private Long shopId; // null applies to every shop
+
+    private Integer shippingMethodId; // null applies to checkouts without a shipping method
+
+    @Size(max = 100, message = "Region must not exceed 100 characters")
+    private String region; // province/city; null applies anywhere
+
+    @Min(value = 0, message = "Minimum weight must not be negative")
+    private Integer minWeightGrams;
+
+    @Min(value = 1, message = "Maximum weight must be positive")
+    private Integer maxWeightGrams; // exclusive; null means no upper bound
+
+    @NotNull(message = "Fee is required")
+    @DecimalMin(value = "0", message = "Fee must not be negative")
+    private BigDecimal fee;
+
+    @DecimalMin(value = "0", message = "Free shipping threshold must not be negative")
+    private BigDecimal freeShippingThreshold;
+
+    private Boolean isActive;
+}
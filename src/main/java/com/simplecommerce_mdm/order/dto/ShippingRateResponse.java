@@ -0,0 +1,28 @@
+package com.simplecommerce_mdm.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShippingRateResponse {
+    private Long id;
+    private Long shopId;
+    private String shopName;
+    private Integer shippingMethodId;
+    private String shippingMethodName;
+    private String region;
+    private Integer minWeightGrams;
+    private Integer maxWeightGrams;
+    private BigDecimal fee;
+    private BigDecimal freeShippingThreshold;
+    private Boolean isActive;
+    private LocalDateTime updatedAt;
+}
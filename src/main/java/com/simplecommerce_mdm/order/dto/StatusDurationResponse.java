@@ -0,0 +1,22 @@
+package com.simplecommerce_mdm.order.dto;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How long a shop's orders stayed in a status before moving on
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusDurationResponse {
+
+    private OrderStatus status;
+    private Long transitions;
+    private Double averageMinutes;
+    private Double maxMinutes;
+}
@@ -0,0 +1,120 @@
+package com.simplecommerce_mdm.order.model;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read model for the buyer's order history: one denormalized row per order, keyed by the order id.
+ * Written at checkout and on every status transition, so listing a buyer's orders is a single
+ * range scan on (user_id, created_at) without joins or per-row item queries.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "buyer_order_view", indexes = {
+    @Index(name = "idx_buyer_order_view_user_created", columnList = "user_id, created_at DESC"),
+    @Index(name = "idx_buyer_order_view_user_status_created", columnList = "user_id, order_status, created_at DESC"),
+    @Index(name = "idx_buyer_order_view_group", columnList = "order_group_number")
+})
+public class BuyerOrderView implements Persistable<Long> {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_number", nullable = false, length = 50)
+    private String orderNumber;
+
+    @Column(name = "order_group_number", nullable = false, length = 50)
+    private String orderGroupNumber;
+
+    @Column(name = "shop_id", nullable = false)
+    private Long shopId;
+
+    @Column(name = "shop_name")
+    private String shopName;
+
+    @Column(name = "customer_email", length = 255)
+    private String customerEmail;
+
+    @Column(name = "shipping_address", columnDefinition = "TEXT")
+    private String shippingAddress;
+
+    @Column(name = "contact_name", length = 255)
+    private String contactName;
+
+    @Column(name = "contact_phone", length = 20)
+    private String contactPhone;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "order_status", nullable = false)
+    private OrderStatus orderStatus;
+
+    @Column(name = "subtotal_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal subtotalAmount;
+
+    @Column(name = "shipping_fee", nullable = false, precision = 10, scale = 2)
+    private BigDecimal shippingFee;
+
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "total_items", nullable = false)
+    private Integer totalItems;
+
+    @Column(name = "total_quantity", nullable = false)
+    private Integer totalQuantity;
+
+    // Cloudinary public ids, variant image first with product image as fallback, duplicates removed
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "thumbnail_public_ids")
+    @Builder.Default
+    private List<String> thumbnailPublicIds = new ArrayList<>();
+
+    @Column(name = "ordered_at")
+    private OffsetDateTime orderedAt;
+
+    // Creation time of the order (not of this row), used for ordering
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Rows are only inserted once per order; lets save() persist without a SELECT for the assigned id
+    @Transient
+    @Builder.Default
+    private boolean newRow = true;
+
+    @Override
+    public Long getId() {
+        return orderId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRow;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newRow = false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.simplecommerce_mdm.order.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Durable record of a checkout Idempotency-Key: written in the checkout transaction together with the
+ * master order, so a retry that reaches another node, or this node after a restart, replays the stored
+ * response instead of checking out again.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_keys_user_key", columnNames = {"user_id", "idempotency_key"})
+}, indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+public class CheckoutIdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 255)
+    private String idempotencyKey;
+
+    // CheckoutRequest as JSON, to reject the key being reused for a different checkout
+    @Column(name = "request_json", nullable = false, columnDefinition = "TEXT")
+    private String requestJson;
+
+    // MasterOrderResponse as JSON; set before the checkout transaction commits
+    @Column(name = "response_json", columnDefinition = "TEXT")
+    private String responseJson;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+}
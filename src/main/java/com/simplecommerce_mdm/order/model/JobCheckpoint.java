@@ -0,0 +1,34 @@
+package com.simplecommerce_mdm.order.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Keyset position of an incremental background job: the (time, id) of the last row it processed.
+ * Jobs lock their row while they advance it, so only one node moves the cursor at a time.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "job_checkpoints")
+public class JobCheckpoint {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(name = "cursor_at", nullable = false)
+    private OffsetDateTime cursorAt;
+
+    @Column(name = "cursor_id", nullable = false)
+    @Builder.Default
+    private Long cursorId = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -1,6 +1,6 @@
 package com.simplecommerce_mdm.order.model;
 
-import com.simplecommerce_mdm.common.domain.BaseEntity;
+import com.simplecommerce_mdm.common.domain.PartitionedEntity;
 import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
 import com.simplecommerce_mdm.promotion.model.UserAppliedVoucher;
 import com.simplecommerce_mdm.user.model.User;
@@ -8,6 +8,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -18,10 +19,11 @@ import java.util.Set;
 @Builder
 @Entity
 @Table(name = "master_orders")
-public class MasterOrder extends BaseEntity {
+public class MasterOrder extends PartitionedEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "master_orders_seq")
+    @SequenceGenerator(name = "master_orders_seq", sequenceName = "master_orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_group_number", nullable = false, unique = true, length = 50)
@@ -68,6 +70,28 @@ public class MasterOrder extends BaseEntity {
     @Column(name = "transaction_id_gateway", unique = true, length = 255)
     private String transactionIdGateway;
 
+    // Child order counters per status bucket, used to derive overallStatus without loading siblings.
+    // Written on insert and through MasterOrderRepository bulk updates only; null means "not built yet".
+    @Column(name = "child_order_count", updatable = false)
+    private Integer childOrderCount;
+
+    @Column(name = "pending_payment_count", updatable = false)
+    private Integer pendingPaymentCount;
+
+    @Column(name = "awaiting_confirmation_count", updatable = false)
+    private Integer awaitingConfirmationCount;
+
+    @Column(name = "completed_count", updatable = false)
+    private Integer completedCount;
+
+    @Column(name = "cancelled_count", updatable = false)
+    private Integer cancelledCount;
+
+    // Set by OrderArchiver once the child orders moved to the cold archive; the counters above then stay
+    // as they were at archive time, and summaries are built from buyer_order_view
+    @Column(name = "archived_at", updatable = false)
+    private LocalDateTime archivedAt;
+
     @OneToMany(mappedBy = "masterOrder", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @Builder.Default
     private Set<Order> orders = new HashSet<>();
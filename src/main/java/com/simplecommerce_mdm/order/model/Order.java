@@ -1,6 +1,6 @@
 package com.simplecommerce_mdm.order.model;
 
-import com.simplecommerce_mdm.common.domain.BaseEntity;
+import com.simplecommerce_mdm.common.domain.PartitionedEntity;
 import com.simplecommerce_mdm.common.enums.OrderStatus;
 import com.simplecommerce_mdm.product.model.Shop;
 import jakarta.persistence.*;
@@ -17,11 +17,15 @@ import java.util.Set;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "orders")
-public class Order extends BaseEntity {
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_status_created", columnList = "order_status, created_at, id"),
+    @Index(name = "idx_orders_shop_status_id", columnList = "shop_id, order_status, id")
+})
+public class Order extends PartitionedEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -76,6 +80,15 @@ public class Order extends BaseEntity {
     @Builder.Default
     private OffsetDateTime orderedAt = OffsetDateTime.now();
 
+    // When the order entered its current status (null for orders created before status tracking)
+    @Column(name = "status_updated_at")
+    private OffsetDateTime statusUpdatedAt;
+
+    // Lower-cased order/group number, customer email and phone, contact name and shop name for admin search
+    // (trigram-indexed on PostgreSQL, see OrderSearchIndexInitializer)
+    @Column(name = "search_text", columnDefinition = "TEXT")
+    private String searchText;
+
     @OneToMany(mappedBy = "order", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @Builder.Default
     private Set<OrderItem> orderItems = new HashSet<>();
@@ -1,6 +1,6 @@
 package com.simplecommerce_mdm.order.model;
 
-import com.simplecommerce_mdm.common.domain.BaseEntity;
+import com.simplecommerce_mdm.common.domain.PartitionedEntity;
 import com.simplecommerce_mdm.common.enums.OrderItemStatus;
 import com.simplecommerce_mdm.product.model.ProductVariant;
 import jakarta.persistence.*;
@@ -15,10 +15,11 @@ import java.math.BigDecimal;
 @Builder
 @Entity
 @Table(name = "order_items")
-public class OrderItem extends BaseEntity {
+public class OrderItem extends PartitionedEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
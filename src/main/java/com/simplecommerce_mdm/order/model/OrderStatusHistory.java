@@ -13,11 +13,15 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "order_status_history")
+@Table(name = "order_status_history", indexes = {
+    @Index(name = "idx_order_status_history_order_changed", columnList = "order_id, changed_at"),
+    @Index(name = "idx_order_status_history_changed_id", columnList = "changed_at, id")
+})
 public class OrderStatusHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_status_history_seq")
+    @SequenceGenerator(name = "order_status_history_seq", sequenceName = "order_status_history_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,6 +40,10 @@ public class OrderStatusHistory {
     @Builder.Default
     private OffsetDateTime changedAt = OffsetDateTime.now();
 
+    // How long the order stayed in statusFrom before this change (null for the initial status)
+    @Column(name = "time_in_previous_status_ms")
+    private Long timeInPreviousStatusMs;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "changed_by_user_id")
     private User changedByUser;
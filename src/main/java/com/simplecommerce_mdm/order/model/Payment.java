@@ -1,6 +1,6 @@
 package com.simplecommerce_mdm.order.model;
 
-import com.simplecommerce_mdm.common.domain.BaseEntity;
+import com.simplecommerce_mdm.common.domain.PartitionedEntity;
 import com.simplecommerce_mdm.common.enums.PaymentStatus;
 import jakarta.persistence.*;
 import lombok.*;
@@ -15,10 +15,11 @@ import java.time.OffsetDateTime;
 @Builder
 @Entity
 @Table(name = "payments")
-public class Payment extends BaseEntity {
+public class Payment extends PartitionedEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -49,4 +50,13 @@ public class Payment extends BaseEntity {
 
     @Column(name = "paid_at")
     private OffsetDateTime paidAt;
+
+    // When the payment was reconciled against its delivered orders (COD cash collected)
+    @Column(name = "settled_at")
+    private OffsetDateTime settledAt;
+
+    // Cash actually collected at settlement: the totals of the delivered shop orders, less than the amount
+    // when some of them were cancelled
+    @Column(name = "settled_amount", precision = 12, scale = 2)
+    private BigDecimal settledAmount;
 } 
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.simplecommerce_mdm.order.model;
+
+import com.simplecommerce_mdm.common.domain.BaseEntity;
+import com.simplecommerce_mdm.product.model.Shop;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a shipping rate table. A rate applies to a shop (or every shop when {@code shop} is null),
+ * a shipping method (or checkouts without a method when null), a region (or anywhere when null)
+ * and a weight band [minWeightGrams, maxWeightGrams).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "shipping_rates", indexes = {
+        @Index(name = "idx_shipping_rates_shop_method", columnList = "shop_id, shipping_method_id")
+})
+public class ShippingRate extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "shop_id")
+    private Shop shop;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "shipping_method_id")
+    private ShippingMethod shippingMethod;
+
+    // Province/city of the shipping address
+    @Column(name = "region", length = 100)
+    private String region;
+
+    @Column(name = "min_weight_grams", nullable = false)
+    @Builder.Default
+    private Integer minWeightGrams = 0;
+
+    // Exclusive; null means no upper bound
+    @Column(name = "max_weight_grams")
+    private Integer maxWeightGrams;
+
+    @Column(name = "fee", nullable = false, precision = 10, scale = 2)
+    private BigDecimal fee;
+
+    // Shop subtotal from which shipping is free; null means never free
+    @Column(name = "free_shipping_threshold", precision = 15, scale = 2)
+    private BigDecimal freeShippingThreshold;
+
+    @Column(name = "is_active", nullable = false)
+    @Builder.Default
+    private Boolean isActive = true;
+}
@@ -0,0 +1,66 @@
+package com.simplecommerce_mdm.order.repository;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.model.BuyerOrderView;
+import com.simplecommerce_mdm.order.repository.OrderRepository.MasterOrderChildSummaryRow;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BuyerOrderViewRepository extends JpaRepository<BuyerOrderView, Long> {
+
+    /**
+     * Find a buyer's orders, newest first
+     */
+    Page<BuyerOrderView> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+
+    /**
+     * Find a buyer's orders in a status, newest first
+     */
+    Page<BuyerOrderView> findByUserIdAndOrderStatusOrderByCreatedAtDesc(Long userId, OrderStatus orderStatus, Pageable pageable);
+
+    /**
+     * Creation time range of several orders and how many of them have a row; the view is keyed by order id
+     * alone, so it locates orders in the created_at partitions of the order tables
+     */
+    @Query("SELECT MIN(v.createdAt) AS minCreatedAt, MAX(v.createdAt) AS maxCreatedAt, COUNT(v) AS orders " +
+           "FROM BuyerOrderView v WHERE v.orderId IN :orderIds")
+    CreatedAtRangeRow findCreatedAtRange(@Param("orderIds") Collection<Long> orderIds);
+
+    interface CreatedAtRangeRow {
+        LocalDateTime getMinCreatedAt();
+
+        LocalDateTime getMaxCreatedAt();
+
+        long getOrders();
+    }
+
+    /**
+     * Set the status of several orders
+     */
+    @Modifying
+    @Query("UPDATE BuyerOrderView v SET v.orderStatus = :status, v.updatedAt = :updatedAt WHERE v.orderId IN :orderIds")
+    int updateStatus(@Param("orderIds") Collection<Long> orderIds,
+                     @Param("status") OrderStatus status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Sub-order and item totals per (master order, order status), for master orders whose child orders
+     * were archived and are only left in the view
+     */
+    @Query("SELECT mo.id AS masterOrderId, v.orderStatus AS orderStatus, COUNT(v) AS orderCount, " +
+           "COALESCE(SUM(v.totalItems), 0) AS itemCount, COALESCE(SUM(v.totalQuantity), 0) AS quantity " +
+           "FROM BuyerOrderView v, MasterOrder mo " +
+           "WHERE v.orderGroupNumber = mo.orderGroupNumber AND mo.id IN :masterOrderIds " +
+           "GROUP BY mo.id, v.orderStatus")
+    List<MasterOrderChildSummaryRow> summarizeByMasterOrderIds(@Param("masterOrderIds") Collection<Long> masterOrderIds);
+}
@@ -0,0 +1,41 @@
+package com.simplecommerce_mdm.order.repository;
+
+import com.simplecommerce_mdm.order.model.CheckoutIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+@Repository
+public interface CheckoutIdempotencyKeyRepository extends JpaRepository<CheckoutIdempotencyKey, Long> {
+
+    /**
+     * Find a user's key that has not expired yet
+     */
+    @Query("SELECT k FROM CheckoutIdempotencyKey k " +
+           "WHERE k.userId = :userId AND k.idempotencyKey = :idempotencyKey AND k.expiresAt > :now")
+    Optional<CheckoutIdempotencyKey> findLive(@Param("userId") Long userId,
+                                              @Param("idempotencyKey") String idempotencyKey,
+                                              @Param("now") OffsetDateTime now);
+
+    /**
+     * Delete a user's key if it has expired, so it can be used again
+     */
+    @Modifying
+    @Query("DELETE FROM CheckoutIdempotencyKey k " +
+           "WHERE k.userId = :userId AND k.idempotencyKey = :idempotencyKey AND k.expiresAt <= :now")
+    int deleteIfExpired(@Param("userId") Long userId,
+                        @Param("idempotencyKey") String idempotencyKey,
+                        @Param("now") OffsetDateTime now);
+
+    /**
+     * Delete every expired key
+     */
+    @Modifying
+    @Query("DELETE FROM CheckoutIdempotencyKey k WHERE k.expiresAt <= :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
@@ -2,13 +2,21 @@ package com.simplecommerce_mdm.order.repository;
 
 import com.simplecommerce_mdm.order.model.MasterOrder;
 import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +28,21 @@ public interface MasterOrderRepository extends JpaRepository<MasterOrder, Long>
      */
     Optional<MasterOrder> findByOrderGroupNumber(String orderGroupNumber);
 
+    /**
+     * Find master orders that can be moved to the cold archive: older than the cutoff, with at least one
+     * live child order, every child order in a final status and untouched since the cutoff, and no
+     * reviews pointing at the child orders
+     */
+    @Query("SELECT mo.id FROM MasterOrder mo WHERE mo.createdAt < :cutoff " +
+           "AND EXISTS (SELECT 1 FROM Order o WHERE o.masterOrder = mo) " +
+           "AND NOT EXISTS (SELECT 1 FROM Order o WHERE o.masterOrder = mo " +
+           "AND (o.orderStatus NOT IN :finalStatuses OR o.updatedAt >= :cutoff)) " +
+           "AND NOT EXISTS (SELECT 1 FROM Review r WHERE r.order.masterOrder = mo) " +
+           "ORDER BY mo.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff,
+                                 @Param("finalStatuses") Collection<OrderStatus> finalStatuses,
+                                 Pageable pageable);
+
     /**
      * Find all master orders for a specific user
      */
@@ -41,11 +64,103 @@ public interface MasterOrderRepository extends JpaRepository<MasterOrder, Long>
      */
     boolean existsByOrderGroupNumber(String orderGroupNumber);
 
+    /**
+     * Check if the user has placed any order
+     */
+    boolean existsByUserId(Long userId);
+
     /**
      * Count orders by user and status
      */
     long countByUserIdAndOverallStatus(Long userId, MasterOrderStatus status);
 
+    /**
+     * Find all master orders for admin lists, newest first
+     */
+    @Query(value = "SELECT mo FROM MasterOrder mo ORDER BY mo.createdAt DESC",
+           countQuery = "SELECT COUNT(mo) FROM MasterOrder mo")
+    Page<MasterOrder> findAllOrderByCreatedAtDesc(Pageable pageable);
+
+    /**
+     * Page through master order ids (consistency checks)
+     */
+    @Query(value = "SELECT mo.id FROM MasterOrder mo ORDER BY mo.id",
+           countQuery = "SELECT COUNT(mo) FROM MasterOrder mo")
+    Page<Long> findIdsOrderById(Pageable pageable);
+
+    /**
+     * Claim the next chunk of master order ids after {@code afterId} for a counter check, skipping rows
+     * locked by in-flight transitions or by another node (FOR UPDATE SKIP LOCKED)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT mo FROM MasterOrder mo WHERE mo.id > :afterId AND mo.archivedAt IS NULL ORDER BY mo.id")
+    List<MasterOrder> findChunkAfterIdForUpdate(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Atomically apply a delta to the child status counters (0 rows updated when counters are not built yet)
+     */
+    @Modifying
+    @Query("UPDATE MasterOrder mo SET " +
+           "mo.pendingPaymentCount = mo.pendingPaymentCount + :pendingPayment, " +
+           "mo.awaitingConfirmationCount = mo.awaitingConfirmationCount + :awaitingConfirmation, " +
+           "mo.completedCount = mo.completedCount + :completed, " +
+           "mo.cancelledCount = mo.cancelledCount + :cancelled " +
+           "WHERE mo.id = :masterOrderId AND mo.childOrderCount IS NOT NULL " +
+           "AND mo.createdAt BETWEEN :createdFrom AND :createdTo")
+    int applyStatusCounterDelta(@Param("masterOrderId") Long masterOrderId,
+                                @Param("pendingPayment") int pendingPayment,
+                                @Param("awaitingConfirmation") int awaitingConfirmation,
+                                @Param("completed") int completed,
+                                @Param("cancelled") int cancelled,
+                                @Param("createdFrom") LocalDateTime createdFrom,
+                                @Param("createdTo") LocalDateTime createdTo);
+
+    /**
+     * Set the overall status of several master orders
+     */
+    @Modifying
+    @Query("UPDATE MasterOrder mo SET mo.overallStatus = :status, mo.updatedAt = :updatedAt " +
+           "WHERE mo.id IN :masterOrderIds AND mo.createdAt BETWEEN :createdFrom AND :createdTo")
+    int updateOverallStatus(@Param("masterOrderIds") Collection<Long> masterOrderIds,
+                            @Param("status") MasterOrderStatus status,
+                            @Param("updatedAt") LocalDateTime updatedAt,
+                            @Param("createdFrom") LocalDateTime createdFrom,
+                            @Param("createdTo") LocalDateTime createdTo);
+
+    /**
+     * Overwrite the child status counters (rebuild)
+     */
+    @Modifying
+    @Query("UPDATE MasterOrder mo SET mo.childOrderCount = :childOrders, " +
+           "mo.pendingPaymentCount = :pendingPayment, mo.awaitingConfirmationCount = :awaitingConfirmation, " +
+           "mo.completedCount = :completed, mo.cancelledCount = :cancelled " +
+           "WHERE mo.id = :masterOrderId")
+    int setStatusCounters(@Param("masterOrderId") Long masterOrderId,
+                          @Param("childOrders") int childOrders,
+                          @Param("pendingPayment") int pendingPayment,
+                          @Param("awaitingConfirmation") int awaitingConfirmation,
+                          @Param("completed") int completed,
+                          @Param("cancelled") int cancelled);
+
+    /**
+     * Mark master orders whose child orders were moved to the cold archive
+     */
+    @Modifying
+    @Query("UPDATE MasterOrder mo SET mo.archivedAt = :archivedAt WHERE mo.id IN :masterOrderIds")
+    int markArchived(@Param("masterOrderIds") Collection<Long> masterOrderIds,
+                     @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Read the current child status counters straight from the database. Archived master orders are left
+     * out: their children are no longer in the order tables, so there is nothing to check the counters against.
+     */
+    @Query("SELECT mo.id AS masterOrderId, mo.childOrderCount AS childOrderCount, " +
+           "mo.pendingPaymentCount AS pendingPaymentCount, mo.awaitingConfirmationCount AS awaitingConfirmationCount, " +
+           "mo.completedCount AS completedCount, mo.cancelledCount AS cancelledCount " +
+           "FROM MasterOrder mo WHERE mo.id IN :masterOrderIds AND mo.archivedAt IS NULL")
+    List<StatusCounterRow> findStatusCounters(@Param("masterOrderIds") Collection<Long> masterOrderIds);
+
     /**
      * Find recent orders for admin dashboard
      */
@@ -60,4 +175,13 @@ public interface MasterOrderRepository extends JpaRepository<MasterOrder, Long>
            "LOWER(mo.customerPhone) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(mo.orderGroupNumber) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<MasterOrder> searchByCustomerInfo(@Param("keyword") String keyword, Pageable pageable);
+
+    interface StatusCounterRow {
+        Long getMasterOrderId();
+        Integer getChildOrderCount();
+        Integer getPendingPaymentCount();
+        Integer getAwaitingConfirmationCount();
+        Integer getCompletedCount();
+        Integer getCancelledCount();
+    }
 } 
\ No newline at end of file
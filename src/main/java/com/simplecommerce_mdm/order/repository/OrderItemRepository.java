@@ -3,10 +3,12 @@ package com.simplecommerce_mdm.order.repository;
 import com.simplecommerce_mdm.order.model.OrderItem;
 import com.simplecommerce_mdm.common.enums.OrderItemStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -32,6 +34,15 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      */
     long countByOrderId(Long orderId);
 
+    /**
+     * Lightweight item rows (quantity and image snapshots) for a page of orders, in item order
+     */
+    @Query("SELECT oi.order.id AS orderId, oi.quantity AS quantity, " +
+           "oi.variantImageCloudinaryPublicIdSnapshot AS variantImagePublicId, " +
+           "oi.productImageCloudinaryPublicIdSnapshot AS productImagePublicId " +
+           "FROM OrderItem oi WHERE oi.order.id IN :orderIds ORDER BY oi.order.id, oi.id")
+    List<OrderItemSummaryRow> findSummaryRowsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
     /**
      * Sum quantity by order
      */
@@ -55,4 +66,37 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      */
     @Query("SELECT oi FROM OrderItem oi WHERE oi.order.masterOrder.user.id = :userId ORDER BY oi.createdAt DESC")
     List<OrderItem> findByUserId(@Param("userId") Long userId);
+
+    /**
+     * Total ordered quantity per variant across several orders
+     */
+    @Query("SELECT oi.variant.id AS variantId, SUM(oi.quantity) AS quantity FROM OrderItem oi " +
+           "WHERE oi.order.id IN :orderIds AND oi.variant IS NOT NULL GROUP BY oi.variant.id")
+    List<VariantQuantityRow> sumQuantityByVariantForOrders(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Find the items of several orders with variant and product, for archiving
+     */
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.variant v JOIN FETCH v.product " +
+           "WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItem> findForArchive(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Delete the items of several orders
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM OrderItem oi WHERE oi.order.id IN :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    interface VariantQuantityRow {
+        Long getVariantId();
+        Long getQuantity();
+    }
+
+    interface OrderItemSummaryRow {
+        Long getOrderId();
+        Integer getQuantity();
+        String getVariantImagePublicId();
+        String getProductImagePublicId();
+    }
 } 
\ No newline at end of file
@@ -4,15 +4,23 @@ import com.simplecommerce_mdm.order.model.Order;
 import com.simplecommerce_mdm.common.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Collection;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -27,6 +35,58 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     List<Order> findByMasterOrderIdOrderByCreatedAtDesc(Long masterOrderId);
 
+    /**
+     * Find an order by id within a created_at range (see OrderCreatedAtBounds)
+     */
+    @Query("SELECT o FROM Order o WHERE o.id = :orderId AND o.createdAt BETWEEN :createdFrom AND :createdTo")
+    Optional<Order> findByIdCreatedBetween(@Param("orderId") Long orderId,
+                                           @Param("createdFrom") LocalDateTime createdFrom,
+                                           @Param("createdTo") LocalDateTime createdTo);
+
+    /**
+     * Find and lock a shop's orders (with master order and buyer) before a bulk status transition
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o JOIN FETCH o.masterOrder mo JOIN FETCH mo.user " +
+           "WHERE o.id IN :orderIds AND o.shop.id = :shopId AND o.createdAt BETWEEN :createdFrom AND :createdTo")
+    List<Order> findAllForStatusUpdate(@Param("orderIds") Collection<Long> orderIds,
+                                       @Param("shopId") Long shopId,
+                                       @Param("createdFrom") LocalDateTime createdFrom,
+                                       @Param("createdTo") LocalDateTime createdTo);
+
+    /**
+     * Move orders from one status to another in a single statement; only rows still in {@code from} change
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.orderStatus = :to, o.statusUpdatedAt = :statusUpdatedAt, o.updatedAt = :updatedAt, " +
+           "o.internalNotes = COALESCE(:internalNotes, o.internalNotes) " +
+           "WHERE o.id IN :orderIds AND o.orderStatus = :from AND o.createdAt BETWEEN :createdFrom AND :createdTo")
+    int bulkUpdateStatus(@Param("orderIds") Collection<Long> orderIds,
+                         @Param("from") OrderStatus from,
+                         @Param("to") OrderStatus to,
+                         @Param("internalNotes") String internalNotes,
+                         @Param("statusUpdatedAt") OffsetDateTime statusUpdatedAt,
+                         @Param("updatedAt") LocalDateTime updatedAt,
+                         @Param("createdFrom") LocalDateTime createdFrom,
+                         @Param("createdTo") LocalDateTime createdTo);
+
+    /**
+     * Sub-order and item totals per (master order, order status) for a page of master orders
+     */
+    @Query("SELECT o.masterOrder.id AS masterOrderId, o.orderStatus AS orderStatus, " +
+           "COUNT(DISTINCT o.id) AS orderCount, COUNT(oi.id) AS itemCount, COALESCE(SUM(oi.quantity), 0) AS quantity " +
+           "FROM Order o LEFT JOIN o.orderItems oi " +
+           "WHERE o.masterOrder.id IN :masterOrderIds " +
+           "GROUP BY o.masterOrder.id, o.orderStatus")
+    List<MasterOrderChildSummaryRow> summarizeByMasterOrderIds(@Param("masterOrderIds") Collection<Long> masterOrderIds);
+
+    /**
+     * Number of child orders per (master order, order status)
+     */
+    @Query("SELECT o.masterOrder.id AS masterOrderId, o.orderStatus AS orderStatus, COUNT(o) AS orderCount " +
+           "FROM Order o WHERE o.masterOrder.id IN :masterOrderIds GROUP BY o.masterOrder.id, o.orderStatus")
+    List<MasterOrderStatusCountRow> countByMasterOrderIdsGroupByStatus(@Param("masterOrderIds") Collection<Long> masterOrderIds);
+
     /**
      * Find orders by master order with shop eagerly fetched (for email building after commit)
      */
@@ -34,29 +94,46 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByMasterOrderIdFetchShop(@Param("masterOrderId") Long masterOrderId);
 
     /**
-     * Find orders by shop for seller
+     * Find orders by shop for seller (master order and shop fetched for list rendering)
      */
-    Page<Order> findByShopIdOrderByCreatedAtDesc(Long shopId, Pageable pageable);
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.masterOrder JOIN FETCH o.shop " +
+                   "WHERE o.shop.id = :shopId ORDER BY o.createdAt DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.shop.id = :shopId")
+    Page<Order> findByShopIdOrderByCreatedAtDesc(@Param("shopId") Long shopId, Pageable pageable);
 
     /**
-     * Find orders by shop and status
+     * Find orders by shop and status (master order and shop fetched for list rendering)
      */
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.masterOrder JOIN FETCH o.shop " +
+                   "WHERE o.shop.id = :shopId AND o.orderStatus = :status ORDER BY o.createdAt DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.shop.id = :shopId AND o.orderStatus = :status")
     Page<Order> findByShopIdAndOrderStatusOrderByCreatedAtDesc(
-            Long shopId, OrderStatus status, Pageable pageable);
+            @Param("shopId") Long shopId, @Param("status") OrderStatus status, Pageable pageable);
 
     /**
-     * Find user's orders through master order
+     * Find user's orders through master order (master order and shop fetched for list rendering)
      */
-    @Query("SELECT o FROM Order o WHERE o.masterOrder.user.id = :userId ORDER BY o.createdAt DESC")
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.masterOrder mo JOIN FETCH o.shop " +
+                   "WHERE mo.user.id = :userId ORDER BY o.createdAt DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.masterOrder.user.id = :userId")
     Page<Order> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId, Pageable pageable);
 
     /**
-     * Find user's orders by status
+     * Find user's orders by status (master order and shop fetched for list rendering)
      */
-    @Query("SELECT o FROM Order o WHERE o.masterOrder.user.id = :userId AND o.orderStatus = :status ORDER BY o.createdAt DESC")
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.masterOrder mo JOIN FETCH o.shop " +
+                   "WHERE mo.user.id = :userId AND o.orderStatus = :status ORDER BY o.createdAt DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.masterOrder.user.id = :userId AND o.orderStatus = :status")
     Page<Order> findByUserIdAndStatusOrderByCreatedAtDesc(
             @Param("userId") Long userId, @Param("status") OrderStatus status, Pageable pageable);
 
+    /**
+     * Find all orders for admin (master order and shop fetched for list rendering)
+     */
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.masterOrder JOIN FETCH o.shop ORDER BY o.createdAt DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<Order> findAllFetchMasterOrderAndShop(Pageable pageable);
+
     /**
      * Check if order number exists
      */
@@ -73,16 +150,55 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     long countByShopIdAndOrderStatus(Long shopId, OrderStatus status);
 
+    /**
+     * Find and lock the next chunk of orders without search text, by id, with master order and shop
+     * (search text backfill). Rows locked by another node are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order o JOIN FETCH o.masterOrder JOIN FETCH o.shop " +
+           "WHERE o.searchText IS NULL AND o.id > :afterId ORDER BY o.id")
+    List<Order> findWithoutSearchTextChunkForUpdate(@Param("afterId") Long afterId, Pageable pageable);
+
     /**
      * Count orders by status
      */
     long countByOrderStatus(OrderStatus status);
 
     /**
-     * Find orders that need seller confirmation
+     * Find and lock the next chunk of orders still in a status and created before the cutoff,
+     * keyset-ordered by (createdAt, id). Rows locked by another node are skipped.
      */
-    @Query("SELECT o FROM Order o WHERE o.orderStatus = 'AWAITING_CONFIRMATION' ORDER BY o.createdAt ASC")
-    List<Order> findOrdersAwaitingConfirmation();
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order o JOIN FETCH o.masterOrder mo JOIN FETCH mo.user " +
+           "WHERE o.orderStatus = :status AND o.createdAt < :cutoff " +
+           "AND (o.createdAt > :afterCreatedAt OR (o.createdAt = :afterCreatedAt AND o.id > :afterId)) " +
+           "ORDER BY o.createdAt ASC, o.id ASC")
+    List<Order> findOverdueChunkForUpdate(@Param("status") OrderStatus status,
+                                          @Param("cutoff") LocalDateTime cutoff,
+                                          @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    /**
+     * Find orders that have no buyer order view row yet (backfill), with master order and shop
+     */
+    @Query("SELECT o FROM Order o JOIN FETCH o.masterOrder JOIN FETCH o.shop " +
+           "WHERE NOT EXISTS (SELECT 1 FROM BuyerOrderView v WHERE v.orderId = o.id) ORDER BY o.id")
+    List<Order> findWithoutBuyerOrderView(Pageable pageable);
+
+    /**
+     * Ids of orders that have no buyer order view row yet, in no particular order (completeness check)
+     */
+    @Query("SELECT o.id FROM Order o WHERE NOT EXISTS (SELECT 1 FROM BuyerOrderView v WHERE v.orderId = o.id)")
+    List<Long> findIdsWithoutBuyerOrderView(Pageable pageable);
+
+    /**
+     * Creation time of the oldest order still in a status
+     */
+    @Query("SELECT MIN(o.createdAt) FROM Order o WHERE o.orderStatus = :status")
+    Optional<LocalDateTime> findOldestCreatedAtByStatus(@Param("status") OrderStatus status);
 
     /**
      * Find orders for a shop in a date range filtered by statuses
@@ -120,11 +236,101 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                              @Param("end") LocalDateTime end);
 
     /**
-     * Search orders for admin
+     * Search orders for admin by the maintained search column
+     */
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.masterOrder JOIN FETCH o.shop " +
+                   "WHERE o.searchText LIKE :pattern ESCAPE '\\' ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.searchText LIKE :pattern ESCAPE '\\'")
+    Page<Order> searchOrders(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * Keyset page of admin search results created in [from, to), newest first, strictly before the cursor
+     */
+    @Query("SELECT o FROM Order o JOIN FETCH o.masterOrder JOIN FETCH o.shop " +
+           "WHERE o.searchText LIKE :pattern ESCAPE '\\' " +
+           "AND (:status IS NULL OR o.orderStatus = :status) " +
+           "AND o.createdAt >= :from AND o.createdAt < :to " +
+           "AND (o.createdAt < :beforeCreatedAt OR (o.createdAt = :beforeCreatedAt AND o.id < :beforeId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> searchOrdersKeyset(@Param("pattern") String pattern,
+                                   @Param("status") OrderStatus status,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to,
+                                   @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                   @Param("beforeId") Long beforeId,
+                                   Pageable pageable);
+
+    /**
+     * Stream one row per order item (orders without items yield one row with null item columns),
+     * ordered by order so rows of the same order are adjacent. Read through a server-side cursor.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o.id AS orderId, o.orderNumber AS orderNumber, mo.orderGroupNumber AS orderGroupNumber, " +
+           "o.orderStatus AS orderStatus, s.id AS shopId, s.name AS shopName, mo.customerEmail AS customerEmail, " +
+           "o.subtotalAmount AS subtotalAmount, o.shippingFee AS shippingFee, o.orderedAt AS orderedAt, " +
+           "o.createdAt AS createdAt, oi.id AS itemId, oi.variantSkuSnapshot AS variantSku, " +
+           "oi.productNameSnapshot AS productName, oi.quantity AS quantity, oi.unitPrice AS unitPrice, " +
+           "oi.subtotal AS itemSubtotal " +
+           "FROM Order o JOIN o.masterOrder mo JOIN o.shop s " +
+           // Items are never created before their order; the bound lets PostgreSQL prune item partitions
+           "LEFT JOIN o.orderItems oi ON oi.createdAt >= :from " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to " +
+           "AND (:status IS NULL OR o.orderStatus = :status) " +
+           "AND (:shopId IS NULL OR s.id = :shopId) " +
+           "ORDER BY o.createdAt, o.id, oi.id")
+    Stream<OrderExportRow> streamExportRows(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("status") OrderStatus status,
+                                            @Param("shopId") Long shopId);
+
+    /**
+     * Find the orders of several master orders for archiving, with master order, buyer and shop
      */
-    @Query("SELECT o FROM Order o WHERE " +
-           "LOWER(o.orderNumber) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(o.masterOrder.customerEmail) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(o.shop.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    Page<Order> searchOrders(@Param("keyword") String keyword, Pageable pageable);
+    @Query("SELECT o FROM Order o JOIN FETCH o.masterOrder mo JOIN FETCH mo.user JOIN FETCH o.shop " +
+           "WHERE mo.id IN :masterOrderIds ORDER BY o.id")
+    List<Order> findForArchive(@Param("masterOrderIds") Collection<Long> masterOrderIds);
+
+    /**
+     * Delete orders by id (their items, history and buyer view rows must be deleted first)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Order o WHERE o.id IN :orderIds")
+    int deleteByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    interface OrderExportRow {
+        Long getOrderId();
+        String getOrderNumber();
+        String getOrderGroupNumber();
+        OrderStatus getOrderStatus();
+        Long getShopId();
+        String getShopName();
+        String getCustomerEmail();
+        java.math.BigDecimal getSubtotalAmount();
+        java.math.BigDecimal getShippingFee();
+        OffsetDateTime getOrderedAt();
+        LocalDateTime getCreatedAt();
+        Long getItemId();
+        String getVariantSku();
+        String getProductName();
+        Integer getQuantity();
+        java.math.BigDecimal getUnitPrice();
+        java.math.BigDecimal getItemSubtotal();
+    }
+
+    interface MasterOrderStatusCountRow {
+        Long getMasterOrderId();
+        OrderStatus getOrderStatus();
+        Long getOrderCount();
+    }
+
+    interface MasterOrderChildSummaryRow {
+        Long getMasterOrderId();
+        OrderStatus getOrderStatus();
+        Long getOrderCount();
+        Long getItemCount();
+        Long getQuantity();
+    }
 } 
\ No newline at end of file
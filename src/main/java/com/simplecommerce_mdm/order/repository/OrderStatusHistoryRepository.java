@@ -0,0 +1,94 @@
+package com.simplecommerce_mdm.order.repository;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.model.OrderStatusHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderStatusHistoryRepository extends JpaRepository<OrderStatusHistory, Long> {
+
+    /**
+     * Timeline rows for several orders, oldest first per order
+     */
+    @Query("SELECT h.order.id AS orderId, h.statusFrom AS statusFrom, h.statusTo AS statusTo, " +
+           "h.changedAt AS changedAt, h.changedByUser.id AS changedByUserId, h.notes AS notes " +
+           "FROM OrderStatusHistory h WHERE h.order.id IN :orderIds " +
+           "ORDER BY h.order.id, h.changedAt, h.id")
+    List<TimelineRow> findTimelineRows(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Timeline rows for several orders restricted to orders owned by a user
+     */
+    @Query("SELECT h.order.id AS orderId, h.statusFrom AS statusFrom, h.statusTo AS statusTo, " +
+           "h.changedAt AS changedAt, h.changedByUser.id AS changedByUserId, h.notes AS notes " +
+           "FROM OrderStatusHistory h WHERE h.order.id IN :orderIds AND h.order.masterOrder.user.id = :userId " +
+           "ORDER BY h.order.id, h.changedAt, h.id")
+    List<TimelineRow> findTimelineRowsForUser(@Param("orderIds") Collection<Long> orderIds,
+                                              @Param("userId") Long userId);
+
+    /**
+     * Next chunk of transitions into one of the statuses, keyset-ordered by (changedAt, id)
+     * and limited to transitions before the horizon
+     */
+    @Query("SELECT h.id AS id, h.changedAt AS changedAt, o.masterOrder.id AS masterOrderId " +
+           "FROM OrderStatusHistory h JOIN h.order o " +
+           "WHERE h.changedAt < :horizon " +
+           "AND (h.changedAt > :afterChangedAt OR (h.changedAt = :afterChangedAt AND h.id > :afterId)) " +
+           "AND h.statusTo IN :statuses " +
+           "ORDER BY h.changedAt ASC, h.id ASC")
+    List<TransitionRow> findTransitionChunk(@Param("statuses") Collection<OrderStatus> statuses,
+                                            @Param("afterChangedAt") OffsetDateTime afterChangedAt,
+                                            @Param("afterId") Long afterId,
+                                            @Param("horizon") OffsetDateTime horizon,
+                                            Pageable pageable);
+
+    /**
+     * Time spent per status by the shop's orders, over transitions made since {@code since}
+     */
+    @Query("SELECT h.statusFrom AS status, COUNT(h) AS transitions, " +
+           "AVG(h.timeInPreviousStatusMs) AS averageMillis, MAX(h.timeInPreviousStatusMs) AS maxMillis " +
+           "FROM OrderStatusHistory h JOIN h.order o " +
+           "WHERE o.shop.id = :shopId AND h.changedAt >= :since " +
+           "AND h.statusFrom IS NOT NULL AND h.timeInPreviousStatusMs IS NOT NULL " +
+           "GROUP BY h.statusFrom")
+    List<StatusDurationRow> summarizeTimeInStatusByShop(@Param("shopId") Long shopId,
+                                                        @Param("since") OffsetDateTime since);
+
+    /**
+     * Delete the status history of several orders
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM OrderStatusHistory h WHERE h.order.id IN :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    interface StatusDurationRow {
+        OrderStatus getStatus();
+        Long getTransitions();
+        Double getAverageMillis();
+        Long getMaxMillis();
+    }
+
+    interface TransitionRow {
+        Long getId();
+        OffsetDateTime getChangedAt();
+        Long getMasterOrderId();
+    }
+
+    interface TimelineRow {
+        Long getOrderId();
+        OrderStatus getStatusFrom();
+        OrderStatus getStatusTo();
+        OffsetDateTime getChangedAt();
+        Long getChangedByUserId();
+        String getNotes();
+    }
+}
@@ -1,16 +1,20 @@
 package com.simplecommerce_mdm.order.repository;
 
 import com.simplecommerce_mdm.order.model.Payment;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
 import com.simplecommerce_mdm.common.enums.PaymentStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.Optional;
 
 @Repository
@@ -42,10 +46,53 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     boolean existsByTransactionId(String transactionId);
 
     /**
-     * Find pending payments
+     * Find pending payments, oldest first, one page at a time
      */
-    @Query("SELECT p FROM Payment p WHERE p.status = 'PENDING' ORDER BY p.createdAt ASC")
-    List<Payment> findPendingPayments();
+    @Query("SELECT p FROM Payment p WHERE p.status = 'PENDING' ORDER BY p.createdAt ASC, p.id ASC")
+    List<Payment> findPendingPayments(Pageable pageable);
+
+    /**
+     * Settle the pending payments of a payment method for master orders whose shop orders have all been
+     * delivered, completed or cancelled, with at least one delivered or completed. The settled amount is
+     * the total of the delivered and completed shop orders only.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = com.simplecommerce_mdm.common.enums.PaymentStatus.COMPLETED, " +
+           "p.paidAt = COALESCE(p.paidAt, :settledAt), p.settledAt = :settledAt, p.updatedAt = :now, " +
+           "p.settledAmount = (SELECT COALESCE(SUM(o.subtotalAmount + o.shippingFee - o.itemDiscountAmount " +
+           "- o.shippingDiscountAmount + o.taxAmount), 0) FROM Order o " +
+           "WHERE o.masterOrder.id = p.masterOrder.id AND o.orderStatus IN :settledStatuses) " +
+           "WHERE p.masterOrder.id IN :masterOrderIds " +
+           "AND p.status = com.simplecommerce_mdm.common.enums.PaymentStatus.PENDING " +
+           "AND p.paymentMethod.id IN (SELECT pm.id FROM PaymentMethod pm WHERE pm.code = :methodCode) " +
+           "AND EXISTS (SELECT o.id FROM Order o WHERE o.masterOrder.id = p.masterOrder.id AND o.orderStatus IN :settledStatuses) " +
+           "AND NOT EXISTS (SELECT o.id FROM Order o WHERE o.masterOrder.id = p.masterOrder.id " +
+           "AND o.orderStatus NOT IN :settledStatuses AND o.orderStatus NOT IN :cancelledStatuses)")
+    int settleForMasterOrders(@Param("masterOrderIds") Collection<Long> masterOrderIds,
+                              @Param("methodCode") String methodCode,
+                              @Param("settledStatuses") Collection<OrderStatus> settledStatuses,
+                              @Param("cancelledStatuses") Collection<OrderStatus> cancelledStatuses,
+                              @Param("settledAt") OffsetDateTime settledAt,
+                              @Param("now") LocalDateTime now);
+
+    /**
+     * Pending payments of a payment method after {@code afterId}, oldest id first, created before the
+     * cutoff (sweep for master orders the status history does not lead to)
+     */
+    @Query("SELECT p.id AS id, p.masterOrder.id AS masterOrderId FROM Payment p " +
+           "WHERE p.id > :afterId AND p.status = com.simplecommerce_mdm.common.enums.PaymentStatus.PENDING " +
+           "AND p.paymentMethod.id IN (SELECT pm.id FROM PaymentMethod pm WHERE pm.code = :methodCode) " +
+           "AND p.createdAt < :createdBefore ORDER BY p.id")
+    List<PendingPaymentRow> findPendingChunk(@Param("methodCode") String methodCode,
+                                             @Param("afterId") Long afterId,
+                                             @Param("createdBefore") LocalDateTime createdBefore,
+                                             Pageable pageable);
+
+    interface PendingPaymentRow {
+        Long getId();
+
+        Long getMasterOrderId();
+    }
 
     /**
      * Find successful payments for a user
@@ -56,7 +103,8 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     /**
      * Calculate total payment amount by master order
      */
-    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.masterOrder.id = :masterOrderId AND p.status = 'COMPLETED'")
+    @Query("SELECT COALESCE(SUM(COALESCE(p.settledAmount, p.amount)), 0) FROM Payment p " +
+           "WHERE p.masterOrder.id = :masterOrderId AND p.status = 'COMPLETED'")
     java.math.BigDecimal sumCompletedPaymentsByMasterOrder(@Param("masterOrderId") Long masterOrderId);
 
     /**
@@ -65,7 +113,20 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     long countByStatus(PaymentStatus status);
 
     // Payment breakdown: count and sum by method within date range
-    @Query("SELECT pm.code, COUNT(p.id), COALESCE(SUM(p.amount),0) FROM Payment p JOIN p.paymentMethod pm " +
+    @Query("SELECT pm.code, COUNT(p.id), COALESCE(SUM(COALESCE(p.settledAmount, p.amount)),0) FROM Payment p JOIN p.paymentMethod pm " +
            "WHERE p.status = 'COMPLETED' AND p.createdAt BETWEEN :start AND :end GROUP BY pm.code")
     List<Object[]> breakdownByMethodAll(LocalDateTime start, LocalDateTime end);
-} 
\ No newline at end of file
+
+    /**
+     * Find the payments of several master orders with their method, for archiving
+     */
+    @Query("SELECT p FROM Payment p JOIN FETCH p.paymentMethod WHERE p.masterOrder.id IN :masterOrderIds ORDER BY p.id")
+    List<Payment> findForArchive(@Param("masterOrderIds") Collection<Long> masterOrderIds);
+
+    /**
+     * Delete the payments of several master orders
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Payment p WHERE p.masterOrder.id IN :masterOrderIds")
+    int deleteByMasterOrderIdIn(@Param("masterOrderIds") Collection<Long> masterOrderIds);
+}
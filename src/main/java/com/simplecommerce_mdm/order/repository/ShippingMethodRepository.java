@@ -0,0 +1,16 @@
+package com.simplecommerce_mdm.order.repository;
+
+import com.simplecommerce_mdm.order.model.ShippingMethod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ShippingMethodRepository extends JpaRepository<ShippingMethod, Integer> {
+
+    /**
+     * Find active shipping methods
+     */
+    List<ShippingMethod> findByIsActiveTrue();
+}
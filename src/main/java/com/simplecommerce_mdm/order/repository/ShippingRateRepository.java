@@ -0,0 +1,26 @@
+package com.simplecommerce_mdm.order.repository;
+
+import com.simplecommerce_mdm.order.model.ShippingRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ShippingRateRepository extends JpaRepository<ShippingRate, Long> {
+
+    /**
+     * Find active rates with their shop and shipping method (for compiling the rate table)
+     */
+    @Query("SELECT r FROM ShippingRate r LEFT JOIN FETCH r.shop LEFT JOIN FETCH r.shippingMethod " +
+           "WHERE r.isActive = true AND r.deletedAt IS NULL")
+    List<ShippingRate> findAllActive();
+
+    /**
+     * Find all rates with their shop and shipping method, newest first
+     */
+    @Query("SELECT r FROM ShippingRate r LEFT JOIN FETCH r.shop LEFT JOIN FETCH r.shippingMethod " +
+           "WHERE r.deletedAt IS NULL ORDER BY r.createdAt DESC")
+    List<ShippingRate> findAllWithShopAndMethod();
+}
@@ -0,0 +1,123 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.model.BuyerOrderView;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderItem;
+import com.simplecommerce_mdm.order.repository.BuyerOrderViewRepository;
+import com.simplecommerce_mdm.order.repository.OrderItemRepository;
+import com.simplecommerce_mdm.order.repository.OrderItemRepository.OrderItemSummaryRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@link BuyerOrderView} in step with the orders. Called in the same transaction as the order
+ * write, so the buyer's order history never lags behind the order itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class BuyerOrderViewProjector {
+
+    private final BuyerOrderViewRepository buyerOrderViewRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    /**
+     * Insert the rows of newly created orders from the in-memory items (no extra reads)
+     */
+    public void onOrdersCreated(Map<Order, List<OrderItem>> itemsByOrder) {
+        List<BuyerOrderView> views = new ArrayList<>();
+        itemsByOrder.forEach((order, items) -> {
+            ItemSummary summary = new ItemSummary();
+            for (OrderItem item : items) {
+                summary.add(item.getQuantity(), item.getVariantImageCloudinaryPublicIdSnapshot(),
+                        item.getProductImageCloudinaryPublicIdSnapshot());
+            }
+            views.add(toView(order, summary));
+        });
+        buyerOrderViewRepository.saveAll(views);
+    }
+
+    /**
+     * Move the rows of several orders to a new status with one UPDATE
+     */
+    public void onStatusChanged(Collection<Long> orderIds, OrderStatus status) {
+        if (!orderIds.isEmpty()) {
+            buyerOrderViewRepository.updateStatus(orderIds, status, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Insert rows for existing orders (master order and shop fetched); items are read with one query
+     */
+    public int backfill(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        Map<Long, ItemSummary> summaries = new HashMap<>();
+        for (OrderItemSummaryRow row : orderItemRepository.findSummaryRowsByOrderIds(orderIds)) {
+            summaries.computeIfAbsent(row.getOrderId(), id -> new ItemSummary())
+                    .add(row.getQuantity(), row.getVariantImagePublicId(), row.getProductImagePublicId());
+        }
+
+        List<BuyerOrderView> views = orders.stream()
+                .map(order -> toView(order, summaries.getOrDefault(order.getId(), new ItemSummary())))
+                .collect(Collectors.toList());
+        buyerOrderViewRepository.saveAll(views);
+        return views.size();
+    }
+
+    private BuyerOrderView toView(Order order, ItemSummary summary) {
+        MasterOrder masterOrder = order.getMasterOrder();
+        return BuyerOrderView.builder()
+                .orderId(order.getId())
+                .userId(masterOrder.getUser().getId())
+                .orderNumber(order.getOrderNumber())
+                .orderGroupNumber(masterOrder.getOrderGroupNumber())
+                .shopId(order.getShop().getId())
+                .shopName(order.getShop().getName())
+                .customerEmail(masterOrder.getCustomerEmail())
+                .shippingAddress(masterOrder.getShippingAddressSnapshot())
+                .contactName(masterOrder.getShippingContactName())
+                .contactPhone(masterOrder.getShippingContactPhone())
+                .orderStatus(order.getOrderStatus())
+                .subtotalAmount(order.getSubtotalAmount())
+                .shippingFee(order.getShippingFee())
+                .totalAmount(order.getSubtotalAmount().add(order.getShippingFee())
+                        .subtract(order.getItemDiscountAmount()).subtract(order.getShippingDiscountAmount()))
+                .totalItems(summary.itemCount)
+                .totalQuantity(summary.quantity)
+                .thumbnailPublicIds(new ArrayList<>(summary.imagePublicIds))
+                .orderedAt(order.getOrderedAt())
+                .createdAt(order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static final class ItemSummary {
+        private int itemCount;
+        private int quantity;
+        private final Set<String> imagePublicIds = new LinkedHashSet<>();
+
+        private void add(Integer itemQuantity, String variantImagePublicId, String productImagePublicId) {
+            itemCount++;
+            quantity += itemQuantity != null ? itemQuantity : 0;
+            if (variantImagePublicId != null) {
+                imagePublicIds.add(variantImagePublicId);
+            } else if (productImagePublicId != null) {
+                imagePublicIds.add(productImagePublicId);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells whether every order has its {@code buyer_order_view} row, so buyer order history can be served
+ * from the view. Until then history falls back to the order tables. Once complete it stays complete:
+ * new orders get their row in the checkout transaction. While incomplete, the check is repeated at most
+ * every {@code business.order.buyer-view.recheck-ms}.
+ */
+@Slf4j
+@Component
+public class BuyerOrderViewReadiness {
+
+    private final OrderRepository orderRepository;
+    private final long recheckMs;
+
+    private volatile boolean complete;
+    private volatile long nextCheckAt;
+
+    public BuyerOrderViewReadiness(OrderRepository orderRepository,
+                                   @Value("${business.order.buyer-view.recheck-ms:60000}") long recheckMs) {
+        this.orderRepository = orderRepository;
+        this.recheckMs = recheckMs;
+    }
+
+    public boolean isComplete() {
+        if (complete) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextCheckAt) {
+            return false;
+        }
+        nextCheckAt = now + recheckMs;
+        if (orderRepository.findIdsWithoutBuyerOrderView(PageRequest.of(0, 1)).isEmpty()) {
+            markComplete();
+        }
+        return complete;
+    }
+
+    public void markComplete() {
+        if (!complete) {
+            complete = true;
+            log.info("Buyer order view is complete, serving order history from it");
+        }
+    }
+}
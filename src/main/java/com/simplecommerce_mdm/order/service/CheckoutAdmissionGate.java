@@ -0,0 +1,200 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.cart.repository.CartItemRepository;
+import com.simplecommerce_mdm.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Admission control for flash-sale checkouts. Checkouts containing a designated hot variant take a
+ * ticket in a bounded fair queue and only {@code concurrency} of them run at once, so a sale cannot
+ * drain the connection pool. Callers that find the queue full or wait too long get a 429 with the
+ * queue position and a Retry-After estimate. Checkouts without hot variants skip the gate.
+ * The queue is per instance.
+ * <p>
+ * Waiting callers park their servlet thread, so the queue is capped at a quarter of
+ * {@code server.tomcat.threads.max} whatever {@code queue-capacity} says; the rest of the thread
+ * pool stays free for other requests, and everyone beyond the cap is answered with a 429 at once.
+ */
+@Slf4j(topic = "CHECKOUT-ADMISSION")
+@Component
+public class CheckoutAdmissionGate {
+
+    private final CartItemRepository cartItemRepository;
+    private final int concurrency;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Timer checkoutTimer;
+    private final Counter admittedCounter;
+    private final Counter queueFullCounter;
+    private final Counter timedOutCounter;
+
+    @Value("${business.checkout.admission.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int serverMaxThreads = 200;
+
+    @Value("${business.checkout.admission.max-wait-ms:3000}")
+    private long maxWaitMs;
+
+    private volatile Set<Long> hotVariantIds;
+
+    public CheckoutAdmissionGate(CartItemRepository cartItemRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${business.checkout.admission.concurrency:4}") int concurrency,
+                                 @Value("${business.checkout.admission.hot-variant-ids:}") String hotVariantIds) {
+        this.cartItemRepository = cartItemRepository;
+        this.concurrency = concurrency;
+        this.permits = new Semaphore(concurrency, true);
+        this.hotVariantIds = parseIds(hotVariantIds);
+
+        this.waitTimer = Timer.builder("checkout.admission.wait")
+                .description("Time hot-variant checkouts waited for a slot")
+                .register(meterRegistry);
+        this.checkoutTimer = Timer.builder("checkout.admission.checkout")
+                .description("Duration of admitted hot-variant checkouts")
+                .register(meterRegistry);
+        this.admittedCounter = Counter.builder("checkout.admission.admitted")
+                .description("Hot-variant checkouts let through")
+                .register(meterRegistry);
+        this.queueFullCounter = Counter.builder("checkout.admission.rejected")
+                .tag("reason", "queue_full")
+                .description("Hot-variant checkouts turned away")
+                .register(meterRegistry);
+        this.timedOutCounter = Counter.builder("checkout.admission.rejected")
+                .tag("reason", "timeout")
+                .description("Hot-variant checkouts turned away")
+                .register(meterRegistry);
+        Gauge.builder("checkout.admission.queue.depth", waiting, AtomicInteger::get)
+                .description("Hot-variant checkouts waiting for a slot")
+                .register(meterRegistry);
+        Gauge.builder("checkout.admission.in.flight", permits, p -> concurrency - p.availablePermits())
+                .description("Hot-variant checkouts running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the checkout, through the queue when it contains a hot variant
+     *
+     * @throws TooManyRequestsException when the queue is full or no slot frees up in time
+     */
+    public <T> T admit(Long userId, List<Long> selectedCartItemIds, Supplier<T> checkout) {
+        if (!containsHotVariant(userId, selectedCartItemIds)) {
+            return checkout.get();
+        }
+
+        int position = waiting.incrementAndGet();
+        boolean acquired;
+        long waitStart = System.nanoTime();
+        try {
+            if (position > getQueueCapacity()) {
+                queueFullCounter.increment();
+                throw busy(position);
+            }
+            acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            // Shutdown or an aborted request, not a timeout: keep the interrupt for the caller
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a checkout slot", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        waitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            timedOutCounter.increment();
+            throw busy(waiting.get() + 1);
+        }
+
+        admittedCounter.increment();
+        try {
+            return checkoutTimer.record(checkout);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public Set<Long> getHotVariantIds() {
+        return hotVariantIds;
+    }
+
+    /**
+     * Replace the designated hot variants; an empty set turns the gate off
+     */
+    public void setHotVariantIds(Set<Long> variantIds) {
+        this.hotVariantIds = Set.copyOf(variantIds);
+        log.info("Hot variants for checkout admission: {}", this.hotVariantIds);
+    }
+
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    public int getInFlight() {
+        return concurrency - permits.availablePermits();
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Callers allowed to wait at once: the configured capacity, at most a quarter of the servlet threads
+     */
+    public int getQueueCapacity() {
+        return Math.max(0, Math.min(queueCapacity, serverMaxThreads / 4));
+    }
+
+    /**
+     * Seconds until a caller at this position should get a slot, from the mean admitted checkout time
+     */
+    public long estimatedWaitSeconds(int position) {
+        double meanMs = checkoutTimer.count() > 0 ? checkoutTimer.mean(TimeUnit.MILLISECONDS) : 1000;
+        return Math.max(1, (long) Math.ceil(position * meanMs / concurrency / 1000));
+    }
+
+    private boolean containsHotVariant(Long userId, List<Long> selectedCartItemIds) {
+        Set<Long> hot = hotVariantIds;
+        if (hot.isEmpty()) {
+            return false;
+        }
+        List<Long> variantIds = selectedCartItemIds == null || selectedCartItemIds.isEmpty()
+                ? cartItemRepository.findVariantIdsByCartUserId(userId)
+                : cartItemRepository.findVariantIdsByCartUserIdAndIdIn(userId, selectedCartItemIds);
+        return variantIds.stream().anyMatch(hot::contains);
+    }
+
+    private TooManyRequestsException busy(int position) {
+        long retryAfter = estimatedWaitSeconds(position);
+        return new TooManyRequestsException("Checkout is busy, " + (position - 1)
+                + " buyers are waiting ahead of you. Please retry in about " + retryAfter + " seconds", retryAfter);
+    }
+
+    private static Set<Long> parseIds(String ids) {
+        if (!StringUtils.hasText(ids)) {
+            return Set.of();
+        }
+        return Arrays.stream(ids.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .map(Long::valueOf)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,237 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.order.dto.CheckoutRequest;
+import com.simplecommerce_mdm.order.dto.MasterOrderResponse;
+import com.simplecommerce_mdm.order.model.CheckoutIdempotencyKey;
+import com.simplecommerce_mdm.order.repository.CheckoutIdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Store for checkout Idempotency-Key values.
+ * The first request for a key runs the checkout; duplicates wait for that outcome
+ * (or replay it once completed) instead of creating another master order.
+ * Keys seen on this node are answered from memory. Every key is also recorded in {@code idempotency_keys}
+ * in the checkout transaction, and a key missing from memory is looked up there first, so retries that
+ * reach another node or arrive after a restart replay the stored response too.
+ */
+@Slf4j
+@Component
+public class CheckoutIdempotencyStore {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Value("${business.order.idempotency.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${business.order.idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    private final CheckoutIdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public CheckoutIdempotencyStore(CheckoutIdempotencyKeyRepository idempotencyKeyRepository,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Outcome(MasterOrderResponse response, boolean replayed) {
+    }
+
+    /**
+     * Run the checkout once per (user, key). Concurrent duplicates block on the in-flight
+     * checkout, later duplicates replay the stored response until the key expires.
+     * A failed checkout releases the key so the client can retry with it.
+     * The checkout runs in a transaction that also records the key; {@code admission} wraps that
+     * transaction (e.g. a queue for a slot), and is skipped by replays.
+     */
+    public Outcome execute(Long userId, String idempotencyKey, CheckoutRequest request,
+                           Function<Supplier<MasterOrderResponse>, MasterOrderResponse> admission,
+                           Supplier<MasterOrderResponse> checkout) {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidDataException("Idempotency-Key must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = userId + ":" + idempotencyKey;
+
+        while (true) {
+            Entry fresh = new Entry(request);
+            Entry existing = entries.putIfAbsent(storeKey, fresh);
+
+            if (existing == null) {
+                return runFirst(storeKey, fresh, userId, idempotencyKey, admission, checkout);
+            }
+            if (existing.isExpired(System.currentTimeMillis())) {
+                entries.remove(storeKey, existing);
+                continue;
+            }
+            if (!existing.request.equals(request)) {
+                throw new InvalidDataException("Idempotency-Key was already used for a different checkout request");
+            }
+            return new Outcome(awaitOutcome(existing), true);
+        }
+    }
+
+    /**
+     * Drop completed entries and recorded keys whose TTL has elapsed
+     */
+    @Scheduled(fixedDelayString = "${business.order.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        int purged = before - entries.size();
+        if (purged > 0) {
+            log.debug("Purged {} expired checkout idempotency keys", purged);
+        }
+        try {
+            Integer deleted = transactionTemplate.execute(status ->
+                    idempotencyKeyRepository.deleteExpired(OffsetDateTime.now()));
+            if (deleted != null && deleted > 0) {
+                log.debug("Deleted {} expired checkout idempotency key records", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Failed to delete expired checkout idempotency keys: {}", e.getMessage(), e);
+        }
+    }
+
+    private Outcome runFirst(String storeKey, Entry entry, Long userId, String idempotencyKey,
+                             Function<Supplier<MasterOrderResponse>, MasterOrderResponse> admission,
+                             Supplier<MasterOrderResponse> checkout) {
+        try {
+            // Recorded by another node, or by this one before a restart
+            Optional<Outcome> stored = replayStored(entry, userId, idempotencyKey);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            MasterOrderResponse response;
+            try {
+                response = admission.apply(() -> transactionTemplate.execute(status ->
+                        checkoutAndRecord(entry, userId, idempotencyKey, checkout)));
+            } catch (DataIntegrityViolationException e) {
+                // The same key was checked out concurrently on another node; its record is committed now
+                stored = replayStored(entry, userId, idempotencyKey);
+                if (stored.isPresent()) {
+                    return stored.get();
+                }
+                throw e;
+            }
+            entry.expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttlMinutes);
+            entry.result.complete(response);
+            return new Outcome(response, false);
+        } catch (Throwable e) {
+            // Errors too, or duplicates would wait on a result that never comes
+            entries.remove(storeKey, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Run the checkout and record the key in the current transaction. The record is inserted first, so a
+     * concurrent duplicate on another node blocks on the unique key until this transaction ends.
+     */
+    private MasterOrderResponse checkoutAndRecord(Entry entry, Long userId, String idempotencyKey,
+                                                  Supplier<MasterOrderResponse> checkout) {
+        OffsetDateTime now = OffsetDateTime.now();
+        idempotencyKeyRepository.deleteIfExpired(userId, idempotencyKey, now);
+        CheckoutIdempotencyKey record = idempotencyKeyRepository.saveAndFlush(CheckoutIdempotencyKey.builder()
+                .userId(userId)
+                .idempotencyKey(idempotencyKey)
+                .requestJson(toJson(entry.request))
+                .createdAt(now)
+                .expiresAt(now.plusMinutes(ttlMinutes))
+                .build());
+        MasterOrderResponse response = checkout.get();
+        record.setResponseJson(toJson(response));
+        return response;
+    }
+
+    /**
+     * Complete the entry from the recorded key, if there is a live one
+     */
+    private Optional<Outcome> replayStored(Entry entry, Long userId, String idempotencyKey) {
+        Optional<CheckoutIdempotencyKey> record = idempotencyKeyRepository.findLive(userId, idempotencyKey,
+                OffsetDateTime.now());
+        if (record.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!fromJson(record.get().getRequestJson(), CheckoutRequest.class).equals(entry.request)) {
+            throw new InvalidDataException("Idempotency-Key was already used for a different checkout request");
+        }
+        MasterOrderResponse response = fromJson(record.get().getResponseJson(), MasterOrderResponse.class);
+        entry.expiresAt = record.get().getExpiresAt().toInstant().toEpochMilli();
+        entry.result.complete(response);
+        return Optional.of(new Outcome(response, true));
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored " + type.getSimpleName(), e);
+        }
+    }
+
+    private MasterOrderResponse awaitOutcome(Entry entry) {
+        try {
+            return entry.result.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new InvalidDataException("A checkout with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidDataException("Interrupted while waiting for the original checkout");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class Entry {
+        private final CheckoutRequest request;
+        private final CompletableFuture<MasterOrderResponse> result = new CompletableFuture<>();
+        // In-flight entries never expire; the TTL starts once the checkout has completed
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(CheckoutRequest request) {
+            this.request = request;
+        }
+
+        private boolean isExpired(long now) {
+            return result.isDone() && now >= expiresAt;
+        }
+    }
+}
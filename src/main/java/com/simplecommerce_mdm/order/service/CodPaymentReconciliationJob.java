@@ -0,0 +1,266 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.model.JobCheckpoint;
+import com.simplecommerce_mdm.order.repository.JobCheckpointRepository;
+import com.simplecommerce_mdm.order.repository.OrderStatusHistoryRepository;
+import com.simplecommerce_mdm.order.repository.OrderStatusHistoryRepository.TransitionRow;
+import com.simplecommerce_mdm.order.repository.PaymentRepository;
+import com.simplecommerce_mdm.order.repository.PaymentRepository.PendingPaymentRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settles COD payments once the cash has been collected. The job follows the order status history
+ * from a stored checkpoint, keyset on (changedAt, id), and looks only at transitions into delivered,
+ * completed or cancelled. Each chunk settles the affected master orders' pending COD payments with one
+ * set-based update, so a run costs the same however many orders the tables hold. Transitions newer than
+ * {@code safety-lag-seconds} are left for the next run, giving in-flight transactions time to commit.
+ * <p>
+ * Orders can reach delivered without a history row (status set before history was written, or by hand),
+ * so a slower sweep also walks all pending COD payments by id, with its own checkpoint, and settles the
+ * ones whose orders are done. A payment settles for the delivered shop orders only; cancelled ones were
+ * never paid for.
+ */
+@Slf4j(topic = "COD-RECONCILIATION")
+@Component
+public class CodPaymentReconciliationJob {
+
+    static final String JOB_NAME = "cod-payment-reconciliation";
+    static final String SWEEP_JOB_NAME = "cod-payment-reconciliation-sweep";
+    private static final String COD_METHOD_CODE = "COD";
+    private static final OffsetDateTime KEYSET_START = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final Set<OrderStatus> SETTLED_STATUSES = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.COMPLETED);
+    private static final Set<OrderStatus> CANCELLED_STATUSES = EnumSet.of(OrderStatus.CANCELLED_BY_USER,
+            OrderStatus.CANCELLED_BY_SELLER, OrderStatus.CANCELLED_BY_ADMIN, OrderStatus.CANCELLED_EXPIRED);
+    // A cancellation can be what leaves the rest of a master order delivered
+    private static final Set<OrderStatus> TRIGGER_STATUSES = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.COMPLETED,
+            OrderStatus.CANCELLED_BY_USER, OrderStatus.CANCELLED_BY_SELLER, OrderStatus.CANCELLED_BY_ADMIN,
+            OrderStatus.CANCELLED_EXPIRED);
+
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter settledCounter;
+    private final Counter chunkCounter;
+    private final Timer runTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${business.payment.cod-reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${business.payment.cod-reconciliation.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${business.payment.cod-reconciliation.max-chunks-per-run:20}")
+    private int maxChunksPerRun;
+
+    @Value("${business.payment.cod-reconciliation.safety-lag-seconds:120}")
+    private long safetyLagSeconds;
+
+    @Value("${business.payment.cod-reconciliation.sweep.max-chunks-per-run:50}")
+    private int sweepMaxChunksPerRun;
+
+    public CodPaymentReconciliationJob(JobCheckpointRepository jobCheckpointRepository,
+                                       OrderStatusHistoryRepository orderStatusHistoryRepository,
+                                       PaymentRepository paymentRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.orderStatusHistoryRepository = orderStatusHistoryRepository;
+        this.paymentRepository = paymentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.settledCounter = Counter.builder("payments.cod.settled")
+                .description("COD payments settled after delivery")
+                .register(meterRegistry);
+        this.chunkCounter = Counter.builder("payments.cod.reconciliation.chunks")
+                .description("Chunks processed by the COD reconciliation job")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("payments.cod.reconciliation.run")
+                .description("Duration of COD reconciliation runs")
+                .register(meterRegistry);
+        meterRegistry.gauge("payments.cod.reconciliation.lag.seconds", lagSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${business.payment.cod-reconciliation.interval-ms:60000}",
+            initialDelayString = "${business.payment.cod-reconciliation.initial-delay-ms:90000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runTimer.record(this::runOnce);
+        } catch (Exception e) {
+            log.error("COD reconciliation run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${business.payment.cod-reconciliation.sweep.interval-ms:3600000}",
+            initialDelayString = "${business.payment.cod-reconciliation.sweep.initial-delay-ms:300000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sweepOnce();
+        } catch (Exception e) {
+            log.error("COD reconciliation sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Process up to {@code max-chunks-per-run} chunks of transitions and return how many payments were settled
+     */
+    public int runOnce() {
+        ensureCheckpoint(JOB_NAME);
+        OffsetDateTime horizon = OffsetDateTime.now().minusSeconds(safetyLagSeconds);
+        int settled = 0;
+        boolean caughtUp = false;
+        for (int chunk = 0; chunk < maxChunksPerRun && !caughtUp; chunk++) {
+            ChunkResult result = transactionTemplate.execute(status -> reconcileChunk(horizon));
+            if (result == null || result.transitions() == 0) {
+                caughtUp = true;
+                continue;
+            }
+            chunkCounter.increment();
+            settledCounter.increment(result.settled());
+            settled += result.settled();
+            caughtUp = result.transitions() < chunkSize;
+        }
+
+        updateLag(caughtUp, horizon);
+        if (settled > 0) {
+            log.info("Settled {} COD payments", settled);
+        }
+        return settled;
+    }
+
+    /**
+     * Check up to {@code sweep.max-chunks-per-run} chunks of pending COD payments and return how many were
+     * settled. The sweep starts over from the first payment once it reaches the end.
+     */
+    public int sweepOnce() {
+        ensureCheckpoint(SWEEP_JOB_NAME);
+        LocalDateTime createdBefore = LocalDateTime.now().minusSeconds(safetyLagSeconds);
+        int settled = 0;
+        for (int chunk = 0; chunk < sweepMaxChunksPerRun; chunk++) {
+            ChunkResult result = transactionTemplate.execute(status -> sweepChunk(createdBefore));
+            if (result == null) {
+                break;
+            }
+            settledCounter.increment(result.settled());
+            settled += result.settled();
+            if (result.transitions() < chunkSize) {
+                break;
+            }
+        }
+        if (settled > 0) {
+            log.info("Sweep settled {} COD payments", settled);
+        }
+        return settled;
+    }
+
+    private record ChunkResult(int transitions, int settled) {
+    }
+
+    /**
+     * Create the checkpoint row in its own transaction before the chunks lock it, so two nodes starting the
+     * job for the first time do not both insert it
+     */
+    private void ensureCheckpoint(String jobName) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!jobCheckpointRepository.existsById(jobName)) {
+                    jobCheckpointRepository.saveAndFlush(JobCheckpoint.builder()
+                            .jobName(jobName).cursorAt(KEYSET_START).updatedAt(OffsetDateTime.now()).build());
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Checkpoint {} was created concurrently", jobName);
+        }
+    }
+
+    /**
+     * Settle the master orders of the next chunk of pending COD payments; {@code transitions} holds the
+     * number of payments looked at
+     */
+    private ChunkResult sweepChunk(LocalDateTime createdBefore) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findForUpdate(SWEEP_JOB_NAME).orElseThrow();
+        List<PendingPaymentRow> payments = paymentRepository.findPendingChunk(COD_METHOD_CODE,
+                checkpoint.getCursorId(), createdBefore, PageRequest.of(0, chunkSize));
+        int settled = 0;
+        if (!payments.isEmpty()) {
+            Set<Long> masterOrderIds = new LinkedHashSet<>();
+            payments.forEach(row -> masterOrderIds.add(row.getMasterOrderId()));
+            settled = paymentRepository.settleForMasterOrders(masterOrderIds, COD_METHOD_CODE,
+                    SETTLED_STATUSES, CANCELLED_STATUSES, OffsetDateTime.now(), LocalDateTime.now());
+        }
+        // Start over after the last page
+        checkpoint.setCursorId(payments.size() < chunkSize ? 0L : payments.get(payments.size() - 1).getId());
+        checkpoint.setUpdatedAt(OffsetDateTime.now());
+        jobCheckpointRepository.save(checkpoint);
+        return new ChunkResult(payments.size(), settled);
+    }
+
+    /**
+     * Advance the checkpoint over one chunk of transitions and settle what they completed; runs in its own
+     * transaction, holding the checkpoint row lock so nodes take turns
+     */
+    private ChunkResult reconcileChunk(OffsetDateTime horizon) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findForUpdate(JOB_NAME).orElseThrow();
+        List<TransitionRow> transitions = orderStatusHistoryRepository.findTransitionChunk(TRIGGER_STATUSES,
+                checkpoint.getCursorAt(), checkpoint.getCursorId(), horizon, PageRequest.of(0, chunkSize));
+        if (transitions.isEmpty()) {
+            return new ChunkResult(0, 0);
+        }
+
+        Set<Long> masterOrderIds = new LinkedHashSet<>();
+        transitions.forEach(row -> masterOrderIds.add(row.getMasterOrderId()));
+        int settled = paymentRepository.settleForMasterOrders(masterOrderIds, COD_METHOD_CODE,
+                SETTLED_STATUSES, CANCELLED_STATUSES, OffsetDateTime.now(), LocalDateTime.now());
+
+        TransitionRow last = transitions.get(transitions.size() - 1);
+        checkpoint.setCursorAt(last.getChangedAt());
+        checkpoint.setCursorId(last.getId());
+        checkpoint.setUpdatedAt(OffsetDateTime.now());
+        jobCheckpointRepository.save(checkpoint);
+        return new ChunkResult(transitions.size(), settled);
+    }
+
+    /**
+     * Lag = age of the checkpoint when the run stopped with transitions still waiting, 0 once caught up
+     */
+    private void updateLag(boolean caughtUp, OffsetDateTime horizon) {
+        if (caughtUp) {
+            lagSeconds.set(0);
+            return;
+        }
+        long lag = jobCheckpointRepository.findById(JOB_NAME)
+                .map(checkpoint -> Math.max(0, Duration.between(checkpoint.getCursorAt(), horizon).getSeconds()))
+                .orElse(0L);
+        lagSeconds.set(lag);
+    }
+}
@@ -0,0 +1,122 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.order.dto.MasterOrderCounterCheckResponse;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.repository.MasterOrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Walks all master orders by id in bounded chunks and rebuilds status counters (and the overall status)
+ * that no longer match the child orders, e.g. counters never built for orders placed before they existed.
+ * Each chunk is locked with FOR UPDATE SKIP LOCKED in its own transaction, so a child transition in
+ * flight either finishes before the chunk counts the children or waits for the rebuilt counters;
+ * master orders locked at that moment are checked on the next run.
+ */
+@Slf4j(topic = "ORDER-COUNTERS")
+@Component
+public class MasterOrderCounterReconcileJob {
+
+    private final MasterOrderRepository masterOrderRepository;
+    private final MasterOrderStatusCounters masterOrderStatusCounters;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter checkedCounter;
+    private final Counter rebuiltCounter;
+    private final Timer runTimer;
+
+    @Value("${business.order.counters.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${business.order.counters.reconcile.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${business.order.counters.reconcile.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    public MasterOrderCounterReconcileJob(MasterOrderRepository masterOrderRepository,
+                                          MasterOrderStatusCounters masterOrderStatusCounters,
+                                          PlatformTransactionManager transactionManager,
+                                          MeterRegistry meterRegistry) {
+        this.masterOrderRepository = masterOrderRepository;
+        this.masterOrderStatusCounters = masterOrderStatusCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.checkedCounter = Counter.builder("orders.master.counters.checked")
+                .description("Master orders whose status counters were checked")
+                .register(meterRegistry);
+        this.rebuiltCounter = Counter.builder("orders.master.counters.rebuilt")
+                .description("Master orders whose status counters were rebuilt")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("orders.master.counters.reconcile.run")
+                .description("Duration of master order counter reconcile runs")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${business.order.counters.reconcile.interval-ms:86400000}",
+            initialDelayString = "${business.order.counters.reconcile.initial-delay-ms:900000}")
+    public void reconcileCounters() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runTimer.record(this::runOnce);
+        } catch (Exception e) {
+            log.error("Master order counter reconcile failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Check up to {@code max-chunks-per-run} chunks and return how many master orders were rebuilt
+     */
+    public int runOnce() {
+        Long afterId = 0L;
+        int checked = 0;
+        int rebuilt = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            Long chunkAfterId = afterId;
+            Chunk result = transactionTemplate.execute(status -> reconcileChunk(chunkAfterId));
+            if (result == null || result.checked() == 0) {
+                break;
+            }
+            checkedCounter.increment(result.checked());
+            rebuiltCounter.increment(result.rebuilt());
+            checked += result.checked();
+            rebuilt += result.rebuilt();
+            afterId = result.lastId();
+            if (result.checked() < chunkSize) {
+                break;
+            }
+        }
+
+        if (rebuilt > 0) {
+            log.info("Rebuilt status counters of {} of {} master orders", rebuilt, checked);
+        }
+        return rebuilt;
+    }
+
+    private record Chunk(int checked, int rebuilt, Long lastId) {
+    }
+
+    private Chunk reconcileChunk(Long afterId) {
+        List<Long> ids = masterOrderRepository.findChunkAfterIdForUpdate(afterId, PageRequest.of(0, chunkSize)).stream()
+                .map(MasterOrder::getId)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new Chunk(0, 0, afterId);
+        }
+        MasterOrderCounterCheckResponse result = masterOrderStatusCounters.verify(ids, true);
+        return new Chunk(ids.size(), result.getRebuilt(), ids.get(ids.size() - 1));
+    }
+}
@@ -0,0 +1,262 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.dto.MasterOrderCounterCheckResponse;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.repository.MasterOrderRepository;
+import com.simplecommerce_mdm.order.repository.MasterOrderRepository.StatusCounterRow;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.order.repository.OrderRepository.MasterOrderStatusCountRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains per-status child order counters on {@link MasterOrder} and derives the overall status from them.
+ * A child transition is one atomic UPDATE plus one counter read, independent of the number of siblings.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MasterOrderStatusCounters {
+
+    private static final int PENDING_PAYMENT = 0;
+    private static final int AWAITING_CONFIRMATION = 1;
+    private static final int COMPLETED = 2;
+    private static final int CANCELLED = 3;
+    private static final int BUCKETS = 4;
+
+    private final MasterOrderRepository masterOrderRepository;
+    private final OrderRepository orderRepository;
+
+    /**
+     * Set the counters of a new (not yet persisted) master order from its child orders
+     */
+    public void initialize(MasterOrder masterOrder, Collection<Order> orders) {
+        int[] counts = new int[BUCKETS];
+        for (Order order : orders) {
+            int bucket = bucketOf(order.getOrderStatus());
+            if (bucket >= 0) {
+                counts[bucket]++;
+            }
+        }
+        masterOrder.setChildOrderCount(orders.size());
+        masterOrder.setPendingPaymentCount(counts[PENDING_PAYMENT]);
+        masterOrder.setAwaitingConfirmationCount(counts[AWAITING_CONFIRMATION]);
+        masterOrder.setCompletedCount(counts[COMPLETED]);
+        masterOrder.setCancelledCount(counts[CANCELLED]);
+        masterOrder.setOverallStatus(deriveStatus(orders.size(), counts));
+    }
+
+    /**
+     * A status change of one child order of {@code masterOrderId}; the master's creation time bounds the
+     * counter UPDATE to its partition (null when unknown)
+     */
+    public record Transition(Long masterOrderId, LocalDateTime masterOrderCreatedAt, OrderStatus from, OrderStatus to) {
+
+        public Transition(MasterOrder masterOrder, OrderStatus from, OrderStatus to) {
+            this(masterOrder.getId(), masterOrder.getCreatedAt(), from, to);
+        }
+    }
+
+    /**
+     * Apply one child transition and return the resulting overall status.
+     * Master orders created before the counters existed are rebuilt on their first transition.
+     */
+    public MasterOrderStatus applyTransition(MasterOrder masterOrder, OrderStatus from, OrderStatus to) {
+        return applyTransitions(List.of(new Transition(masterOrder, from, to))).get(masterOrder.getId());
+    }
+
+    /**
+     * Apply many child transitions: deltas are summed per master order so each master gets one UPDATE,
+     * then all counters are read back with a single query. Returns the overall status per master order.
+     */
+    public Map<Long, MasterOrderStatus> applyTransitions(Collection<Transition> transitions) {
+        Map<Long, int[]> deltas = new LinkedHashMap<>();
+        Map<Long, OrderCreatedAtBounds.Range> createdAt = new HashMap<>();
+        for (Transition transition : transitions) {
+            createdAt.putIfAbsent(transition.masterOrderId(), transition.masterOrderCreatedAt() != null
+                    ? OrderCreatedAtBounds.around(transition.masterOrderCreatedAt())
+                    : OrderCreatedAtBounds.UNBOUNDED);
+            int[] delta = deltas.computeIfAbsent(transition.masterOrderId(), id -> new int[BUCKETS]);
+            int fromBucket = bucketOf(transition.from());
+            int toBucket = bucketOf(transition.to());
+            if (fromBucket >= 0) {
+                delta[fromBucket]--;
+            }
+            if (toBucket >= 0) {
+                delta[toBucket]++;
+            }
+        }
+
+        List<Long> missing = new ArrayList<>();
+        for (Map.Entry<Long, int[]> entry : deltas.entrySet()) {
+            int[] delta = entry.getValue();
+            OrderCreatedAtBounds.Range range = createdAt.get(entry.getKey());
+            int updated = masterOrderRepository.applyStatusCounterDelta(entry.getKey(),
+                    delta[PENDING_PAYMENT], delta[AWAITING_CONFIRMATION], delta[COMPLETED], delta[CANCELLED],
+                    range.from(), range.to());
+            if (updated == 0) {
+                missing.add(entry.getKey());
+            }
+        }
+        if (!missing.isEmpty()) {
+            log.info("Status counters missing for master orders {}, rebuilding", missing);
+            rebuild(missing);
+        }
+
+        Map<Long, MasterOrderStatus> statuses = new HashMap<>();
+        for (StatusCounterRow row : masterOrderRepository.findStatusCounters(deltas.keySet())) {
+            statuses.put(row.getMasterOrderId(), deriveStatus(row));
+        }
+        for (Long id : deltas.keySet()) {
+            if (!statuses.containsKey(id)) {
+                throw new IllegalStateException("Master order not found: " + id);
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Compare stored counters with the child orders of the given master orders, optionally rebuilding mismatches
+     * and the overall status derived from them
+     */
+    public MasterOrderCounterCheckResponse verify(List<Long> masterOrderIds, boolean rebuild) {
+        Map<Long, int[]> actual = countChildren(masterOrderIds);
+        Map<Long, StatusCounterRow> stored = masterOrderRepository.findStatusCounters(masterOrderIds).stream()
+                .collect(Collectors.toMap(StatusCounterRow::getMasterOrderId, Function.identity()));
+
+        List<Long> mismatched = new ArrayList<>();
+        for (Long id : masterOrderIds) {
+            StatusCounterRow row = stored.get(id);
+            if (row != null && !matches(row, actual.getOrDefault(id, new int[BUCKETS + 1]))) {
+                mismatched.add(id);
+            }
+        }
+        if (rebuild && !mismatched.isEmpty()) {
+            rebuild(mismatched);
+            updateOverallStatuses(mismatched, actual);
+        }
+        return MasterOrderCounterCheckResponse.builder()
+                .checked(stored.size())
+                .mismatched(mismatched.size())
+                .rebuilt(rebuild ? mismatched.size() : 0)
+                .mismatchedMasterOrderIds(mismatched)
+                .build();
+    }
+
+    /**
+     * Recompute counters from the child orders (one grouped query for all ids)
+     */
+    public void rebuild(List<Long> masterOrderIds) {
+        Map<Long, int[]> actual = countChildren(masterOrderIds);
+        for (Long id : masterOrderIds) {
+            int[] counts = actual.getOrDefault(id, new int[BUCKETS + 1]);
+            masterOrderRepository.setStatusCounters(id, counts[BUCKETS],
+                    counts[PENDING_PAYMENT], counts[AWAITING_CONFIRMATION], counts[COMPLETED], counts[CANCELLED]);
+        }
+    }
+
+    /**
+     * Master orders without live children keep their overall status; there is nothing to derive it from
+     */
+    private void updateOverallStatuses(List<Long> masterOrderIds, Map<Long, int[]> actual) {
+        Map<MasterOrderStatus, List<Long>> idsByStatus = new HashMap<>();
+        for (Long id : masterOrderIds) {
+            int[] counts = actual.get(id);
+            if (counts != null && counts[BUCKETS] > 0) {
+                idsByStatus.computeIfAbsent(deriveStatus(counts[BUCKETS], counts), status -> new ArrayList<>()).add(id);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        idsByStatus.forEach((status, ids) -> masterOrderRepository.updateOverallStatus(ids, status, now,
+                OrderCreatedAtBounds.UNBOUNDED.from(), OrderCreatedAtBounds.UNBOUNDED.to()));
+    }
+
+    /**
+     * Same rules as the previous sibling scan: all pending payment, all awaiting, all completed,
+     * all cancelled, any cancelled (partial), otherwise processing
+     */
+    static MasterOrderStatus deriveStatus(int childOrders, int[] counts) {
+        if (counts[PENDING_PAYMENT] == childOrders) {
+            return MasterOrderStatus.PENDING_PAYMENT;
+        } else if (counts[AWAITING_CONFIRMATION] == childOrders) {
+            return MasterOrderStatus.AWAITING_CONFIRMATION;
+        } else if (counts[COMPLETED] == childOrders) {
+            return MasterOrderStatus.COMPLETED;
+        } else if (counts[CANCELLED] == childOrders) {
+            return MasterOrderStatus.CANCELLED;
+        } else if (counts[CANCELLED] > 0) {
+            return MasterOrderStatus.PARTIALLY_CANCELLED;
+        }
+        return MasterOrderStatus.PROCESSING;
+    }
+
+    private static MasterOrderStatus deriveStatus(StatusCounterRow row) {
+        int[] counts = new int[BUCKETS];
+        counts[PENDING_PAYMENT] = row.getPendingPaymentCount();
+        counts[AWAITING_CONFIRMATION] = row.getAwaitingConfirmationCount();
+        counts[COMPLETED] = row.getCompletedCount();
+        counts[CANCELLED] = row.getCancelledCount();
+        return deriveStatus(row.getChildOrderCount(), counts);
+    }
+
+    /**
+     * Bucket counts per master order; index BUCKETS holds the total number of children
+     */
+    private Map<Long, int[]> countChildren(Collection<Long> masterOrderIds) {
+        Map<Long, int[]> result = new HashMap<>();
+        for (MasterOrderStatusCountRow row : orderRepository.countByMasterOrderIdsGroupByStatus(masterOrderIds)) {
+            int[] counts = result.computeIfAbsent(row.getMasterOrderId(), id -> new int[BUCKETS + 1]);
+            int count = row.getOrderCount().intValue();
+            int bucket = bucketOf(row.getOrderStatus());
+            if (bucket >= 0) {
+                counts[bucket] += count;
+            }
+            counts[BUCKETS] += count;
+        }
+        return result;
+    }
+
+    private static boolean matches(StatusCounterRow row, int[] counts) {
+        return row.getChildOrderCount() != null
+                && row.getChildOrderCount() == counts[BUCKETS]
+                && row.getPendingPaymentCount() == counts[PENDING_PAYMENT]
+                && row.getAwaitingConfirmationCount() == counts[AWAITING_CONFIRMATION]
+                && row.getCompletedCount() == counts[COMPLETED]
+                && row.getCancelledCount() == counts[CANCELLED];
+    }
+
+    private static int bucketOf(OrderStatus status) {
+        if (status == null) {
+            return -1;
+        }
+        switch (status) {
+            case PENDING_PAYMENT:
+                return PENDING_PAYMENT;
+            case AWAITING_CONFIRMATION:
+                return AWAITING_CONFIRMATION;
+            case COMPLETED:
+                return COMPLETED;
+            case CANCELLED_BY_USER:
+            case CANCELLED_BY_SELLER:
+            case CANCELLED_BY_ADMIN:
+            case CANCELLED_EXPIRED:
+                return CANCELLED;
+            default:
+                return -1;
+        }
+    }
+}
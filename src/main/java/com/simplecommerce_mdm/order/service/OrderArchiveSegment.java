@@ -0,0 +1,211 @@
+package com.simplecommerce_mdm.order.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An immutable archive segment file. Layout:
+ * <pre>
+ * header  : magic (int) version (int)
+ * records : deflate-compressed JSON, one per order
+ * index   : one fixed-size entry per order, sorted by order id:
+ *           orderId, shopId, userId (long) createdAt (epoch seconds, long) offset (long) length (int)
+ * footer  : index offset (long) entry count (int) magic (int)
+ * </pre>
+ * Readers map the file read-only and binary-search the index, so a lookup touches only the
+ * index pages and the one record.
+ */
+public final class OrderArchiveSegment {
+
+    private static final int MAGIC = 0x53434F41; // "SCOA"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int ENTRY_BYTES = 8 * 5 + 4;
+    private static final int FOOTER_BYTES = 8 + 4 + 4;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long indexOffset;
+    private final int count;
+
+    private OrderArchiveSegment(Path path, MappedByteBuffer buffer, long indexOffset, int count) {
+        this.path = path;
+        this.buffer = buffer;
+        this.indexOffset = indexOffset;
+        this.count = count;
+    }
+
+    /**
+     * A record to write: the uncompressed JSON of the order and its index fields
+     */
+    public record Entry(long orderId, long shopId, long userId, LocalDateTime createdAt, byte[] json) {
+    }
+
+    /**
+     * Index fields of a stored record
+     */
+    public record IndexEntry(long orderId, long shopId, long userId, LocalDateTime createdAt, int position) {
+    }
+
+    /**
+     * Write a new segment. The file is written next to the target and moved into place,
+     * so readers never see a partial segment.
+     */
+    public static void write(Path file, List<Entry> entries) throws IOException {
+        List<Entry> sorted = entries.stream().sorted(Comparator.comparingLong(Entry::orderId)).toList();
+        long[] offsets = new long[sorted.size()];
+        int[] lengths = new int[sorted.size()];
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            long position = HEADER_BYTES;
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                for (int i = 0; i < sorted.size(); i++) {
+                    byte[] compressed = compress(deflater, sorted.get(i).json());
+                    out.write(compressed);
+                    offsets[i] = position;
+                    lengths[i] = compressed.length;
+                    position += compressed.length;
+                }
+            } finally {
+                deflater.end();
+            }
+
+            for (int i = 0; i < sorted.size(); i++) {
+                Entry entry = sorted.get(i);
+                out.writeLong(entry.orderId());
+                out.writeLong(entry.shopId());
+                out.writeLong(entry.userId());
+                out.writeLong(entry.createdAt().toEpochSecond(ZoneOffset.UTC));
+                out.writeLong(offsets[i]);
+                out.writeInt(lengths[i]);
+            }
+            out.writeLong(position);
+            out.writeInt(sorted.size());
+            out.writeInt(MAGIC);
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Map an existing segment read-only and validate its footer
+     */
+    public static OrderArchiveSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + FOOTER_BYTES) {
+                throw new IOException("Archive segment too small: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int footer = (int) (size - FOOTER_BYTES);
+            long indexOffset = buffer.getLong(footer);
+            int count = buffer.getInt(footer + 8);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(footer + 12) != MAGIC
+                    || indexOffset + (long) count * ENTRY_BYTES != footer) {
+                throw new IOException("Corrupt archive segment: " + file);
+            }
+            return new OrderArchiveSegment(file, buffer, indexOffset, count);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long minOrderId() {
+        return count == 0 ? Long.MAX_VALUE : orderIdAt(0);
+    }
+
+    public long maxOrderId() {
+        return count == 0 ? Long.MIN_VALUE : orderIdAt(count - 1);
+    }
+
+    /**
+     * Position of the order in the index, or -1
+     */
+    public int indexOf(long orderId) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = orderIdAt(mid);
+            if (midId < orderId) {
+                low = mid + 1;
+            } else if (midId > orderId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public IndexEntry indexEntry(int position) {
+        int base = entryBase(position);
+        return new IndexEntry(
+                buffer.getLong(base),
+                buffer.getLong(base + 8),
+                buffer.getLong(base + 16),
+                LocalDateTime.ofEpochSecond(buffer.getLong(base + 24), 0, ZoneOffset.UTC),
+                position);
+    }
+
+    /**
+     * Decompressed JSON of the record at the position
+     */
+    public byte[] read(int position) throws IOException {
+        int base = entryBase(position);
+        int offset = (int) buffer.getLong(base + 32);
+        int length = buffer.getInt(base + 40);
+        byte[] compressed = new byte[length];
+        buffer.slice(offset, length).get(compressed);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private long orderIdAt(int position) {
+        return buffer.getLong(entryBase(position));
+    }
+
+    private int entryBase(int position) {
+        return (int) (indexOffset + (long) position * ENTRY_BYTES);
+    }
+
+    private static byte[] compress(Deflater deflater, byte[] data) throws IOException {
+        deflater.reset();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater);
+        out.write(data);
+        out.finish();
+        return compressed.toByteArray();
+    }
+}
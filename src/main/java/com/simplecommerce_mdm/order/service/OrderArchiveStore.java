@@ -0,0 +1,378 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.order.dto.ArchivedOrder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cold archive of orders moved out of the live tables by {@link OrderArchiver}.
+ * Each archiver batch adds one immutable segment per month ({@code orders-yyyyMM-<millis>.arc});
+ * segments are never modified, and {@link #compact()} later merges a month's segments into one
+ * ({@code orders-yyyyMM-c<millis>.arc}, replacing every segment of the month stamped up to that time).
+ * <p>
+ * {@code business.order.archive.dir} must point at storage shared by all nodes (e.g. an NFS mount) when
+ * more than one node runs: the archiver on one node writes segments that the others serve. The directory
+ * is rescanned at most every {@code business.order.archive.rescan-ms}, so segments written or compacted
+ * elsewhere become visible; segments already open stay mapped.
+ */
+@Slf4j
+@Component
+public class OrderArchiveStore {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("orders-(\\d{4})(\\d{2})-(c?)(\\d+)\\.arc");
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long rescanMs;
+    private final long compactMinAgeMs;
+    private volatile List<MonthSegment> segments = List.of();
+    private volatile long nextScanAt;
+
+    public OrderArchiveStore(ObjectMapper objectMapper,
+                             @Value("${business.order.archive.dir:data/order-archive}") String directory,
+                             @Value("${business.order.archive.rescan-ms:60000}") long rescanMs,
+                             @Value("${business.order.archive.compact-min-age-ms:3600000}") long compactMinAgeMs) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.rescanMs = rescanMs;
+        this.compactMinAgeMs = compactMinAgeMs;
+    }
+
+    /**
+     * A segment file: its month, the time it was written (for compacted segments, the newest segment
+     * it replaces) and whether it is the result of a compaction
+     */
+    private record SegmentFile(Path path, YearMonth month, long stamp, boolean compacted) {
+    }
+
+    private record MonthSegment(YearMonth month, OrderArchiveSegment segment) {
+    }
+
+    /**
+     * Find an archived order by id
+     */
+    public Optional<ArchivedOrder> find(Long orderId) {
+        for (MonthSegment monthSegment : currentSegments()) {
+            OrderArchiveSegment segment = monthSegment.segment();
+            if (orderId < segment.minOrderId() || orderId > segment.maxOrderId()) {
+                continue;
+            }
+            int position = segment.indexOf(orderId);
+            if (position >= 0) {
+                return Optional.of(decode(segment, position));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Archived orders created in [from, to), optionally of one shop. Orders are decoded one at a time
+     * while iterating, month by month.
+     */
+    public Iterator<ArchivedOrder> scan(LocalDateTime from, LocalDateTime to, Long shopId) {
+        YearMonth firstMonth = YearMonth.from(from);
+        YearMonth lastMonth = YearMonth.from(to.minusNanos(1));
+        List<OrderArchiveSegment> matching = currentSegments().stream()
+                .filter(s -> !s.month().isBefore(firstMonth) && !s.month().isAfter(lastMonth))
+                .sorted(Comparator.comparing(MonthSegment::month))
+                .map(MonthSegment::segment)
+                .toList();
+        return new ScanIterator(matching, from, to, shopId);
+    }
+
+    /**
+     * Write one new segment per month and make them visible to readers. Returns the files written,
+     * so the caller can {@link #discard} them if the live rows could not be deleted.
+     */
+    public List<Path> write(Map<YearMonth, List<ArchivedOrder>> ordersByMonth) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> written = new ArrayList<>();
+        long stamp = System.currentTimeMillis();
+        try {
+            for (Map.Entry<YearMonth, List<ArchivedOrder>> month : ordersByMonth.entrySet()) {
+                List<OrderArchiveSegment.Entry> entries = new ArrayList<>();
+                for (ArchivedOrder archived : month.getValue()) {
+                    entries.add(new OrderArchiveSegment.Entry(
+                            archived.getOrder().getId(),
+                            archived.getOrder().getShopId(),
+                            archived.getUserId(),
+                            archived.getOrder().getCreatedAt(),
+                            objectMapper.writeValueAsBytes(archived)));
+                }
+                Path file = directory.resolve(segmentName(month.getKey(), false, stamp));
+                OrderArchiveSegment.write(file, entries);
+                written.add(file);
+            }
+        } catch (IOException | RuntimeException e) {
+            discard(written);
+            throw e;
+        }
+        rescan();
+        return written;
+    }
+
+    /**
+     * Remove segments written by a batch that did not commit
+     */
+    public void discard(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.error("Could not delete archive segment {}: {}", file, e.getMessage());
+            }
+        }
+        rescan();
+    }
+
+    /**
+     * Merge the segments of each month that has at least two segments older than
+     * {@code business.order.archive.compact-min-age-ms}, and delete segments replaced by an earlier
+     * compaction. A month is compacted under a lock file in the archive directory, so only one node works
+     * on it; a lock older than the minimum age is taken to be left over from a crashed node.
+     * Returns the number of months compacted.
+     */
+    public int compact() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        long olderThan = System.currentTimeMillis() - compactMinAgeMs;
+        Set<YearMonth> months = new TreeSet<>();
+        for (SegmentFile file : listSegmentFiles()) {
+            months.add(file.month());
+        }
+        int compacted = 0;
+        for (YearMonth month : months) {
+            Path lock = directory.resolve(String.format("orders-%d%02d.compact.lock", month.getYear(), month.getMonthValue()));
+            if (!tryLock(lock)) {
+                continue;
+            }
+            try {
+                if (compactMonth(month, olderThan)) {
+                    compacted++;
+                }
+            } finally {
+                Files.deleteIfExists(lock);
+            }
+        }
+        rescan();
+        return compacted;
+    }
+
+    private boolean compactMonth(YearMonth month, long olderThan) throws IOException {
+        // Listed again under the lock: another node may have compacted the month in the meantime
+        List<SegmentFile> files = listSegmentFiles().stream().filter(f -> f.month().equals(month)).toList();
+        List<SegmentFile> visible = visible(files);
+        for (SegmentFile file : files) {
+            if (!visible.contains(file) && file.stamp() < olderThan) {
+                Files.deleteIfExists(file.path());
+            }
+        }
+
+        List<SegmentFile> eligible = visible.stream().filter(f -> f.stamp() < olderThan).toList();
+        if (eligible.size() < 2) {
+            return false;
+        }
+        List<OrderArchiveSegment.Entry> entries = new ArrayList<>();
+        for (SegmentFile file : eligible) {
+            OrderArchiveSegment segment = OrderArchiveSegment.open(file.path());
+            for (int position = 0; position < segment.size(); position++) {
+                OrderArchiveSegment.IndexEntry entry = segment.indexEntry(position);
+                entries.add(new OrderArchiveSegment.Entry(entry.orderId(), entry.shopId(), entry.userId(),
+                        entry.createdAt(), segment.read(position)));
+            }
+        }
+        long stamp = eligible.stream().mapToLong(SegmentFile::stamp).max().orElseThrow();
+        OrderArchiveSegment.write(directory.resolve(segmentName(month, true, stamp)), entries);
+        // Replaced segments are hidden from now on, so a failure below only leaves files for the next run
+        for (SegmentFile file : eligible) {
+            Files.deleteIfExists(file.path());
+        }
+        log.info("Compacted {} archive segments of {} ({} orders)", eligible.size(), month, entries.size());
+        return true;
+    }
+
+    private boolean tryLock(Path lock) throws IOException {
+        try {
+            Files.createFile(lock);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            try {
+                if (Files.getLastModifiedTime(lock).toMillis() >= System.currentTimeMillis() - compactMinAgeMs) {
+                    return false;
+                }
+                log.warn("Removing stale archive compaction lock {}", lock);
+                Files.deleteIfExists(lock);
+                Files.createFile(lock);
+                return true;
+            } catch (FileAlreadyExistsException | NoSuchFileException raced) {
+                return false;
+            }
+        }
+    }
+
+    private List<MonthSegment> currentSegments() {
+        if (System.currentTimeMillis() >= nextScanAt) {
+            rescan();
+        }
+        return segments;
+    }
+
+    /**
+     * Open segments that appeared since the last scan and drop those that were replaced or removed
+     */
+    private synchronized void rescan() {
+        nextScanAt = System.currentTimeMillis() + rescanMs;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Map<Path, MonthSegment> open = new HashMap<>();
+        for (MonthSegment segment : segments) {
+            open.put(segment.segment().getPath(), segment);
+        }
+        List<MonthSegment> current = new ArrayList<>();
+        Map<YearMonth, List<SegmentFile>> byMonth = listSegmentFiles().stream()
+                .collect(Collectors.groupingBy(SegmentFile::month));
+        for (List<SegmentFile> files : byMonth.values()) {
+            for (SegmentFile file : visible(files)) {
+                MonthSegment segment = open.get(file.path());
+                if (segment == null) {
+                    try {
+                        segment = new MonthSegment(file.month(), OrderArchiveSegment.open(file.path()));
+                    } catch (NoSuchFileException e) {
+                        // Replaced by a compaction on another node while listing
+                        continue;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not open order archive segment " + file.path(), e);
+                    }
+                }
+                current.add(segment);
+            }
+        }
+        if (!current.equals(segments)) {
+            log.info("Order archive in {} now has {} segments", directory, current.size());
+        }
+        segments = List.copyOf(current);
+    }
+
+    private List<SegmentFile> listSegmentFiles() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<SegmentFile> result = new ArrayList<>();
+            for (Path file : files.sorted().toList()) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                    result.add(new SegmentFile(file, month, Long.parseLong(matcher.group(4)), !matcher.group(3).isEmpty()));
+                }
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read order archive " + directory, e);
+        }
+    }
+
+    /**
+     * Segments of one month that are served: the newest compacted segment and everything written after it
+     */
+    private static List<SegmentFile> visible(List<SegmentFile> files) {
+        long compactedUpTo = files.stream().filter(SegmentFile::compacted)
+                .mapToLong(SegmentFile::stamp).max().orElse(Long.MIN_VALUE);
+        return files.stream()
+                .filter(f -> f.stamp() > compactedUpTo || (f.compacted() && f.stamp() == compactedUpTo))
+                .toList();
+    }
+
+    private static String segmentName(YearMonth month, boolean compacted, long stamp) {
+        return String.format("orders-%d%02d-%s%d.arc", month.getYear(), month.getMonthValue(), compacted ? "c" : "", stamp);
+    }
+
+    private ArchivedOrder decode(OrderArchiveSegment segment, int position) {
+        try {
+            return objectMapper.readValue(segment.read(position), ArchivedOrder.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archived order from " + segment.getPath(), e);
+        }
+    }
+
+    private final class ScanIterator implements Iterator<ArchivedOrder> {
+        private final Iterator<OrderArchiveSegment> segmentIterator;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final Long shopId;
+        private OrderArchiveSegment current;
+        private int position;
+        private ArchivedOrder next;
+
+        private ScanIterator(List<OrderArchiveSegment> segments, LocalDateTime from, LocalDateTime to, Long shopId) {
+            this.segmentIterator = segments.iterator();
+            this.from = from;
+            this.to = to;
+            this.shopId = shopId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (current == null || position >= current.size()) {
+                    if (!segmentIterator.hasNext()) {
+                        return false;
+                    }
+                    current = segmentIterator.next();
+                    position = 0;
+                    continue;
+                }
+                OrderArchiveSegment.IndexEntry entry = current.indexEntry(position++);
+                // The index keeps whole seconds, so compare against the decoded value too
+                if (entry.createdAt().isBefore(from.withNano(0)) || !entry.createdAt().isBefore(to)
+                        || (shopId != null && entry.shopId() != shopId)) {
+                    continue;
+                }
+                ArchivedOrder candidate = decode(current, entry.position());
+                LocalDateTime createdAt = candidate.getOrder().getCreatedAt();
+                if (!createdAt.isBefore(from) && createdAt.isBefore(to)) {
+                    next = candidate;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public ArchivedOrder next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ArchivedOrder result = next;
+            next = null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.dto.ArchivedOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderItem;
+import com.simplecommerce_mdm.order.model.Payment;
+import com.simplecommerce_mdm.order.repository.MasterOrderRepository;
+import com.simplecommerce_mdm.order.repository.OrderItemRepository;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.order.repository.OrderStatusHistoryRepository;
+import com.simplecommerce_mdm.order.repository.PaymentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Moves orders that reached a final status more than {@code business.order.archive.after-days} ago
+ * into the {@link OrderArchiveStore} and deletes them (items, status history and the master order's
+ * payments) from the live tables. Works per master order so payments go together with all of their
+ * orders; master orders themselves stay, marked archived with their status counters frozen, and the
+ * buyer view rows stay so buyers keep their order history. Orders with reviews are kept live
+ * because reviews reference them.
+ * <p>
+ * Each batch writes its segments first and then deletes in one transaction; if the transaction
+ * fails the segments are discarded, so an order is never in neither place.
+ */
+@Slf4j(topic = "ORDER-ARCHIVE")
+@Component
+public class OrderArchiver {
+
+    static final Set<OrderStatus> FINAL_STATUSES = EnumSet.of(
+            OrderStatus.COMPLETED, OrderStatus.CANCELLED_BY_USER, OrderStatus.CANCELLED_BY_SELLER,
+            OrderStatus.CANCELLED_BY_ADMIN, OrderStatus.CANCELLED_EXPIRED, OrderStatus.RETURNED, OrderStatus.FAILED);
+
+    private final MasterOrderRepository masterOrderRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final PaymentRepository paymentRepository;
+    private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+    private final OrderDetailAssembler orderDetailAssembler;
+    private final OrderArchiveStore orderArchiveStore;
+    private final TransactionTemplate transactionTemplate;
+
+    // Deletes live order data, so it has to be switched on explicitly
+    @Value("${business.order.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${business.order.archive.after-days:365}")
+    private int afterDays;
+
+    @Value("${business.order.archive.batch-size:100}")
+    private int batchSize;
+
+    @Value("${business.order.archive.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    public OrderArchiver(MasterOrderRepository masterOrderRepository,
+                         OrderRepository orderRepository,
+                         OrderItemRepository orderItemRepository,
+                         PaymentRepository paymentRepository,
+                         OrderStatusHistoryRepository orderStatusHistoryRepository,
+                         OrderDetailAssembler orderDetailAssembler,
+                         OrderArchiveStore orderArchiveStore,
+                         PlatformTransactionManager transactionManager) {
+        this.masterOrderRepository = masterOrderRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.paymentRepository = paymentRepository;
+        this.orderStatusHistoryRepository = orderStatusHistoryRepository;
+        this.orderDetailAssembler = orderDetailAssembler;
+        this.orderArchiveStore = orderArchiveStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${business.order.archive.interval-ms:86400000}",
+            initialDelayString = "${business.order.archive.initial-delay-ms:600000}")
+    public void archiveOldOrders() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runOnce();
+        } catch (Exception e) {
+            log.error("Order archive run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Archive up to {@code max-batches-per-run} batches and return the number of orders archived
+     */
+    public int runOnce() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int archived = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Path> written = new ArrayList<>();
+            Integer count;
+            try {
+                count = transactionTemplate.execute(status -> archiveBatch(cutoff, written));
+            } catch (RuntimeException e) {
+                orderArchiveStore.discard(written);
+                throw e;
+            }
+            if (count == null || count == 0) {
+                break;
+            }
+            archived += count;
+        }
+        if (archived > 0) {
+            log.info("Archived {} orders created before {}", archived, cutoff);
+        }
+        try {
+            orderArchiveStore.compact();
+        } catch (IOException e) {
+            log.error("Order archive compaction failed: {}", e.getMessage(), e);
+        }
+        return archived;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff, List<Path> written) {
+        List<Long> masterOrderIds = masterOrderRepository.findArchivableIds(cutoff, FINAL_STATUSES,
+                PageRequest.of(0, batchSize));
+        if (masterOrderIds.isEmpty()) {
+            return 0;
+        }
+        List<Order> orders = orderRepository.findForArchive(masterOrderIds);
+        List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        Map<Long, List<OrderItem>> itemsByOrder = orderItemRepository.findForArchive(orderIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+        Map<Long, List<ArchivedOrder.ArchivedPayment>> paymentsByMaster = paymentRepository.findForArchive(masterOrderIds).stream()
+                .collect(Collectors.groupingBy(payment -> payment.getMasterOrder().getId(),
+                        Collectors.mapping(this::toArchivedPayment, Collectors.toList())));
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<YearMonth, List<ArchivedOrder>> byMonth = new TreeMap<>();
+        for (Order order : orders) {
+            ArchivedOrder archived = ArchivedOrder.builder()
+                    .userId(order.getMasterOrder().getUser().getId())
+                    .customerEmail(order.getMasterOrder().getCustomerEmail())
+                    .order(orderDetailAssembler.toResponse(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
+                    .payments(paymentsByMaster.getOrDefault(order.getMasterOrder().getId(), List.of()))
+                    .archivedAt(now)
+                    .build();
+            byMonth.computeIfAbsent(YearMonth.from(order.getCreatedAt()), month -> new ArrayList<>()).add(archived);
+        }
+
+        try {
+            written.addAll(orderArchiveStore.write(byMonth));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write order archive segment", e);
+        }
+
+        orderStatusHistoryRepository.deleteByOrderIdIn(orderIds);
+        orderItemRepository.deleteByOrderIdIn(orderIds);
+        int deleted = orderRepository.deleteByIdIn(orderIds);
+        if (deleted != orderIds.size()) {
+            // Another node archived (part of) the batch concurrently
+            throw new IllegalStateException("Expected to archive " + orderIds.size() + " orders but deleted " + deleted);
+        }
+        paymentRepository.deleteByMasterOrderIdIn(masterOrderIds);
+        masterOrderRepository.markArchived(masterOrderIds, now);
+        return orderIds.size();
+    }
+
+    private ArchivedOrder.ArchivedPayment toArchivedPayment(Payment payment) {
+        return ArchivedOrder.ArchivedPayment.builder()
+                .id(payment.getId())
+                .paymentMethodCode(payment.getPaymentMethod().getCode())
+                .transactionId(payment.getTransactionId())
+                .amount(payment.getAmount())
+                .currencyCode(payment.getCurrencyCode())
+                .status(payment.getStatus())
+                .paidAt(payment.getPaidAt())
+                .settledAt(payment.getSettledAt())
+                .settledAmount(payment.getSettledAmount())
+                .createdAt(payment.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.common.domain.PartitionedEntity;
+import com.simplecommerce_mdm.order.repository.BuyerOrderViewRepository;
+import com.simplecommerce_mdm.order.repository.BuyerOrderViewRepository.CreatedAtRangeRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * created_at bounds for queries on the order tables by id. When the tables are partitioned by month
+ * (partition-order-tables.sql) the primary key is (id, created_at), so a lookup by id alone probes every
+ * partition; with the bounds PostgreSQL only scans the partitions that can hold the rows.
+ * Bounds are widened by a second on both sides and fall back to the full range when unknown.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderCreatedAtBounds {
+
+    public static final Range UNBOUNDED = new Range(LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 0, 0));
+
+    private final BuyerOrderViewRepository buyerOrderViewRepository;
+
+    /**
+     * Inclusive created_at range
+     */
+    public record Range(LocalDateTime from, LocalDateTime to) {
+    }
+
+    /**
+     * Range of orders looked up by id, taken from their buyer order view rows (keyed by order id, not partitioned)
+     */
+    public Range forOrderIds(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return UNBOUNDED;
+        }
+        CreatedAtRangeRow row = buyerOrderViewRepository.findCreatedAtRange(orderIds);
+        if (row == null || row.getOrders() < orderIds.size() || row.getMinCreatedAt() == null) {
+            return UNBOUNDED;
+        }
+        return widen(row.getMinCreatedAt(), row.getMaxCreatedAt());
+    }
+
+    /**
+     * Range of entities that are already loaded
+     */
+    public static Range of(Collection<? extends PartitionedEntity> entities) {
+        LocalDateTime min = null;
+        LocalDateTime max = null;
+        for (PartitionedEntity entity : entities) {
+            LocalDateTime createdAt = entity.getCreatedAt();
+            if (createdAt == null) {
+                return UNBOUNDED;
+            }
+            min = min == null || createdAt.isBefore(min) ? createdAt : min;
+            max = max == null || createdAt.isAfter(max) ? createdAt : max;
+        }
+        return min == null ? UNBOUNDED : widen(min, max);
+    }
+
+    /**
+     * Range of one row whose creation time is known
+     */
+    public static Range around(LocalDateTime createdAt) {
+        return widen(createdAt, createdAt);
+    }
+
+    private static Range widen(LocalDateTime min, LocalDateTime max) {
+        return new Range(min.minusSeconds(1), max.plusSeconds(1));
+    }
+}
@@ -0,0 +1,93 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.cloudinary.service.CloudinaryService;
+import com.simplecommerce_mdm.order.dto.OrderItemResponse;
+import com.simplecommerce_mdm.order.dto.OrderResponse;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the order detail response from an order (master order and shop loaded) and its items
+ * (variant and product loaded). Shared by the order service and the archiver, which stores the
+ * same response for orders it moves out of the live tables.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderDetailAssembler {
+
+    private final CloudinaryService cloudinaryService;
+
+    public OrderResponse toResponse(Order order, List<OrderItem> orderItems) {
+        List<OrderItemResponse> itemResponses = orderItems.stream()
+                .map(this::toItemResponse)
+                .collect(Collectors.toList());
+
+        // Extract product IDs from order items for review functionality
+        List<Long> productIds = orderItems.stream()
+                .map(item -> item.getVariant().getProduct().getId())
+                .distinct()
+                .collect(Collectors.toList());
+
+        BigDecimal totalAmount = order.getSubtotalAmount()
+                .add(order.getShippingFee())
+                .subtract(order.getItemDiscountAmount())
+                .subtract(order.getShippingDiscountAmount())
+                .add(order.getTaxAmount());
+
+        return OrderResponse.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .masterOrderId(order.getMasterOrder().getId())
+                .orderGroupNumber(order.getMasterOrder().getOrderGroupNumber())
+                .shopId(order.getShop().getId())
+                .shopName(order.getShop().getName())
+                .orderStatus(order.getOrderStatus())
+                .subtotalAmount(order.getSubtotalAmount())
+                .shippingFee(order.getShippingFee())
+                .itemDiscountAmount(order.getItemDiscountAmount())
+                .shippingDiscountAmount(order.getShippingDiscountAmount())
+                .taxAmount(order.getTaxAmount())
+                .totalAmount(totalAmount)
+                .shippingMethodNameSnapshot(order.getShippingMethodNameSnapshot())
+                .shippingAddress(order.getMasterOrder().getShippingAddressSnapshot())
+                .billingAddress(order.getMasterOrder().getBillingAddressSnapshot())
+                .contactName(order.getMasterOrder().getShippingContactName())
+                .contactPhone(order.getMasterOrder().getShippingContactPhone())
+                .notesToSeller(order.getNotesToSeller())
+                .orderedAt(order.getOrderedAt())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .orderItems(itemResponses)
+                .productIds(productIds)
+                .totalItems(orderItems.size())
+                .totalQuantity(orderItems.stream().mapToInt(OrderItem::getQuantity).sum())
+                .build();
+    }
+
+    private OrderItemResponse toItemResponse(OrderItem orderItem) {
+        String imageUrl = null;
+        if (orderItem.getVariantImageCloudinaryPublicIdSnapshot() != null) {
+            imageUrl = cloudinaryService.getImageUrl(orderItem.getVariantImageCloudinaryPublicIdSnapshot());
+        }
+
+        return OrderItemResponse.builder()
+                .id(orderItem.getId())
+                .variantId(orderItem.getVariant().getId())
+                .productId(orderItem.getVariant().getProduct().getId())
+                .productNameSnapshot(orderItem.getProductNameSnapshot())
+                .variantSkuSnapshot(orderItem.getVariantSkuSnapshot())
+                .variantOptionsSnapshot(orderItem.getVariantOptionsSnapshot())
+                .variantImageUrl(imageUrl)
+                .quantity(orderItem.getQuantity())
+                .unitPrice(orderItem.getUnitPrice())
+                .subtotal(orderItem.getSubtotal())
+                .status(orderItem.getStatus())
+                .build();
+    }
+}
@@ -0,0 +1,186 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.config.BusinessConfigService;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.repository.OrderItemRepository;
+import com.simplecommerce_mdm.order.repository.OrderItemRepository.VariantQuantityRow;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.product.events.ProductVariantChangedEvent;
+import com.simplecommerce_mdm.product.repository.ProductVariantRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Cancels orders that sellers did not confirm within {@code business.email.confirmation-deadline-hours}.
+ * Overdue orders are walked by keyset on (createdAt, id) in bounded chunks, one transaction per chunk.
+ * Each chunk is claimed with FOR UPDATE SKIP LOCKED, so several nodes can run the job without
+ * processing the same order twice.
+ */
+@Slf4j(topic = "ORDER-EXPIRY")
+@Component
+public class OrderExpiryJob {
+
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final OrderStatusTransitionExecutor orderStatusTransitionExecutor;
+    private final BusinessConfigService businessConfigService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter cancelledCounter;
+    private final Counter chunkCounter;
+    private final Timer runTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${business.order.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${business.order.expiry.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${business.order.expiry.max-chunks-per-run:50}")
+    private int maxChunksPerRun;
+
+    public OrderExpiryJob(OrderRepository orderRepository,
+                          OrderItemRepository orderItemRepository,
+                          ProductVariantRepository productVariantRepository,
+                          OrderStatusTransitionExecutor orderStatusTransitionExecutor,
+                          BusinessConfigService businessConfigService,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.orderStatusTransitionExecutor = orderStatusTransitionExecutor;
+        this.businessConfigService = businessConfigService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.cancelledCounter = Counter.builder("orders.expiry.cancelled")
+                .description("Orders auto-cancelled after the confirmation deadline")
+                .register(meterRegistry);
+        this.chunkCounter = Counter.builder("orders.expiry.chunks")
+                .description("Chunks processed by the order expiry job")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("orders.expiry.run")
+                .description("Duration of order expiry runs")
+                .register(meterRegistry);
+        meterRegistry.gauge("orders.expiry.lag.seconds", lagSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${business.order.expiry.interval-ms:300000}",
+            initialDelayString = "${business.order.expiry.initial-delay-ms:60000}")
+    public void expireOverdueOrders() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runTimer.record(this::runOnce);
+        } catch (Exception e) {
+            log.error("Order expiry run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Process up to {@code max-chunks-per-run} chunks of overdue orders and return how many were cancelled
+     */
+    public int runOnce() {
+        int deadlineHours = businessConfigService.getConfirmationDeadlineHours();
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(deadlineHours);
+        String notes = "Auto-cancelled: not confirmed by the seller within " + deadlineHours + " hours";
+
+        LocalDateTime afterCreatedAt = KEYSET_START;
+        Long afterId = 0L;
+        int cancelled = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            LocalDateTime chunkAfterCreatedAt = afterCreatedAt;
+            Long chunkAfterId = afterId;
+            List<Order> claimed = transactionTemplate.execute(
+                    status -> cancelChunk(cutoff, chunkAfterCreatedAt, chunkAfterId, notes));
+            if (claimed == null || claimed.isEmpty()) {
+                break;
+            }
+            chunkCounter.increment();
+            cancelledCounter.increment(claimed.size());
+            cancelled += claimed.size();
+
+            Order last = claimed.get(claimed.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+            if (claimed.size() < chunkSize) {
+                break;
+            }
+        }
+
+        updateLag(cutoff);
+        if (cancelled > 0) {
+            log.info("Auto-cancelled {} orders created before {}", cancelled, cutoff);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Claim one chunk, give its stock back and cancel it; runs in its own transaction
+     */
+    private List<Order> cancelChunk(LocalDateTime cutoff, LocalDateTime afterCreatedAt, Long afterId, String notes) {
+        List<Order> orders = orderRepository.findOverdueChunkForUpdate(OrderStatus.AWAITING_CONFIRMATION,
+                cutoff, afterCreatedAt, afterId, PageRequest.of(0, chunkSize));
+        if (orders.isEmpty()) {
+            return orders;
+        }
+
+        restoreInventory(orders.stream().map(Order::getId).collect(Collectors.toList()));
+        orderStatusTransitionExecutor.apply(orders, OrderStatus.CANCELLED_EXPIRED, notes, null);
+        return orders;
+    }
+
+    /**
+     * One atomic increment per distinct variant, in id order so concurrent chunks lock rows consistently
+     */
+    private void restoreInventory(List<Long> orderIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<VariantQuantityRow> rows = orderItemRepository.sumQuantityByVariantForOrders(orderIds).stream()
+                .sorted(Comparator.comparing(VariantQuantityRow::getVariantId))
+                .collect(Collectors.toList());
+        for (VariantQuantityRow row : rows) {
+            productVariantRepository.incrementStock(row.getVariantId(), row.getQuantity().intValue(), now);
+        }
+        if (!rows.isEmpty()) {
+            Set<Long> variantIds = rows.stream().map(VariantQuantityRow::getVariantId).collect(Collectors.toSet());
+            eventPublisher.publishEvent(new ProductVariantChangedEvent(variantIds));
+        }
+    }
+
+    /**
+     * Lag = how long the oldest order still awaiting confirmation has been past the deadline
+     */
+    private void updateLag(LocalDateTime cutoff) {
+        long lag = orderRepository.findOldestCreatedAtByStatus(OrderStatus.AWAITING_CONFIRMATION)
+                .filter(oldest -> oldest.isBefore(cutoff))
+                .map(oldest -> Duration.between(oldest, cutoff).getSeconds())
+                .orElse(0L);
+        lagSeconds.set(lag);
+    }
+}
@@ -0,0 +1,333 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.simplecommerce_mdm.common.enums.ExportFormat;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.order.dto.ArchivedOrder;
+import com.simplecommerce_mdm.order.dto.OrderItemResponse;
+import com.simplecommerce_mdm.order.dto.OrderResponse;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.order.repository.OrderRepository.OrderExportRow;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams orders with their items as CSV (one line per item) or NDJSON (one object per order).
+ * Rows are read through a server-side cursor inside a read-only transaction and written straight
+ * to the response, so memory use does not grow with the size of the export. When the client
+ * disconnects the next write fails, which closes the cursor and ends the transaction.
+ * Orders moved to the cold archive are included, read from {@link OrderArchiveStore}.
+ */
+@Slf4j
+@Service
+public class OrderExportService {
+
+    private static final String[] CSV_HEADER = {
+            "order_number", "order_group_number", "order_status", "shop_id", "shop_name", "customer_email",
+            "subtotal_amount", "shipping_fee", "ordered_at", "created_at",
+            "variant_sku", "product_name", "quantity", "unit_price", "item_subtotal"
+    };
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final OrderRepository orderRepository;
+    private final OrderArchiveStore orderArchiveStore;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public OrderExportService(OrderRepository orderRepository,
+                              OrderArchiveStore orderArchiveStore,
+                              PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderArchiveStore = orderArchiveStore;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Validate the filters and return the response whose body writes the export. Dates are inclusive;
+     * without dates the last 30 days are exported. A null shop id exports every shop.
+     */
+    public ResponseEntity<StreamingResponseBody> exportOrders(ExportFormat format, LocalDate from, LocalDate to,
+                                              OrderStatus status, Long shopId, boolean gzip) {
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        LocalDate fromDate = from != null ? from : toDate.minusDays(DEFAULT_RANGE_DAYS);
+        if (fromDate.isAfter(toDate)) {
+            throw new InvalidDataException("Export start date must not be after end date");
+        }
+        LocalDateTime fromTime = fromDate.atStartOfDay();
+        LocalDateTime toTime = toDate.plusDays(1).atStartOfDay();
+
+        StreamingResponseBody body = outputStream -> {
+            long startedAt = System.nanoTime();
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream;
+            Long rows;
+            try {
+                rows = readOnlyTransaction.execute(tx -> {
+                    try (Stream<OrderExportRow> live = orderRepository.streamExportRows(fromTime, toTime, status, shopId);
+                         Stream<OrderExportRow> all = Stream.concat(archivedRows(fromTime, toTime, status, shopId), live)) {
+                        return format == ExportFormat.NDJSON
+                                ? writeNdjson(all.iterator(), out)
+                                : writeCsv(all.iterator(), out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Usually the client went away; the cursor and transaction are already closed
+                log.info("Order export aborted after {} ms: {}",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), e.getCause().getMessage());
+                throw e.getCause();
+            }
+            if (gzip) {
+                ((GZIPOutputStream) out).finish();
+            }
+            out.flush();
+            log.info("Exported {} order rows as {} in {} ms (shop={}, status={}, {}..{})", rows, format,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), shopId, status, fromDate, toDate);
+        };
+
+        MediaType contentType = format == ExportFormat.NDJSON
+                ? MediaType.parseMediaType("application/x-ndjson")
+                : new MediaType("text", "csv", StandardCharsets.UTF_8);
+        String fileName = "orders-" + fromDate + "_" + toDate + (format == ExportFormat.NDJSON ? ".ndjson" : ".csv");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        // Compression is only a content encoding negotiated through Accept-Encoding: clients decode it,
+        // so the saved file is the plain .csv/.ndjson and must not be named .gz
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Rows of archived orders in the range; they are older than anything live, so they go first
+     */
+    private Stream<OrderExportRow> archivedRows(LocalDateTime from, LocalDateTime to, OrderStatus status, Long shopId) {
+        Iterator<ArchivedOrder> archived = orderArchiveStore.scan(from, to, shopId);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(archived, Spliterator.ORDERED), false)
+                .filter(order -> status == null || order.getOrder().getOrderStatus() == status)
+                .flatMap(ArchivedExportRow::of);
+    }
+
+    private long writeCsv(Iterator<OrderExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        writeCsvLine(writer, CSV_HEADER);
+        long count = 0;
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            writeCsvLine(writer, new String[]{
+                    row.getOrderNumber(),
+                    row.getOrderGroupNumber(),
+                    Objects.toString(row.getOrderStatus(), ""),
+                    Objects.toString(row.getShopId(), ""),
+                    row.getShopName(),
+                    row.getCustomerEmail(),
+                    plain(row.getSubtotalAmount()),
+                    plain(row.getShippingFee()),
+                    Objects.toString(row.getOrderedAt(), ""),
+                    Objects.toString(row.getCreatedAt(), ""),
+                    row.getVariantSku(),
+                    row.getProductName(),
+                    Objects.toString(row.getQuantity(), ""),
+                    plain(row.getUnitPrice()),
+                    plain(row.getItemSubtotal())
+            });
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private long writeNdjson(Iterator<OrderExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            Long currentOrderId = null;
+            while (rows.hasNext()) {
+                OrderExportRow row = rows.next();
+                // Rows are ordered by order, so an order's items are adjacent
+                if (!row.getOrderId().equals(currentOrderId)) {
+                    if (currentOrderId != null) {
+                        endOrder(json);
+                    }
+                    startOrder(json, row);
+                    currentOrderId = row.getOrderId();
+                }
+                if (row.getItemId() != null) {
+                    json.writeStartObject();
+                    json.writeStringField("variantSku", row.getVariantSku());
+                    json.writeStringField("productName", row.getProductName());
+                    writeNumberField(json, "quantity", row.getQuantity());
+                    writeNumberField(json, "unitPrice", row.getUnitPrice());
+                    writeNumberField(json, "subtotal", row.getItemSubtotal());
+                    json.writeEndObject();
+                }
+                if (++count % FLUSH_EVERY_ROWS == 0) {
+                    json.flush();
+                }
+            }
+            if (currentOrderId != null) {
+                endOrder(json);
+            }
+            json.flush();
+        }
+        return count;
+    }
+
+    private void startOrder(JsonGenerator json, OrderExportRow row) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("orderNumber", row.getOrderNumber());
+        json.writeStringField("orderGroupNumber", row.getOrderGroupNumber());
+        json.writeStringField("orderStatus", Objects.toString(row.getOrderStatus(), null));
+        writeNumberField(json, "shopId", row.getShopId());
+        json.writeStringField("shopName", row.getShopName());
+        json.writeStringField("customerEmail", row.getCustomerEmail());
+        writeNumberField(json, "subtotalAmount", row.getSubtotalAmount());
+        writeNumberField(json, "shippingFee", row.getShippingFee());
+        json.writeStringField("orderedAt", Objects.toString(row.getOrderedAt(), null));
+        json.writeStringField("createdAt", Objects.toString(row.getCreatedAt(), null));
+        json.writeArrayFieldStart("items");
+    }
+
+    private void endOrder(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeNumberField(JsonGenerator json, String name, Object value) throws IOException {
+        json.writeFieldName(name);
+        if (value == null) {
+            json.writeNull();
+        } else if (value instanceof BigDecimal decimal) {
+            json.writeNumber(decimal);
+        } else {
+            json.writeNumber(((Number) value).longValue());
+        }
+    }
+
+    private void writeCsvLine(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvCell(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quote the value when needed and neutralise leading formula characters so spreadsheets
+     * do not evaluate user-supplied text (shop and product names)
+     */
+    static String csvCell(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String cell = value;
+        char first = cell.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            if (!isNumber(cell)) {
+                cell = "'" + cell;
+            }
+        }
+        if (cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0 || cell.indexOf('\r') >= 0) {
+            return '"' + cell.replace("\"", "\"\"") + '"';
+        }
+        return cell;
+    }
+
+    private static boolean isNumber(String value) {
+        try {
+            new BigDecimal(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String plain(BigDecimal value) {
+        return value != null ? value.toPlainString() : "";
+    }
+
+    @Value
+    private static class ArchivedExportRow implements OrderExportRow {
+        Long orderId;
+        String orderNumber;
+        String orderGroupNumber;
+        OrderStatus orderStatus;
+        Long shopId;
+        String shopName;
+        String customerEmail;
+        BigDecimal subtotalAmount;
+        BigDecimal shippingFee;
+        OffsetDateTime orderedAt;
+        LocalDateTime createdAt;
+        Long itemId;
+        String variantSku;
+        String productName;
+        Integer quantity;
+        BigDecimal unitPrice;
+        BigDecimal itemSubtotal;
+
+        private static Stream<OrderExportRow> of(ArchivedOrder archived) {
+            OrderResponse order = archived.getOrder();
+            List<OrderItemResponse> items = order.getOrderItems() != null ? order.getOrderItems() : List.of();
+            if (items.isEmpty()) {
+                return Stream.of(row(archived, null));
+            }
+            return items.stream().map(item -> row(archived, item));
+        }
+
+        private static OrderExportRow row(ArchivedOrder archived, OrderItemResponse item) {
+            OrderResponse order = archived.getOrder();
+            return new ArchivedExportRow(order.getId(), order.getOrderNumber(), order.getOrderGroupNumber(),
+                    order.getOrderStatus(), order.getShopId(), order.getShopName(), archived.getCustomerEmail(),
+                    order.getSubtotalAmount(), order.getShippingFee(), order.getOrderedAt(), order.getCreatedAt(),
+                    item != null ? item.getId() : null,
+                    item != null ? item.getVariantSkuSnapshot() : null,
+                    item != null ? item.getProductNameSnapshot() : null,
+                    item != null ? item.getQuantity() : null,
+                    item != null ? item.getUnitPrice() : null,
+                    item != null ? item.getSubtotal() : null);
+        }
+    }
+}
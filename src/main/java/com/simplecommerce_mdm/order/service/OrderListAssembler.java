@@ -0,0 +1,135 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.cloudinary.service.CloudinaryService;
+import com.simplecommerce_mdm.order.dto.OrderListResponse;
+import com.simplecommerce_mdm.order.model.BuyerOrderView;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.repository.OrderItemRepository;
+import com.simplecommerce_mdm.order.repository.OrderItemRepository.OrderItemSummaryRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds order list pages with a constant number of queries.
+ * Expects master order and shop to be fetched with the page; item counts, quantities and
+ * image snapshots for every order on the page come from a single item query.
+ * Buyer pages come from {@link BuyerOrderView} and need no query beyond the page itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderListAssembler {
+
+    private final OrderItemRepository orderItemRepository;
+    private final CloudinaryService cloudinaryService;
+
+    public Page<OrderListResponse> toResponsePage(Page<Order> orders) {
+        Map<Long, ItemSummary> summaries = loadSummaries(orders.getContent());
+        return orders.map(order -> toResponse(order, summaries.getOrDefault(order.getId(), new ItemSummary())));
+    }
+
+    public List<OrderListResponse> toResponses(List<Order> orders) {
+        Map<Long, ItemSummary> summaries = loadSummaries(orders);
+        return orders.stream()
+                .map(order -> toResponse(order, summaries.getOrDefault(order.getId(), new ItemSummary())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Map a page of the buyer read model; everything is on the row, no further queries
+     */
+    public Page<OrderListResponse> toResponsePageFromView(Page<BuyerOrderView> views) {
+        return views.map(view -> OrderListResponse.builder()
+                .id(view.getOrderId())
+                .orderNumber(view.getOrderNumber())
+                .orderGroupNumber(view.getOrderGroupNumber())
+                .shopId(view.getShopId())
+                .shopName(view.getShopName())
+                .customerEmail(view.getCustomerEmail())
+                .shippingAddress(view.getShippingAddress())
+                .contactName(view.getContactName())
+                .contactPhone(view.getContactPhone())
+                .orderStatus(view.getOrderStatus())
+                .subtotalAmount(view.getSubtotalAmount())
+                .shippingFee(view.getShippingFee())
+                .totalAmount(view.getTotalAmount())
+                .totalItems(view.getTotalItems())
+                .totalQuantity(view.getTotalQuantity())
+                .productImageUrls(view.getThumbnailPublicIds().stream()
+                        .map(cloudinaryService::getImageUrl)
+                        .collect(Collectors.toList()))
+                .orderedAt(view.getOrderedAt())
+                .createdAt(view.getCreatedAt())
+                .build());
+    }
+
+    private Map<Long, ItemSummary> loadSummaries(List<Order> orders) {
+        Map<Long, ItemSummary> summaries = new HashMap<>();
+        if (orders.isEmpty()) {
+            return summaries;
+        }
+        List<Long> orderIds = orders.stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+        for (OrderItemSummaryRow row : orderItemRepository.findSummaryRowsByOrderIds(orderIds)) {
+            summaries.computeIfAbsent(row.getOrderId(), id -> new ItemSummary()).add(row);
+        }
+        return summaries;
+    }
+
+    private OrderListResponse toResponse(Order order, ItemSummary summary) {
+        BigDecimal totalAmount = order.getSubtotalAmount().add(order.getShippingFee())
+                .subtract(order.getItemDiscountAmount()).subtract(order.getShippingDiscountAmount());
+
+        // Variant image first, product image as fallback, duplicates removed
+        List<String> productImageUrls = summary.imagePublicIds.stream()
+                .map(cloudinaryService::getImageUrl)
+                .collect(Collectors.toList());
+
+        return OrderListResponse.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .orderGroupNumber(order.getMasterOrder().getOrderGroupNumber())
+                .shopId(order.getShop().getId())
+                .shopName(order.getShop().getName())
+                .customerEmail(order.getMasterOrder().getCustomerEmail())
+                .shippingAddress(order.getMasterOrder().getShippingAddressSnapshot())
+                .contactName(order.getMasterOrder().getShippingContactName())
+                .contactPhone(order.getMasterOrder().getShippingContactPhone())
+                .orderStatus(order.getOrderStatus())
+                .subtotalAmount(order.getSubtotalAmount())
+                .shippingFee(order.getShippingFee())
+                .totalAmount(totalAmount)
+                .totalItems(summary.itemCount)
+                .totalQuantity(summary.quantity)
+                .productImageUrls(productImageUrls)
+                .orderedAt(order.getOrderedAt())
+                .createdAt(order.getCreatedAt())
+                .build();
+    }
+
+    private static final class ItemSummary {
+        private int itemCount;
+        private int quantity;
+        private final Set<String> imagePublicIds = new LinkedHashSet<>();
+
+        private void add(OrderItemSummaryRow row) {
+            itemCount++;
+            quantity += row.getQuantity() != null ? row.getQuantity() : 0;
+            if (row.getVariantImagePublicId() != null) {
+                imagePublicIds.add(row.getVariantImagePublicId());
+            } else if (row.getProductImagePublicId() != null) {
+                imagePublicIds.add(row.getProductImagePublicId());
+            }
+        }
+    }
+}
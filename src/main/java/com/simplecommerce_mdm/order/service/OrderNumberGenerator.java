@@ -0,0 +1,104 @@
+package com.simplecommerce_mdm.order.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style generator for order numbers.
+ * Layout: 41 bits milliseconds since {@link #EPOCH}, 10 bits node id, 12 bits per-millisecond sequence.
+ * Numbers are unique across nodes as long as every instance runs with a distinct node id,
+ * and strictly increasing per node (the logical clock never moves backwards).
+ */
+@Slf4j
+@Component
+public class OrderNumberGenerator {
+
+    public static final String MASTER_ORDER_PREFIX = "MO";
+    public static final String ORDER_PREFIX = "ORD";
+
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+
+    // Packed (logical timestamp << SEQUENCE_BITS | sequence) of the last issued id
+    private final AtomicLong state = new AtomicLong();
+
+    public OrderNumberGenerator(@Value("${business.order.node-id:-1}") long configuredNodeId) {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("business.order.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        if (configuredNodeId < 0) {
+            this.nodeId = deriveNodeId();
+            log.warn("business.order.node-id is not set, derived node id {} from host/pid. "
+                    + "Set a distinct id per instance to guarantee unique order numbers.", nodeId);
+        } else {
+            this.nodeId = configuredNodeId;
+        }
+    }
+
+    /**
+     * Generate a master order group number, e.g. MO6894912651726848
+     */
+    public String nextOrderGroupNumber() {
+        return MASTER_ORDER_PREFIX + nextId();
+    }
+
+    /**
+     * Generate a shop order number, e.g. ORD6894912651726849
+     */
+    public String nextOrderNumber() {
+        return ORDER_PREFIX + nextId();
+    }
+
+    /**
+     * Next raw id. Lock-free: concurrent callers race on a single CAS.
+     * When the sequence for the current millisecond is exhausted, or the wall clock moved
+     * backwards, the logical clock borrows the next millisecond instead of waiting.
+     */
+    public long nextId() {
+        while (true) {
+            long previous = state.get();
+            long previousTimestamp = previous >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > previousTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                next = (previousTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    private static long deriveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        long hash = 31L * host.hashCode() + ProcessHandle.current().pid();
+        return (hash ^ (hash >>> NODE_BITS)) & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,161 @@
+package com.simplecommerce_mdm.order.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of the order tables ahead of time and detaches the ones older than
+ * {@code business.order.partitioning.retention-months}. Detached partitions stay in the database as
+ * standalone tables (for archiving or dropping) but no longer take part in queries.
+ * Does nothing unless the tables were partitioned with docker/postgres/partitioning/partition-order-tables.sql.
+ */
+@Slf4j(topic = "ORDER-PARTITIONS")
+@Component
+@RequiredArgsConstructor
+public class OrderPartitionMaintenance {
+
+    public static final List<String> PARTITIONED_TABLES = List.of("master_orders", "orders", "order_items", "payments");
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${business.order.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${business.order.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition attached
+    @Value("${business.order.partitioning.retention-months:0}")
+    private int retentionMonths;
+
+    @Scheduled(fixedDelayString = "${business.order.partitioning.interval-ms:21600000}",
+            initialDelayString = "${business.order.partitioning.initial-delay-ms:30000}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runOnce(YearMonth.now());
+        } catch (Exception e) {
+            log.error("Order partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create missing partitions and detach expired ones for every partitioned order table.
+     * Returns the number of partitions created plus detached.
+     */
+    public int runOnce(YearMonth currentMonth) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            return 0;
+        }
+
+        int changes = 0;
+        for (String table : PARTITIONED_TABLES) {
+            if (!isPartitioned(table)) {
+                log.debug("Table {} is not partitioned, skipping", table);
+                continue;
+            }
+            changes += createMissingPartitions(table, currentMonth);
+            if (retentionMonths > 0) {
+                changes += detachExpiredPartitions(table, currentMonth);
+            }
+        }
+        return changes;
+    }
+
+    private int createMissingPartitions(String table, YearMonth currentMonth) {
+        int created = 0;
+        for (YearMonth month : monthsToCover(currentMonth, monthsAhead)) {
+            String partition = partitionName(table, month);
+            if (tableExists(partition)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + table
+                        + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+                created++;
+                log.info("Created partition {}", partition);
+            } catch (DataAccessException e) {
+                // Typically rows for that month already landed in the default partition
+                log.warn("Could not create partition {}: {}", partition, e.getMessage());
+            }
+        }
+        return created;
+    }
+
+    private int detachExpiredPartitions(String table, YearMonth currentMonth) {
+        YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = to_regclass(?) ORDER BY c.relname",
+                String.class, table);
+        int detached = 0;
+        for (String partition : partitions) {
+            Optional<YearMonth> month = partitionMonth(table, partition);
+            if (month.isEmpty() || !month.get().isBefore(oldestKept)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+            detached++;
+            log.info("Detached partition {} (older than {} months)", partition, retentionMonths);
+        }
+        return detached;
+    }
+
+    private boolean isPartitioned(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass(?)", Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    /**
+     * The current month followed by {@code monthsAhead} months
+     */
+    public static List<YearMonth> monthsToCover(YearMonth currentMonth, int monthsAhead) {
+        List<YearMonth> months = new ArrayList<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(currentMonth.plusMonths(i));
+        }
+        return months;
+    }
+
+    /**
+     * Partition name used by the partitioning script, e.g. orders_p202610
+     */
+    public static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX_FORMAT);
+    }
+
+    /**
+     * Month of a monthly partition of the table; empty for the default partition and foreign names
+     */
+    public static Optional<YearMonth> partitionMonth(String table, String partition) {
+        Matcher matcher = Pattern.compile(Pattern.quote(table) + "_p(\\d{4})(\\d{2})").matcher(partition);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+    }
+}
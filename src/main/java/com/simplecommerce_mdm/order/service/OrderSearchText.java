@@ -0,0 +1,48 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds the {@code orders.search_text} column and the LIKE patterns matched against it
+ */
+public final class OrderSearchText {
+
+    private OrderSearchText() {
+    }
+
+    /**
+     * Searchable fields of the order joined by spaces, lower-cased (the order needs its master order and shop)
+     */
+    public static String of(Order order) {
+        MasterOrder masterOrder = order.getMasterOrder();
+        return Stream.of(
+                        order.getOrderNumber(),
+                        masterOrder.getOrderGroupNumber(),
+                        masterOrder.getCustomerEmail(),
+                        masterOrder.getCustomerPhone(),
+                        masterOrder.getShippingContactName(),
+                        masterOrder.getShippingContactPhone(),
+                        order.getShop().getName())
+                .filter(Objects::nonNull)
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * "contains" pattern for the keyword, with LIKE wildcards escaped by a backslash
+     */
+    public static String containsPattern(String keyword) {
+        String normalized = keyword.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + normalized + "%";
+    }
+}
@@ -0,0 +1,106 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills {@code orders.search_text} for orders created before the column existed, on any database.
+ * Orders are walked by id in bounded chunks, one transaction per chunk, each claimed with
+ * FOR UPDATE SKIP LOCKED so several nodes can share the work. New orders get the column at checkout,
+ * so once a run finds nothing left the job stops looking on this node.
+ */
+@Slf4j(topic = "ORDER-SEARCH")
+@Component
+public class OrderSearchTextBackfillJob {
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter filledCounter;
+    private final Timer runTimer;
+
+    private volatile boolean done;
+
+    @Value("${business.order.search-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${business.order.search-backfill.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${business.order.search-backfill.max-chunks-per-run:100}")
+    private int maxChunksPerRun;
+
+    public OrderSearchTextBackfillJob(OrderRepository orderRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.filledCounter = Counter.builder("orders.search-text.backfilled")
+                .description("Orders whose search text was filled by the backfill job")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("orders.search-text.backfill.run")
+                .description("Duration of order search text backfill runs")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${business.order.search-backfill.interval-ms:600000}",
+            initialDelayString = "${business.order.search-backfill.initial-delay-ms:120000}")
+    public void backfillSearchText() {
+        if (!enabled || done) {
+            return;
+        }
+        try {
+            runTimer.record(this::runOnce);
+        } catch (Exception e) {
+            log.error("Order search text backfill failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fill up to {@code max-chunks-per-run} chunks and return how many orders were filled
+     */
+    public int runOnce() {
+        Long afterId = 0L;
+        int filled = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            Long chunkAfterId = afterId;
+            List<Order> claimed = transactionTemplate.execute(status -> fillChunk(chunkAfterId));
+            if (claimed == null || claimed.isEmpty()) {
+                break;
+            }
+            filledCounter.increment(claimed.size());
+            filled += claimed.size();
+            afterId = claimed.get(claimed.size() - 1).getId();
+            if (claimed.size() < chunkSize) {
+                break;
+            }
+        }
+
+        if (filled == 0) {
+            done = true;
+            log.info("All orders have search text, backfill finished");
+        } else {
+            log.info("Filled search text for {} orders", filled);
+        }
+        return filled;
+    }
+
+    private List<Order> fillChunk(Long afterId) {
+        List<Order> orders = orderRepository.findWithoutSearchTextChunkForUpdate(afterId, PageRequest.of(0, chunkSize));
+        orders.forEach(order -> order.setSearchText(OrderSearchText.of(order)));
+        return orders;
+    }
+}
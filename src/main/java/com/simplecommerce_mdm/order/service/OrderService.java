@@ -5,6 +5,8 @@ import com.simplecommerce_mdm.common.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
+
 public interface OrderService {
 
     /**
@@ -12,6 +14,12 @@ public interface OrderService {
      */
     MasterOrderResponse createOrderFromCart(Long userId, CheckoutRequest request);
 
+    /**
+     * Shipping fees the checkout would charge for the user's cart, per shop
+     */
+    ShippingQuoteResponse getShippingQuote(Long userId, Long shippingAddressId, Long shippingMethodId,
+                                           java.util.List<Long> selectedCartItemIds);
+
     /**
      * Get user's order history
      */
@@ -48,9 +56,34 @@ public interface OrderService {
     Page<OrderListResponse> getSellerOrdersByStatus(Long shopId, OrderStatus status, Pageable pageable);
 
     /**
-     * Update order status (by seller/admin)
+     * Update order status (by seller/admin), recording the acting user in the status history
+     */
+    OrderResponse updateOrderStatus(Long orderId, OrderStatusUpdateRequest request, Long actorUserId);
+
+    /**
+     * Move many of a shop's orders to the same status at once, reporting the outcome per order
+     */
+    BulkOrderStatusUpdateResponse bulkUpdateOrderStatus(Long shopId, BulkOrderStatusUpdateRequest request, Long actorUserId);
+
+    /**
+     * Status timelines of several orders owned by the user
+     */
+    java.util.List<OrderTimelineResponse> getOrderTimelines(Long userId, java.util.List<Long> orderIds);
+
+    /**
+     * Status timelines of several orders (admin)
+     */
+    java.util.List<OrderTimelineResponse> getOrderTimelinesForAdmin(java.util.List<Long> orderIds);
+
+    /**
+     * Average/max time the shop's orders spent in each status
      */
-    OrderResponse updateOrderStatus(Long orderId, OrderStatusUpdateRequest request);
+    java.util.List<StatusDurationResponse> getShopStatusDurations(Long shopId);
+
+    /**
+     * Create buyer order view rows for up to {@code batchSize} orders that have none; returns how many were created
+     */
+    int backfillBuyerOrderViews(int batchSize);
 
     /**
      * Get all orders for admin
@@ -62,6 +95,12 @@ public interface OrderService {
      */
     Page<OrderListResponse> searchOrdersForAdmin(String keyword, Pageable pageable);
 
+    /**
+     * Search orders for admin with optional status and creation date filters, keyset paged by an opaque cursor
+     */
+    OrderSearchResponse scrollOrdersForAdmin(String keyword, OrderStatus status, LocalDate from,
+                                             LocalDate to, String cursor, int size);
+
     /**
      * Get order statistics
      */
@@ -72,6 +111,7 @@ public interface OrderService {
     OrderResponse getOrderDetailsForSeller(Long shopId, Long orderId);
 
     // Admin master order endpoints
-    org.springframework.data.domain.Page<MasterOrderResponse> getAllMasterOrdersForAdmin(org.springframework.data.domain.Pageable pageable);
+    org.springframework.data.domain.Page<MasterOrderSummaryResponse> getAllMasterOrdersForAdmin(org.springframework.data.domain.Pageable pageable);
     MasterOrderResponse getMasterOrderDetailsForAdmin(Long masterOrderId);
+    MasterOrderCounterCheckResponse verifyMasterOrderCounters(org.springframework.data.domain.Pageable pageable, boolean rebuild);
 } 
\ No newline at end of file
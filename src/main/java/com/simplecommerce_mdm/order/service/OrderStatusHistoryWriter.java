@@ -0,0 +1,93 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderStatusHistory;
+import com.simplecommerce_mdm.order.repository.OrderStatusHistoryRepository;
+import com.simplecommerce_mdm.user.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends order status history rows, each carrying how long the order stayed in its previous status.
+ * Entries recorded inside a transaction are buffered and written with one saveAll right before commit
+ * (batched inserts).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatusHistoryWriter {
+
+    private static final Object BUFFER_KEY = OrderStatusHistoryWriter.class.getName() + ".BUFFER";
+
+    private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * Record a status change of the order and stamp {@code order.statusUpdatedAt}.
+     * {@code from} is null for the initial status set at checkout.
+     */
+    public void record(Order order, OrderStatus from, OrderStatus to, Long actorUserId, String notes) {
+        record(order, from, to, actorUserId, notes, OffsetDateTime.now());
+    }
+
+    /**
+     * Same as {@link #record(Order, OrderStatus, OrderStatus, Long, String)} with an explicit change time,
+     * so a bulk transition can stamp the history with the time written by its UPDATE
+     */
+    public void record(Order order, OrderStatus from, OrderStatus to, Long actorUserId, String notes, OffsetDateTime now) {
+        OffsetDateTime enteredAt = order.getStatusUpdatedAt() != null ? order.getStatusUpdatedAt() : order.getOrderedAt();
+        order.setStatusUpdatedAt(now);
+
+        Long timeInStatusMs = from != null && enteredAt != null
+                ? Math.max(0, Duration.between(enteredAt, now).toMillis())
+                : null;
+
+        OrderStatusHistory entry = OrderStatusHistory.builder()
+                .order(order)
+                .statusFrom(from)
+                .statusTo(to)
+                .changedAt(now)
+                .timeInPreviousStatusMs(timeInStatusMs)
+                .changedByUser(actorUserId != null ? userRepository.getReferenceById(actorUserId) : null)
+                .notes(notes)
+                .build();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            orderStatusHistoryRepository.save(entry);
+            return;
+        }
+        currentBuffer().add(entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OrderStatusHistory> currentBuffer() {
+        List<OrderStatusHistory> buffer = (List<OrderStatusHistory>) TransactionSynchronizationManager.getResource(BUFFER_KEY);
+        if (buffer != null) {
+            return buffer;
+        }
+
+        List<OrderStatusHistory> newBuffer = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(BUFFER_KEY, newBuffer);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                orderStatusHistoryRepository.saveAll(newBuffer);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(BUFFER_KEY);
+            }
+        });
+        return newBuffer;
+    }
+}
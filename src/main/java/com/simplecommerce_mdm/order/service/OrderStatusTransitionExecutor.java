@@ -0,0 +1,126 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.email.events.OrderEmailEvents;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.repository.MasterOrderRepository;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Moves many orders to the same status with set-based writes: one UPDATE per source status,
+ * one buyer view update, one counter update per affected master order and one status email per buyer.
+ * Used by seller bulk transitions and the expiry job; callers validate and lock the orders first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatusTransitionExecutor {
+
+    private final OrderRepository orderRepository;
+    private final MasterOrderRepository masterOrderRepository;
+    private final MasterOrderStatusCounters masterOrderStatusCounters;
+    private final OrderStatusHistoryWriter orderStatusHistoryWriter;
+    private final BuyerOrderViewProjector buyerOrderViewProjector;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Apply the transition to the given orders (loaded with master order and buyer, locked by the caller).
+     * The orders are detached by the bulk UPDATE and only updated in memory afterwards.
+     */
+    public void apply(Collection<Order> orders, OrderStatus to, String notes, Long actorUserId) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<OrderStatus, List<Order>> byFromStatus = new EnumMap<>(OrderStatus.class);
+        for (Order order : orders) {
+            byFromStatus.computeIfAbsent(order.getOrderStatus(), status -> new ArrayList<>()).add(order);
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Long> orderIds = new ArrayList<>();
+        List<MasterOrderStatusCounters.Transition> transitions = new ArrayList<>();
+        for (Map.Entry<OrderStatus, List<Order>> group : byFromStatus.entrySet()) {
+            OrderStatus from = group.getKey();
+            List<Order> fromOrders = group.getValue();
+            OrderCreatedAtBounds.Range createdAt = OrderCreatedAtBounds.of(fromOrders);
+            int updated = orderRepository.bulkUpdateStatus(
+                    fromOrders.stream().map(Order::getId).collect(Collectors.toList()),
+                    from, to, notes, now, now.toLocalDateTime(), createdAt.from(), createdAt.to());
+            if (updated != fromOrders.size()) {
+                throw new IllegalStateException("Expected to update " + fromOrders.size() + " orders from " + from
+                        + " but updated " + updated);
+            }
+            for (Order order : fromOrders) {
+                orderStatusHistoryWriter.record(order, from, to, actorUserId, notes, now);
+                order.setOrderStatus(to);
+                orderIds.add(order.getId());
+                transitions.add(new MasterOrderStatusCounters.Transition(order.getMasterOrder(), from, to));
+            }
+        }
+
+        buyerOrderViewProjector.onStatusChanged(orderIds, to);
+        updateMasterOrderStatuses(orders, transitions);
+        publishOrderStatusDigestEmails(orders, to.toString());
+    }
+
+    /**
+     * One counter update per affected master order, then one status update per resulting overall status
+     */
+    private void updateMasterOrderStatuses(Collection<Order> orders, List<MasterOrderStatusCounters.Transition> transitions) {
+        Map<Long, MasterOrderStatus> overallStatuses = masterOrderStatusCounters.applyTransitions(transitions);
+
+        Map<MasterOrderStatus, Map<Long, MasterOrder>> changedByStatus = new EnumMap<>(MasterOrderStatus.class);
+        for (Order order : orders) {
+            MasterOrder masterOrder = order.getMasterOrder();
+            MasterOrderStatus overallStatus = overallStatuses.get(masterOrder.getId());
+            if (masterOrder.getOverallStatus() != overallStatus) {
+                changedByStatus.computeIfAbsent(overallStatus, status -> new HashMap<>()).put(masterOrder.getId(), masterOrder);
+                masterOrder.setOverallStatus(overallStatus);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        changedByStatus.forEach((status, masterOrders) -> {
+            OrderCreatedAtBounds.Range createdAt = OrderCreatedAtBounds.of(masterOrders.values());
+            masterOrderRepository.updateOverallStatus(masterOrders.keySet(), status, now, createdAt.from(), createdAt.to());
+        });
+    }
+
+    /**
+     * Sends one status email per buyer covering all of their orders in the batch
+     */
+    private void publishOrderStatusDigestEmails(Collection<Order> orders, String newStatus) {
+        Map<Long, List<Order>> ordersByBuyer = orders.stream()
+                .collect(Collectors.groupingBy(order -> order.getMasterOrder().getUser().getId(),
+                        LinkedHashMap::new, Collectors.toList()));
+        for (List<Order> buyerOrders : ordersByBuyer.values()) {
+            MasterOrder masterOrder = buyerOrders.get(0).getMasterOrder();
+            try {
+                eventPublisher.publishEvent(new OrderEmailEvents.OrderStatusDigestEvent(
+                        masterOrder.getCustomerEmail(),
+                        masterOrder.getUser().getFullName(),
+                        newStatus,
+                        buyerOrders.stream().map(Order::getOrderNumber).collect(Collectors.toList())));
+            } catch (Exception e) {
+                log.error("Failed to publish status digest email event for {}: {}",
+                        masterOrder.getCustomerEmail(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.cart.model.CartItem;
+import com.simplecommerce_mdm.config.BusinessConfigService;
+import com.simplecommerce_mdm.order.repository.ShippingMethodRepository;
+import com.simplecommerce_mdm.order.repository.ShippingRateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Quotes shipping fees from the compiled {@link ShippingRateTable}. The table is rebuilt at startup,
+ * after a rate or method change commits ({@link RatesChangedEvent}) and periodically, so changes made
+ * on another node are picked up too; quotes never touch the database.
+ */
+@Slf4j(topic = "SHIPPING-FEES")
+@Component
+public class ShippingFeeEngine {
+
+    private final ShippingRateRepository shippingRateRepository;
+    private final ShippingMethodRepository shippingMethodRepository;
+    private final BusinessConfigService businessConfigService;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile ShippingRateTable table;
+
+    public ShippingFeeEngine(ShippingRateRepository shippingRateRepository,
+                             ShippingMethodRepository shippingMethodRepository,
+                             BusinessConfigService businessConfigService,
+                             PlatformTransactionManager transactionManager) {
+        this.shippingRateRepository = shippingRateRepository;
+        this.shippingMethodRepository = shippingMethodRepository;
+        this.businessConfigService = businessConfigService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Published by rate and method changes; the table is rebuilt once the change commits
+     */
+    public static class RatesChangedEvent {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRatesChanged(RatesChangedEvent event) {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${business.shipping.rates.refresh-interval-ms:300000}",
+            initialDelayString = "${business.shipping.rates.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Shipping rate refresh failed, keeping the previous table: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recompile the rate table from the database and swap it in
+     */
+    public void reload() {
+        ShippingRateTable compiled = transactionTemplate.execute(status -> ShippingRateTable.compile(
+                shippingRateRepository.findAllActive(),
+                shippingMethodRepository.findByIsActiveTrue(),
+                businessConfigService.getShippingDefaultFee(),
+                businessConfigService.getShippingFreeThreshold()));
+        table = compiled;
+        log.debug("Compiled {} shipping rates", compiled.size());
+    }
+
+    /**
+     * Whether the shipping method exists and is active
+     */
+    public boolean hasMethod(Integer shippingMethodId) {
+        return table().hasMethod(shippingMethodId);
+    }
+
+    /**
+     * Quote shipping for one shop's items
+     *
+     * @param region region key from {@link ShippingRateTable#normalizeRegion}, or null when unknown
+     */
+    public ShippingRateTable.Quote quote(Long shopId, Integer shippingMethodId, String region,
+                                         List<CartItem> shopItems, BigDecimal subtotal) {
+        return table().quote(shopId, shippingMethodId, region, totalWeightGrams(shopItems), subtotal);
+    }
+
+    /**
+     * Total weight of the items, rounded up to whole grams; variants without a weight count as 0
+     */
+    public static int totalWeightGrams(List<CartItem> items) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (CartItem item : items) {
+            BigDecimal weight = item.getVariant().getWeightGrams();
+            if (weight != null) {
+                total = total.add(weight.multiply(BigDecimal.valueOf(item.getQuantity())));
+            }
+        }
+        return total.setScale(0, RoundingMode.CEILING).min(BigDecimal.valueOf(Integer.MAX_VALUE - 1)).intValue();
+    }
+
+    private ShippingRateTable table() {
+        ShippingRateTable current = table;
+        if (current == null) {
+            synchronized (this) {
+                if (table == null) {
+                    reload();
+                }
+                current = table;
+            }
+        }
+        return current;
+    }
+}
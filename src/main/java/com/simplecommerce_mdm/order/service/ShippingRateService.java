@@ -0,0 +1,29 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.order.dto.ShippingRateRequest;
+import com.simplecommerce_mdm.order.dto.ShippingRateResponse;
+
+import java.util.List;
+
+public interface ShippingRateService {
+
+    /**
+     * All shipping rates (admin)
+     */
+    List<ShippingRateResponse> getAllRates();
+
+    /**
+     * Create a shipping rate; the rate table is recompiled after commit
+     */
+    ShippingRateResponse createRate(ShippingRateRequest request);
+
+    /**
+     * Update a shipping rate; the rate table is recompiled after commit
+     */
+    ShippingRateResponse updateRate(Long id, ShippingRateRequest request);
+
+    /**
+     * Delete a shipping rate; the rate table is recompiled after commit
+     */
+    void deleteRate(Long id);
+}
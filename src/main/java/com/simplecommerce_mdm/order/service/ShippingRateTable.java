@@ -0,0 +1,251 @@
+package com.simplecommerce_mdm.order.service;
+
+import com.simplecommerce_mdm.order.model.ShippingMethod;
+import com.simplecommerce_mdm.order.model.ShippingRate;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable lookup structure compiled from the active {@link ShippingRate} rows.
+ * Rates are grouped by (shop, method), then by region, then sorted into weight bands, and every
+ * rate carries its two possible quotes (paid and free) prebuilt, so {@link #quote} only walks maps
+ * and a binary search and returns a shared instance.
+ * <p>
+ * Lookup order for a shop: shop rate for the region, shop rate for anywhere, marketplace rate for the
+ * region, marketplace rate for anywhere, then the method's base cost (or the configured default fee
+ * when no method was chosen) with the configured free-shipping threshold.
+ */
+public final class ShippingRateTable {
+
+    private static final long ANY_SHOP = 0L;
+    private static final int NO_METHOD = 0;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern REGION_PREFIX = Pattern.compile("^(thanh pho|tp\\.?|tinh)\\s+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Result of a lookup. Instances are shared; {@code freeShippingThreshold} is null when the rate is never free.
+     */
+    public record Quote(BigDecimal fee, boolean freeShipping, BigDecimal freeShippingThreshold,
+                        Integer shippingMethodId, String shippingMethodName,
+                        Integer estimatedDeliveryMinDays, Integer estimatedDeliveryMaxDays) {
+    }
+
+    private record Scope(long shopId, int methodId) {
+    }
+
+    private static final class CompiledRate {
+        private final int minWeight;
+        private final int maxWeight;
+        private final BigDecimal threshold;
+        private final Quote paid;
+        private final Quote free;
+
+        private CompiledRate(int minWeight, int maxWeight, BigDecimal fee, BigDecimal threshold, ShippingMethod method) {
+            this.minWeight = minWeight;
+            this.maxWeight = maxWeight;
+            this.threshold = threshold;
+            Integer methodId = method != null ? method.getId() : null;
+            String methodName = method != null ? method.getName() : null;
+            Integer minDays = method != null ? method.getEstimatedDeliveryTimeMinDays() : null;
+            Integer maxDays = method != null ? method.getEstimatedDeliveryTimeMaxDays() : null;
+            this.paid = new Quote(fee, false, threshold, methodId, methodName, minDays, maxDays);
+            this.free = threshold != null
+                    ? new Quote(BigDecimal.ZERO, true, threshold, methodId, methodName, minDays, maxDays)
+                    : paid;
+        }
+
+        private Quote quote(BigDecimal subtotal) {
+            return threshold != null && subtotal.compareTo(threshold) >= 0 ? free : paid;
+        }
+    }
+
+    /**
+     * Rates of one (shop, method, region), sorted by lower weight bound
+     */
+    private static final class WeightBands {
+        private final int[] minWeights;
+        private final CompiledRate[] rates;
+
+        private WeightBands(List<CompiledRate> unsorted) {
+            CompiledRate[] sorted = unsorted.toArray(new CompiledRate[0]);
+            Arrays.sort(sorted, Comparator.comparingInt((CompiledRate r) -> r.minWeight)
+                    .thenComparingInt(r -> r.maxWeight));
+            this.rates = sorted;
+            this.minWeights = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                minWeights[i] = sorted[i].minWeight;
+            }
+        }
+
+        private CompiledRate find(int weight) {
+            // Last band starting at or below the weight, then back off past bands that end before it
+            int low = 0;
+            int high = minWeights.length - 1;
+            int candidate = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (minWeights[mid] <= weight) {
+                    candidate = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            for (int i = candidate; i >= 0; i--) {
+                if (weight < rates[i].maxWeight) {
+                    return rates[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class RegionRates {
+        private final Map<String, WeightBands> byRegion;
+        private final WeightBands anyRegion;
+
+        private RegionRates(Map<String, WeightBands> byRegion, WeightBands anyRegion) {
+            this.byRegion = byRegion;
+            this.anyRegion = anyRegion;
+        }
+    }
+
+    private final Map<Scope, RegionRates> scopes;
+    private final Map<Integer, CompiledRate> methodDefaults;
+    private final CompiledRate defaultRate;
+    private final int rateCount;
+
+    private ShippingRateTable(Map<Scope, RegionRates> scopes, Map<Integer, CompiledRate> methodDefaults,
+                              CompiledRate defaultRate, int rateCount) {
+        this.scopes = scopes;
+        this.methodDefaults = methodDefaults;
+        this.defaultRate = defaultRate;
+        this.rateCount = rateCount;
+    }
+
+    /**
+     * Compile the active methods and rates. Rates of inactive or unknown methods are dropped.
+     */
+    public static ShippingRateTable compile(List<ShippingRate> rates, List<ShippingMethod> methods,
+                                            BigDecimal defaultFee, BigDecimal defaultFreeThreshold) {
+        Map<Integer, ShippingMethod> methodsById = new HashMap<>();
+        Map<Integer, CompiledRate> methodDefaults = new HashMap<>();
+        for (ShippingMethod method : methods) {
+            methodsById.put(method.getId(), method);
+            methodDefaults.put(method.getId(),
+                    new CompiledRate(0, Integer.MAX_VALUE, method.getBaseCost(), defaultFreeThreshold, method));
+        }
+
+        Map<Scope, Map<String, List<CompiledRate>>> grouped = new HashMap<>();
+        int rateCount = 0;
+        for (ShippingRate rate : rates) {
+            ShippingMethod method = null;
+            if (rate.getShippingMethod() != null) {
+                method = methodsById.get(rate.getShippingMethod().getId());
+                if (method == null) {
+                    continue;
+                }
+            }
+            Scope scope = new Scope(
+                    rate.getShop() != null ? rate.getShop().getId() : ANY_SHOP,
+                    method != null ? method.getId() : NO_METHOD);
+            String region = rate.getRegion() != null ? normalizeRegion(rate.getRegion()) : "";
+            int minWeight = rate.getMinWeightGrams() != null ? rate.getMinWeightGrams() : 0;
+            int maxWeight = rate.getMaxWeightGrams() != null ? rate.getMaxWeightGrams() : Integer.MAX_VALUE;
+            grouped.computeIfAbsent(scope, s -> new HashMap<>())
+                    .computeIfAbsent(region, r -> new ArrayList<>())
+                    .add(new CompiledRate(minWeight, maxWeight, rate.getFee(), rate.getFreeShippingThreshold(), method));
+            rateCount++;
+        }
+
+        Map<Scope, RegionRates> scopes = new HashMap<>();
+        grouped.forEach((scope, byRegion) -> {
+            Map<String, WeightBands> bands = new HashMap<>();
+            byRegion.forEach((region, list) -> {
+                if (!region.isEmpty()) {
+                    bands.put(region, new WeightBands(list));
+                }
+            });
+            List<CompiledRate> anyRegion = byRegion.get("");
+            scopes.put(scope, new RegionRates(Map.copyOf(bands), anyRegion != null ? new WeightBands(anyRegion) : null));
+        });
+
+        CompiledRate defaultRate = new CompiledRate(0, Integer.MAX_VALUE, defaultFee, defaultFreeThreshold, null);
+        return new ShippingRateTable(Map.copyOf(scopes), Map.copyOf(methodDefaults), defaultRate, rateCount);
+    }
+
+    /**
+     * Whether the shipping method exists and is active
+     */
+    public boolean hasMethod(Integer shippingMethodId) {
+        return methodDefaults.containsKey(shippingMethodId);
+    }
+
+    /**
+     * Number of compiled rate rows
+     */
+    public int size() {
+        return rateCount;
+    }
+
+    /**
+     * Quote shipping for one shop's part of an order.
+     *
+     * @param shippingMethodId null for the default method; must otherwise be an active method (see {@link #hasMethod})
+     * @param region           region key from {@link #normalizeRegion}, or null when unknown
+     */
+    public Quote quote(long shopId, Integer shippingMethodId, String region, int weightGrams, BigDecimal subtotal) {
+        int methodId = shippingMethodId != null ? shippingMethodId : NO_METHOD;
+        CompiledRate rate = find(new Scope(shopId, methodId), region, weightGrams);
+        if (rate == null) {
+            rate = find(new Scope(ANY_SHOP, methodId), region, weightGrams);
+        }
+        if (rate == null) {
+            rate = shippingMethodId != null ? methodDefaults.get(shippingMethodId) : defaultRate;
+        }
+        if (rate == null) {
+            throw new IllegalArgumentException("Unknown shipping method: " + shippingMethodId);
+        }
+        return rate.quote(subtotal);
+    }
+
+    private CompiledRate find(Scope scope, String region, int weightGrams) {
+        RegionRates regionRates = scopes.get(scope);
+        if (regionRates == null) {
+            return null;
+        }
+        if (region != null) {
+            WeightBands bands = regionRates.byRegion.get(region);
+            CompiledRate rate = bands != null ? bands.find(weightGrams) : null;
+            if (rate != null) {
+                return rate;
+            }
+        }
+        return regionRates.anyRegion != null ? regionRates.anyRegion.find(weightGrams) : null;
+    }
+
+    /**
+     * Region key of a province/city name: lower case, no Vietnamese diacritics, no "Thành phố"/"Tỉnh" prefix,
+     * so "TP. Hồ Chí Minh" and "ho chi minh" match
+     */
+    public static String normalizeRegion(String city) {
+        if (city == null) {
+            return null;
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(city, Normalizer.Form.NFD)).replaceAll("")
+                .replace('đ', 'd').replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT).trim();
+        stripped = WHITESPACE.matcher(stripped).replaceAll(" ");
+        return REGION_PREFIX.matcher(stripped).replaceFirst("");
+    }
+}
@@ -1,6 +1,19 @@
 package com.simplecommerce_mdm.order.service.impl;
 
 import com.simplecommerce_mdm.order.service.OrderService;
+import com.simplecommerce_mdm.order.service.BuyerOrderViewProjector;
+import com.simplecommerce_mdm.order.service.BuyerOrderViewReadiness;
+import com.simplecommerce_mdm.order.service.OrderCreatedAtBounds;
+import com.simplecommerce_mdm.order.service.MasterOrderStatusCounters;
+import com.simplecommerce_mdm.order.service.OrderArchiveStore;
+import com.simplecommerce_mdm.order.service.OrderDetailAssembler;
+import com.simplecommerce_mdm.order.service.OrderListAssembler;
+import com.simplecommerce_mdm.order.service.OrderNumberGenerator;
+import com.simplecommerce_mdm.order.service.OrderSearchText;
+import com.simplecommerce_mdm.order.service.OrderStatusHistoryWriter;
+import com.simplecommerce_mdm.order.service.OrderStatusTransitionExecutor;
+import com.simplecommerce_mdm.order.service.ShippingFeeEngine;
+import com.simplecommerce_mdm.order.service.ShippingRateTable;
 import com.simplecommerce_mdm.order.dto.*;
 import com.simplecommerce_mdm.order.model.*;
 import com.simplecommerce_mdm.order.repository.*;
@@ -8,6 +21,10 @@ import com.simplecommerce_mdm.cart.model.Cart;
 import com.simplecommerce_mdm.cart.model.CartItem;
 import com.simplecommerce_mdm.cart.repository.CartRepository;
 import com.simplecommerce_mdm.cart.repository.CartItemRepository;
+import com.simplecommerce_mdm.cart.service.CartCountCache;
+import com.simplecommerce_mdm.cart.service.CartStore;
+import com.simplecommerce_mdm.product.events.ProductVariantChangedEvent;
+import com.simplecommerce_mdm.product.model.ProductImage;
 import com.simplecommerce_mdm.product.model.ProductVariant;
 import com.simplecommerce_mdm.product.model.Shop;
 import com.simplecommerce_mdm.product.repository.ProductVariantRepository;
@@ -19,28 +36,35 @@ import com.simplecommerce_mdm.user.model.UserAddress;
 import com.simplecommerce_mdm.user.repository.UserRepository;
 import com.simplecommerce_mdm.user.repository.AddressRepository;
 import com.simplecommerce_mdm.user.repository.UserAddressRepository;
-import com.simplecommerce_mdm.cloudinary.service.CloudinaryService;
 import com.simplecommerce_mdm.email.service.EmailService;
 import com.simplecommerce_mdm.email.events.OrderEmailEvents;
 import com.simplecommerce_mdm.exception.ResourceNotFoundException;
 import com.simplecommerce_mdm.exception.InvalidDataException;
 import com.simplecommerce_mdm.common.enums.*;
+import com.simplecommerce_mdm.promotion.dto.AppliedVoucher;
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
+import com.simplecommerce_mdm.promotion.service.PromotionRuleEngine;
+import com.simplecommerce_mdm.promotion.service.VoucherService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
-import com.simplecommerce_mdm.config.BusinessConfigService;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -49,20 +73,17 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderServiceImpl implements OrderService {
 
-    // Business configuration for shipping
-    @Value("${business.shipping.free-threshold:500000}")
-    private BigDecimal shippingFreeThreshold;
-    
-    @Value("${business.shipping.default-fee:30000}")
-    private BigDecimal shippingDefaultFee;
-    
-    @Value("${business.shipping.default-carrier:Viettel Post}")
-    private String shippingDefaultCarrier;
-    
+    private static final int MAX_TIMELINE_ORDERS = 100;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final LocalDateTime SEARCH_MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime SEARCH_MAX_DATE = LocalDateTime.of(9999, 1, 1, 0, 0);
+
     @Value("${business.order.stock-update-max-retries:3}")
     private int stockUpdateMaxRetries;
 
-    private final BusinessConfigService businessConfigService;
+    @Value("${business.order.status-durations.window-days:90}")
+    private int statusDurationWindowDays;
+
     private final MasterOrderRepository masterOrderRepository;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
@@ -70,16 +91,33 @@ public class OrderServiceImpl implements OrderService {
     private final PaymentMethodRepository paymentMethodRepository;
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final CartCountCache cartCountCache;
     private final UserRepository userRepository;
     private final ProductVariantRepository productVariantRepository;
     private final ShopRepository shopRepository;
     private final ProductImageRepository productImageRepository;
     private final AddressRepository addressRepository;
     private final UserAddressRepository userAddressRepository;
-    private final CloudinaryService cloudinaryService;
     private final ModelMapper modelMapper;
     private final EmailService emailService;
     private final ApplicationEventPublisher eventPublisher;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final OrderListAssembler orderListAssembler;
+    private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+    private final OrderStatusHistoryWriter orderStatusHistoryWriter;
+    private final MasterOrderStatusCounters masterOrderStatusCounters;
+    private final OrderStatusTransitionExecutor orderStatusTransitionExecutor;
+    private final BuyerOrderViewRepository buyerOrderViewRepository;
+    private final BuyerOrderViewReadiness buyerOrderViewReadiness;
+    private final OrderCreatedAtBounds orderCreatedAtBounds;
+    private final BuyerOrderViewProjector buyerOrderViewProjector;
+    private final OrderDetailAssembler orderDetailAssembler;
+    private final OrderArchiveStore orderArchiveStore;
+    private final ShippingFeeEngine shippingFeeEngine;
+    private final ShippingMethodRepository shippingMethodRepository;
+    private final VoucherService voucherService;
+    private final PromotionRuleEngine promotionRuleEngine;
 
     @Override
     public MasterOrderResponse createOrderFromCart(Long userId, CheckoutRequest request) {
@@ -89,113 +127,183 @@ public class OrderServiceImpl implements OrderService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         
-        // 2. Get user's cart
+        // 2. Get user's cart (quantities still held by the cart store are written first)
+        cartStore.flush(userId);
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(() -> new InvalidDataException("Cart is empty"));
         
-        // Get cart items based on selection
-        List<CartItem> cartItems;
-        if (request.getSelectedCartItemIds() != null && !request.getSelectedCartItemIds().isEmpty()) {
-            // User selected specific items
-            cartItems = cartItemRepository.findByCartUserIdAndIdIn(userId, request.getSelectedCartItemIds());
-            if (cartItems.isEmpty()) {
-                throw new InvalidDataException("No selected cart items found");
-            }
-            if (cartItems.size() != request.getSelectedCartItemIds().size()) {
-                throw new InvalidDataException("Some selected cart items not found");
-            }
-        } else {
-            // Checkout all items in cart
-            cartItems = cartItemRepository.findByCartUserId(userId);
-        }
+        // Get cart items based on selection (variant, product and shop are fetched in the same query)
+        List<CartItem> cartItems = findCheckoutItems(userId, request.getSelectedCartItemIds());
         
         if (cartItems.isEmpty()) {
             throw new InvalidDataException("Cart is empty");
         }
         
-        // 3. Validate payment method
+        // 3. Validate payment and shipping method
         PaymentMethod paymentMethod = paymentMethodRepository.findByCode(request.getPaymentMethodCode())
                 .orElseThrow(() -> new InvalidDataException("Invalid payment method"));
         
         if (!paymentMethod.getIsActive()) {
             throw new InvalidDataException("Payment method is not active");
         }
+        Integer shippingMethodId = resolveShippingMethodId(request.getShippingMethodId());
         
-        // 4. Validate stock for all items
+        // 4. Validate stock for all items (in memory, variants were loaded with the cart items)
         validateStockForCartItems(cartItems);
         
         // 5. Group cart items by shop
         Map<Shop, List<CartItem>> itemsByShop = groupCartItemsByShop(cartItems);
         
-        // 6. Generate order group number
-        String orderGroupNumber = generateOrderGroupNumber();
+        // 6. Preload product main images for all items in one query
+        Map<Long, String> productMainImages = loadProductMainImages(cartItems);
         
-        // 7. Create master order
-        MasterOrder masterOrder = createMasterOrder(user, request, paymentMethod, orderGroupNumber);
-        masterOrder = masterOrderRepository.save(masterOrder);
+        // 7. Build master order, shop orders and items in memory so totals are known before the first insert
+        String orderGroupNumber = orderNumberGenerator.nextOrderGroupNumber();
+        UserAddress shippingUserAddress = userAddressRepository.findByIdAndUserId(request.getShippingAddressId(), user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Shipping address not found with id: " + request.getShippingAddressId()));
+        String shippingRegion = ShippingRateTable.normalizeRegion(shippingUserAddress.getAddress().getCity());
+        MasterOrder masterOrder = createMasterOrder(user, request, paymentMethod, shippingUserAddress, orderGroupNumber);
         
-        // 8. Create individual orders for each shop
         List<Order> orders = new ArrayList<>();
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        Map<Order, List<OrderItem>> itemsByOrder = new LinkedHashMap<>();
         
         for (Map.Entry<Shop, List<CartItem>> entry : itemsByShop.entrySet()) {
-            Shop shop = entry.getKey();
-            List<CartItem> shopItems = entry.getValue();
-            
-            Order order = createOrderForShop(masterOrder, shop, shopItems, request);
-            order = orderRepository.save(order);
+            Order order = createOrderForShop(masterOrder, entry.getKey(), entry.getValue(), request,
+                    shippingMethodId, shippingRegion);
+            orderStatusHistoryWriter.record(order, null, order.getOrderStatus(), userId, null);
             orders.add(order);
-            
-            // Create order items
-            createOrderItems(order, shopItems);
-            
-            totalAmount = totalAmount.add(order.getSubtotalAmount().add(order.getShippingFee()));
+            itemsByOrder.put(order, createOrderItems(order, entry.getValue(), productMainImages));
         }
         
-        // 9. Update master order total
+        // Automatic promotions first, then the voucher on what is left; both are spread over the shop orders
+        PromotionEvaluation promotions = promotionRuleEngine.evaluate(userId, cartItems, orders.stream()
+                .collect(Collectors.toMap(order -> order.getShop().getId(), Order::getShippingFee)));
+        applyPromotions(orders, promotions);
+        promotionRuleEngine.reserve(userId, promotions);
+        AppliedVoucher appliedVoucher = StringUtils.hasText(request.getVoucherCode())
+                ? voucherService.applyVoucher(userId, request.getVoucherCode(), orders)
+                : null;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal totalDiscount = BigDecimal.ZERO;
+        for (Order order : orders) {
+            BigDecimal discount = order.getItemDiscountAmount().add(order.getShippingDiscountAmount());
+            totalAmount = totalAmount.add(order.getSubtotalAmount().add(order.getShippingFee()).subtract(discount));
+            totalDiscount = totalDiscount.add(discount);
+        }
         masterOrder.setTotalAmountPaid(totalAmount);
-        masterOrderRepository.save(masterOrder);
+        masterOrder.setTotalDiscountAmount(totalDiscount);
+        masterOrderStatusCounters.initialize(masterOrder, orders);
+        
+        // 8. Persist once; sequence ids let Hibernate batch the inserts at flush
+        masterOrder = masterOrderRepository.save(masterOrder);
+        orderRepository.saveAll(orders);
+        List<OrderItem> allItems = itemsByOrder.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        orderItemRepository.saveAll(allItems);
+        buyerOrderViewProjector.onOrdersCreated(itemsByOrder);
+        if (appliedVoucher != null) {
+            voucherService.recordRedemption(masterOrder, appliedVoucher);
+        }
+        
+        // Keep the in-memory graph complete for email events and the response
+        masterOrder.getOrders().addAll(orders);
+        itemsByOrder.forEach((order, items) -> order.getOrderItems().addAll(items));
         
-        // 10. Create COD payment record
+        // 9. Create COD payment record
         createCODPayment(masterOrder, paymentMethod, totalAmount);
         
-        // 11. Update inventory
+        // 10. Update inventory
         updateInventoryForOrder(cartItems);
         
-        // 12. Clear selected items from user's cart (or all if no selection)
+        // 11. Clear selected items from user's cart (or all if no selection)
         if (request.getSelectedCartItemIds() != null && !request.getSelectedCartItemIds().isEmpty()) {
             clearSelectedCartItems(userId, request.getSelectedCartItemIds());
         } else {
             clearUserCart(userId);
         }
         
-        // 13. Publish email events (async AFTER_COMMIT)
+        // 12. Publish email events (async AFTER_COMMIT)
         publishOrderEmails(masterOrder);
         
         log.info("Order created successfully. Order group: {}", orderGroupNumber);
         
-        return buildMasterOrderResponse(masterOrder);
+        return buildMasterOrderResponse(masterOrder, itemsByOrder);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ShippingQuoteResponse getShippingQuote(Long userId, Long shippingAddressId, Long shippingMethodId,
+                                                  List<Long> selectedCartItemIds) {
+        Integer methodId = resolveShippingMethodId(shippingMethodId);
+        UserAddress shippingUserAddress = shippingAddressId != null
+                ? userAddressRepository.findByIdAndUserId(shippingAddressId, userId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Shipping address not found with id: " + shippingAddressId))
+                : userAddressRepository.findByUserIdAndIsDefaultShippingTrue(userId).orElse(null);
+        String region = shippingUserAddress != null
+                ? ShippingRateTable.normalizeRegion(shippingUserAddress.getAddress().getCity())
+                : null;
+        
+        List<ShippingQuoteResponse.ShopShippingQuote> shops = new ArrayList<>();
+        BigDecimal totalShippingFee = BigDecimal.ZERO;
+        for (Map.Entry<Shop, List<CartItem>> entry : groupCartItemsByShop(findCheckoutItems(userId, selectedCartItemIds)).entrySet()) {
+            Shop shop = entry.getKey();
+            BigDecimal subtotal = calculateSubtotal(entry.getValue());
+            ShippingRateTable.Quote quote = shippingFeeEngine.quote(shop.getId(), methodId, region, entry.getValue(), subtotal);
+            shops.add(ShippingQuoteResponse.ShopShippingQuote.builder()
+                    .shopId(shop.getId())
+                    .shopName(shop.getName())
+                    .subtotal(subtotal)
+                    .totalWeightGrams(ShippingFeeEngine.totalWeightGrams(entry.getValue()))
+                    .shippingFee(quote.fee())
+                    .freeShipping(quote.freeShipping())
+                    .freeShippingThreshold(quote.freeShippingThreshold())
+                    .amountToFreeShipping(quote.freeShippingThreshold() != null && !quote.freeShipping()
+                            ? quote.freeShippingThreshold().subtract(subtotal)
+                            : BigDecimal.ZERO)
+                    .shippingMethodId(quote.shippingMethodId())
+                    .shippingMethodName(quote.shippingMethodName())
+                    .estimatedDeliveryMinDays(quote.estimatedDeliveryMinDays())
+                    .estimatedDeliveryMaxDays(quote.estimatedDeliveryMaxDays())
+                    .build());
+            totalShippingFee = totalShippingFee.add(quote.fee());
+        }
+        
+        return ShippingQuoteResponse.builder()
+                .shippingAddressId(shippingUserAddress != null ? shippingUserAddress.getId() : null)
+                .shops(shops)
+                .totalShippingFee(totalShippingFee)
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<OrderListResponse> getUserOrders(Long userId, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
-        return orders.map(this::buildOrderListResponse);
+        if (!buyerOrderViewReadiness.isComplete()) {
+            return orderListAssembler.toResponsePage(orderRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable));
+        }
+        Page<BuyerOrderView> orders = buyerOrderViewRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
+        return orderListAssembler.toResponsePageFromView(orders);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<OrderListResponse> getUserOrdersByStatus(Long userId, OrderStatus status, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByUserIdAndStatusOrderByCreatedAtDesc(userId, status, pageable);
-        return orders.map(this::buildOrderListResponse);
+        if (!buyerOrderViewReadiness.isComplete()) {
+            return orderListAssembler.toResponsePage(
+                    orderRepository.findByUserIdAndStatusOrderByCreatedAtDesc(userId, status, pageable));
+        }
+        Page<BuyerOrderView> orders = buyerOrderViewRepository.findByUserIdAndOrderStatusOrderByCreatedAtDesc(userId, status, pageable);
+        return orderListAssembler.toResponsePageFromView(orders);
     }
 
     @Override
     @Transactional(readOnly = true)
     public OrderResponse getOrderDetails(Long userId, Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+        Order order = findOrder(orderId).orElse(null);
+        if (order == null) {
+            return findArchivedOrder(orderId, archived -> archived.getUserId().equals(userId));
+        }
         
         // Validate user ownership
         if (!order.getMasterOrder().getUser().getId().equals(userId)) {
@@ -209,8 +317,10 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(readOnly = true)
     public OrderResponse getOrderDetailsForAdmin(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+        Order order = findOrder(orderId).orElse(null);
+        if (order == null) {
+            return findArchivedOrder(orderId, archived -> true);
+        }
         return buildOrderResponse(order);
     }
 
@@ -218,8 +328,10 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(readOnly = true)
     public OrderResponse getOrderDetailsForSeller(Long shopId, Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+        Order order = findOrder(orderId).orElse(null);
+        if (order == null) {
+            return findArchivedOrder(orderId, archived -> archived.getOrder().getShopId().equals(shopId));
+        }
         if (!order.getShop().getId().equals(shopId)) {
             throw new ResourceNotFoundException("Order not found");
         }
@@ -229,9 +341,24 @@ public class OrderServiceImpl implements OrderService {
     // Admin: list master orders
     @Override
     @Transactional(readOnly = true)
-    public Page<MasterOrderResponse> getAllMasterOrdersForAdmin(Pageable pageable) {
-        Page<MasterOrder> mos = masterOrderRepository.findAll(pageable);
-        return mos.map(this::buildMasterOrderResponse);
+    public Page<MasterOrderSummaryResponse> getAllMasterOrdersForAdmin(Pageable pageable) {
+        Page<MasterOrder> mos = masterOrderRepository.findAllOrderByCreatedAtDesc(pageable);
+        return buildMasterOrderSummaries(mos);
+    }
+
+    // Admin: compare master order status counters with child orders, optionally rebuilding mismatches
+    @Override
+    public MasterOrderCounterCheckResponse verifyMasterOrderCounters(Pageable pageable, boolean rebuild) {
+        List<Long> ids = masterOrderRepository.findIdsOrderById(pageable).getContent();
+        if (ids.isEmpty()) {
+            return MasterOrderCounterCheckResponse.builder()
+                    .checked(0).mismatched(0).rebuilt(0).mismatchedMasterOrderIds(List.of())
+                    .build();
+        }
+        MasterOrderCounterCheckResponse result = masterOrderStatusCounters.verify(ids, rebuild);
+        log.info("Master order counter check: {} checked, {} mismatched, {} rebuilt",
+                result.getChecked(), result.getMismatched(), result.getRebuilt());
+        return result;
     }
 
     // Admin: get master order details
@@ -259,7 +386,7 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public void cancelOrder(Long userId, Long orderId, String reason) {
-        Order order = orderRepository.findById(orderId)
+        Order order = findOrder(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
         
         // Validate user ownership
@@ -273,15 +400,18 @@ public class OrderServiceImpl implements OrderService {
         }
         
         // Update order status
+        OrderStatus oldStatus = order.getOrderStatus();
+        orderStatusHistoryWriter.record(order, oldStatus, OrderStatus.CANCELLED_BY_USER, userId, reason);
         order.setOrderStatus(OrderStatus.CANCELLED_BY_USER);
         order.setInternalNotes(reason);
         orderRepository.save(order);
+        buyerOrderViewProjector.onStatusChanged(List.of(orderId), OrderStatus.CANCELLED_BY_USER);
         
         // Restore inventory
         restoreInventoryForOrder(order);
         
         // Recalculate master order overall status after a child order is cancelled
-        updateMasterOrderStatus(order.getMasterOrder());
+        updateMasterOrderStatus(order.getMasterOrder(), oldStatus, OrderStatus.CANCELLED_BY_USER);
         
         log.info("Order {} cancelled by user {}", orderId, userId);
     }
@@ -290,19 +420,19 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public Page<OrderListResponse> getSellerOrders(Long shopId, Pageable pageable) {
         Page<Order> orders = orderRepository.findByShopIdOrderByCreatedAtDesc(shopId, pageable);
-        return orders.map(this::buildOrderListResponse);
+        return orderListAssembler.toResponsePage(orders);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<OrderListResponse> getSellerOrdersByStatus(Long shopId, OrderStatus status, Pageable pageable) {
         Page<Order> orders = orderRepository.findByShopIdAndOrderStatusOrderByCreatedAtDesc(shopId, status, pageable);
-        return orders.map(this::buildOrderListResponse);
+        return orderListAssembler.toResponsePage(orders);
     }
 
     @Override
-    public OrderResponse updateOrderStatus(Long orderId, OrderStatusUpdateRequest request) {
-        Order order = orderRepository.findById(orderId)
+    public OrderResponse updateOrderStatus(Long orderId, OrderStatusUpdateRequest request, Long actorUserId) {
+        Order order = findOrder(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
         
         OrderStatus oldStatus = order.getOrderStatus();
@@ -313,19 +443,18 @@ public class OrderServiceImpl implements OrderService {
             throw new InvalidDataException("Invalid status transition from " + oldStatus + " to " + newStatus);
         }
         
-        // Update order
+        // Update order (history row and statusUpdatedAt are written by the history writer)
         order.setOrderStatus(newStatus);
         if (request.getInternalNotes() != null) {
             order.setInternalNotes(request.getInternalNotes());
         }
-        
-        // Note: Current Order entity doesn't have specific timestamp fields for status changes
-        // You may want to add these fields later: processingAt, shippedAt, deliveredAt, cancelledAt
+        orderStatusHistoryWriter.record(order, oldStatus, newStatus, actorUserId, request.getInternalNotes());
         
         order = orderRepository.save(order);
+        buyerOrderViewProjector.onStatusChanged(List.of(orderId), newStatus);
         
         // Update master order status if needed
-        updateMasterOrderStatus(order.getMasterOrder());
+        updateMasterOrderStatus(order.getMasterOrder(), oldStatus, newStatus);
         
         // Publish status update email event
         publishOrderStatusUpdateEmail(order, oldStatus.toString(), newStatus.toString());
@@ -335,18 +464,136 @@ public class OrderServiceImpl implements OrderService {
         return buildOrderResponse(order);
     }
 
+    @Override
+    public BulkOrderStatusUpdateResponse bulkUpdateOrderStatus(Long shopId, BulkOrderStatusUpdateRequest request, Long actorUserId) {
+        OrderStatus newStatus = request.getOrderStatus();
+        List<Long> orderIds = request.getOrderIds().stream().distinct().collect(Collectors.toList());
+
+        // Lock the shop's orders so the in-memory validation still holds when the UPDATE runs
+        OrderCreatedAtBounds.Range createdAt = orderCreatedAtBounds.forOrderIds(orderIds);
+        Map<Long, Order> ordersById = orderRepository.findAllForStatusUpdate(orderIds, shopId, createdAt.from(), createdAt.to()).stream()
+                .collect(Collectors.toMap(Order::getId, order -> order));
+
+        List<BulkOrderStatusUpdateResponse.OrderResult> results = new ArrayList<>();
+        List<Order> validOrders = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            Order order = ordersById.get(orderId);
+            if (order == null) {
+                results.add(bulkResult(orderId, null, null, false, "Order not found"));
+            } else if (!isValidStatusTransition(order.getOrderStatus(), newStatus)) {
+                results.add(bulkResult(orderId, order.getOrderNumber(), order.getOrderStatus(), false,
+                        "Invalid status transition from " + order.getOrderStatus() + " to " + newStatus));
+            } else {
+                validOrders.add(order);
+                results.add(bulkResult(orderId, order.getOrderNumber(), order.getOrderStatus(), true, null));
+            }
+        }
+
+        orderStatusTransitionExecutor.apply(validOrders, newStatus, request.getInternalNotes(), actorUserId);
+
+        log.info("Bulk status update to {} for shop {}: {} of {} orders updated",
+                newStatus, shopId, validOrders.size(), orderIds.size());
+
+        return BulkOrderStatusUpdateResponse.builder()
+                .targetStatus(newStatus)
+                .requested(orderIds.size())
+                .updated(validOrders.size())
+                .failed(orderIds.size() - validOrders.size())
+                .results(results)
+                .build();
+    }
+
+    @Override
+    public int backfillBuyerOrderViews(int batchSize) {
+        List<Order> orders = orderRepository.findWithoutBuyerOrderView(PageRequest.of(0, batchSize));
+        int created = buyerOrderViewProjector.backfill(orders);
+        log.info("Backfilled {} buyer order view rows", created);
+        if (orders.size() < batchSize) {
+            buyerOrderViewReadiness.markComplete();
+        }
+        return created;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderTimelineResponse> getOrderTimelines(Long userId, List<Long> orderIds) {
+        validateTimelineRequest(orderIds);
+        return buildTimelines(orderIds, orderStatusHistoryRepository.findTimelineRowsForUser(orderIds, userId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderTimelineResponse> getOrderTimelinesForAdmin(List<Long> orderIds) {
+        validateTimelineRequest(orderIds);
+        return buildTimelines(orderIds, orderStatusHistoryRepository.findTimelineRows(orderIds));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StatusDurationResponse> getShopStatusDurations(Long shopId) {
+        OffsetDateTime since = OffsetDateTime.now().minusDays(statusDurationWindowDays);
+        return orderStatusHistoryRepository.summarizeTimeInStatusByShop(shopId, since).stream()
+                .sorted(Comparator.comparing(OrderStatusHistoryRepository.StatusDurationRow::getStatus))
+                .map(row -> StatusDurationResponse.builder()
+                        .status(row.getStatus())
+                        .transitions(row.getTransitions())
+                        .averageMinutes(row.getAverageMillis() != null ? row.getAverageMillis() / 60_000 : 0.0)
+                        .maxMinutes(row.getMaxMillis() != null ? row.getMaxMillis() / 60_000.0 : 0.0)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<OrderListResponse> getAllOrdersForAdmin(Pageable pageable) {
-        Page<Order> orders = orderRepository.findAll(pageable);
-        return orders.map(this::buildOrderListResponse);
+        Page<Order> orders = orderRepository.findAllFetchMasterOrderAndShop(pageable);
+        return orderListAssembler.toResponsePage(orders);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<OrderListResponse> searchOrdersForAdmin(String keyword, Pageable pageable) {
-        Page<Order> orders = orderRepository.searchOrders(keyword, pageable);
-        return orders.map(this::buildOrderListResponse);
+        Page<Order> orders = orderRepository.searchOrders(OrderSearchText.containsPattern(keyword), pageable);
+        return orderListAssembler.toResponsePage(orders);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderSearchResponse scrollOrdersForAdmin(String keyword, OrderStatus status, LocalDate from,
+                                                    LocalDate to, String cursor, int size) {
+        if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new InvalidDataException("Page size must be between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        String pattern = OrderSearchText.containsPattern(keyword != null ? keyword : "");
+        LocalDateTime createdFrom = from != null ? from.atStartOfDay() : SEARCH_MIN_DATE;
+        LocalDateTime createdTo = to != null ? to.plusDays(1).atStartOfDay() : SEARCH_MAX_DATE;
+
+        LocalDateTime beforeCreatedAt = SEARCH_MAX_DATE;
+        Long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeSearchCursor(cursor);
+            beforeCreatedAt = LocalDateTime.parse(parts[0]);
+            beforeId = Long.parseLong(parts[1]);
+        }
+
+        // One extra row tells whether another page exists
+        List<Order> orders = orderRepository.searchOrdersKeyset(pattern, status, createdFrom, createdTo,
+                beforeCreatedAt, beforeId, PageRequest.of(0, size + 1));
+        boolean hasMore = orders.size() > size;
+        if (hasMore) {
+            orders = orders.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = encodeSearchCursor(last.getCreatedAt(), last.getId());
+        }
+        return OrderSearchResponse.builder()
+                .orders(orderListAssembler.toResponses(orders))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
     }
 
     @Override
@@ -362,7 +609,8 @@ public class OrderServiceImpl implements OrderService {
                 .completedOrders(orderRepository.countByOrderStatus(OrderStatus.COMPLETED))
                 .cancelledOrders(orderRepository.countByOrderStatus(OrderStatus.CANCELLED_BY_USER) +
                                 orderRepository.countByOrderStatus(OrderStatus.CANCELLED_BY_SELLER) +
-                                orderRepository.countByOrderStatus(OrderStatus.CANCELLED_BY_ADMIN))
+                                orderRepository.countByOrderStatus(OrderStatus.CANCELLED_BY_ADMIN) +
+                                orderRepository.countByOrderStatus(OrderStatus.CANCELLED_EXPIRED))
                 .build();
     }
 
@@ -370,36 +618,105 @@ public class OrderServiceImpl implements OrderService {
     
     private void validateStockForCartItems(List<CartItem> cartItems) {
         for (CartItem item : cartItems) {
-            ProductVariant variant = productVariantRepository.findActiveVariantById(item.getVariant().getId())
-                    .orElseThrow(() -> new InvalidDataException("Product variant not available"));
+            ProductVariant variant = item.getVariant();
+            boolean available = Boolean.TRUE.equals(variant.getIsActive())
+                    && variant.getDeletedAt() == null
+                    && variant.getProduct().getStatus() == ProductStatus.APPROVED;
+            if (!available) {
+                throw new InvalidDataException("Product variant not available");
+            }
             
-            if (!productVariantRepository.hasEnoughStock(variant.getId(), item.getQuantity())) {
+            int stock = variant.getStockQuantity() != null ? variant.getStockQuantity() : 0;
+            if (stock < item.getQuantity()) {
                 throw new InvalidDataException("Insufficient stock for " + variant.getSku());
             }
         }
     }
     
-    private Map<Shop, List<CartItem>> groupCartItemsByShop(List<CartItem> cartItems) {
-        return cartItems.stream()
-                .collect(Collectors.groupingBy(item -> item.getVariant().getProduct().getShop()));
+    /**
+     * Cart items to check out: the selected ones (all must exist) or the whole cart
+     */
+    private List<CartItem> findCheckoutItems(Long userId, List<Long> selectedCartItemIds) {
+        if (selectedCartItemIds == null || selectedCartItemIds.isEmpty()) {
+            return cartItemRepository.findForCheckoutByCartUserId(userId);
+        }
+        List<CartItem> cartItems = cartItemRepository.findForCheckoutByCartUserIdAndIdIn(userId, selectedCartItemIds);
+        if (cartItems.isEmpty()) {
+            throw new InvalidDataException("No selected cart items found");
+        }
+        if (cartItems.size() != selectedCartItemIds.size()) {
+            throw new InvalidDataException("Some selected cart items not found");
+        }
+        return cartItems;
+    }
+    
+    private Integer resolveShippingMethodId(Long shippingMethodId) {
+        if (shippingMethodId == null) {
+            return null;
+        }
+        if (shippingMethodId > Integer.MAX_VALUE || !shippingFeeEngine.hasMethod(shippingMethodId.intValue())) {
+            throw new InvalidDataException("Invalid shipping method");
+        }
+        return shippingMethodId.intValue();
+    }
+    
+    /**
+     * Set each shop order's share of the promotion discounts, never more than its subtotal or shipping fee
+     */
+    private void applyPromotions(List<Order> orders, PromotionEvaluation promotions) {
+        for (PromotionEvaluation.AppliedPromotion promotion : promotions.getPromotions()) {
+            boolean shipping = promotion.getPromotionType() == PromotionDiscountType.FREE_SHIPPING;
+            for (Order order : orders) {
+                BigDecimal share = promotion.getDiscountByShop().get(order.getShop().getId());
+                if (share == null) {
+                    continue;
+                }
+                if (shipping) {
+                    order.setShippingDiscountAmount(order.getShippingDiscountAmount().add(share).min(order.getShippingFee()));
+                } else {
+                    order.setItemDiscountAmount(order.getItemDiscountAmount().add(share).min(order.getSubtotalAmount()));
+                }
+            }
+        }
     }
     
-    private String generateOrderGroupNumber() {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String random = String.valueOf((int)(Math.random() * 1000));
-        return "MO" + timestamp + random;
+    private BigDecimal calculateSubtotal(List<CartItem> items) {
+        return items.stream()
+                .map(item -> item.getPriceAtAddition().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
     
-    private String generateOrderNumber() {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String random = String.valueOf((int)(Math.random() * 1000));
-        return "ORD" + timestamp + random;
+    private Map<Shop, List<CartItem>> groupCartItemsByShop(List<CartItem> cartItems) {
+        return cartItems.stream()
+                .collect(Collectors.groupingBy(item -> item.getVariant().getProduct().getShop(),
+                        LinkedHashMap::new, Collectors.toList()));
     }
     
-    private MasterOrder createMasterOrder(User user, CheckoutRequest request, PaymentMethod paymentMethod, String orderGroupNumber) {
-        // Fetch shipping UserAddress (to get both address and contact info)
-        UserAddress shippingUserAddress = userAddressRepository.findByIdAndUserId(request.getShippingAddressId(), user.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Shipping address not found with id: " + request.getShippingAddressId()));
+    /**
+     * Main image public id per product id (primary image first, then the first available one)
+     */
+    private Map<Long, String> loadProductMainImages(List<CartItem> cartItems) {
+        Set<Long> productIds = cartItems.stream()
+                .map(item -> item.getVariant().getProduct().getId())
+                .collect(Collectors.toSet());
+        
+        Map<Long, List<ProductImage>> imagesByProduct = productImageRepository
+                .findByTargetIdInAndTargetType(productIds, ImageTargetType.PRODUCT).stream()
+                .collect(Collectors.groupingBy(ProductImage::getTargetId));
+        
+        Map<Long, String> mainImages = new HashMap<>();
+        imagesByProduct.forEach((productId, images) -> {
+            ProductImage mainImage = images.stream()
+                    .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
+                    .findFirst()
+                    .orElse(images.get(0));
+            mainImages.put(productId, mainImage.getCloudinaryPublicId());
+        });
+        return mainImages;
+    }
+    
+    private MasterOrder createMasterOrder(User user, CheckoutRequest request, PaymentMethod paymentMethod,
+                                          UserAddress shippingUserAddress, String orderGroupNumber) {
         Address shippingAddress = shippingUserAddress.getAddress();
         
         // Fetch billing address (use shipping address if not specified)
@@ -430,26 +747,30 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
     
-    private Order createOrderForShop(MasterOrder masterOrder, Shop shop, List<CartItem> shopItems, CheckoutRequest request) {
-        BigDecimal subtotal = shopItems.stream()
-                .map(item -> item.getPriceAtAddition().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private Order createOrderForShop(MasterOrder masterOrder, Shop shop, List<CartItem> shopItems, CheckoutRequest request,
+                                     Integer shippingMethodId, String shippingRegion) {
+        BigDecimal subtotal = calculateSubtotal(shopItems);
         
-        BigDecimal shippingFee = calculateShippingFee(shop, subtotal); // Simple calculation
+        ShippingRateTable.Quote shippingQuote = shippingFeeEngine.quote(shop.getId(), shippingMethodId, shippingRegion, shopItems, subtotal);
         
-        return Order.builder()
+        Order order = Order.builder()
                 .masterOrder(masterOrder)
-                .orderNumber(generateOrderNumber())
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
                 .shop(shop)
                 .orderStatus(OrderStatus.AWAITING_CONFIRMATION) // COD starts with awaiting confirmation
                 .subtotalAmount(subtotal)
-                .shippingFee(shippingFee)
+                .shippingMethod(shippingMethodId != null ? shippingMethodRepository.getReferenceById(shippingMethodId) : null)
+                .shippingMethodNameSnapshot(shippingQuote.shippingMethodName())
+                .shippingFee(shippingQuote.fee())
                 .notesToSeller(request.getNotesToSeller())
                 .orderedAt(OffsetDateTime.now())
                 .build();
+        order.setSearchText(OrderSearchText.of(order));
+        return order;
     }
     
-    private void createOrderItems(Order order, List<CartItem> cartItems) {
+    private List<OrderItem> createOrderItems(Order order, List<CartItem> cartItems, Map<Long, String> productMainImages) {
+        List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
         for (CartItem cartItem : cartItems) {
             ProductVariant variant = cartItem.getVariant();
             
@@ -460,15 +781,16 @@ public class OrderServiceImpl implements OrderService {
                     .variantSkuSnapshot(variant.getSku())
                     .variantOptionsSnapshot(variant.getOptions())
                     .variantImageCloudinaryPublicIdSnapshot(variant.getMainImageCloudinaryPublicId())
-                    .productImageCloudinaryPublicIdSnapshot(getProductMainImage(variant.getProduct()))
+                    .productImageCloudinaryPublicIdSnapshot(productMainImages.get(variant.getProduct().getId()))
                     .quantity(cartItem.getQuantity())
                     .unitPrice(cartItem.getPriceAtAddition())
                     .subtotal(cartItem.getPriceAtAddition().multiply(BigDecimal.valueOf(cartItem.getQuantity())))
                     .status(OrderItemStatus.PENDING)
                     .build();
             
-            orderItemRepository.save(orderItem);
+            orderItems.add(orderItem);
         }
+        return orderItems;
     }
     
     private void createCODPayment(MasterOrder masterOrder, PaymentMethod paymentMethod, BigDecimal amount) {
@@ -485,6 +807,7 @@ public class OrderServiceImpl implements OrderService {
     
     private void updateInventoryForOrder(List<CartItem> cartItems) {
         // Decrease stock for each variant in the cart
+        Set<Long> changedVariantIds = new HashSet<>();
         for (CartItem cartItem : cartItems) {
             Long variantId = cartItem.getVariant().getId();
             int qty = cartItem.getQuantity();
@@ -511,12 +834,17 @@ public class OrderServiceImpl implements OrderService {
             if (!updated) {
                 throw new InvalidDataException("Could not update stock due to concurrent updates. Please try again.");
             }
+            changedVariantIds.add(variantId);
+        }
+        if (!changedVariantIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductVariantChangedEvent(changedVariantIds));
         }
     }
     
     private void restoreInventoryForOrder(Order order) {
         // Increase stock back for each order item when order is cancelled
         List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
+        Set<Long> changedVariantIds = new HashSet<>();
         for (OrderItem item : items) {
             Long variantId = item.getVariant().getId();
             int qty = item.getQuantity();
@@ -540,26 +868,52 @@ public class OrderServiceImpl implements OrderService {
             if (!updated) {
                 throw new InvalidDataException("Could not restore stock due to concurrent updates. Please try again.");
             }
+            changedVariantIds.add(variantId);
+        }
+        if (!changedVariantIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductVariantChangedEvent(changedVariantIds));
         }
     }
     
     private void clearUserCart(Long userId) {
         cartItemRepository.deleteByCartUserId(userId);
+        cartStore.evictAfterCommit(userId);
+        cartCountCache.invalidateAfterCommit(userId);
         log.info("Cart cleared for user: {}", userId);
     }
     
-    private BigDecimal calculateShippingFee(Shop shop, BigDecimal subtotal) {
-        // Log business config usage
-        businessConfigService.logConfigurationUsage("OrderService", "shippingFreeThreshold", shippingFreeThreshold);
-        businessConfigService.logConfigurationUsage("OrderService", "shippingDefaultFee", shippingDefaultFee);
-        
-        // Configurable shipping calculation
-        if (subtotal.compareTo(shippingFreeThreshold) >= 0) {
-            log.info("🆓 Free shipping applied for subtotal: {} VND (threshold: {} VND)", subtotal, shippingFreeThreshold);
-            return BigDecimal.ZERO;
+    private void validateTimelineRequest(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new InvalidDataException("At least one order ID is required");
+        }
+        if (orderIds.size() > MAX_TIMELINE_ORDERS) {
+            throw new InvalidDataException("At most " + MAX_TIMELINE_ORDERS + " orders can be requested at once");
+        }
+    }
+    
+    /**
+     * Group timeline rows by order, keeping the requested order of IDs (orders without visible history are omitted)
+     */
+    private List<OrderTimelineResponse> buildTimelines(List<Long> orderIds, List<OrderStatusHistoryRepository.TimelineRow> rows) {
+        Map<Long, List<OrderStatusHistoryResponse>> entriesByOrder = new HashMap<>();
+        for (OrderStatusHistoryRepository.TimelineRow row : rows) {
+            entriesByOrder.computeIfAbsent(row.getOrderId(), id -> new ArrayList<>())
+                    .add(OrderStatusHistoryResponse.builder()
+                            .statusFrom(row.getStatusFrom())
+                            .statusTo(row.getStatusTo())
+                            .changedAt(row.getChangedAt())
+                            .changedByUserId(row.getChangedByUserId())
+                            .notes(row.getNotes())
+                            .build());
         }
-        log.info("💸 Standard shipping fee applied: {} VND for subtotal: {} VND", shippingDefaultFee, subtotal);
-        return shippingDefaultFee;
+        return orderIds.stream()
+                .distinct()
+                .filter(entriesByOrder::containsKey)
+                .map(id -> OrderTimelineResponse.builder()
+                        .orderId(id)
+                        .entries(entriesByOrder.get(id))
+                        .build())
+                .collect(Collectors.toList());
     }
     
     private boolean canCancelOrder(OrderStatus status) {
@@ -583,51 +937,45 @@ public class OrderServiceImpl implements OrderService {
         }
     }
     
-    private void updateMasterOrderStatus(MasterOrder masterOrder) {
-        List<Order> orders = orderRepository.findByMasterOrderIdOrderByCreatedAtDesc(masterOrder.getId());
-        
-        // Determine overall status based on individual order statuses
-        boolean allCompleted = orders.stream().allMatch(o -> o.getOrderStatus() == OrderStatus.COMPLETED);
-        boolean anyCancelled = orders.stream().anyMatch(o -> 
-            o.getOrderStatus() == OrderStatus.CANCELLED_BY_USER ||
-            o.getOrderStatus() == OrderStatus.CANCELLED_BY_SELLER ||
-            o.getOrderStatus() == OrderStatus.CANCELLED_BY_ADMIN);
-        boolean allCancelled = orders.stream().allMatch(o -> 
-            o.getOrderStatus() == OrderStatus.CANCELLED_BY_USER ||
-            o.getOrderStatus() == OrderStatus.CANCELLED_BY_SELLER ||
-            o.getOrderStatus() == OrderStatus.CANCELLED_BY_ADMIN);
-        boolean allAwaiting = orders.stream().allMatch(o -> o.getOrderStatus() == OrderStatus.AWAITING_CONFIRMATION);
-        boolean allPendingPayment = orders.stream().allMatch(o -> o.getOrderStatus() == OrderStatus.PENDING_PAYMENT);
-        
-        if (allPendingPayment) {
-            masterOrder.setOverallStatus(MasterOrderStatus.PENDING_PAYMENT);
-        } else if (allAwaiting) {
-            masterOrder.setOverallStatus(MasterOrderStatus.AWAITING_CONFIRMATION);
-        } else if (allCompleted) {
-            masterOrder.setOverallStatus(MasterOrderStatus.COMPLETED);
-        } else if (allCancelled) {
-            masterOrder.setOverallStatus(MasterOrderStatus.CANCELLED);
-        } else if (anyCancelled) {
-            masterOrder.setOverallStatus(MasterOrderStatus.PARTIALLY_CANCELLED);
-        } else {
-            masterOrder.setOverallStatus(MasterOrderStatus.PROCESSING);
+    /**
+     * Load an order by id within its created_at range, so partitioned order tables only probe one partition
+     */
+    private Optional<Order> findOrder(Long orderId) {
+        OrderCreatedAtBounds.Range createdAt = orderCreatedAtBounds.forOrderIds(List.of(orderId));
+        return orderRepository.findByIdCreatedBetween(orderId, createdAt.from(), createdAt.to());
+    }
+
+    /**
+     * Apply a child transition to the master order counters and persist the derived overall status if it changed
+     */
+    private void updateMasterOrderStatus(MasterOrder masterOrder, OrderStatus from, OrderStatus to) {
+        MasterOrderStatus overallStatus = masterOrderStatusCounters.applyTransition(masterOrder, from, to);
+        if (masterOrder.getOverallStatus() != overallStatus) {
+            masterOrder.setOverallStatus(overallStatus);
+            masterOrderRepository.save(masterOrder);
         }
-        
-        masterOrderRepository.save(masterOrder);
     }
     
     private MasterOrderResponse buildMasterOrderResponse(MasterOrder masterOrder) {
-        List<Order> orders = orderRepository.findByMasterOrderIdOrderByCreatedAtDesc(masterOrder.getId());
-        List<OrderResponse> orderResponses = orders.stream()
-                .map(this::buildOrderResponse)
+        Map<Order, List<OrderItem>> itemsByOrder = new LinkedHashMap<>();
+        for (Order order : orderRepository.findByMasterOrderIdOrderByCreatedAtDesc(masterOrder.getId())) {
+            itemsByOrder.put(order, orderItemRepository.findByOrderId(order.getId()));
+        }
+        return buildMasterOrderResponse(masterOrder, itemsByOrder);
+    }
+    
+    private MasterOrderResponse buildMasterOrderResponse(MasterOrder masterOrder, Map<Order, List<OrderItem>> itemsByOrder) {
+        List<OrderResponse> orderResponses = itemsByOrder.entrySet().stream()
+                .map(entry -> buildOrderResponse(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
         
-        int totalItems = orders.stream()
-                .mapToInt(order -> (int) orderItemRepository.countByOrderId(order.getId()))
+        int totalItems = itemsByOrder.values().stream()
+                .mapToInt(List::size)
                 .sum();
         
-        int totalQuantity = orders.stream()
-                .mapToInt(order -> orderItemRepository.sumQuantityByOrderId(order.getId()))
+        int totalQuantity = itemsByOrder.values().stream()
+                .flatMap(List::stream)
+                .mapToInt(OrderItem::getQuantity)
                 .sum();
         
         return MasterOrderResponse.builder()
@@ -647,158 +995,89 @@ public class OrderServiceImpl implements OrderService {
                 .createdAt(masterOrder.getCreatedAt())
                 .updatedAt(masterOrder.getUpdatedAt())
                 .orders(orderResponses)
-                .totalOrders(orders.size())
+                .totalOrders(itemsByOrder.size())
                 .totalItems(totalItems)
                 .totalQuantity(totalQuantity)
                 .grandTotal(masterOrder.getTotalAmountPaid())
                 .build();
     }
     
-    private OrderResponse buildOrderResponse(Order order) {
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-        List<OrderItemResponse> itemResponses = orderItems.stream()
-                .map(this::buildOrderItemResponse)
+    /**
+     * Summaries for a page of master orders: one aggregated query for all children, independent of basket size
+     */
+    private Page<MasterOrderSummaryResponse> buildMasterOrderSummaries(Page<MasterOrder> masterOrders) {
+        List<Long> masterOrderIds = masterOrders.getContent().stream()
+                .map(MasterOrder::getId)
                 .collect(Collectors.toList());
         
-        // Extract product IDs from order items for review functionality
-        List<Long> productIds = orderItems.stream()
-                .map(item -> item.getVariant().getProduct().getId())
-                .distinct()
+        // Children of archived master orders are only left in the buyer view
+        List<Long> archivedIds = masterOrders.getContent().stream()
+                .filter(mo -> mo.getArchivedAt() != null)
+                .map(MasterOrder::getId)
+                .collect(Collectors.toList());
+        List<Long> liveIds = masterOrderIds.stream()
+                .filter(id -> !archivedIds.contains(id))
                 .collect(Collectors.toList());
         
-        BigDecimal totalAmount = order.getSubtotalAmount()
-                .add(order.getShippingFee())
-                .subtract(order.getItemDiscountAmount())
-                .subtract(order.getShippingDiscountAmount())
-                .add(order.getTaxAmount());
-        
-        return OrderResponse.builder()
-                .id(order.getId())
-                .orderNumber(order.getOrderNumber())
-                .masterOrderId(order.getMasterOrder().getId())
-                .orderGroupNumber(order.getMasterOrder().getOrderGroupNumber())
-                .shopId(order.getShop().getId())
-                .shopName(order.getShop().getName())
-                .orderStatus(order.getOrderStatus())
-                .subtotalAmount(order.getSubtotalAmount())
-                .shippingFee(order.getShippingFee())
-                .itemDiscountAmount(order.getItemDiscountAmount())
-                .shippingDiscountAmount(order.getShippingDiscountAmount())
-                .taxAmount(order.getTaxAmount())
-                .totalAmount(totalAmount)
-                .shippingMethodNameSnapshot(order.getShippingMethodNameSnapshot())
-                .shippingAddress(order.getMasterOrder().getShippingAddressSnapshot())
-                .billingAddress(order.getMasterOrder().getBillingAddressSnapshot())
-                .contactName(order.getMasterOrder().getShippingContactName())
-                .contactPhone(order.getMasterOrder().getShippingContactPhone())
-                .notesToSeller(order.getNotesToSeller())
-                .orderedAt(order.getOrderedAt())
-                .createdAt(order.getCreatedAt())
-                .updatedAt(order.getUpdatedAt())
-                .orderItems(itemResponses)
-                .productIds(productIds) // ← THÊM VÀO ĐÂY!
-                .totalItems(orderItems.size())
-                .totalQuantity(orderItems.stream().mapToInt(OrderItem::getQuantity).sum())
-                .build();
+        List<OrderRepository.MasterOrderChildSummaryRow> rows = new ArrayList<>();
+        if (!liveIds.isEmpty()) {
+            rows.addAll(orderRepository.summarizeByMasterOrderIds(liveIds));
+        }
+        if (!archivedIds.isEmpty()) {
+            rows.addAll(buyerOrderViewRepository.summarizeByMasterOrderIds(archivedIds));
+        }
+        Map<Long, List<OrderRepository.MasterOrderChildSummaryRow>> rowsByMaster = rows.stream()
+                .collect(Collectors.groupingBy(OrderRepository.MasterOrderChildSummaryRow::getMasterOrderId));
+        
+        return masterOrders.map(mo -> {
+            Map<OrderStatus, Integer> statusCounts = new EnumMap<>(OrderStatus.class);
+            int totalOrders = 0;
+            int totalItems = 0;
+            int totalQuantity = 0;
+            for (OrderRepository.MasterOrderChildSummaryRow row : rowsByMaster.getOrDefault(mo.getId(), Collections.emptyList())) {
+                statusCounts.put(row.getOrderStatus(), row.getOrderCount().intValue());
+                totalOrders += row.getOrderCount().intValue();
+                totalItems += row.getItemCount().intValue();
+                totalQuantity += row.getQuantity().intValue();
+            }
+            
+            return MasterOrderSummaryResponse.builder()
+                    .id(mo.getId())
+                    .orderGroupNumber(mo.getOrderGroupNumber())
+                    .userId(mo.getUser().getId())
+                    .customerEmail(mo.getCustomerEmail())
+                    .customerPhone(mo.getCustomerPhone())
+                    .shippingContactName(mo.getShippingContactName())
+                    .overallStatus(mo.getOverallStatus())
+                    .totalAmountPaid(mo.getTotalAmountPaid())
+                    .totalDiscountAmount(mo.getTotalDiscountAmount())
+                    .paymentMethodSnapshot(mo.getPaymentMethodSnapshot())
+                    .createdAt(mo.getCreatedAt())
+                    .updatedAt(mo.getUpdatedAt())
+                    .totalOrders(totalOrders)
+                    .totalItems(totalItems)
+                    .totalQuantity(totalQuantity)
+                    .orderStatusCounts(statusCounts)
+                    .build();
+        });
     }
     
-    private OrderItemResponse buildOrderItemResponse(OrderItem orderItem) {
-        String imageUrl = null;
-        if (orderItem.getVariantImageCloudinaryPublicIdSnapshot() != null) {
-            imageUrl = cloudinaryService.getImageUrl(orderItem.getVariantImageCloudinaryPublicIdSnapshot());
-        }
-        
-        return OrderItemResponse.builder()
-                .id(orderItem.getId())
-                .variantId(orderItem.getVariant().getId())
-                .productId(orderItem.getVariant().getProduct().getId()) // ← THÊM VÀO ĐÂY!
-                .productNameSnapshot(orderItem.getProductNameSnapshot())
-                .variantSkuSnapshot(orderItem.getVariantSkuSnapshot())
-                .variantOptionsSnapshot(orderItem.getVariantOptionsSnapshot())
-                .variantImageUrl(imageUrl)
-                .quantity(orderItem.getQuantity())
-                .unitPrice(orderItem.getUnitPrice())
-                .subtotal(orderItem.getSubtotal())
-                .status(orderItem.getStatus())
-                .build();
+    private OrderResponse buildOrderResponse(Order order) {
+        return buildOrderResponse(order, orderItemRepository.findByOrderId(order.getId()));
     }
     
-    private OrderListResponse buildOrderListResponse(Order order) {
-        int totalItems = (int) orderItemRepository.countByOrderId(order.getId());
-        int totalQuantity = orderItemRepository.sumQuantityByOrderId(order.getId());
-        BigDecimal totalAmount = order.getSubtotalAmount().add(order.getShippingFee());
-        
-        // Get product images from order items with fallback logic
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-        List<String> productImageUrls = orderItems.stream()
-                .map(item -> {
-                    // Priority 1: Variant image (if available)
-                    if (item.getVariantImageCloudinaryPublicIdSnapshot() != null) {
-                        return cloudinaryService.getImageUrl(item.getVariantImageCloudinaryPublicIdSnapshot());
-                    }
-                    // Priority 2: Product image (fallback)
-                    if (item.getProductImageCloudinaryPublicIdSnapshot() != null) {
-                        return cloudinaryService.getImageUrl(item.getProductImageCloudinaryPublicIdSnapshot());
-                    }
-                    return null;
-                })
-                .filter(url -> url != null)
-                .distinct() // Remove duplicates
-                .collect(Collectors.toList());
-        
-        return OrderListResponse.builder()
-                .id(order.getId())
-                .orderNumber(order.getOrderNumber())
-                .orderGroupNumber(order.getMasterOrder().getOrderGroupNumber())
-                .shopId(order.getShop().getId())
-                .shopName(order.getShop().getName())
-                .customerEmail(order.getMasterOrder().getCustomerEmail())
-                .shippingAddress(order.getMasterOrder().getShippingAddressSnapshot())
-                .contactName(order.getMasterOrder().getShippingContactName())
-                .contactPhone(order.getMasterOrder().getShippingContactPhone())
-                .orderStatus(order.getOrderStatus())
-                .subtotalAmount(order.getSubtotalAmount())
-                .shippingFee(order.getShippingFee())
-                .totalAmount(totalAmount)
-                .totalItems(totalItems)
-                .totalQuantity(totalQuantity)
-                .productImageUrls(productImageUrls)
-                .orderedAt(order.getOrderedAt())
-                .createdAt(order.getCreatedAt())
-                .build();
+    private OrderResponse buildOrderResponse(Order order, List<OrderItem> orderItems) {
+        return orderDetailAssembler.toResponse(order, orderItems);
     }
 
-    // === HELPER METHODS ===
-    
     /**
-     * Get the main image URL for a product (first image marked as primary)
+     * Orders moved to the cold archive are served from there; the check decides who may see them
      */
-    private String getProductMainImage(com.simplecommerce_mdm.product.model.Product product) {
-        try {
-            // Get product images from ProductImage repository
-            List<com.simplecommerce_mdm.product.model.ProductImage> productImages = 
-                productImageRepository.findByTargetIdAndTargetType(product.getId(), ImageTargetType.PRODUCT);
-            
-            // Find primary image first, then fallback to first available image
-            Optional<com.simplecommerce_mdm.product.model.ProductImage> primaryImage = 
-                productImages.stream()
-                    .filter(img -> img.getIsPrimary() != null && img.getIsPrimary())
-                    .findFirst();
-            
-            if (primaryImage.isPresent()) {
-                return primaryImage.get().getCloudinaryPublicId();
-            }
-            
-            // Fallback to first available image
-            if (!productImages.isEmpty()) {
-                return productImages.get(0).getCloudinaryPublicId();
-            }
-            
-            return null;
-        } catch (Exception e) {
-            log.warn("Failed to get product main image for product {}: {}", product.getId(), e.getMessage());
-            return null;
-        }
+    private OrderResponse findArchivedOrder(Long orderId, Predicate<ArchivedOrder> accessCheck) {
+        return orderArchiveStore.find(orderId)
+                .filter(accessCheck)
+                .map(ArchivedOrder::getOrder)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
     }
 
     // === EMAIL EVENT PUBLISHERS ===
@@ -832,6 +1111,37 @@ public class OrderServiceImpl implements OrderService {
         }
     }
     
+    private String encodeSearchCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeSearchCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new InvalidDataException("Invalid search cursor");
+        }
+    }
+
+    private BulkOrderStatusUpdateResponse.OrderResult bulkResult(Long orderId, String orderNumber,
+                                                                OrderStatus previousStatus, boolean success, String message) {
+        return BulkOrderStatusUpdateResponse.OrderResult.builder()
+                .orderId(orderId)
+                .orderNumber(orderNumber)
+                .previousStatus(previousStatus)
+                .success(success)
+                .message(message)
+                .build();
+    }
+    
     /**
      * Format address snapshot for order storage
      */
@@ -867,6 +1177,8 @@ public class OrderServiceImpl implements OrderService {
     private void clearSelectedCartItems(Long userId, List<Long> cartItemIds) {
         try {
             cartItemRepository.deleteByCartUserIdAndIdIn(userId, cartItemIds);
+            cartStore.evictAfterCommit(userId);
+            cartCountCache.invalidateAfterCommit(userId);
             log.info("Cleared {} selected cart items for user {}", cartItemIds.size(), userId);
         } catch (Exception e) {
             log.error("Failed to clear selected cart items for user {}: {}", userId, e.getMessage(), e);
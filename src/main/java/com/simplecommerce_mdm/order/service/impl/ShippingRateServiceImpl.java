@@ -0,0 +1,121 @@
+package com.simplecommerce_mdm.order.service.impl;
+
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.exception.ResourceNotFoundException;
+import com.simplecommerce_mdm.order.dto.ShippingRateRequest;
+import com.simplecommerce_mdm.order.dto.ShippingRateResponse;
+import com.simplecommerce_mdm.order.model.ShippingMethod;
+import com.simplecommerce_mdm.order.model.ShippingRate;
+import com.simplecommerce_mdm.order.repository.ShippingMethodRepository;
+import com.simplecommerce_mdm.order.repository.ShippingRateRepository;
+import com.simplecommerce_mdm.order.service.ShippingFeeEngine;
+import com.simplecommerce_mdm.order.service.ShippingRateService;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.product.repository.ShopRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ShippingRateServiceImpl implements ShippingRateService {
+
+    private final ShippingRateRepository shippingRateRepository;
+    private final ShippingMethodRepository shippingMethodRepository;
+    private final ShopRepository shopRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShippingRateResponse> getAllRates() {
+        return shippingRateRepository.findAllWithShopAndMethod().stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public ShippingRateResponse createRate(ShippingRateRequest request) {
+        ShippingRate rate = new ShippingRate();
+        apply(rate, request);
+        rate = shippingRateRepository.save(rate);
+        eventPublisher.publishEvent(new ShippingFeeEngine.RatesChangedEvent());
+        log.info("Created shipping rate {}", rate.getId());
+        return toResponse(rate);
+    }
+
+    @Override
+    public ShippingRateResponse updateRate(Long id, ShippingRateRequest request) {
+        ShippingRate rate = findRate(id);
+        apply(rate, request);
+        eventPublisher.publishEvent(new ShippingFeeEngine.RatesChangedEvent());
+        log.info("Updated shipping rate {}", id);
+        return toResponse(rate);
+    }
+
+    @Override
+    public void deleteRate(Long id) {
+        ShippingRate rate = findRate(id);
+        rate.markAsDeleted();
+        rate.setIsActive(false);
+        eventPublisher.publishEvent(new ShippingFeeEngine.RatesChangedEvent());
+        log.info("Deleted shipping rate {}", id);
+    }
+
+    private ShippingRate findRate(Long id) {
+        return shippingRateRepository.findById(id)
+                .filter(rate -> !rate.isDeleted())
+                .orElseThrow(() -> new ResourceNotFoundException("Shipping rate not found with id: " + id));
+    }
+
+    private void apply(ShippingRate rate, ShippingRateRequest request) {
+        int minWeight = request.getMinWeightGrams() != null ? request.getMinWeightGrams() : 0;
+        if (request.getMaxWeightGrams() != null && request.getMaxWeightGrams() <= minWeight) {
+            throw new InvalidDataException("Maximum weight must be greater than minimum weight");
+        }
+
+        Shop shop = null;
+        if (request.getShopId() != null) {
+            shop = shopRepository.findById(request.getShopId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Shop not found with id: " + request.getShopId()));
+        }
+        ShippingMethod shippingMethod = null;
+        if (request.getShippingMethodId() != null) {
+            shippingMethod = shippingMethodRepository.findById(request.getShippingMethodId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Shipping method not found with id: " + request.getShippingMethodId()));
+        }
+
+        rate.setShop(shop);
+        rate.setShippingMethod(shippingMethod);
+        rate.setRegion(StringUtils.hasText(request.getRegion()) ? request.getRegion().trim() : null);
+        rate.setMinWeightGrams(minWeight);
+        rate.setMaxWeightGrams(request.getMaxWeightGrams());
+        rate.setFee(request.getFee());
+        rate.setFreeShippingThreshold(request.getFreeShippingThreshold());
+        rate.setIsActive(request.getIsActive() == null || request.getIsActive());
+    }
+
+    private ShippingRateResponse toResponse(ShippingRate rate) {
+        return ShippingRateResponse.builder()
+                .id(rate.getId())
+                .shopId(rate.getShop() != null ? rate.getShop().getId() : null)
+                .shopName(rate.getShop() != null ? rate.getShop().getName() : null)
+                .shippingMethodId(rate.getShippingMethod() != null ? rate.getShippingMethod().getId() : null)
+                .shippingMethodName(rate.getShippingMethod() != null ? rate.getShippingMethod().getName() : null)
+                .region(rate.getRegion())
+                .minWeightGrams(rate.getMinWeightGrams())
+                .maxWeightGrams(rate.getMaxWeightGrams())
+                .fee(rate.getFee())
+                .freeShippingThreshold(rate.getFreeShippingThreshold())
+                .isActive(rate.getIsActive())
+                .updatedAt(rate.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.simplecommerce_mdm.payout.controller;
+
+import com.simplecommerce_mdm.common.dto.ApiResponse;
+import com.simplecommerce_mdm.payout.dto.PayoutSettlementResponse;
+import com.simplecommerce_mdm.payout.dto.PayoutStatementResponse;
+import com.simplecommerce_mdm.payout.service.PayoutService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/admin/payouts")
+@RequiredArgsConstructor
+@Tag(name = "Admin Payouts", description = "Seller payout settlement and statements")
+@PreAuthorize("hasRole('ADMIN')")
+public class PayoutAdminController {
+
+    private final PayoutService payoutService;
+
+    @PostMapping("/settlements/{period}")
+    @Operation(summary = "Settle a month", description = "Write payout ledger rows for orders completed in a closed month (yyyy-MM); "
+            + "orders already settled are skipped")
+    public ResponseEntity<ApiResponse<PayoutSettlementResponse>> settle(
+            @Parameter(description = "Settlement month (yyyy-MM)")
+            @PathVariable String period) {
+        PayoutSettlementResponse data = payoutService.settle(period);
+        return ResponseEntity.ok(ApiResponse.<PayoutSettlementResponse>builder()
+                .statusCode(200)
+                .message("Payout settlement completed")
+                .data(data)
+                .build());
+    }
+
+    @GetMapping("/statements/{period}")
+    @Operation(summary = "Get shop statements of a month", description = "Payout totals per shop for a settled month (yyyy-MM)")
+    public ResponseEntity<ApiResponse<Page<PayoutStatementResponse>>> getStatements(
+            @Parameter(description = "Settlement month (yyyy-MM)")
+            @PathVariable String period,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Page<PayoutStatementResponse> data = payoutService.getPeriodStatements(period, PageRequest.of(page, size));
+        return ResponseEntity.ok(ApiResponse.<Page<PayoutStatementResponse>>builder()
+                .statusCode(200)
+                .message("Payout statements retrieved successfully")
+                .data(data)
+                .build());
+    }
+
+    @GetMapping("/shops/{shopId}/statements/{period}")
+    @Operation(summary = "Get a shop's statement", description = "Payout totals and ledger rows of one shop for a settled month (yyyy-MM)")
+    public ResponseEntity<ApiResponse<PayoutStatementResponse>> getShopStatement(
+            @PathVariable Long shopId,
+            @PathVariable String period,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        PayoutStatementResponse data = payoutService.getShopStatement(shopId, period, PageRequest.of(page, size));
+        return ResponseEntity.ok(ApiResponse.<PayoutStatementResponse>builder()
+                .statusCode(200)
+                .message("Payout statement retrieved successfully")
+                .data(data)
+                .build());
+    }
+}
@@ -0,0 +1,67 @@
+package com.simplecommerce_mdm.payout.controller;
+
+import com.simplecommerce_mdm.common.dto.ApiResponse;
+import com.simplecommerce_mdm.config.CustomUserDetails;
+import com.simplecommerce_mdm.exception.ResourceNotFoundException;
+import com.simplecommerce_mdm.payout.dto.PayoutStatementResponse;
+import com.simplecommerce_mdm.payout.service.PayoutService;
+import com.simplecommerce_mdm.product.repository.ShopRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/seller/payouts")
+@RequiredArgsConstructor
+@Tag(name = "Seller Payouts", description = "API sao kê thanh toán dành cho người bán hàng")
+@PreAuthorize("hasRole('SELLER')")
+public class SellerPayoutController {
+
+    private final PayoutService payoutService;
+    private final ShopRepository shopRepository;
+
+    @GetMapping("/statements")
+    @Operation(summary = "Lấy danh sách sao kê theo tháng", description = "Tổng doanh thu, hoa hồng, phí cổng thanh toán và số tiền thực nhận của shop theo từng tháng đã quyết toán")
+    public ResponseEntity<ApiResponse<List<PayoutStatementResponse>>> getStatements(
+            @AuthenticationPrincipal CustomUserDetails sellerDetails) {
+        List<PayoutStatementResponse> data = payoutService.getShopStatements(getSellerShopId(sellerDetails));
+        return ResponseEntity.ok(ApiResponse.<List<PayoutStatementResponse>>builder()
+                .statusCode(200)
+                .message("Lấy danh sách sao kê thành công")
+                .data(data)
+                .build());
+    }
+
+    @GetMapping("/statements/{period}")
+    @Operation(summary = "Lấy sao kê một tháng", description = "Tổng tiền và chi tiết từng đơn hàng đã quyết toán trong tháng (yyyy-MM)")
+    public ResponseEntity<ApiResponse<PayoutStatementResponse>> getStatement(
+            @AuthenticationPrincipal CustomUserDetails sellerDetails,
+            @Parameter(description = "Tháng quyết toán (yyyy-MM)")
+            @PathVariable String period,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        PayoutStatementResponse data = payoutService.getShopStatement(getSellerShopId(sellerDetails), period,
+                PageRequest.of(page, size));
+        return ResponseEntity.ok(ApiResponse.<PayoutStatementResponse>builder()
+                .statusCode(200)
+                .message("Lấy sao kê thành công")
+                .data(data)
+                .build());
+    }
+
+    private Long getSellerShopId(CustomUserDetails sellerDetails) {
+        return shopRepository.findByUser(sellerDetails.getUser())
+                .orElseThrow(() -> new ResourceNotFoundException("Seller has no shop"))
+                .getId();
+    }
+}
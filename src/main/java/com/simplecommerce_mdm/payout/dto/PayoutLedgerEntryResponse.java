@@ -0,0 +1,28 @@
+package com.simplecommerce_mdm.payout.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayoutLedgerEntryResponse {
+    private Long id;
+    private Long orderId;
+    private String orderNumber;
+    private String entryType; // SETTLEMENT, or REVERSAL for a returned order
+    private OffsetDateTime completedAt;
+    private BigDecimal grossAmount;
+    private BigDecimal commissionRate;
+    private BigDecimal commissionAmount;
+    private BigDecimal gatewayFeeRate;
+    private BigDecimal gatewayFeeAmount;
+    private BigDecimal netAmount;
+    private OffsetDateTime settledAt;
+}
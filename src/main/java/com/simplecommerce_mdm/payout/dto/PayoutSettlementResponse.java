@@ -0,0 +1,20 @@
+package com.simplecommerce_mdm.payout.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayoutSettlementResponse {
+    private String period; // yyyy-MM
+    private Integer shopsSettled;
+    private Long entriesWritten;
+    private Long entriesReversed;
+    private List<Long> failedShopIds; // picked up again by the next run
+}
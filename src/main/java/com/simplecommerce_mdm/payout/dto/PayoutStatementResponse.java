@@ -0,0 +1,29 @@
+package com.simplecommerce_mdm.payout.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A shop's payout for one month, totalled from the ledger
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayoutStatementResponse {
+    private Long shopId;
+    private String period; // yyyy-MM
+    private Long orderCount;
+    private BigDecimal grossAmount;
+    private BigDecimal commissionAmount;
+    private BigDecimal gatewayFeeAmount;
+    private BigDecimal netAmount;
+    private List<PayoutLedgerEntryResponse> entries; // only on a single statement
+    private Integer pageNo;
+    private Integer totalPages;
+}
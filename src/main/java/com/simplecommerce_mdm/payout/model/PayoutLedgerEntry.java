@@ -0,0 +1,78 @@
+package com.simplecommerce_mdm.payout.model;
+
+import com.simplecommerce_mdm.common.enums.PayoutEntryType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * What a shop is owed for one completed order, fixed at settlement time with the commission and
+ * gateway rates that applied. Rows are never updated; an order returned after settlement gets a
+ * second, negated REVERSAL row in the month of the return. One row per order and type keeps re-runs
+ * idempotent. Order and shop are plain ids so the ledger keeps no foreign keys into the partitioned
+ * order tables.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Immutable
+@Entity
+@Table(name = "payout_ledger_entries", indexes = {
+    @Index(name = "idx_payout_ledger_shop_period", columnList = "shop_id, period, id"),
+    @Index(name = "idx_payout_ledger_period_shop", columnList = "period, shop_id")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_payout_ledger_order_type", columnNames = {"order_id", "entry_type"})
+})
+public class PayoutLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payout_ledger_entries_seq")
+    @SequenceGenerator(name = "payout_ledger_entries_seq", sequenceName = "payout_ledger_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "shop_id", nullable = false, updatable = false)
+    private Long shopId;
+
+    @Column(name = "order_id", nullable = false, updatable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, updatable = false, length = 20)
+    @Builder.Default
+    private PayoutEntryType entryType = PayoutEntryType.SETTLEMENT;
+
+    @Column(name = "order_number", nullable = false, updatable = false, length = 50)
+    private String orderNumber;
+
+    // Settlement month, yyyy-MM
+    @Column(name = "period", nullable = false, updatable = false, length = 7)
+    private String period;
+
+    @Column(name = "completed_at", nullable = false, updatable = false)
+    private OffsetDateTime completedAt;
+
+    @Column(name = "gross_amount", nullable = false, updatable = false, precision = 14, scale = 2)
+    private BigDecimal grossAmount;
+
+    @Column(name = "commission_rate", nullable = false, updatable = false, precision = 6, scale = 4)
+    private BigDecimal commissionRate;
+
+    @Column(name = "commission_amount", nullable = false, updatable = false, precision = 14, scale = 2)
+    private BigDecimal commissionAmount;
+
+    @Column(name = "gateway_fee_rate", nullable = false, updatable = false, precision = 6, scale = 4)
+    private BigDecimal gatewayFeeRate;
+
+    @Column(name = "gateway_fee_amount", nullable = false, updatable = false, precision = 14, scale = 2)
+    private BigDecimal gatewayFeeAmount;
+
+    @Column(name = "net_amount", nullable = false, updatable = false, precision = 14, scale = 2)
+    private BigDecimal netAmount;
+
+    @Column(name = "settled_at", nullable = false, updatable = false)
+    private OffsetDateTime settledAt;
+}
@@ -0,0 +1,110 @@
+package com.simplecommerce_mdm.payout.repository;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.common.enums.PayoutEntryType;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.payout.model.PayoutLedgerEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface PayoutLedgerRepository extends JpaRepository<PayoutLedgerEntry, Long> {
+
+    /**
+     * Earliest completion time of an order completed before the given time that has no ledger row yet
+     */
+    @Query("SELECT MIN(COALESCE(o.statusUpdatedAt, o.orderedAt)) FROM Order o " +
+           "WHERE o.orderStatus = :status AND COALESCE(o.statusUpdatedAt, o.orderedAt) < :before " +
+           "AND NOT EXISTS (SELECT 1 FROM PayoutLedgerEntry e WHERE e.orderId = o.id)")
+    OffsetDateTime findEarliestUnsettledAt(@Param("status") OrderStatus status,
+                                           @Param("before") OffsetDateTime before);
+
+    /**
+     * Find shops with orders completed in [from, to) that have no ledger row yet
+     */
+    @Query("SELECT DISTINCT o.shop.id FROM Order o " +
+           "WHERE o.orderStatus = :status " +
+           "AND COALESCE(o.statusUpdatedAt, o.orderedAt) >= :from AND COALESCE(o.statusUpdatedAt, o.orderedAt) < :to " +
+           "AND NOT EXISTS (SELECT 1 FROM PayoutLedgerEntry e WHERE e.orderId = o.id)")
+    List<Long> findShopIdsWithUnsettledOrders(@Param("status") OrderStatus status,
+                                              @Param("from") OffsetDateTime from,
+                                              @Param("to") OffsetDateTime to);
+
+    /**
+     * Find the next chunk of a shop's unsettled orders completed in [from, to), keyset on id
+     */
+    @Query("SELECT o FROM Order o " +
+           "WHERE o.shop.id = :shopId AND o.orderStatus = :status AND o.id > :afterId " +
+           "AND COALESCE(o.statusUpdatedAt, o.orderedAt) >= :from AND COALESCE(o.statusUpdatedAt, o.orderedAt) < :to " +
+           "AND NOT EXISTS (SELECT 1 FROM PayoutLedgerEntry e WHERE e.orderId = o.id) " +
+           "ORDER BY o.id")
+    List<Order> findUnsettledChunk(@Param("shopId") Long shopId,
+                                   @Param("status") OrderStatus status,
+                                   @Param("from") OffsetDateTime from,
+                                   @Param("to") OffsetDateTime to,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
+    /**
+     * Find the next chunk of settlement rows whose order moved to the given status in [from, to) and has no
+     * reversal row yet, keyset on the ledger id
+     */
+    @Query("SELECT e FROM PayoutLedgerEntry e, Order o " +
+           "WHERE o.id = e.orderId AND e.entryType = :settlement AND e.id > :afterId AND o.orderStatus = :status " +
+           "AND COALESCE(o.statusUpdatedAt, o.orderedAt) >= :from AND COALESCE(o.statusUpdatedAt, o.orderedAt) < :to " +
+           "AND NOT EXISTS (SELECT 1 FROM PayoutLedgerEntry r WHERE r.orderId = e.orderId AND r.entryType = :reversal) " +
+           "ORDER BY e.id")
+    List<PayoutLedgerEntry> findUnreversedChunk(@Param("status") OrderStatus status,
+                                                @Param("settlement") PayoutEntryType settlement,
+                                                @Param("reversal") PayoutEntryType reversal,
+                                                @Param("from") OffsetDateTime from,
+                                                @Param("to") OffsetDateTime to,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
+    /**
+     * Find a shop's ledger rows of one period
+     */
+    Page<PayoutLedgerEntry> findByShopIdAndPeriodOrderByIdAsc(Long shopId, String period, Pageable pageable);
+
+    /**
+     * Totals of a shop's ledger per period, latest first; reversals take their order off the count
+     */
+    @Query("SELECT e.shopId AS shopId, e.period AS period, " +
+           "SUM(CASE WHEN e.entryType = com.simplecommerce_mdm.common.enums.PayoutEntryType.REVERSAL THEN -1 ELSE 1 END) AS orderCount, " +
+           "SUM(e.grossAmount) AS grossAmount, SUM(e.commissionAmount) AS commissionAmount, " +
+           "SUM(e.gatewayFeeAmount) AS gatewayFeeAmount, SUM(e.netAmount) AS netAmount " +
+           "FROM PayoutLedgerEntry e WHERE e.shopId = :shopId " +
+           "GROUP BY e.shopId, e.period ORDER BY e.period DESC")
+    List<StatementTotals> summarizeByShop(@Param("shopId") Long shopId);
+
+    /**
+     * Totals of every shop's ledger in one period
+     */
+    @Query(value = "SELECT e.shopId AS shopId, e.period AS period, " +
+                   "SUM(CASE WHEN e.entryType = com.simplecommerce_mdm.common.enums.PayoutEntryType.REVERSAL THEN -1 ELSE 1 END) AS orderCount, " +
+                   "SUM(e.grossAmount) AS grossAmount, SUM(e.commissionAmount) AS commissionAmount, " +
+                   "SUM(e.gatewayFeeAmount) AS gatewayFeeAmount, SUM(e.netAmount) AS netAmount " +
+                   "FROM PayoutLedgerEntry e WHERE e.period = :period " +
+                   "GROUP BY e.shopId, e.period ORDER BY e.shopId",
+           countQuery = "SELECT COUNT(DISTINCT e.shopId) FROM PayoutLedgerEntry e WHERE e.period = :period")
+    Page<StatementTotals> summarizeByPeriod(@Param("period") String period, Pageable pageable);
+
+    interface StatementTotals {
+        Long getShopId();
+        String getPeriod();
+        Long getOrderCount();
+        BigDecimal getGrossAmount();
+        BigDecimal getCommissionAmount();
+        BigDecimal getGatewayFeeAmount();
+        BigDecimal getNetAmount();
+    }
+}
@@ -0,0 +1,31 @@
+package com.simplecommerce_mdm.payout.service;
+
+import com.simplecommerce_mdm.payout.dto.PayoutSettlementResponse;
+import com.simplecommerce_mdm.payout.dto.PayoutStatementResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface PayoutService {
+
+    /**
+     * Settle a closed month (yyyy-MM); settled orders are skipped, so it is safe to repeat
+     */
+    PayoutSettlementResponse settle(String period);
+
+    /**
+     * Monthly statement totals of a shop, latest first
+     */
+    List<PayoutStatementResponse> getShopStatements(Long shopId);
+
+    /**
+     * One month's statement of a shop with a page of its ledger rows
+     */
+    PayoutStatementResponse getShopStatement(Long shopId, String period, Pageable pageable);
+
+    /**
+     * Statement totals of every shop settled in a month
+     */
+    Page<PayoutStatementResponse> getPeriodStatements(String period, Pageable pageable);
+}
@@ -0,0 +1,406 @@
+package com.simplecommerce_mdm.payout.service;
+
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.common.enums.PayoutEntryType;
+import com.simplecommerce_mdm.config.BusinessConfigService;
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.order.model.JobCheckpoint;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.repository.JobCheckpointRepository;
+import com.simplecommerce_mdm.payout.dto.PayoutSettlementResponse;
+import com.simplecommerce_mdm.payout.model.PayoutLedgerEntry;
+import com.simplecommerce_mdm.payout.repository.PayoutLedgerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Settles seller payouts for a closed month. Every shop with completed, not yet settled orders in the
+ * month gets a task on a bounded pool; a task walks the shop's orders in id order from its checkpoint,
+ * one chunk per transaction, and writes an immutable ledger row per order with the commission and
+ * gateway fee taken off. Orders returned during the month after they were settled get a negated
+ * reversal row. A month counts as closed {@code close-delay-hours} after it ends, so orders completed
+ * or returned on its last evening have committed before the id cursors pass them. Re-running a month
+ * only picks up orders without a ledger row.
+ * <p>
+ * The scheduled run settles every closed month from the periods checkpoint on, so months missed while
+ * the job was down or failing are caught up, and always repeats the last closed month.
+ */
+@Slf4j(topic = "PAYOUT-SETTLEMENT")
+@Component
+public class PayoutSettlementEngine {
+
+    static final String JOB_NAME_PREFIX = "payout-settlement:";
+    static final String REVERSAL_JOB_NAME_PREFIX = "payout-reversal:";
+    static final String PERIODS_JOB_NAME = "payout-settlement-periods";
+
+    private final PayoutLedgerRepository payoutLedgerRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final BusinessConfigService businessConfigService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService shopPool;
+    private final ZoneId zone;
+
+    private final Counter entryCounter;
+    private final Counter reversalCounter;
+    private final Counter chunkCounter;
+    private final Counter failedShopCounter;
+    private final Timer runTimer;
+
+    @Value("${business.payout.settlement.enabled:true}")
+    private boolean enabled;
+
+    @Value("${business.payout.settlement.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${business.payout.settlement.close-delay-hours:24}")
+    private long closeDelayHours;
+
+    public PayoutSettlementEngine(PayoutLedgerRepository payoutLedgerRepository,
+                                  JobCheckpointRepository jobCheckpointRepository,
+                                  BusinessConfigService businessConfigService,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${business.payout.settlement.parallelism:4}") int parallelism,
+                                  @Value("${spring.jackson.time-zone:Asia/Ho_Chi_Minh}") String timeZone) {
+        this.payoutLedgerRepository = payoutLedgerRepository;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.businessConfigService = businessConfigService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shopPool = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("payout-settlement-"));
+        this.zone = ZoneId.of(timeZone);
+
+        this.entryCounter = Counter.builder("payouts.ledger.entries")
+                .description("Payout ledger rows written")
+                .register(meterRegistry);
+        this.reversalCounter = Counter.builder("payouts.ledger.reversals")
+                .description("Payout ledger reversal rows written for returned orders")
+                .register(meterRegistry);
+        this.chunkCounter = Counter.builder("payouts.settlement.chunks")
+                .description("Chunks processed by the payout settlement")
+                .register(meterRegistry);
+        this.failedShopCounter = Counter.builder("payouts.settlement.failed.shops")
+                .description("Shop settlements that failed and are left for the next run")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("payouts.settlement.run")
+                .description("Duration of payout settlement runs")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shopPool.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${business.payout.settlement.interval-ms:3600000}",
+            initialDelayString = "${business.payout.settlement.initial-delay-ms:120000}")
+    public void settleClosedPeriods() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runTimer.record(() -> {
+                runOnce();
+            });
+        } catch (Exception e) {
+            log.error("Payout settlement run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Settle every closed month from the periods checkpoint through the last closed one. The checkpoint
+     * moves past a month once all its shops settled; a month with failed shops stops the run there.
+     */
+    public List<PayoutSettlementResponse> runOnce() {
+        YearMonth last = lastClosedPeriod();
+        OffsetDateTime lastTo = last.plusMonths(1).atDay(1).atStartOfDay(zone).toOffsetDateTime();
+        ensurePeriodsCheckpoint(last, lastTo);
+        YearMonth first = YearMonth.from(jobCheckpointRepository.findById(PERIODS_JOB_NAME).orElseThrow()
+                .getCursorAt().atZoneSameInstant(zone));
+        if (first.isAfter(last)) {
+            first = last;
+        }
+
+        List<PayoutSettlementResponse> results = new ArrayList<>();
+        for (YearMonth period = first; !period.isAfter(last); period = period.plusMonths(1)) {
+            PayoutSettlementResponse result = settle(period);
+            results.add(result);
+            if (!result.getFailedShopIds().isEmpty()) {
+                break;
+            }
+            advancePeriodsCheckpoint(period.plusMonths(1).atDay(1).atStartOfDay(zone).toOffsetDateTime());
+        }
+        return results;
+    }
+
+    /**
+     * Latest month whose close delay has passed
+     */
+    public YearMonth lastClosedPeriod() {
+        return YearMonth.from(OffsetDateTime.now(zone).minusHours(closeDelayHours)).minusMonths(1);
+    }
+
+    /**
+     * Settle every shop's completed orders of a closed month and reverse the orders returned in it
+     *
+     * @throws InvalidDataException when the month is not closed yet
+     */
+    public PayoutSettlementResponse settle(YearMonth period) {
+        if (period.isAfter(lastClosedPeriod())) {
+            throw new InvalidDataException("Payout period " + period + " is not closed yet");
+        }
+        OffsetDateTime from = period.atDay(1).atStartOfDay(zone).toOffsetDateTime();
+        OffsetDateTime to = period.plusMonths(1).atDay(1).atStartOfDay(zone).toOffsetDateTime();
+        // Rates are read once so every shop in the run is settled on the same terms
+        Rates rates = new Rates(businessConfigService.getAdminCommissionRate(),
+                businessConfigService.getPaymentGatewayCommissionRate());
+
+        List<Long> shopIds = payoutLedgerRepository.findShopIdsWithUnsettledOrders(OrderStatus.COMPLETED, from, to);
+        Map<Long, Future<Long>> tasks = new LinkedHashMap<>();
+        for (Long shopId : shopIds) {
+            tasks.put(shopId, shopPool.submit(() -> settleShop(shopId, period, from, to, rates)));
+        }
+
+        long written = 0;
+        List<Long> failedShopIds = new ArrayList<>();
+        for (Map.Entry<Long, Future<Long>> task : tasks.entrySet()) {
+            try {
+                written += task.getValue().get();
+            } catch (ExecutionException e) {
+                failedShopIds.add(task.getKey());
+                failedShopCounter.increment();
+                log.error("Payout settlement of shop {} for {} failed: {}", task.getKey(), period,
+                        e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedShopIds.add(task.getKey());
+            }
+        }
+
+        long reversed = reverseReturned(period, from, to);
+
+        if (!shopIds.isEmpty() || reversed > 0) {
+            log.info("Settled {} payout entries for {} across {} shops ({} failed), reversed {}",
+                    written, period, shopIds.size(), failedShopIds.size(), reversed);
+        }
+        return PayoutSettlementResponse.builder()
+                .period(period.toString())
+                .shopsSettled(shopIds.size() - failedShopIds.size())
+                .entriesWritten(written)
+                .entriesReversed(reversed)
+                .failedShopIds(failedShopIds)
+                .build();
+    }
+
+    private record Rates(BigDecimal commission, BigDecimal gatewayFee) {
+    }
+
+    /**
+     * Settle one shop chunk by chunk and return how many ledger rows were written
+     */
+    private long settleShop(Long shopId, YearMonth period, OffsetDateTime from, OffsetDateTime to, Rates rates) {
+        String jobName = JOB_NAME_PREFIX + period + ":shop:" + shopId;
+        ensureCheckpoint(jobName, from);
+        long written = 0;
+        boolean caughtUp = false;
+        while (!caughtUp) {
+            Integer settled = transactionTemplate.execute(status -> settleChunk(jobName, shopId, period, from, to, rates));
+            if (settled == null || settled == 0) {
+                break;
+            }
+            chunkCounter.increment();
+            entryCounter.increment(settled);
+            written += settled;
+            caughtUp = settled < chunkSize;
+        }
+        return written;
+    }
+
+    /**
+     * Write ledger rows for the next chunk of the shop's orders and advance its checkpoint; runs in its own
+     * transaction, holding the checkpoint row lock so nodes settling the same shop take turns
+     */
+    private int settleChunk(String jobName, Long shopId, YearMonth period, OffsetDateTime from, OffsetDateTime to,
+                            Rates rates) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findForUpdate(jobName).orElseThrow();
+        List<Order> orders = payoutLedgerRepository.findUnsettledChunk(shopId, OrderStatus.COMPLETED, from, to,
+                checkpoint.getCursorId(), PageRequest.of(0, chunkSize));
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<PayoutLedgerEntry> entries = orders.stream()
+                .map(order -> toEntry(order, shopId, period, rates, now))
+                .toList();
+        payoutLedgerRepository.saveAll(entries);
+
+        PayoutLedgerEntry last = entries.get(entries.size() - 1);
+        checkpoint.setCursorAt(last.getCompletedAt());
+        checkpoint.setCursorId(last.getOrderId());
+        checkpoint.setUpdatedAt(now);
+        jobCheckpointRepository.save(checkpoint);
+        return entries.size();
+    }
+
+    /**
+     * Write reversal rows for settled orders returned in [from, to), chunk by chunk, and return how many
+     */
+    private long reverseReturned(YearMonth period, OffsetDateTime from, OffsetDateTime to) {
+        String jobName = REVERSAL_JOB_NAME_PREFIX + period;
+        ensureCheckpoint(jobName, from);
+        long reversed = 0;
+        boolean caughtUp = false;
+        while (!caughtUp) {
+            Integer written = transactionTemplate.execute(status -> reverseChunk(jobName, period, from, to));
+            if (written == null || written == 0) {
+                break;
+            }
+            chunkCounter.increment();
+            reversalCounter.increment(written);
+            reversed += written;
+            caughtUp = written < chunkSize;
+        }
+        return reversed;
+    }
+
+    /**
+     * Write reversal rows for the next chunk of settlement rows whose order was returned, keyset on the
+     * settlement row id, holding the checkpoint row lock like {@link #settleChunk}
+     */
+    private int reverseChunk(String jobName, YearMonth period, OffsetDateTime from, OffsetDateTime to) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findForUpdate(jobName).orElseThrow();
+        List<PayoutLedgerEntry> settlements = payoutLedgerRepository.findUnreversedChunk(OrderStatus.RETURNED,
+                PayoutEntryType.SETTLEMENT, PayoutEntryType.REVERSAL, from, to, checkpoint.getCursorId(),
+                PageRequest.of(0, chunkSize));
+        if (settlements.isEmpty()) {
+            return 0;
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        payoutLedgerRepository.saveAll(settlements.stream()
+                .map(settlement -> toReversal(settlement, period, now))
+                .toList());
+
+        checkpoint.setCursorAt(now);
+        checkpoint.setCursorId(settlements.get(settlements.size() - 1).getId());
+        checkpoint.setUpdatedAt(now);
+        jobCheckpointRepository.save(checkpoint);
+        return settlements.size();
+    }
+
+    /**
+     * Create a checkpoint row in its own transaction before the chunks lock it, so two nodes starting the
+     * same shop or month for the first time do not both insert it
+     */
+    private void ensureCheckpoint(String jobName, OffsetDateTime cursorAt) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!jobCheckpointRepository.existsById(jobName)) {
+                    jobCheckpointRepository.saveAndFlush(JobCheckpoint.builder()
+                            .jobName(jobName).cursorAt(cursorAt).updatedAt(OffsetDateTime.now()).build());
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Checkpoint {} was created concurrently", jobName);
+        }
+    }
+
+    /**
+     * On the first run, start the periods checkpoint at the earliest month with unsettled completed orders
+     */
+    private void ensurePeriodsCheckpoint(YearMonth last, OffsetDateTime lastTo) {
+        if (jobCheckpointRepository.existsById(PERIODS_JOB_NAME)) {
+            return;
+        }
+        OffsetDateTime earliest = payoutLedgerRepository.findEarliestUnsettledAt(OrderStatus.COMPLETED, lastTo);
+        YearMonth first = earliest != null ? YearMonth.from(earliest.atZoneSameInstant(zone)) : last;
+        ensureCheckpoint(PERIODS_JOB_NAME, first.atDay(1).atStartOfDay(zone).toOffsetDateTime());
+    }
+
+    private void advancePeriodsCheckpoint(OffsetDateTime nextPeriodStart) {
+        transactionTemplate.executeWithoutResult(status -> {
+            JobCheckpoint checkpoint = jobCheckpointRepository.findForUpdate(PERIODS_JOB_NAME).orElseThrow();
+            if (checkpoint.getCursorAt().isBefore(nextPeriodStart)) {
+                checkpoint.setCursorAt(nextPeriodStart);
+                checkpoint.setUpdatedAt(OffsetDateTime.now());
+                jobCheckpointRepository.save(checkpoint);
+            }
+        });
+    }
+
+    /**
+     * The settlement row with every amount negated, booked in the month of the return
+     */
+    private static PayoutLedgerEntry toReversal(PayoutLedgerEntry settlement, YearMonth period,
+                                                OffsetDateTime settledAt) {
+        return PayoutLedgerEntry.builder()
+                .shopId(settlement.getShopId())
+                .orderId(settlement.getOrderId())
+                .entryType(PayoutEntryType.REVERSAL)
+                .orderNumber(settlement.getOrderNumber())
+                .period(period.toString())
+                .completedAt(settlement.getCompletedAt())
+                .grossAmount(settlement.getGrossAmount().negate())
+                .commissionRate(settlement.getCommissionRate())
+                .commissionAmount(settlement.getCommissionAmount().negate())
+                .gatewayFeeRate(settlement.getGatewayFeeRate())
+                .gatewayFeeAmount(settlement.getGatewayFeeAmount().negate())
+                .netAmount(settlement.getNetAmount().negate())
+                .settledAt(settledAt)
+                .build();
+    }
+
+    /**
+     * Revenue as the stats count it (items + shipping + tax - discounts), less commission and gateway fee
+     */
+    private static PayoutLedgerEntry toEntry(Order order, Long shopId, YearMonth period, Rates rates,
+                                             OffsetDateTime settledAt) {
+        BigDecimal gross = order.getSubtotalAmount()
+                .add(order.getShippingFee())
+                .add(order.getTaxAmount())
+                .subtract(order.getItemDiscountAmount())
+                .subtract(order.getShippingDiscountAmount())
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal commission = gross.multiply(rates.commission()).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal gatewayFee = gross.multiply(rates.gatewayFee()).setScale(2, RoundingMode.HALF_UP);
+        return PayoutLedgerEntry.builder()
+                .shopId(shopId)
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .period(period.toString())
+                .completedAt(order.getStatusUpdatedAt() != null ? order.getStatusUpdatedAt() : order.getOrderedAt())
+                .grossAmount(gross)
+                .commissionRate(rates.commission())
+                .commissionAmount(commission)
+                .gatewayFeeRate(rates.gatewayFee())
+                .gatewayFeeAmount(gatewayFee)
+                .netAmount(gross.subtract(commission).subtract(gatewayFee))
+                .settledAt(settledAt)
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.simplecommerce_mdm.payout.service.impl;
+
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.exception.ResourceNotFoundException;
+import com.simplecommerce_mdm.payout.dto.PayoutLedgerEntryResponse;
+import com.simplecommerce_mdm.payout.dto.PayoutSettlementResponse;
+import com.simplecommerce_mdm.payout.dto.PayoutStatementResponse;
+import com.simplecommerce_mdm.payout.model.PayoutLedgerEntry;
+import com.simplecommerce_mdm.payout.repository.PayoutLedgerRepository;
+import com.simplecommerce_mdm.payout.repository.PayoutLedgerRepository.StatementTotals;
+import com.simplecommerce_mdm.payout.service.PayoutService;
+import com.simplecommerce_mdm.payout.service.PayoutSettlementEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PayoutServiceImpl implements PayoutService {
+
+    private final PayoutLedgerRepository payoutLedgerRepository;
+    private final PayoutSettlementEngine payoutSettlementEngine;
+
+    @Override
+    public PayoutSettlementResponse settle(String period) {
+        return payoutSettlementEngine.settle(parsePeriod(period));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PayoutStatementResponse> getShopStatements(Long shopId) {
+        return payoutLedgerRepository.summarizeByShop(shopId).stream()
+                .map(this::toStatement)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PayoutStatementResponse getShopStatement(Long shopId, String period, Pageable pageable) {
+        YearMonth month = parsePeriod(period);
+        StatementTotals totals = payoutLedgerRepository.summarizeByShop(shopId).stream()
+                .filter(row -> row.getPeriod().equals(month.toString()))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("No payout statement for period " + month));
+        Page<PayoutLedgerEntry> entries = payoutLedgerRepository
+                .findByShopIdAndPeriodOrderByIdAsc(shopId, month.toString(), pageable);
+
+        PayoutStatementResponse statement = toStatement(totals);
+        statement.setEntries(entries.getContent().stream().map(this::toEntryResponse).toList());
+        statement.setPageNo(entries.getNumber());
+        statement.setTotalPages(entries.getTotalPages());
+        return statement;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PayoutStatementResponse> getPeriodStatements(String period, Pageable pageable) {
+        return payoutLedgerRepository.summarizeByPeriod(parsePeriod(period).toString(), pageable)
+                .map(this::toStatement);
+    }
+
+    private YearMonth parsePeriod(String period) {
+        try {
+            return YearMonth.parse(period);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new InvalidDataException("Invalid payout period '" + period + "', expected yyyy-MM");
+        }
+    }
+
+    private PayoutStatementResponse toStatement(StatementTotals totals) {
+        return PayoutStatementResponse.builder()
+                .shopId(totals.getShopId())
+                .period(totals.getPeriod())
+                .orderCount(totals.getOrderCount())
+                .grossAmount(totals.getGrossAmount())
+                .commissionAmount(totals.getCommissionAmount())
+                .gatewayFeeAmount(totals.getGatewayFeeAmount())
+                .netAmount(totals.getNetAmount())
+                .build();
+    }
+
+    private PayoutLedgerEntryResponse toEntryResponse(PayoutLedgerEntry entry) {
+        return PayoutLedgerEntryResponse.builder()
+                .id(entry.getId())
+                .orderId(entry.getOrderId())
+                .orderNumber(entry.getOrderNumber())
+                .entryType(entry.getEntryType().name())
+                .completedAt(entry.getCompletedAt())
+                .grossAmount(entry.getGrossAmount())
+                .commissionRate(entry.getCommissionRate())
+                .commissionAmount(entry.getCommissionAmount())
+                .gatewayFeeRate(entry.getGatewayFeeRate())
+                .gatewayFeeAmount(entry.getGatewayFeeAmount())
+                .netAmount(entry.getNetAmount())
+                .settledAt(entry.getSettledAt())
+                .build();
+    }
+}
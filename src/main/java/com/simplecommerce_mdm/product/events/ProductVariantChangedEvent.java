@@ -0,0 +1,13 @@
+package com.simplecommerce_mdm.product.events;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Variants whose price or stock changed, or that were removed; listeners act once the change commits
+ */
+@Value
+public class ProductVariantChangedEvent {
+    Set<Long> variantIds;
+}
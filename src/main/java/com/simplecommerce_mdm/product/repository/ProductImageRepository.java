@@ -5,10 +5,16 @@ import com.simplecommerce_mdm.product.model.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
     
     List<ProductImage> findByTargetIdAndTargetType(Long targetId, ImageTargetType targetType);
+
+    /**
+     * Find images of several targets in one query
+     */
+    List<ProductImage> findByTargetIdInAndTargetType(Collection<Long> targetIds, ImageTargetType targetType);
 } 
\ No newline at end of file
@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.repository.query.Param;
@@ -22,6 +24,12 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
            "WHERE pv.id = :variantId AND pv.isActive = true AND pv.product.status = 'APPROVED'")
     Optional<ProductVariant> findActiveVariantById(@Param("variantId") Long variantId);
     
+    /**
+     * Find variants by IDs with their product and shop
+     */
+    @Query("SELECT pv FROM ProductVariant pv JOIN FETCH pv.product p JOIN FETCH p.shop WHERE pv.id IN :variantIds")
+    List<ProductVariant> findWithProductAndShopByIdIn(@Param("variantIds") Collection<Long> variantIds);
+
     /**
      * Find all variants of a product
      */
@@ -51,6 +59,16 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
      */
     Optional<ProductVariant> findBySku(String sku);
 
+    /**
+     * Add to the stock of a variant atomically (bumps the version so concurrent optimistic writers retry)
+     */
+    @Modifying
+    @Query("UPDATE ProductVariant pv SET pv.stockQuantity = COALESCE(pv.stockQuantity, 0) + :quantity, " +
+           "pv.version = COALESCE(pv.version, 0) + 1, pv.updatedAt = :updatedAt WHERE pv.id = :variantId")
+    int incrementStock(@Param("variantId") Long variantId,
+                       @Param("quantity") int quantity,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+
     // Low stock variants for a shop
     @Query("SELECT pv.id, pv.sku, pv.product.name, pv.stockQuantity FROM ProductVariant pv " +
            "WHERE pv.product.shop.id = :shopId AND pv.isActive = true AND pv.stockQuantity <= :threshold " +
@@ -21,6 +21,7 @@ import com.simplecommerce_mdm.product.dto.ProductResponse;
 import com.simplecommerce_mdm.product.dto.ProductSearchRequest;
 import com.simplecommerce_mdm.product.dto.ProductUpdateRequest;
 import com.simplecommerce_mdm.product.dto.ProductVariantUpdateRequest;
+import com.simplecommerce_mdm.product.events.ProductVariantChangedEvent;
 import com.simplecommerce_mdm.product.model.Product;
 import com.simplecommerce_mdm.product.model.ProductImage;
 import com.simplecommerce_mdm.product.model.ProductVariant;
@@ -33,6 +34,7 @@ import com.simplecommerce_mdm.user.model.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -49,6 +51,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -71,6 +74,7 @@ public class ProductServiceImpl implements ProductService {
     private final CloudinaryService cloudinaryService;
     private final ModelMapper modelMapper;
     private final ProductVariantRepository productVariantRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -294,6 +298,8 @@ public class ProductServiceImpl implements ProductService {
     private void updateProductVariants(Product product, List<ProductVariantUpdateRequest> variantRequests) {
         Set<ProductVariant> existingVariants = product.getVariants();
         Set<ProductVariant> updatedVariants = new HashSet<>();
+        // Variants whose price, stock or active flag changed, or that were removed (carts holding them are told after commit)
+        Set<Long> changedVariantIds = new HashSet<>();
 
         // Process each variant request
         for (ProductVariantUpdateRequest variantRequest : variantRequests) {
@@ -306,6 +312,14 @@ public class ProductServiceImpl implements ProductService {
                         .findFirst()
                         .orElseThrow(() -> new ResourceNotFoundException("Variant not found with id: " + variantRequest.getId()));
                 
+                if (variant.getFinalPrice() == null || variantRequest.getFinalPrice() == null
+                        || variant.getFinalPrice().compareTo(variantRequest.getFinalPrice()) != 0
+                        || !Objects.equals(variant.getStockQuantity(), variantRequest.getStockQuantity())
+                        || (variantRequest.getIsActive() != null
+                            && !variantRequest.getIsActive().equals(variant.getIsActive()))) {
+                    changedVariantIds.add(variant.getId());
+                }
+                
                 // Update variant fields
                 variant.setSku(variantRequest.getSku());
                 variant.setFinalPrice(variantRequest.getFinalPrice());
@@ -344,11 +358,21 @@ public class ProductServiceImpl implements ProductService {
             updatedVariants.add(variant);
         }
 
+        Set<Long> keptVariantIds = updatedVariants.stream().map(ProductVariant::getId).collect(Collectors.toSet());
+        existingVariants.stream()
+                .map(ProductVariant::getId)
+                .filter(id -> id != null && !keptVariantIds.contains(id))
+                .forEach(changedVariantIds::add);
+
         // Replace old variants with updated ones
         // Note: JPA will handle deletion of removed variants due to cascade settings
         product.getVariants().clear();
         product.getVariants().addAll(updatedVariants);
 
+        if (!changedVariantIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductVariantChangedEvent(changedVariantIds));
+        }
+
         log.info("Updated {} variants for product {}", updatedVariants.size(), product.getName());
     }
 
@@ -394,6 +418,14 @@ public class ProductServiceImpl implements ProductService {
 
         // Use custom soft delete method to avoid @SQLDelete parameter binding issues
         productRepository.softDeleteProductByIdAndShop(productId, shop);
+
+        // Carts holding the product's variants show them as unavailable once this commits
+        Set<Long> variantIds = product.getVariants().stream()
+                .map(ProductVariant::getId)
+                .collect(Collectors.toSet());
+        if (!variantIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductVariantChangedEvent(variantIds));
+        }
         
         log.info("Successfully deleted product: {} (ID: {}) for seller: {}", 
                 product.getName(), productId, seller.getEmail());
@@ -0,0 +1,23 @@
+package com.simplecommerce_mdm.promotion.dto;
+
+import com.simplecommerce_mdm.common.enums.AppliedDiscountType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A voucher accepted at checkout: the discount already spread over the shop orders
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppliedVoucher {
+    private Integer voucherId;
+    private String code;
+    private AppliedDiscountType discountType;
+    private BigDecimal discountAmount;
+}
@@ -0,0 +1,45 @@
+package com.simplecommerce_mdm.promotion.dto;
+
+import com.simplecommerce_mdm.common.enums.PromotionDiscountType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Best combination of automatic promotions for a cart
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromotionEvaluation {
+
+    private List<AppliedPromotion> promotions;
+    private BigDecimal itemDiscount;
+    private BigDecimal shippingDiscount;
+
+    public static PromotionEvaluation none() {
+        return new PromotionEvaluation(List.of(), BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    public BigDecimal getTotalDiscount() {
+        return itemDiscount.add(shippingDiscount);
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AppliedPromotion {
+        private Integer promotionId;
+        private String name;
+        private PromotionDiscountType promotionType;
+        private BigDecimal discountAmount;
+        private Map<Long, BigDecimal> discountByShop;
+    }
+}
@@ -0,0 +1,35 @@
+package com.simplecommerce_mdm.promotion.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One stripe of a usage counter. Global voucher and promotion limits are split over several stripes
+ * (slots) so concurrent redemptions of the same code increment different rows; per-user counters
+ * use slot 0 only. Keys look like {@code voucher:12}, {@code voucher:12:user:55}, {@code promotion:3}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "redemption_counters", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_redemption_counters_key_slot", columnNames = {"counter_key", "slot"})
+})
+public class RedemptionCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "counter_key", nullable = false, length = 64)
+    private String counterKey;
+
+    @Column(name = "slot", nullable = false)
+    private Integer slot;
+
+    @Column(name = "times_used", nullable = false)
+    @Builder.Default
+    private Integer timesUsed = 0;
+}
@@ -15,7 +15,9 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "user_applied_vouchers")
+@Table(name = "user_applied_vouchers", indexes = {
+        @Index(name = "idx_user_applied_vouchers_user_voucher", columnList = "user_id, voucher_id")
+})
 public class UserAppliedVoucher {
 
     @Id
@@ -0,0 +1,21 @@
+package com.simplecommerce_mdm.promotion.repository;
+
+import com.simplecommerce_mdm.promotion.model.Promotion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface PromotionRepository extends JpaRepository<Promotion, Integer> {
+
+    /**
+     * Find active promotions that apply without a voucher code and have not ended
+     */
+    @Query("SELECT p FROM Promotion p WHERE p.isActive = true AND (p.endDate IS NULL OR p.endDate > :now) " +
+           "AND NOT EXISTS (SELECT v.id FROM Voucher v WHERE v.promotion = p)")
+    List<Promotion> findActiveAutomatic(@Param("now") OffsetDateTime now);
+}
@@ -0,0 +1,37 @@
+package com.simplecommerce_mdm.promotion.repository;
+
+import com.simplecommerce_mdm.promotion.model.RedemptionCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RedemptionCounterRepository extends JpaRepository<RedemptionCounter, Long> {
+
+    /**
+     * Increment the counter slot unless it already reached the capacity; returns 1 when incremented
+     */
+    @Modifying
+    @Query("UPDATE RedemptionCounter c SET c.timesUsed = c.timesUsed + 1 " +
+           "WHERE c.counterKey = :key AND c.slot = :slot AND c.timesUsed < :capacity")
+    int incrementIfBelow(@Param("key") String key, @Param("slot") int slot, @Param("capacity") int capacity);
+
+    /**
+     * Give back one use of the counter slot
+     */
+    @Modifying
+    @Query("UPDATE RedemptionCounter c SET c.timesUsed = c.timesUsed - 1 " +
+           "WHERE c.counterKey = :key AND c.slot = :slot AND c.timesUsed > 0")
+    int decrement(@Param("key") String key, @Param("slot") int slot);
+
+    /**
+     * Slots of a counter that exist
+     */
+    @Query("SELECT c.slot FROM RedemptionCounter c WHERE c.counterKey = :key")
+    List<Integer> findSlotsByCounterKey(@Param("key") String key);
+
+}
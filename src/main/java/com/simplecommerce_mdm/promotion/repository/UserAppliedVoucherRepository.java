@@ -0,0 +1,26 @@
+package com.simplecommerce_mdm.promotion.repository;
+
+import com.simplecommerce_mdm.promotion.model.UserAppliedVoucher;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserAppliedVoucherRepository extends JpaRepository<UserAppliedVoucher, Long> {
+
+    /**
+     * Find vouchers applied to a master order
+     */
+    List<UserAppliedVoucher> findByMasterOrderId(Long masterOrderId);
+
+    /**
+     * Count how many times the user applied the voucher
+     */
+    long countByUserIdAndVoucherId(Long userId, Integer voucherId);
+
+    /**
+     * Count how many times the user applied vouchers of the promotion
+     */
+    long countByUserIdAndVoucherPromotionId(Long userId, Integer promotionId);
+}
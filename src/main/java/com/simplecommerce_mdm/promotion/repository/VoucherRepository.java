@@ -0,0 +1,31 @@
+package com.simplecommerce_mdm.promotion.repository;
+
+import com.simplecommerce_mdm.promotion.model.Voucher;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VoucherRepository extends JpaRepository<Voucher, Integer> {
+
+    /**
+     * Find voucher by code with its promotion
+     */
+    @Query("SELECT v FROM Voucher v LEFT JOIN FETCH v.promotion WHERE v.code = :code")
+    Optional<Voucher> findByCodeWithPromotion(@Param("code") String code);
+
+    /**
+     * Copy the total of each voucher's global usage counter (its {@code voucher:<id>} slots) to times_used,
+     * for vouchers where the two differ
+     */
+    @Modifying
+    @Query("UPDATE Voucher v SET v.timesUsed = (SELECT SUM(c.timesUsed) FROM RedemptionCounter c " +
+           "WHERE c.counterKey = CONCAT('voucher:', CAST(v.id AS String))) " +
+           "WHERE v.timesUsed <> (SELECT SUM(c.timesUsed) FROM RedemptionCounter c " +
+           "WHERE c.counterKey = CONCAT('voucher:', CAST(v.id AS String)))")
+    int syncTimesUsedFromCounters();
+}
@@ -0,0 +1,124 @@
+package com.simplecommerce_mdm.promotion.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cart lines in the flat form {@link PromotionRules} evaluates: parallel arrays of shop, category,
+ * unit price (in hundredths) and quantity. Whether this is the buyer's first order is only
+ * asked for when a promotion has a first-order condition.
+ */
+public final class PromotionCart {
+
+    private long[] shopIds;
+    private long[] categoryIds;
+    private long[] unitPrices;
+    private int[] quantities;
+    private int size;
+    private long[] shippingShopIds = new long[0];
+    private long[] shippingFees = new long[0];
+    private OffsetDateTime at = OffsetDateTime.now();
+    private BooleanSupplier firstOrder = () -> false;
+    private Boolean firstOrderValue;
+
+    public PromotionCart(int expectedLines) {
+        int capacity = Math.max(4, expectedLines);
+        this.shopIds = new long[capacity];
+        this.categoryIds = new long[capacity];
+        this.unitPrices = new long[capacity];
+        this.quantities = new int[capacity];
+    }
+
+    /**
+     * Add a line; {@code categoryId} may be null
+     */
+    public PromotionCart add(long shopId, Long categoryId, BigDecimal unitPrice, int quantity) {
+        if (size == shopIds.length) {
+            int capacity = size * 2;
+            shopIds = Arrays.copyOf(shopIds, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            unitPrices = Arrays.copyOf(unitPrices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+        shopIds[size] = shopId;
+        categoryIds[size] = categoryId != null ? categoryId : 0L;
+        unitPrices[size] = toMinor(unitPrice);
+        quantities[size] = quantity;
+        size++;
+        return this;
+    }
+
+    /**
+     * Shipping fee of one shop's parcel; free-shipping promotions discount nothing without it
+     */
+    public PromotionCart shippingFee(long shopId, BigDecimal shippingFee) {
+        int count = shippingShopIds.length;
+        shippingShopIds = Arrays.copyOf(shippingShopIds, count + 1);
+        shippingFees = Arrays.copyOf(shippingFees, count + 1);
+        shippingShopIds[count] = shopId;
+        shippingFees[count] = shippingFee != null ? toMinor(shippingFee) : 0L;
+        return this;
+    }
+
+    public PromotionCart at(OffsetDateTime at) {
+        this.at = at;
+        return this;
+    }
+
+    public PromotionCart firstOrder(BooleanSupplier firstOrder) {
+        this.firstOrder = firstOrder;
+        this.firstOrderValue = null;
+        return this;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long shopId(int line) {
+        return shopIds[line];
+    }
+
+    long categoryId(int line) {
+        return categoryIds[line];
+    }
+
+    long unitPrice(int line) {
+        return unitPrices[line];
+    }
+
+    int quantity(int line) {
+        return quantities[line];
+    }
+
+    long shippingFee(long shopId) {
+        for (int i = 0; i < shippingShopIds.length; i++) {
+            if (shippingShopIds[i] == shopId) {
+                return shippingFees[i];
+            }
+        }
+        return 0L;
+    }
+
+    OffsetDateTime at() {
+        return at;
+    }
+
+    boolean isFirstOrder() {
+        if (firstOrderValue == null) {
+            firstOrderValue = firstOrder.getAsBoolean();
+        }
+        return firstOrderValue;
+    }
+
+    static long toMinor(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, 2);
+    }
+}
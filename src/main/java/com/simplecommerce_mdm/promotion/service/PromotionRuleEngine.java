@@ -0,0 +1,144 @@
+package com.simplecommerce_mdm.promotion.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.cart.model.CartItem;
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.order.repository.MasterOrderRepository;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
+import com.simplecommerce_mdm.promotion.repository.PromotionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies automatic promotions (promotions without voucher codes) from the compiled {@link PromotionRules}.
+ * The rules are rebuilt at startup and periodically; evaluating a cart never parses conditions and
+ * only queries the database when a first-order promotion is in play.
+ */
+@Slf4j(topic = "PROMOTIONS")
+@Component
+public class PromotionRuleEngine {
+
+    private final PromotionRepository promotionRepository;
+    private final MasterOrderRepository masterOrderRepository;
+    private final VoucherUsageCounters voucherUsageCounters;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    // Rows each global promotion limit is spread over
+    @Value("${business.voucher.counter-slots:16}")
+    private int counterSlots;
+
+    private volatile PromotionRules rules;
+
+    public PromotionRuleEngine(PromotionRepository promotionRepository,
+                               MasterOrderRepository masterOrderRepository,
+                               VoucherUsageCounters voucherUsageCounters,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager) {
+        this.promotionRepository = promotionRepository;
+        this.masterOrderRepository = masterOrderRepository;
+        this.voucherUsageCounters = voucherUsageCounters;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${business.promotion.rules.refresh-interval-ms:60000}",
+            initialDelayString = "${business.promotion.rules.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Promotion refresh failed, keeping the previous rules: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recompile the active automatic promotions and swap them in
+     */
+    public void reload() {
+        PromotionRules compiled = transactionTemplate.execute(status -> PromotionRules.compile(
+                promotionRepository.findActiveAutomatic(OffsetDateTime.now()), objectMapper));
+        rules = compiled;
+        log.debug("Compiled {} automatic promotions", compiled.size());
+    }
+
+    /**
+     * Best promotions for the cart items
+     *
+     * @param shippingFeeByShop shipping fee per shop id; empty when shipping is not known yet
+     */
+    public PromotionEvaluation evaluate(Long userId, List<CartItem> items, Map<Long, BigDecimal> shippingFeeByShop) {
+        PromotionRules current = rules();
+        if (current.size() == 0 || items.isEmpty()) {
+            return PromotionEvaluation.none();
+        }
+        PromotionCart cart = new PromotionCart(items.size())
+                .firstOrder(() -> userId != null && !masterOrderRepository.existsByUserId(userId));
+        for (CartItem item : items) {
+            Product product = item.getVariant().getProduct();
+            cart.add(product.getShop().getId(),
+                    product.getCategory() != null ? product.getCategory().getId().longValue() : null,
+                    item.getPriceAtAddition(), item.getQuantity());
+        }
+        shippingFeeByShop.forEach(cart::shippingFee);
+        return current.evaluate(cart);
+    }
+
+    /**
+     * Take one use of each applied promotion's limits, given back if the transaction rolls back
+     */
+    public void reserve(Long userId, PromotionEvaluation evaluation) {
+        PromotionRules current = rules();
+        List<VoucherUsageCounters.Limit> limits = new ArrayList<>();
+        for (PromotionEvaluation.AppliedPromotion applied : evaluation.getPromotions()) {
+            PromotionRules.UsageLimits usageLimits = current.usageLimits(applied.getPromotionId());
+            if (usageLimits == null) {
+                continue;
+            }
+            // Per-user limits first, as for vouchers
+            if (usageLimits.perUser() != null) {
+                limits.add(0, new VoucherUsageCounters.Limit("promotion:" + applied.getPromotionId() + ":user:" + userId,
+                        usageLimits.perUser(), 1, () -> 0));
+            }
+            if (usageLimits.perPromotion() != null) {
+                limits.add(new VoucherUsageCounters.Limit("promotion:" + applied.getPromotionId(),
+                        usageLimits.perPromotion(), counterSlots, () -> 0));
+            }
+        }
+        if (!limits.isEmpty() && !voucherUsageCounters.reserve(limits)) {
+            throw new InvalidDataException("A promotion applied to your cart has reached its usage limit, please review your cart");
+        }
+    }
+
+    private PromotionRules rules() {
+        PromotionRules current = rules;
+        if (current == null) {
+            synchronized (this) {
+                if (rules == null) {
+                    reload();
+                }
+                current = rules;
+            }
+        }
+        return current;
+    }
+}
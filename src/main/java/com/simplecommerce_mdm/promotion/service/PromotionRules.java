@@ -0,0 +1,458 @@
+package com.simplecommerce_mdm.promotion.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.common.enums.PromotionDiscountType;
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
+import com.simplecommerce_mdm.promotion.model.Promotion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of automatic promotions compiled from their {@code conditions} JSON, e.g.
+ * <pre>{"minSpend": 200000, "shopIds": [3], "categoryIds": [12], "firstOrderOnly": true,
+ *  "exclusive": false, "maxDiscount": 50000, "buyQuantity": 2, "getQuantity": 1}</pre>
+ * Each promotion's conditions become a small predicate tree and the promotions are indexed by the
+ * shop or category they are limited to, so {@link #evaluate} reads the JSON never and only looks at
+ * the promotions a cart line can match. Amounts are worked in hundredths as {@code long}.
+ */
+@Slf4j
+public final class PromotionRules {
+
+    private static final PromotionRules EMPTY = new PromotionRules(
+            new CompiledPromotion[0], ScopeIndex.EMPTY, ScopeIndex.EMPTY, new int[0]);
+
+    private final CompiledPromotion[] promotions;
+    private final ScopeIndex byShop;
+    private final ScopeIndex byCategory;
+    // Promotions limited to neither a shop nor a category
+    private final int[] unscoped;
+
+    private PromotionRules(CompiledPromotion[] promotions, ScopeIndex byShop, ScopeIndex byCategory, int[] unscoped) {
+        this.promotions = promotions;
+        this.byShop = byShop;
+        this.byCategory = byCategory;
+        this.unscoped = unscoped;
+    }
+
+    public static PromotionRules empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compile promotions; ones whose conditions cannot be read are left out
+     */
+    public static PromotionRules compile(List<Promotion> promotions, ObjectMapper objectMapper) {
+        List<CompiledPromotion> compiled = new ArrayList<>(promotions.size());
+        for (Promotion promotion : promotions) {
+            try {
+                compiled.add(CompiledPromotion.compile(compiled.size(), promotion, objectMapper));
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Skipping promotion {}: unreadable conditions ({})", promotion.getId(), e.getMessage());
+            }
+        }
+
+        Map<Long, List<Integer>> shopScopes = new HashMap<>();
+        Map<Long, List<Integer>> categoryScopes = new HashMap<>();
+        List<Integer> unscoped = new ArrayList<>();
+        for (CompiledPromotion promotion : compiled) {
+            // Index by shop when the promotion has one; matches are re-checked against the category scope
+            if (promotion.shopIds.length > 0) {
+                for (long shopId : promotion.shopIds) {
+                    shopScopes.computeIfAbsent(shopId, k -> new ArrayList<>()).add(promotion.index);
+                }
+            } else if (promotion.categoryIds.length > 0) {
+                for (long categoryId : promotion.categoryIds) {
+                    categoryScopes.computeIfAbsent(categoryId, k -> new ArrayList<>()).add(promotion.index);
+                }
+            } else {
+                unscoped.add(promotion.index);
+            }
+        }
+        return new PromotionRules(compiled.toArray(CompiledPromotion[]::new),
+                ScopeIndex.of(shopScopes), ScopeIndex.of(categoryScopes), toArray(unscoped));
+    }
+
+    public int size() {
+        return promotions.length;
+    }
+
+    /**
+     * Usage limits of a compiled promotion, null when it is not in this set
+     */
+    public UsageLimits usageLimits(Integer promotionId) {
+        for (CompiledPromotion promotion : promotions) {
+            if (promotion.id.equals(promotionId)) {
+                return promotion.usageLimits;
+            }
+        }
+        return null;
+    }
+
+    public record UsageLimits(Integer perPromotion, Integer perUser) {
+    }
+
+    /**
+     * Evaluate every applicable promotion against the cart in one pass over its lines and return the best
+     * combination: all stackable promotions together, or the single best exclusive one, whichever saves more
+     */
+    public PromotionEvaluation evaluate(PromotionCart cart) {
+        int lines = cart.size();
+        if (promotions.length == 0 || lines == 0) {
+            return PromotionEvaluation.none();
+        }
+
+        // Per promotion: in-scope amount, quantity and cheapest unit, filled only for promotions a line touched
+        long[] scopedAmount = new long[promotions.length];
+        int[] scopedQuantity = new int[promotions.length];
+        long[] cheapestUnit = new long[promotions.length];
+        int[] touched = new int[promotions.length];
+        int touchedCount = 0;
+
+        long cartAmount = 0;
+        int cartQuantity = 0;
+        long cartCheapest = Long.MAX_VALUE;
+        for (int line = 0; line < lines; line++) {
+            long shopId = cart.shopId(line);
+            long categoryId = cart.categoryId(line);
+            long unitPrice = cart.unitPrice(line);
+            int quantity = cart.quantity(line);
+            long amount = unitPrice * quantity;
+            cartAmount += amount;
+            cartQuantity += quantity;
+            cartCheapest = Math.min(cartCheapest, unitPrice);
+
+            for (int pass = 0; pass < 2; pass++) {
+                int[] candidates = pass == 0 ? byShop.get(shopId) : byCategory.get(categoryId);
+                for (int index : candidates) {
+                    if (!promotions[index].matches(shopId, categoryId)) {
+                        continue;
+                    }
+                    if (scopedQuantity[index] == 0) {
+                        touched[touchedCount++] = index;
+                        cheapestUnit[index] = unitPrice;
+                    }
+                    scopedAmount[index] += amount;
+                    scopedQuantity[index] += quantity;
+                    cheapestUnit[index] = Math.min(cheapestUnit[index], unitPrice);
+                }
+            }
+        }
+
+        long[] discounts = new long[promotions.length];
+        for (int i = 0; i < touchedCount; i++) {
+            int index = touched[i];
+            discounts[index] = promotions[index].discount(
+                    cart, scopedAmount[index], scopedQuantity[index], cheapestUnit[index]);
+        }
+        // Unscoped promotions apply to the whole cart; they are never in the scope indexes
+        for (int index : unscoped) {
+            discounts[index] = promotions[index].discount(cart, cartAmount, cartQuantity, cartCheapest);
+            touched[touchedCount++] = index;
+        }
+
+        return choose(cart, cartAmount, discounts, touched, touchedCount);
+    }
+
+    private PromotionEvaluation choose(PromotionCart cart, long cartAmount, long[] discounts,
+                                       int[] candidates, int candidateCount) {
+        List<CompiledPromotion> stackable = new ArrayList<>();
+        CompiledPromotion bestExclusive = null;
+        for (int i = 0; i < candidateCount; i++) {
+            CompiledPromotion promotion = promotions[candidates[i]];
+            long discount = discounts[promotion.index];
+            if (discount <= 0) {
+                continue;
+            }
+            if (!promotion.exclusive) {
+                stackable.add(promotion);
+            } else if (bestExclusive == null || discount > discounts[bestExclusive.index]) {
+                bestExclusive = promotion;
+            }
+        }
+
+        // Stack the larger item discounts first so the cap at the cart amount trims the smallest ones;
+        // shipping discounts do not add up, only the best free-shipping promotion is kept
+        stackable.sort(Comparator.comparingLong((CompiledPromotion promotion) -> discounts[promotion.index]).reversed());
+        List<CompiledPromotion> stack = new ArrayList<>();
+        long stackItems = 0;
+        long stackShipping = 0;
+        for (CompiledPromotion promotion : stackable) {
+            long discount = discounts[promotion.index];
+            if (promotion.type == PromotionDiscountType.FREE_SHIPPING) {
+                if (stackShipping > 0) {
+                    continue;
+                }
+                stackShipping = discount;
+            } else {
+                discount = Math.min(discount, cartAmount - stackItems);
+                if (discount <= 0) {
+                    continue;
+                }
+                stackItems += discount;
+            }
+            discounts[promotion.index] = discount;
+            stack.add(promotion);
+        }
+
+        if (bestExclusive != null && discounts[bestExclusive.index] > stackItems + stackShipping) {
+            stack = List.of(bestExclusive);
+        }
+        if (stack.isEmpty()) {
+            return PromotionEvaluation.none();
+        }
+
+        List<PromotionEvaluation.AppliedPromotion> result = new ArrayList<>(stack.size());
+        BigDecimal itemDiscount = BigDecimal.ZERO;
+        BigDecimal shippingDiscount = BigDecimal.ZERO;
+        for (CompiledPromotion promotion : stack) {
+            BigDecimal amount = PromotionCart.fromMinor(discounts[promotion.index]);
+            result.add(PromotionEvaluation.AppliedPromotion.builder()
+                    .promotionId(promotion.id)
+                    .name(promotion.name)
+                    .promotionType(promotion.type)
+                    .discountAmount(amount)
+                    .discountByShop(promotion.byShop(cart, discounts[promotion.index]))
+                    .build());
+            if (promotion.type == PromotionDiscountType.FREE_SHIPPING) {
+                shippingDiscount = shippingDiscount.add(amount);
+            } else {
+                itemDiscount = itemDiscount.add(amount);
+            }
+        }
+        return new PromotionEvaluation(result, itemDiscount, shippingDiscount);
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static long[] sortedIds(JsonNode node) {
+        if (!node.isArray()) {
+            return new long[0];
+        }
+        long[] ids = new long[node.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = node.get(i).asLong();
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Condition on the cart as a whole, checked once the promotion's in-scope amount is known
+     */
+    private interface CartCondition {
+
+        CartCondition ALWAYS = (cart, scopedAmount) -> true;
+
+        boolean test(PromotionCart cart, long scopedAmount);
+
+        static CartCondition allOf(List<CartCondition> conditions) {
+            if (conditions.isEmpty()) {
+                return ALWAYS;
+            }
+            if (conditions.size() == 1) {
+                return conditions.get(0);
+            }
+            CartCondition[] all = conditions.toArray(CartCondition[]::new);
+            return (cart, scopedAmount) -> {
+                for (CartCondition condition : all) {
+                    if (!condition.test(cart, scopedAmount)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+    }
+
+    private record DateWindow(OffsetDateTime start, OffsetDateTime end) implements CartCondition {
+        @Override
+        public boolean test(PromotionCart cart, long scopedAmount) {
+            return (start == null || !cart.at().isBefore(start)) && (end == null || cart.at().isBefore(end));
+        }
+    }
+
+    private record MinSpend(long minimum) implements CartCondition {
+        @Override
+        public boolean test(PromotionCart cart, long scopedAmount) {
+            return scopedAmount >= minimum;
+        }
+    }
+
+    private record FirstOrderOnly() implements CartCondition {
+        @Override
+        public boolean test(PromotionCart cart, long scopedAmount) {
+            return cart.isFirstOrder();
+        }
+    }
+
+    private static final class CompiledPromotion {
+
+        private final int index;
+        private final Integer id;
+        private final String name;
+        private final PromotionDiscountType type;
+        private final long value;
+        private final long maxDiscount;
+        private final boolean exclusive;
+        private final int buyQuantity;
+        private final int getQuantity;
+        private final long[] shopIds;
+        private final long[] categoryIds;
+        private final CartCondition condition;
+        private final UsageLimits usageLimits;
+
+        private CompiledPromotion(int index, Promotion promotion, JsonNode conditions, CartCondition condition) {
+            this.index = index;
+            this.id = promotion.getId();
+            this.name = promotion.getName();
+            this.type = promotion.getPromotionType();
+            this.value = promotion.getValue() != null ? PromotionCart.toMinor(promotion.getValue()) : 0L;
+            this.maxDiscount = conditions.hasNonNull("maxDiscount")
+                    ? PromotionCart.toMinor(conditions.get("maxDiscount").decimalValue()) : Long.MAX_VALUE;
+            this.exclusive = conditions.path("exclusive").asBoolean(false);
+            this.buyQuantity = Math.max(1, conditions.path("buyQuantity").asInt(1));
+            this.getQuantity = Math.max(1, conditions.path("getQuantity").asInt(1));
+            this.shopIds = sortedIds(conditions.path("shopIds"));
+            this.categoryIds = sortedIds(conditions.path("categoryIds"));
+            this.condition = condition;
+            this.usageLimits = new UsageLimits(promotion.getUsageLimitPerPromotion(), promotion.getUsageLimitPerUser());
+        }
+
+        static CompiledPromotion compile(int index, Promotion promotion, ObjectMapper objectMapper) throws IOException {
+            JsonNode conditions = objectMapper.readTree(
+                    StringUtils.hasText(promotion.getConditions()) ? promotion.getConditions() : "{}");
+            if (!conditions.isObject()) {
+                throw new IllegalArgumentException("conditions must be a JSON object");
+            }
+            if (promotion.getPromotionType() == null) {
+                throw new IllegalArgumentException("missing promotion type");
+            }
+
+            // Cheapest checks first; the first-order check may need a query
+            List<CartCondition> checks = new ArrayList<>(3);
+            if (promotion.getStartDate() != null || promotion.getEndDate() != null) {
+                checks.add(new DateWindow(promotion.getStartDate(), promotion.getEndDate()));
+            }
+            if (conditions.hasNonNull("minSpend")) {
+                checks.add(new MinSpend(PromotionCart.toMinor(conditions.get("minSpend").decimalValue())));
+            }
+            if (conditions.path("firstOrderOnly").asBoolean(false)) {
+                checks.add(new FirstOrderOnly());
+            }
+            return new CompiledPromotion(index, promotion, conditions, CartCondition.allOf(checks));
+        }
+
+        boolean matches(long shopId, long categoryId) {
+            return (shopIds.length == 0 || Arrays.binarySearch(shopIds, shopId) >= 0)
+                    && (categoryIds.length == 0 || Arrays.binarySearch(categoryIds, categoryId) >= 0);
+        }
+
+        /**
+         * Discount in hundredths for the in-scope part of the cart, or 0 when the conditions are not met
+         */
+        long discount(PromotionCart cart, long scopedAmount, int scopedQuantity, long cheapestUnit) {
+            if (scopedAmount <= 0 || !condition.test(cart, scopedAmount)) {
+                return 0L;
+            }
+            long discount = switch (type) {
+                case PERCENTAGE -> scopedAmount * value / 10_000;
+                case FIXED_AMOUNT -> Math.min(value, scopedAmount);
+                case FREE_SHIPPING -> shippingOfMatchingShops(cart);
+                case BUY_X_GET_Y -> (long) (scopedQuantity / (buyQuantity + getQuantity)) * getQuantity * cheapestUnit;
+            };
+            return Math.min(discount, maxDiscount);
+        }
+
+        private long shippingOfMatchingShops(PromotionCart cart) {
+            long total = 0;
+            for (long shopId : matchingShops(cart)) {
+                total += cart.shippingFee(shopId);
+            }
+            return total;
+        }
+
+        private List<Long> matchingShops(PromotionCart cart) {
+            List<Long> shops = new ArrayList<>(2);
+            for (int line = 0; line < cart.size(); line++) {
+                if (matches(cart.shopId(line), cart.categoryId(line)) && !shops.contains(cart.shopId(line))) {
+                    shops.add(cart.shopId(line));
+                }
+            }
+            return shops;
+        }
+
+        /**
+         * Split an applied discount over the shops it came from: shipping by each shop's fee, item
+         * discounts by in-scope amount, the last shop taking the rounding
+         */
+        Map<Long, BigDecimal> byShop(PromotionCart cart, long discount) {
+            Map<Long, Long> base = new LinkedHashMap<>();
+            if (type == PromotionDiscountType.FREE_SHIPPING) {
+                for (long shopId : matchingShops(cart)) {
+                    base.put(shopId, cart.shippingFee(shopId));
+                }
+            } else {
+                for (int line = 0; line < cart.size(); line++) {
+                    if (matches(cart.shopId(line), cart.categoryId(line))) {
+                        base.merge(cart.shopId(line), cart.unitPrice(line) * cart.quantity(line), Long::sum);
+                    }
+                }
+            }
+            long totalBase = base.values().stream().mapToLong(Long::longValue).sum();
+            Map<Long, BigDecimal> shares = new LinkedHashMap<>();
+            long remaining = discount;
+            int i = 0;
+            for (Map.Entry<Long, Long> entry : base.entrySet()) {
+                long share = ++i == base.size() || totalBase == 0
+                        ? remaining
+                        : Math.min(remaining, BigDecimal.valueOf(discount).multiply(BigDecimal.valueOf(entry.getValue()))
+                                .divide(BigDecimal.valueOf(totalBase), 0, RoundingMode.DOWN).longValue());
+                shares.put(entry.getKey(), PromotionCart.fromMinor(share));
+                remaining -= share;
+            }
+            return shares;
+        }
+    }
+
+    /**
+     * Sorted ids with the promotions limited to each one
+     */
+    private record ScopeIndex(long[] keys, int[][] promotions) {
+
+        static final ScopeIndex EMPTY = new ScopeIndex(new long[0], new int[0][]);
+        private static final int[] NONE = new int[0];
+
+        static ScopeIndex of(Map<Long, List<Integer>> scopes) {
+            TreeMap<Long, List<Integer>> sorted = new TreeMap<>(scopes);
+            long[] keys = new long[sorted.size()];
+            int[][] promotions = new int[sorted.size()][];
+            int i = 0;
+            for (Map.Entry<Long, List<Integer>> entry : sorted.entrySet()) {
+                keys[i] = entry.getKey();
+                promotions[i++] = toArray(entry.getValue());
+            }
+            return new ScopeIndex(keys, promotions);
+        }
+
+        int[] get(long key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i >= 0 ? promotions[i] : NONE;
+        }
+    }
+}
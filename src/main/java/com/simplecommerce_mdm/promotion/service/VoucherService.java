@@ -0,0 +1,21 @@
+package com.simplecommerce_mdm.promotion.service;
+
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.promotion.dto.AppliedVoucher;
+
+import java.util.List;
+
+public interface VoucherService {
+
+    /**
+     * Validate the voucher for the user's shop orders, set their item or shipping discount
+     * and reserve one use of the voucher (given back if the checkout does not commit)
+     */
+    AppliedVoucher applyVoucher(Long userId, String voucherCode, List<Order> orders);
+
+    /**
+     * Record the redemption against the saved master order
+     */
+    void recordRedemption(MasterOrder masterOrder, AppliedVoucher appliedVoucher);
+}
@@ -0,0 +1,155 @@
+package com.simplecommerce_mdm.promotion.service;
+
+import com.simplecommerce_mdm.promotion.model.RedemptionCounter;
+import com.simplecommerce_mdm.promotion.repository.RedemptionCounterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Usage limits backed by {@link RedemptionCounter} rows and guarded SQL increments
+ * ({@code times_used = times_used + 1 WHERE times_used < capacity}), so a limit can never be exceeded.
+ * <p>
+ * Increments run in the caller's checkout transaction, so uses commit or roll back together with the order
+ * and the checkout needs no second connection. A taken counter row stays locked until the checkout ends,
+ * so a global limit is split over several slots, each with its share of the limit; a redemption starts at
+ * a random slot and moves on when that one is full, spreading concurrent checkouts of a popular code.
+ * <p>
+ * The slots of a counter are created when it is first used, seeded with the usage recorded before it
+ * existed; {@link VoucherUsageSyncJob} copies the totals back to {@code vouchers.times_used}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VoucherUsageCounters {
+
+    private static final String INSERT_SLOT =
+            "INSERT INTO redemption_counters (counter_key, slot, times_used) VALUES (?, ?, ?)";
+
+    private final RedemptionCounterRepository redemptionCounterRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A usage limit to enforce. {@code alreadyUsed} is only asked for when the counter is first created,
+     * to carry over usage recorded before the counter existed.
+     */
+    public record Limit(String key, int limit, int slots, IntSupplier alreadyUsed) {
+    }
+
+    private record Reservation(String key, int slot) {
+    }
+
+    /**
+     * Take one use under every limit, or none of them. Returns false when any limit is reached.
+     * The uses are given back if the surrounding transaction does not commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserve(List<Limit> limits) {
+        List<Reservation> taken = new ArrayList<>(limits.size());
+        for (Limit limit : limits) {
+            Reservation reservation = acquire(limit);
+            if (reservation == null) {
+                // The caller may still commit, e.g. a checkout going on without the voucher
+                for (Reservation reserved : taken) {
+                    redemptionCounterRepository.decrement(reserved.key(), reserved.slot());
+                }
+                return false;
+            }
+            taken.add(reservation);
+        }
+        return true;
+    }
+
+    /**
+     * Share of the limit held by the slot: the limit divided evenly, the first slots taking the remainder
+     */
+    public static int capacity(int limit, int slots, int slot) {
+        return limit / slots + (slot < limit % slots ? 1 : 0);
+    }
+
+    private Reservation acquire(Limit limit) {
+        int slots = Math.max(1, Math.min(limit.slots(), limit.limit()));
+        Reservation reservation = tryIncrement(limit, slots);
+        if (reservation == null && createMissingSlots(limit, slots)) {
+            reservation = tryIncrement(limit, slots);
+        }
+        return reservation;
+    }
+
+    private Reservation tryIncrement(Limit limit, int slots) {
+        int start = slots == 1 ? 0 : ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            int slot = (start + i) % slots;
+            int capacity = capacity(limit.limit(), slots, slot);
+            if (capacity > 0 && redemptionCounterRepository.incrementIfBelow(limit.key(), slot, capacity) == 1) {
+                return new Reservation(limit.key(), slot);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create the slots that do not exist yet; returns false when all of them already did (the limit is reached).
+     * Earlier usage is only carried over when the counter is new, spread over the slots in order; slots added
+     * later (more slots configured) start empty. A slot created concurrently by another checkout is rolled
+     * back to a savepoint, leaving the checkout transaction usable.
+     */
+    private boolean createMissingSlots(Limit limit, int slots) {
+        Set<Integer> existing = new HashSet<>(redemptionCounterRepository.findSlotsByCounterKey(limit.key()));
+        if (existing.containsAll(IntStream.range(0, slots).boxed().toList())) {
+            return false;
+        }
+        int remaining = existing.isEmpty() ? limit.alreadyUsed().getAsInt() : 0;
+        for (int slot = 0; slot < slots; slot++) {
+            int seed = Math.max(0, Math.min(capacity(limit.limit(), slots, slot), remaining));
+            remaining -= seed;
+            if (existing.contains(slot)) {
+                continue;
+            }
+            if (!insertSlot(limit.key(), slot, seed)) {
+                log.debug("Counter {} slot {} was created concurrently", limit.key(), slot);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Insert a slot on the checkout transaction's connection behind a savepoint; returns false when it
+     * already exists. Plain JDBC keeps a failed insert out of the persistence context.
+     */
+    private boolean insertSlot(String key, int slot, int timesUsed) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SLOT)) {
+                insert.setString(1, key);
+                insert.setInt(2, slot);
+                insert.setInt(3, timesUsed);
+                insert.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+                return true;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                // Class 23: integrity constraint violation, here the (counter_key, slot) unique key
+                if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                    return false;
+                }
+                throw e;
+            }
+        }));
+    }
+}
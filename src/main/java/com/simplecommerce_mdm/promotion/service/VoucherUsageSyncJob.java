@@ -0,0 +1,54 @@
+package com.simplecommerce_mdm.promotion.service;
+
+import com.simplecommerce_mdm.promotion.repository.VoucherRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps {@code vouchers.times_used} up to date with the usage counters. Redemptions only increment
+ * {@link VoucherUsageCounters} slots, so the voucher row is not a hot spot during checkout; this job
+ * copies the totals back with one UPDATE that only touches vouchers whose count changed.
+ */
+@Slf4j
+@Component
+public class VoucherUsageSyncJob {
+
+    private final VoucherRepository voucherRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${business.voucher.usage-sync.enabled:true}")
+    private boolean enabled;
+
+    public VoucherUsageSyncJob(VoucherRepository voucherRepository, PlatformTransactionManager transactionManager) {
+        this.voucherRepository = voucherRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${business.voucher.usage-sync.interval-ms:300000}",
+            initialDelayString = "${business.voucher.usage-sync.initial-delay-ms:60000}")
+    public void syncTimesUsed() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runOnce();
+        } catch (Exception e) {
+            log.error("Voucher usage sync failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copy the counter totals and return the number of vouchers updated
+     */
+    public int runOnce() {
+        Integer updated = transactionTemplate.execute(status -> voucherRepository.syncTimesUsedFromCounters());
+        if (updated != null && updated > 0) {
+            log.debug("Synced times_used of {} vouchers", updated);
+        }
+        return updated != null ? updated : 0;
+    }
+}
@@ -0,0 +1,222 @@
+package com.simplecommerce_mdm.promotion.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.common.enums.AppliedDiscountType;
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.promotion.dto.AppliedVoucher;
+import com.simplecommerce_mdm.promotion.model.Promotion;
+import com.simplecommerce_mdm.promotion.model.UserAppliedVoucher;
+import com.simplecommerce_mdm.promotion.model.Voucher;
+import com.simplecommerce_mdm.promotion.repository.UserAppliedVoucherRepository;
+import com.simplecommerce_mdm.promotion.repository.VoucherRepository;
+import com.simplecommerce_mdm.promotion.service.VoucherService;
+import com.simplecommerce_mdm.promotion.service.VoucherUsageCounters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class VoucherServiceImpl implements VoucherService {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final VoucherRepository voucherRepository;
+    private final UserAppliedVoucherRepository userAppliedVoucherRepository;
+    private final VoucherUsageCounters voucherUsageCounters;
+    private final ObjectMapper objectMapper;
+
+    // Rows each global limit is spread over
+    @Value("${business.voucher.counter-slots:16}")
+    private int counterSlots;
+
+    @Override
+    public AppliedVoucher applyVoucher(Long userId, String voucherCode, List<Order> orders) {
+        String code = voucherCode.trim().toUpperCase(Locale.ROOT);
+        Voucher voucher = voucherRepository.findByCodeWithPromotion(code)
+                .orElseThrow(() -> new InvalidDataException("Invalid voucher code"));
+        validateVoucher(voucher);
+
+        List<Order> eligibleOrders = eligibleOrders(voucher, orders);
+        BigDecimal eligibleSubtotal = sum(eligibleOrders, Order::getSubtotalAmount);
+        if (eligibleOrders.isEmpty() || eligibleSubtotal.signum() == 0) {
+            throw new InvalidDataException("Voucher " + code + " does not apply to the items in this order");
+        }
+        if (voucher.getMinOrderValue() != null && eligibleSubtotal.compareTo(voucher.getMinOrderValue()) < 0) {
+            throw new InvalidDataException("Order value must be at least " + voucher.getMinOrderValue()
+                    + " to use voucher " + code);
+        }
+
+        AppliedDiscountType discountType;
+        BigDecimal discount;
+        switch (voucher.getDiscountType()) {
+            case PERCENTAGE -> {
+                discountType = AppliedDiscountType.ITEM_DISCOUNT;
+                discount = capped(sum(eligibleOrders, VoucherServiceImpl::remainingSubtotal).multiply(voucher.getDiscountValue())
+                        .divide(HUNDRED, 2, RoundingMode.DOWN), voucher);
+                discount = allocate(eligibleOrders, discount, VoucherServiceImpl::remainingSubtotal,
+                        (order, share) -> order.setItemDiscountAmount(order.getItemDiscountAmount().add(share)));
+            }
+            case FIXED_AMOUNT -> {
+                discountType = AppliedDiscountType.ITEM_DISCOUNT;
+                discount = capped(voucher.getDiscountValue().min(sum(eligibleOrders, VoucherServiceImpl::remainingSubtotal)), voucher);
+                discount = allocate(eligibleOrders, discount, VoucherServiceImpl::remainingSubtotal,
+                        (order, share) -> order.setItemDiscountAmount(order.getItemDiscountAmount().add(share)));
+            }
+            case FREE_SHIPPING -> {
+                discountType = AppliedDiscountType.SHIPPING_DISCOUNT;
+                discount = capped(sum(eligibleOrders, VoucherServiceImpl::remainingShippingFee), voucher);
+                discount = allocate(eligibleOrders, discount, VoucherServiceImpl::remainingShippingFee,
+                        (order, share) -> order.setShippingDiscountAmount(order.getShippingDiscountAmount().add(share)));
+            }
+            default -> throw new InvalidDataException("Voucher " + code + " cannot be applied at checkout");
+        }
+
+        if (!voucherUsageCounters.reserve(usageLimits(voucher, userId))) {
+            throw new InvalidDataException("Voucher " + code + " has reached its usage limit");
+        }
+        log.info("Voucher {} applied for user {}: {} {}", code, userId, discountType, discount);
+
+        return AppliedVoucher.builder()
+                .voucherId(voucher.getId())
+                .code(voucher.getCode())
+                .discountType(discountType)
+                .discountAmount(discount)
+                .build();
+    }
+
+    @Override
+    public void recordRedemption(MasterOrder masterOrder, AppliedVoucher appliedVoucher) {
+        userAppliedVoucherRepository.save(UserAppliedVoucher.builder()
+                .masterOrder(masterOrder)
+                .voucher(voucherRepository.getReferenceById(appliedVoucher.getVoucherId()))
+                .user(masterOrder.getUser())
+                .discountAmountAppliedOnMasterOrder(appliedVoucher.getDiscountAmount())
+                .typeOfDiscount(appliedVoucher.getDiscountType())
+                .build());
+    }
+
+    private void validateVoucher(Voucher voucher) {
+        OffsetDateTime now = OffsetDateTime.now();
+        if (!Boolean.TRUE.equals(voucher.getIsActive()) || !isWithin(now, voucher.getStartDate(), voucher.getEndDate())) {
+            throw new InvalidDataException("Voucher " + voucher.getCode() + " is not active");
+        }
+        Promotion promotion = voucher.getPromotion();
+        if (promotion != null && (!Boolean.TRUE.equals(promotion.getIsActive()) || promotion.isDeleted()
+                || !isWithin(now, promotion.getStartDate(), promotion.getEndDate()))) {
+            throw new InvalidDataException("Voucher " + voucher.getCode() + " is not active");
+        }
+    }
+
+    private static boolean isWithin(OffsetDateTime now, OffsetDateTime start, OffsetDateTime end) {
+        return (start == null || !now.isBefore(start)) && (end == null || now.isBefore(end));
+    }
+
+    /**
+     * Orders of the shops the voucher is limited to ({@code applicableScope = {"shopIds": [..]}}), or all orders
+     */
+    private List<Order> eligibleOrders(Voucher voucher, List<Order> orders) {
+        if (!StringUtils.hasText(voucher.getApplicableScope())) {
+            return orders;
+        }
+        JsonNode shopIds;
+        try {
+            shopIds = objectMapper.readTree(voucher.getApplicableScope()).path("shopIds");
+        } catch (IOException e) {
+            log.warn("Voucher {} has an unreadable applicable scope: {}", voucher.getCode(), e.getMessage());
+            return List.of();
+        }
+        if (!shopIds.isArray()) {
+            return orders;
+        }
+        Set<Long> allowed = new HashSet<>();
+        shopIds.forEach(id -> allowed.add(id.asLong()));
+        return orders.stream()
+                .filter(order -> allowed.contains(order.getShop().getId()))
+                .toList();
+    }
+
+    private List<VoucherUsageCounters.Limit> usageLimits(Voucher voucher, Long userId) {
+        List<VoucherUsageCounters.Limit> limits = new ArrayList<>(4);
+        // Per-user limits first: they fail cheaply and keep global uses from being taken and given back
+        if (voucher.getUsageLimitPerUser() != null) {
+            limits.add(new VoucherUsageCounters.Limit("voucher:" + voucher.getId() + ":user:" + userId,
+                    voucher.getUsageLimitPerUser(), 1,
+                    () -> (int) userAppliedVoucherRepository.countByUserIdAndVoucherId(userId, voucher.getId())));
+        }
+        Promotion promotion = voucher.getPromotion();
+        if (promotion != null && promotion.getUsageLimitPerUser() != null) {
+            limits.add(new VoucherUsageCounters.Limit("promotion:" + promotion.getId() + ":user:" + userId,
+                    promotion.getUsageLimitPerUser(), 1,
+                    () -> (int) userAppliedVoucherRepository.countByUserIdAndVoucherPromotionId(userId, promotion.getId())));
+        }
+        if (voucher.getUsageLimitTotal() != null) {
+            int timesUsed = voucher.getTimesUsed() != null ? voucher.getTimesUsed() : 0;
+            limits.add(new VoucherUsageCounters.Limit("voucher:" + voucher.getId(),
+                    voucher.getUsageLimitTotal(), counterSlots, () -> timesUsed));
+        }
+        if (promotion != null && promotion.getUsageLimitPerPromotion() != null) {
+            limits.add(new VoucherUsageCounters.Limit("promotion:" + promotion.getId(),
+                    promotion.getUsageLimitPerPromotion(), counterSlots, () -> 0));
+        }
+        return limits;
+    }
+
+    private static BigDecimal capped(BigDecimal discount, Voucher voucher) {
+        return voucher.getMaxDiscountAmount() != null ? discount.min(voucher.getMaxDiscountAmount()) : discount;
+    }
+
+    // Amounts still payable after the automatic promotions the order already carries
+    private static BigDecimal remainingSubtotal(Order order) {
+        return order.getSubtotalAmount().subtract(order.getItemDiscountAmount());
+    }
+
+    private static BigDecimal remainingShippingFee(Order order) {
+        return order.getShippingFee().subtract(order.getShippingDiscountAmount());
+    }
+
+    private static BigDecimal sum(List<Order> orders, Function<Order, BigDecimal> amount) {
+        return orders.stream().map(amount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Spread the discount over the orders in proportion to their base amount; the last order takes the rounding.
+     * Returns the amount actually allocated (no order is discounted below zero). The adder adds to any discount
+     * the order already has.
+     */
+    private static BigDecimal allocate(List<Order> orders, BigDecimal discount, Function<Order, BigDecimal> base,
+                                 BiConsumer<Order, BigDecimal> adder) {
+        BigDecimal totalBase = sum(orders, base);
+        BigDecimal remaining = discount;
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            BigDecimal share = i == orders.size() - 1 || totalBase.signum() == 0
+                    ? remaining
+                    : discount.multiply(base.apply(order)).divide(totalBase, 2, RoundingMode.DOWN);
+            share = share.min(base.apply(order)).min(remaining);
+            adder.accept(order, share);
+            remaining = remaining.subtract(share);
+        }
+        return discount.subtract(remaining);
+    }
+}
@@ -63,7 +63,8 @@ public class StatsServiceImpl implements StatsService {
         long completed = orderRepository.countByShopIdAndOrderStatus(shopId, OrderStatus.COMPLETED);
         long cancelled = orderRepository.countByShopIdAndOrderStatus(shopId, OrderStatus.CANCELLED_BY_USER)
                 + orderRepository.countByShopIdAndOrderStatus(shopId, OrderStatus.CANCELLED_BY_SELLER)
-                + orderRepository.countByShopIdAndOrderStatus(shopId, OrderStatus.CANCELLED_BY_ADMIN);
+                + orderRepository.countByShopIdAndOrderStatus(shopId, OrderStatus.CANCELLED_BY_ADMIN)
+                + orderRepository.countByShopIdAndOrderStatus(shopId, OrderStatus.CANCELLED_EXPIRED);
 
         long total = pending + processing + shipped + delivered + completed + cancelled;
 
@@ -239,7 +240,8 @@ public class StatsServiceImpl implements StatsService {
         long completed = orderRepository.countByOrderStatus(OrderStatus.COMPLETED);
         long cancelled = orderRepository.countByOrderStatus(OrderStatus.CANCELLED_BY_USER)
                 + orderRepository.countByOrderStatus(OrderStatus.CANCELLED_BY_SELLER)
-                + orderRepository.countByOrderStatus(OrderStatus.CANCELLED_BY_ADMIN);
+                + orderRepository.countByOrderStatus(OrderStatus.CANCELLED_BY_ADMIN)
+                + orderRepository.countByOrderStatus(OrderStatus.CANCELLED_EXPIRED);
 
         long total = pending + processing + shipped + delivered + completed + cancelled;
 
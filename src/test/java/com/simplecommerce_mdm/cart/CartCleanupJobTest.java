@@ -0,0 +1,101 @@
+package com.simplecommerce_mdm.cart;
+
+import com.simplecommerce_mdm.cart.model.Cart;
+import com.simplecommerce_mdm.cart.model.CartItem;
+import com.simplecommerce_mdm.cart.service.CartCleanupJob;
+import com.simplecommerce_mdm.cart.service.CartCountCache;
+import com.simplecommerce_mdm.cart.service.CartStore;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"business.cart.cleanup.chunk-size=2", "business.cart.cleanup.pause-ms=0",
+        "business.cart.cleanup.initial-delay-ms=3600000", "business.cart.write-behind.flush-interval-ms=3600000"})
+@Import({CartCleanupJob.class, CartStore.class, CartCountCache.class, CartCleanupJobTest.TestConfig.class})
+public class CartCleanupJobTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class TestConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CartCleanupJob cartCleanupJob;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        User seller = entityManager.persist(User.builder().email("seller@example.com").passwordHash("x").build());
+        Shop shop = entityManager.persist(Shop.builder().user(seller).name("Shop").slug("shop").build());
+        Product product = entityManager.persist(Product.builder()
+                .shop(shop).name("Product").slug("product").basePrice(BigDecimal.TEN).build());
+        ProductVariant variant = entityManager.persist(ProductVariant.builder()
+                .product(product).sku("SKU-1").options("{}").finalPrice(BigDecimal.TEN).stockQuantity(10).build());
+
+        // Five expired carts with two items each, one live cart
+        for (int i = 0; i < 6; i++) {
+            User buyer = entityManager.persist(User.builder().email("buyer" + i + "@example.com").passwordHash("x").build());
+            OffsetDateTime expiresAt = i < 5 ? OffsetDateTime.now().minusDays(i + 1) : OffsetDateTime.now().plusDays(30);
+            Cart cart = entityManager.persist(Cart.builder().id(null).user(buyer).expiresAt(expiresAt).build());
+            for (int quantity = 1; quantity <= 2; quantity++) {
+                ProductVariant lineVariant = quantity == 1 ? variant : entityManager.persist(ProductVariant.builder()
+                        .product(product).sku("SKU-" + i + "-2").options("{}")
+                        .finalPrice(BigDecimal.TEN).stockQuantity(10).build());
+                entityManager.persist(CartItem.builder()
+                        .cart(cart).variant(lineVariant).quantity(quantity).priceAtAddition(BigDecimal.TEN).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testExpiredCartsArePurgedInChunks() {
+        CartCleanupJob.Purged purged = cartCleanupJob.runOnce();
+
+        assertEquals(5, purged.carts());
+        assertEquals(10, purged.items());
+        assertEquals(3.0, meterRegistry.get("carts.cleanup.chunks").counter().count());
+
+        entityManager.clear();
+        List<Cart> left = entityManager.getEntityManager()
+                .createQuery("SELECT c FROM Cart c", Cart.class).getResultList();
+        assertEquals(1, left.size());
+        assertTrue(left.get(0).getExpiresAt().isAfter(OffsetDateTime.now()));
+        assertEquals(2L, entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(ci) FROM CartItem ci", Long.class).getSingleResult());
+
+        assertEquals(0, cartCleanupJob.runOnce().carts());
+    }
+}
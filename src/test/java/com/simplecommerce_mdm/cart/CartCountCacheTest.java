@@ -0,0 +1,75 @@
+package com.simplecommerce_mdm.cart;
+
+import com.simplecommerce_mdm.cart.service.CartCountCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CartCountCacheTest {
+
+    private final CartCountCache cache = new CartCountCache(new SimpleMeterRegistry(), 2, 60_000);
+
+    @Test
+    public void testCountIsLoadedOnceUntilInvalidated() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(3, cache.get(1L, () -> { loads.incrementAndGet(); return 3; }));
+        assertEquals(3, cache.get(1L, () -> { loads.incrementAndGet(); return 99; }));
+        assertEquals(1, loads.get());
+
+        cache.invalidateAfterCommit(1L);
+        assertEquals(4, cache.get(1L, () -> { loads.incrementAndGet(); return 4; }));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testLoadRacingAChangeIsNotKept() {
+        // The cart changes while the old count is being read
+        assertEquals(3, cache.get(1L, () -> {
+            cache.invalidate(1L);
+            return 3;
+        }));
+
+        assertEquals(4, cache.get(1L, () -> 4));
+    }
+
+    @Test
+    public void testLoadRacingATrimIsNotKept() {
+        cache.get(1L, () -> 1);
+        cache.invalidate(1L);
+        assertEquals(5, cache.get(1L, () -> {
+            // Fills the cache past capacity, dropping user 1's stale mark
+            cache.get(2L, () -> 2);
+            cache.get(3L, () -> 3);
+            return 5;
+        }));
+
+        assertEquals(6, cache.get(1L, () -> 6));
+    }
+
+    @Test
+    public void testLeastRecentlyReadUserIsDropped() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, () -> 1);
+        cache.get(2L, () -> 2);
+        // Reading user 1 again makes user 2 the eldest
+        cache.get(1L, () -> { loads.incrementAndGet(); return 1; });
+        cache.get(3L, () -> 3);
+
+        assertEquals(1, cache.get(1L, () -> { loads.incrementAndGet(); return 1; }));
+        assertEquals(0, loads.get());
+        assertEquals(2, cache.get(2L, () -> { loads.incrementAndGet(); return 2; }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testCountsOlderThanMaxAgeAreReloaded() {
+        // Changes made on another node are never marked here, so only the age brings them in
+        CartCountCache expiring = new CartCountCache(new SimpleMeterRegistry(), 2, 0);
+        assertEquals(3, expiring.get(1L, () -> 3));
+        assertEquals(4, expiring.get(1L, () -> 4));
+    }
+}
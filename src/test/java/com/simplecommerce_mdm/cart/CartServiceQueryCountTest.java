@@ -0,0 +1,173 @@
+package com.simplecommerce_mdm.cart;
+
+import com.simplecommerce_mdm.cart.dto.CartResponse;
+import com.simplecommerce_mdm.cart.model.Cart;
+import com.simplecommerce_mdm.cart.model.CartItem;
+import com.simplecommerce_mdm.cart.service.CartCountCache;
+import com.simplecommerce_mdm.cart.service.CartService;
+import com.simplecommerce_mdm.cart.service.CartStore;
+import com.simplecommerce_mdm.cart.service.impl.CartServiceImpl;
+import com.simplecommerce_mdm.cloudinary.service.CloudinaryService;
+import com.simplecommerce_mdm.config.CustomUserDetails;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
+import com.simplecommerce_mdm.promotion.service.PromotionRuleEngine;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Keep the scheduled cart flush out of the counted statements
+        "business.cart.write-behind.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+@Import({CartServiceImpl.class, CartStore.class, CartCountCache.class, CartServiceQueryCountTest.AuditingConfig.class})
+public class CartServiceQueryCountTest {
+
+    private static final int ITEM_COUNT = 30;
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class AuditingConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @MockBean
+    private CloudinaryService cloudinaryService;
+
+    @MockBean
+    private ModelMapper modelMapper;
+
+    @MockBean
+    private PromotionRuleEngine promotionRuleEngine;
+
+    private User buyer;
+
+    @BeforeEach
+    public void setUp() {
+        when(cloudinaryService.getImageUrl(anyString())).thenAnswer(inv -> "https://img/" + inv.getArgument(0));
+        when(promotionRuleEngine.evaluate(any(), any(), any())).thenReturn(PromotionEvaluation.none());
+
+        buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+        Cart cart = entityManager.persist(Cart.builder().id(null).user(buyer).expiresAt(OffsetDateTime.now().plusDays(30)).build());
+        for (int s = 0; s < 3; s++) {
+            User seller = entityManager.persist(User.builder().email("seller" + s + "@example.com").passwordHash("x").build());
+            Shop shop = entityManager.persist(Shop.builder().user(seller).name("Shop " + s).slug("shop-" + s).build());
+            for (int p = 0; p < ITEM_COUNT / 3; p++) {
+                Product product = entityManager.persist(Product.builder()
+                        .shop(shop).name("Product " + s + p).slug("product-" + s + "-" + p).basePrice(BigDecimal.TEN).build());
+                ProductVariant variant = entityManager.persist(ProductVariant.builder()
+                        .product(product).sku("SKU-" + s + "-" + p).options("{}")
+                        .finalPrice(p == 0 ? BigDecimal.valueOf(12) : new BigDecimal("10.00"))
+                        .stockQuantity(p == 1 ? 1 : 100)
+                        .mainImageCloudinaryPublicId("img-" + s + p).build());
+                entityManager.persist(CartItem.builder()
+                        .cart(cart).variant(variant).quantity(2).priceAtAddition(BigDecimal.TEN).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testCartRendersInTwoQueriesWhateverItsSize() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CartResponse cart = cartService.getCart(new CustomUserDetails(buyer));
+
+        // cart with its items + variants with product and shop
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(ITEM_COUNT, cart.getTotalItems());
+        assertEquals(ITEM_COUNT * 2, cart.getTotalQuantity());
+        // 10.00 vs 10 is not a price change
+        assertEquals(3, cart.getItems().stream().filter(item -> item.getPriceChanged()).count());
+        assertEquals(3, cart.getItems().stream().filter(item -> !item.getInStock()).count());
+        assertTrue(cart.getHasPriceChanges());
+        assertTrue(cart.getHasOutOfStockItems());
+        assertTrue(cart.getItems().stream().allMatch(item -> item.getShopName().startsWith("Shop ")));
+
+        // Served by the cart store and its variant snapshots
+        entityManager.clear();
+        statistics.clear();
+        assertEquals(ITEM_COUNT, cartService.getCart(new CustomUserDetails(buyer)).getTotalItems());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testVariantChangesRefreshCachedCartFlags() {
+        cartService.getCart(new CustomUserDetails(buyer));
+
+        entityManager.getEntityManager()
+                .createQuery("UPDATE ProductVariant pv SET pv.finalPrice = 10, pv.stockQuantity = 100")
+                .executeUpdate();
+        entityManager.clear();
+        List<Long> variantIds = entityManager.getEntityManager()
+                .createQuery("SELECT pv.id FROM ProductVariant pv", Long.class)
+                .getResultList();
+        assertEquals(1, cartStore.refreshVariants(variantIds).size());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        CartResponse cart = cartService.getCart(new CustomUserDetails(buyer));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertFalse(cart.getHasPriceChanges());
+        assertFalse(cart.getHasOutOfStockItems());
+        assertTrue(cart.getItems().stream().allMatch(item -> item.getInStock() && !item.getPriceChanged()));
+    }
+
+    @Test
+    public void testCartCountIsServedFromCacheAfterFirstRead() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertEquals(ITEM_COUNT, cartService.getCartItemCount(new CustomUserDetails(buyer)));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(ITEM_COUNT, cartService.getCartItemCount(new CustomUserDetails(buyer)));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,280 @@
+package com.simplecommerce_mdm.cart;
+
+import com.simplecommerce_mdm.cart.dto.AddToCartRequest;
+import com.simplecommerce_mdm.cart.dto.UpdateCartItemRequest;
+import com.simplecommerce_mdm.cart.model.Cart;
+import com.simplecommerce_mdm.cart.model.CartItem;
+import com.simplecommerce_mdm.cart.service.CartCountCache;
+import com.simplecommerce_mdm.cart.service.CartService;
+import com.simplecommerce_mdm.cart.service.CartStore;
+import com.simplecommerce_mdm.cart.service.impl.CartServiceImpl;
+import com.simplecommerce_mdm.cloudinary.service.CloudinaryService;
+import com.simplecommerce_mdm.common.enums.ProductStatus;
+import com.simplecommerce_mdm.config.CustomUserDetails;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
+import com.simplecommerce_mdm.promotion.service.PromotionRuleEngine;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// The flusher writes in its own transactions, so fixtures are committed instead of living in a rollback-only test transaction.
+// Scheduling is on in this slice; the tests flush themselves, so the scheduled flush is pushed out of their way.
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "business.cart.write-behind.revalidate-ms=0",
+        "business.cart.write-behind.flush-interval-ms=3600000"
+})
+@Import({CartServiceImpl.class, CartStore.class, CartCountCache.class, CartStoreTest.TestConfig.class})
+public class CartStoreTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class TestConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private CloudinaryService cloudinaryService;
+
+    @MockBean
+    private ModelMapper modelMapper;
+
+    @MockBean
+    private PromotionRuleEngine promotionRuleEngine;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private User buyer;
+    private Long itemId;
+    private Long otherVariantId;
+
+    @BeforeEach
+    public void setUp() {
+        when(promotionRuleEngine.evaluate(any(), any(), any())).thenReturn(PromotionEvaluation.none());
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+            User seller = entityManager.persist(User.builder().email("seller@example.com").passwordHash("x").build());
+            Shop shop = entityManager.persist(Shop.builder().user(seller).name("Shop").slug("shop").build());
+            Product product = entityManager.persist(Product.builder().shop(shop).name("Product").slug("product")
+                    .basePrice(BigDecimal.TEN).status(ProductStatus.APPROVED).build());
+            ProductVariant variant = entityManager.persist(ProductVariant.builder()
+                    .product(product).sku("SKU-1").options("{}").finalPrice(BigDecimal.TEN).stockQuantity(100).build());
+            otherVariantId = entityManager.persist(ProductVariant.builder()
+                    .product(product).sku("SKU-2").options("{}").finalPrice(BigDecimal.ONE).stockQuantity(100).build()).getId();
+            Cart cart = entityManager.persist(Cart.builder().id(null).user(buyer)
+                    .expiresAt(OffsetDateTime.now().plusDays(1)).build());
+            itemId = entityManager.persist(CartItem.builder()
+                    .cart(cart).variant(variant).quantity(1).priceAtAddition(BigDecimal.TEN).build()).getId();
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cartStore.evictAfterCommit(buyer.getId());
+        transaction.executeWithoutResult(status -> {
+            for (String entity : List.of("CartItem", "Cart", "ProductVariant", "Product", "Shop", "User")) {
+                entityManager.getEntityManager().createQuery("DELETE FROM " + entity).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    public void testQuantityChangesAreCoalescedAndWrittenBehind() {
+        CustomUserDetails user = new CustomUserDetails(buyer);
+        double flushed = counter("cart.store.flushed.items", null);
+        for (int quantity = 2; quantity <= 5; quantity++) {
+            assertEquals(quantity, cartService.updateCartItem(user, itemId, quantity(quantity)).getQuantity());
+        }
+        assertEquals(1, storedQuantity());
+        assertEquals(5, cartService.getCart(user).getTotalQuantity());
+
+        cartStore.flushDirty();
+        assertEquals(5, storedQuantity());
+        assertEquals(flushed + 1, counter("cart.store.flushed.items", null));
+        assertTrue(storedExpiry().isAfter(OffsetDateTime.now().plusDays(29)));
+
+        // Nothing left to write
+        cartStore.flushDirty();
+        assertEquals(flushed + 1, counter("cart.store.flushed.items", null));
+    }
+
+    @Test
+    public void testNewItemsAreWrittenThroughAndPendingChangesFlushBeforeCheckout() {
+        CustomUserDetails user = new CustomUserDetails(buyer);
+        AddToCartRequest request = AddToCartRequest.builder().variantId(otherVariantId).quantity(2).build();
+        assertEquals(2, cartService.addToCart(user, request).getTotalItems());
+        Long rows = transaction.execute(status -> entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(ci) FROM CartItem ci", Long.class).getSingleResult());
+        assertEquals(2L, rows);
+
+        // Adding the same variant again only raises the quantity in memory
+        assertEquals(5, cartService.addToCart(user, request).getTotalQuantity());
+        cartStore.flush(buyer.getId());
+        Integer stored = transaction.execute(status -> entityManager.getEntityManager()
+                .createQuery("SELECT ci.quantity FROM CartItem ci WHERE ci.variant.id = :variantId", Integer.class)
+                .setParameter("variantId", otherVariantId).getSingleResult());
+        assertEquals(4, stored);
+    }
+
+    @Test
+    public void testReviveOfExpiredCartIsWrittenThrough() {
+        transaction.executeWithoutResult(status -> entityManager.getEntityManager()
+                .createQuery("UPDATE Cart c SET c.expiresAt = :expiresAt")
+                .setParameter("expiresAt", OffsetDateTime.now().minusDays(1)).executeUpdate());
+
+        // The cleanup job must not see the cart as expired once it is used again
+        cartService.updateCartItem(new CustomUserDetails(buyer), itemId, quantity(3));
+        assertTrue(storedExpiry().isAfter(OffsetDateTime.now().plusDays(29)));
+        assertEquals(3, storedQuantity());
+    }
+
+    @Test
+    public void testCartChangedOnAnotherNodeIsReloaded() {
+        CustomUserDetails user = new CustomUserDetails(buyer);
+        double stale = counter("cart.store.requests", "stale");
+        assertEquals(1, cartService.getCart(user).getTotalQuantity());
+
+        otherNodeSetsQuantity(7);
+        assertEquals(7, cartService.getCart(user).getTotalQuantity());
+        assertEquals(stale + 1, counter("cart.store.requests", "stale"));
+    }
+
+    @Test
+    public void testPendingQuantityIsReappliedOnTopOfAnotherNodesChange() {
+        CustomUserDetails user = new CustomUserDetails(buyer);
+        double conflicts = counter("cart.store.write.conflicts", null);
+        cartService.updateCartItem(user, itemId, quantity(3));
+
+        // The write behind finds the cart changed: it reloads it and writes this node's quantity on top
+        otherNodeSetsQuantity(7);
+        cartStore.flushDirty();
+        assertEquals(conflicts + 1, counter("cart.store.write.conflicts", null));
+        cartStore.flush(buyer.getId());
+        assertEquals(3, storedQuantity());
+        assertEquals(3, cartService.getCart(user).getTotalQuantity());
+    }
+
+    @Test
+    public void testPendingQuantityOfItemRemovedOnAnotherNodeIsDropped() {
+        CustomUserDetails user = new CustomUserDetails(buyer);
+        cartService.updateCartItem(user, itemId, quantity(3));
+
+        transaction.executeWithoutResult(status -> {
+            entityManager.getEntityManager().createQuery("DELETE FROM CartItem").executeUpdate();
+            entityManager.getEntityManager().createQuery("UPDATE Cart c SET c.updatedAt = :updatedAt")
+                    .setParameter("updatedAt", LocalDateTime.now().plusSeconds(1)).executeUpdate();
+        });
+        cartStore.flushDirty();
+        cartStore.flush(buyer.getId());
+        assertEquals(0, cartService.getCart(user).getTotalItems());
+    }
+
+    @Test
+    public void testItemsAddedOnThisNodeDoNotConflictWithPendingQuantities() {
+        CustomUserDetails user = new CustomUserDetails(buyer);
+        double conflicts = counter("cart.store.write.conflicts", null);
+        cartService.updateCartItem(user, itemId, quantity(3));
+        cartService.addToCart(user, AddToCartRequest.builder().variantId(otherVariantId).quantity(1).build());
+
+        cartStore.flushDirty();
+        assertEquals(3, storedQuantity());
+        assertEquals(conflicts, counter("cart.store.write.conflicts", null));
+    }
+
+    @Test
+    public void testAddingToACartDeletedOnAnotherNodeCreatesItAgain() {
+        CustomUserDetails user = new CustomUserDetails(buyer);
+        assertEquals(1, cartService.getCart(user).getTotalItems());
+
+        // The other node's cleanup purged the cart this node still holds
+        transaction.executeWithoutResult(status -> {
+            entityManager.getEntityManager().createQuery("DELETE FROM CartItem").executeUpdate();
+            entityManager.getEntityManager().createQuery("DELETE FROM Cart").executeUpdate();
+        });
+
+        AddToCartRequest request = AddToCartRequest.builder().variantId(otherVariantId).quantity(2).build();
+        assertEquals(1, cartService.addToCart(user, request).getTotalItems());
+        Long rows = transaction.execute(status -> entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(ci) FROM CartItem ci WHERE ci.cart.user.id = :userId", Long.class)
+                .setParameter("userId", buyer.getId()).getSingleResult());
+        assertEquals(1L, rows);
+    }
+
+    private double counter(String name, String result) {
+        return result != null
+                ? meterRegistry.get(name).tag("result", result).counter().count()
+                : meterRegistry.get(name).counter().count();
+    }
+
+    private void otherNodeSetsQuantity(int quantity) {
+        transaction.executeWithoutResult(status -> {
+            entityManager.getEntityManager().createQuery("UPDATE CartItem ci SET ci.quantity = :quantity")
+                    .setParameter("quantity", quantity).executeUpdate();
+            entityManager.getEntityManager().createQuery("UPDATE Cart c SET c.updatedAt = :updatedAt")
+                    .setParameter("updatedAt", LocalDateTime.now().plusSeconds(1)).executeUpdate();
+        });
+    }
+
+    private static UpdateCartItemRequest quantity(int quantity) {
+        return UpdateCartItemRequest.builder().quantity(quantity).build();
+    }
+
+    private int storedQuantity() {
+        return transaction.execute(status -> entityManager.find(CartItem.class, itemId).getQuantity());
+    }
+
+    private OffsetDateTime storedExpiry() {
+        return transaction.execute(status -> entityManager.getEntityManager()
+                .createQuery("SELECT c.expiresAt FROM Cart c", OffsetDateTime.class).getSingleResult());
+    }
+}
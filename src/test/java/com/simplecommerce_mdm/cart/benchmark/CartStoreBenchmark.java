@@ -0,0 +1,246 @@
+package com.simplecommerce_mdm.cart.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.simplecommerce_mdm.cart.dto.AddToCartRequest;
+import com.simplecommerce_mdm.cart.dto.CartItemResponse;
+import com.simplecommerce_mdm.cart.dto.CartResponse;
+import com.simplecommerce_mdm.cart.dto.UpdateCartItemRequest;
+import com.simplecommerce_mdm.cart.model.Cart;
+import com.simplecommerce_mdm.cart.model.CartItem;
+import com.simplecommerce_mdm.cart.repository.CartRepository;
+import com.simplecommerce_mdm.cart.service.CartCountCache;
+import com.simplecommerce_mdm.cart.service.CartService;
+import com.simplecommerce_mdm.cart.service.CartStore;
+import com.simplecommerce_mdm.cart.service.impl.CartServiceImpl;
+import com.simplecommerce_mdm.cloudinary.service.CloudinaryService;
+import com.simplecommerce_mdm.common.enums.ProductStatus;
+import com.simplecommerce_mdm.config.CustomUserDetails;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.product.repository.ProductVariantRepository;
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
+import com.simplecommerce_mdm.promotion.service.PromotionRuleEngine;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.mockito.Mockito;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Cart operations per second through CartServiceImpl on an in-memory H2 database, with every change
+ * written in the request ({@code writeBehind=false}, the old behaviour) and with the write-behind cart store
+ * flushing once a second. Each benchmark thread works on its own 10-item cart.
+ * Build the classpath with: mvn -q dependency:build-classpath -Dmdep.outputFile=/tmp/cp.txt
+ * Run with: java -cp target/test-classes:target/classes:$(cat /tmp/cp.txt) org.openjdk.jmh.Main CartStoreBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CartStoreBenchmark {
+
+    private static final int BUYERS = 4;
+    private static final int ITEMS_PER_CART = 10;
+
+    @Param({"false", "true"})
+    public boolean writeBehind;
+
+    private AnnotationConfigApplicationContext context;
+    private ScheduledExecutorService flusher;
+    private CartService cartService;
+    private final List<Buyer> buyers = new ArrayList<>();
+    private final AtomicInteger nextBuyer = new AtomicInteger();
+
+    // Registered explicitly, not a @Configuration, so the application's component scan never picks it up
+    @EnableTransactionManagement
+    @EnableJpaAuditing
+    @EnableJpaRepositories(basePackageClasses = {CartRepository.class, ProductVariantRepository.class})
+    @Import({CartServiceImpl.class, CartStore.class, CartCountCache.class})
+    static class BenchmarkConfig {
+
+        @Bean
+        static PropertySourcesPlaceholderConfigurer placeholderConfigurer() {
+            return new PropertySourcesPlaceholderConfigurer();
+        }
+
+        @Bean
+        DataSource dataSource() {
+            return new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan("com.simplecommerce_mdm");
+            HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+            vendorAdapter.setGenerateDdl(true);
+            factory.setJpaVendorAdapter(vendorAdapter);
+            factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create"));
+            return factory;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ModelMapper modelMapper() {
+            return new ModelMapper();
+        }
+
+        @Bean
+        CloudinaryService cloudinaryService() {
+            return Mockito.mock(CloudinaryService.class);
+        }
+
+        @Bean
+        PromotionRuleEngine promotionRuleEngine() {
+            PromotionRuleEngine engine = Mockito.mock(PromotionRuleEngine.class);
+            Mockito.when(engine.evaluate(any(), any(), any())).thenReturn(PromotionEvaluation.none());
+            return engine;
+        }
+    }
+
+    private record Buyer(CustomUserDetails user, List<Long> itemIds, List<Long> variantIds) {
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        Buyer buyer;
+        int op;
+
+        @Setup(org.openjdk.jmh.annotations.Level.Trial)
+        public void pick(CartStoreBenchmark benchmark) {
+            buyer = benchmark.buyers.get(benchmark.nextBuyer.getAndIncrement() % BUYERS);
+        }
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void setUp() {
+        // Without a logback config every SQL statement is logged at DEBUG, which would be all we measure
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Map.of("business.cart.write-behind.enabled", String.valueOf(writeBehind))));
+        context.register(BenchmarkConfig.class);
+        context.refresh();
+        cartService = context.getBean(CartService.class);
+
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            User seller = persist(entityManager, User.builder().email("seller@example.com").passwordHash("x").build());
+            Shop shop = persist(entityManager, Shop.builder().user(seller).name("Shop").slug("shop").build());
+            Product product = persist(entityManager, Product.builder().shop(shop).name("Product").slug("product")
+                    .basePrice(BigDecimal.TEN).status(ProductStatus.APPROVED).build());
+            for (int b = 0; b < BUYERS; b++) {
+                User user = persist(entityManager, User.builder().email("buyer" + b + "@example.com").passwordHash("x").build());
+                Cart cart = persist(entityManager, Cart.builder().id(null).user(user)
+                        .expiresAt(OffsetDateTime.now().plusDays(30)).build());
+                Buyer buyer = new Buyer(new CustomUserDetails(user), new ArrayList<>(), new ArrayList<>());
+                for (int i = 0; i < ITEMS_PER_CART; i++) {
+                    ProductVariant variant = persist(entityManager, ProductVariant.builder()
+                            .product(product).sku("SKU-" + b + "-" + i).options("{}")
+                            .finalPrice(BigDecimal.TEN).stockQuantity(Integer.MAX_VALUE).build());
+                    CartItem item = persist(entityManager, CartItem.builder()
+                            .cart(cart).variant(variant).quantity(1).priceAtAddition(BigDecimal.TEN).build());
+                    buyer.itemIds().add(item.getId());
+                    buyer.variantIds().add(variant.getId());
+                }
+                buyers.add(buyer);
+            }
+        });
+
+        if (writeBehind) {
+            CartStore cartStore = context.getBean(CartStore.class);
+            flusher = Executors.newSingleThreadScheduledExecutor();
+            flusher.scheduleWithFixedDelay(cartStore::flushDirty, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void tearDown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public CartItemResponse updateQuantity(Session session) {
+        int op = session.op++;
+        return cartService.updateCartItem(session.buyer.user(), session.buyer.itemIds().get(op % ITEMS_PER_CART),
+                UpdateCartItemRequest.builder().quantity(1 + op % 5).build());
+    }
+
+    @Benchmark
+    public CartResponse addExistingItem(Session session) {
+        int op = session.op++;
+        return cartService.addToCart(session.buyer.user(), AddToCartRequest.builder()
+                .variantId(session.buyer.variantIds().get(op % ITEMS_PER_CART)).quantity(1).build());
+    }
+
+    @Benchmark
+    public CartResponse getCart(Session session) {
+        return cartService.getCart(session.buyer.user());
+    }
+
+    private static <T> T persist(EntityManager entityManager, T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CartStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
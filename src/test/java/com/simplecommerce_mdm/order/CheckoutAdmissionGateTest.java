@@ -0,0 +1,129 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.cart.repository.CartItemRepository;
+import com.simplecommerce_mdm.exception.TooManyRequestsException;
+import com.simplecommerce_mdm.order.service.CheckoutAdmissionGate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CheckoutAdmissionGateTest {
+
+    @Test
+    public void testHotCheckoutsQueueAndOverflowIsTurnedAway() throws Exception {
+        CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+        when(cartItemRepository.findVariantIdsByCartUserId(1L)).thenReturn(List.of(5L));
+        when(cartItemRepository.findVariantIdsByCartUserId(2L)).thenReturn(List.of(5L, 6L));
+        when(cartItemRepository.findVariantIdsByCartUserId(3L)).thenReturn(List.of(5L));
+        when(cartItemRepository.findVariantIdsByCartUserId(4L)).thenReturn(List.of(6L));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CheckoutAdmissionGate gate = new CheckoutAdmissionGate(cartItemRepository, meterRegistry, 1, "5");
+        ReflectionTestUtils.setField(gate, "queueCapacity", 1);
+        ReflectionTestUtils.setField(gate, "maxWaitMs", 300L);
+
+        // The first buyer holds the only slot
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> gate.admit(1L, null, () -> {
+            running.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        // The second waits in the queue, the third finds it full
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> gate.admit(2L, null, () -> "second"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (gate.getQueueDepth() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        TooManyRequestsException full = assertThrows(TooManyRequestsException.class,
+                () -> gate.admit(3L, null, () -> "third"));
+        assertTrue(full.getRetryAfterSeconds() >= 1);
+
+        // Buyers without hot variants are not held up
+        assertEquals("other", gate.admit(4L, null, () -> "other"));
+
+        // The queued buyer gives up once the wait is over
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TooManyRequestsException.class, timedOut.getCause());
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals(0, gate.getInFlight());
+        assertEquals(1.0, meterRegistry.get("checkout.admission.rejected").tag("reason", "queue_full").counter().count());
+        assertEquals(1.0, meterRegistry.get("checkout.admission.rejected").tag("reason", "timeout").counter().count());
+        assertEquals(0.0, meterRegistry.get("checkout.admission.queue.depth").gauge().value());
+    }
+
+    @Test
+    public void testQueueIsCappedBelowTheServletThreadPool() {
+        CheckoutAdmissionGate gate = new CheckoutAdmissionGate(mock(CartItemRepository.class), new SimpleMeterRegistry(), 4, "5");
+        ReflectionTestUtils.setField(gate, "queueCapacity", 500);
+        assertEquals(50, gate.getQueueCapacity());
+        ReflectionTestUtils.setField(gate, "queueCapacity", 20);
+        assertEquals(20, gate.getQueueCapacity());
+    }
+
+    @Test
+    public void testInterruptedWaitIsNotReportedAsTimeout() throws Exception {
+        CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+        when(cartItemRepository.findVariantIdsByCartUserId(1L)).thenReturn(List.of(5L));
+        when(cartItemRepository.findVariantIdsByCartUserId(2L)).thenReturn(List.of(5L));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CheckoutAdmissionGate gate = new CheckoutAdmissionGate(cartItemRepository, meterRegistry, 1, "5");
+        ReflectionTestUtils.setField(gate, "queueCapacity", 10);
+        ReflectionTestUtils.setField(gate, "maxWaitMs", 10000L);
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> gate.admit(1L, null, () -> {
+            running.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        CompletableFuture<Boolean> interruptFlag = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                gate.admit(2L, null, () -> "second");
+            } catch (RuntimeException e) {
+                failure.complete(e);
+            }
+            interruptFlag.complete(Thread.currentThread().isInterrupted());
+        });
+        waiter.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (gate.getQueueDepth() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        waiter.interrupt();
+
+        assertInstanceOf(IllegalStateException.class, failure.get(5, TimeUnit.SECONDS));
+        assertTrue(interruptFlag.get(5, TimeUnit.SECONDS));
+        assertEquals(0.0, meterRegistry.get("checkout.admission.rejected").tag("reason", "timeout").counter().count());
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.simplecommerce_mdm.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.order.dto.CheckoutRequest;
+import com.simplecommerce_mdm.order.dto.MasterOrderResponse;
+import com.simplecommerce_mdm.order.repository.CheckoutIdempotencyKeyRepository;
+import com.simplecommerce_mdm.order.service.CheckoutIdempotencyStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checkouts record their key in their own transactions, so nothing runs in a rollback-only test transaction
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(CheckoutIdempotencyStoreTest.TestConfig.class)
+public class CheckoutIdempotencyStoreTest {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+    }
+
+    @Autowired
+    private CheckoutIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CheckoutIdempotencyStore store;
+
+    @BeforeEach
+    public void setUp() {
+        idempotencyKeyRepository.deleteAll();
+        store = newNode();
+    }
+
+    @Test
+    public void testConcurrentDuplicatesExecuteCheckoutOnce() throws Exception {
+        CheckoutRequest request = request(1L);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CheckoutIdempotencyStore.Outcome>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return store.execute(10L, "key-1", request, Supplier::get, () -> {
+                        executions.incrementAndGet();
+                        sleep(100);
+                        return MasterOrderResponse.builder().id(99L).build();
+                    });
+                }));
+            }
+            start.countDown();
+
+            int replays = 0;
+            for (Future<CheckoutIdempotencyStore.Outcome> future : futures) {
+                CheckoutIdempotencyStore.Outcome outcome = future.get(10, TimeUnit.SECONDS);
+                assertEquals(99L, outcome.response().getId());
+                if (outcome.replayed()) {
+                    replays++;
+                }
+            }
+            assertEquals(1, executions.get());
+            assertEquals(7, replays);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDifferentRequestWithSameKeyIsRejected() {
+        store.execute(10L, "key-2", request(1L), Supplier::get, () -> MasterOrderResponse.builder().id(1L).build());
+
+        assertThrows(InvalidDataException.class, () ->
+                store.execute(10L, "key-2", request(2L), Supplier::get, () -> MasterOrderResponse.builder().id(2L).build()));
+    }
+
+    @Test
+    public void testFailedCheckoutReleasesKey() {
+        CheckoutRequest request = request(1L);
+        assertThrows(InvalidDataException.class, () -> store.execute(10L, "key-3", request, Supplier::get, () -> {
+            throw new InvalidDataException("Insufficient stock");
+        }));
+
+        CheckoutIdempotencyStore.Outcome retry = store.execute(10L, "key-3", request, Supplier::get,
+                () -> MasterOrderResponse.builder().id(5L).build());
+        assertFalse(retry.replayed());
+        assertEquals(5L, retry.response().getId());
+    }
+
+    @Test
+    public void testKeyExpiresAfterTtl() {
+        ReflectionTestUtils.setField(store, "ttlMinutes", 0L);
+        CheckoutRequest request = request(1L);
+        store.execute(10L, "key-4", request, Supplier::get, () -> MasterOrderResponse.builder().id(1L).build());
+        store.purgeExpired();
+
+        CheckoutIdempotencyStore.Outcome again = store.execute(10L, "key-4", request, Supplier::get,
+                () -> MasterOrderResponse.builder().id(2L).build());
+        assertFalse(again.replayed());
+        assertEquals(2L, again.response().getId());
+    }
+
+    @Test
+    public void testKeyRecordedOnOneNodeIsReplayedOnAnother() {
+        CheckoutRequest request = request(1L);
+        store.execute(10L, "key-5", request, Supplier::get, () -> MasterOrderResponse.builder().id(7L).build());
+
+        // Another node, or this one after a restart, has nothing in memory
+        AtomicInteger executions = new AtomicInteger();
+        CheckoutIdempotencyStore.Outcome retry = newNode().execute(10L, "key-5", request, Supplier::get, () -> {
+            executions.incrementAndGet();
+            return MasterOrderResponse.builder().id(8L).build();
+        });
+        assertTrue(retry.replayed());
+        assertEquals(7L, retry.response().getId());
+        assertEquals(0, executions.get());
+
+        assertThrows(InvalidDataException.class, () -> newNode().execute(10L, "key-5", request(2L), Supplier::get,
+                () -> MasterOrderResponse.builder().id(9L).build()));
+    }
+
+    @Test
+    public void testFailedCheckoutIsNotRecorded() {
+        CheckoutRequest request = request(1L);
+        assertThrows(InvalidDataException.class, () -> store.execute(10L, "key-6", request, Supplier::get, () -> {
+            throw new InvalidDataException("Insufficient stock");
+        }));
+
+        assertTrue(idempotencyKeyRepository.findAll().isEmpty());
+        CheckoutIdempotencyStore.Outcome retry = newNode().execute(10L, "key-6", request, Supplier::get,
+                () -> MasterOrderResponse.builder().id(5L).build());
+        assertFalse(retry.replayed());
+    }
+
+    @Test
+    public void testErrorInCheckoutReleasesKey() {
+        CheckoutRequest request = request(1L);
+        assertThrows(StackOverflowError.class, () -> store.execute(10L, "key-7", request, Supplier::get, () -> {
+            throw new StackOverflowError();
+        }));
+
+        CheckoutIdempotencyStore.Outcome retry = store.execute(10L, "key-7", request, Supplier::get,
+                () -> MasterOrderResponse.builder().id(6L).build());
+        assertFalse(retry.replayed());
+        assertEquals(6L, retry.response().getId());
+    }
+
+    private CheckoutIdempotencyStore newNode() {
+        CheckoutIdempotencyStore node = new CheckoutIdempotencyStore(idempotencyKeyRepository, objectMapper,
+                transactionManager);
+        ReflectionTestUtils.setField(node, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(node, "waitSeconds", 5L);
+        return node;
+    }
+
+    private CheckoutRequest request(Long addressId) {
+        return CheckoutRequest.builder()
+                .shippingAddressId(addressId)
+                .paymentMethodCode("COD")
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
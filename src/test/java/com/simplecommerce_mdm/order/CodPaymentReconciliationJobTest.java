@@ -0,0 +1,165 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.common.enums.PaymentStatus;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderStatusHistory;
+import com.simplecommerce_mdm.order.model.Payment;
+import com.simplecommerce_mdm.order.model.PaymentMethod;
+import com.simplecommerce_mdm.order.repository.PaymentRepository;
+import com.simplecommerce_mdm.order.service.CodPaymentReconciliationJob;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "business.payment.cod-reconciliation.chunk-size=2")
+@Import({CodPaymentReconciliationJob.class, CodPaymentReconciliationJobTest.TestConfig.class})
+public class CodPaymentReconciliationJobTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class TestConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CodPaymentReconciliationJob job;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User buyer;
+    private Shop shop;
+    private PaymentMethod cod;
+
+    @BeforeEach
+    public void setUp() {
+        buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+        User seller = entityManager.persist(User.builder().email("seller@example.com").passwordHash("x").build());
+        shop = entityManager.persist(Shop.builder().user(seller).name("Shop").slug("shop").build());
+        cod = entityManager.persist(PaymentMethod.builder().name("Cash on delivery").code("COD").build());
+    }
+
+    @Test
+    public void testSettlesPaymentsOnceEveryShopOrderIsDeliveredOrCancelled() {
+        // Delivered + cancelled: settled
+        Payment settled = masterOrderWithPayment("MO1", OrderStatus.DELIVERED, OrderStatus.CANCELLED_BY_SELLER);
+        // Completed: settled
+        Payment completed = masterOrderWithPayment("MO2", OrderStatus.COMPLETED);
+        // Still shipping one parcel: stays pending
+        Payment shipping = masterOrderWithPayment("MO3", OrderStatus.DELIVERED, OrderStatus.SHIPPED);
+        entityManager.flush();
+        entityManager.clear();
+
+        // 4 transitions in chunks of 2
+        assertEquals(2, job.runOnce());
+        assertEquals(PaymentStatus.COMPLETED, status(settled));
+        assertNotNull(paymentRepository.findById(settled.getId()).orElseThrow().getSettledAt());
+        // Only the delivered shop order (10 + 1 shipping) was paid for, not the cancelled one
+        assertEquals(0, BigDecimal.valueOf(11).compareTo(
+                paymentRepository.findById(settled.getId()).orElseThrow().getSettledAmount()));
+        assertEquals(PaymentStatus.COMPLETED, status(completed));
+        assertEquals(PaymentStatus.PENDING, status(shipping));
+        assertEquals(2.0, meterRegistry.get("payments.cod.reconciliation.chunks").counter().count());
+        assertEquals(0.0, meterRegistry.get("payments.cod.reconciliation.lag.seconds").gauge().value());
+
+        // The checkpoint has moved past everything; only the new delivery is looked at
+        Order parcel = entityManager.getEntityManager()
+                .createQuery("SELECT o FROM Order o WHERE o.orderStatus = :status", Order.class)
+                .setParameter("status", OrderStatus.SHIPPED).getSingleResult();
+        parcel.setOrderStatus(OrderStatus.DELIVERED);
+        entityManager.persist(history(parcel, OrderStatus.DELIVERED));
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(1, job.runOnce());
+        assertEquals(PaymentStatus.COMPLETED, status(shipping));
+        assertEquals(3.0, meterRegistry.get("payments.cod.reconciliation.chunks").counter().count());
+        assertEquals(3.0, meterRegistry.get("payments.cod.settled").counter().count());
+    }
+
+    @Test
+    public void testSweepSettlesOrdersDeliveredWithoutHistory() {
+        Payment delivered = masterOrderWithPayment("MO1");
+        entityManager.persist(Order.builder()
+                .masterOrder(delivered.getMasterOrder()).orderNumber("MO1-0").shop(shop)
+                .orderStatus(OrderStatus.DELIVERED)
+                .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build());
+        Payment shipping = masterOrderWithPayment("MO2", OrderStatus.SHIPPED);
+        entityManager.flush();
+        // Older than the safety lag
+        entityManager.getEntityManager().createQuery("UPDATE Payment p SET p.createdAt = :at")
+                .setParameter("at", LocalDateTime.now().minusHours(1)).executeUpdate();
+        entityManager.clear();
+
+        // No history row, so the transition feed never sees the delivery
+        assertEquals(0, job.runOnce());
+        assertEquals(PaymentStatus.PENDING, status(delivered));
+
+        assertEquals(1, job.sweepOnce());
+        assertEquals(PaymentStatus.COMPLETED, status(delivered));
+        assertEquals(PaymentStatus.PENDING, status(shipping));
+
+        // The sweep wrapped around and finds nothing new
+        assertEquals(0, job.sweepOnce());
+    }
+
+    private Payment masterOrderWithPayment(String number, OrderStatus... statuses) {
+        MasterOrder masterOrder = entityManager.persist(MasterOrder.builder()
+                .orderGroupNumber(number).user(buyer).customerEmail(buyer.getEmail())
+                .shippingAddressSnapshot("HCM").overallStatus(MasterOrderStatus.PROCESSING)
+                .totalAmountPaid(BigDecimal.TEN).build());
+        for (int i = 0; i < statuses.length; i++) {
+            Order order = entityManager.persist(Order.builder()
+                    .masterOrder(masterOrder).orderNumber(number + "-" + i).shop(shop)
+                    .orderStatus(statuses[i])
+                    .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build());
+            if (statuses[i] != OrderStatus.SHIPPED) {
+                entityManager.persist(history(order, statuses[i]));
+            }
+        }
+        return entityManager.persist(Payment.builder()
+                .masterOrder(masterOrder).paymentMethod(cod).amount(BigDecimal.TEN)
+                .transactionId("COD-" + number).build());
+    }
+
+    // Older than the safety lag
+    private static OrderStatusHistory history(Order order, OrderStatus to) {
+        return OrderStatusHistory.builder()
+                .order(order).statusTo(to).changedAt(OffsetDateTime.now().minusMinutes(10)).build();
+    }
+
+    private PaymentStatus status(Payment payment) {
+        return paymentRepository.findById(payment.getId()).orElseThrow().getStatus();
+    }
+}
@@ -0,0 +1,180 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.dto.MasterOrderCounterCheckResponse;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.order.service.MasterOrderCounterReconcileJob;
+import com.simplecommerce_mdm.order.service.MasterOrderStatusCounters;
+import com.simplecommerce_mdm.order.service.OrderCreatedAtBounds;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({MasterOrderStatusCounters.class, MasterOrderCounterReconcileJob.class, MasterOrderStatusCountersTest.AuditingConfig.class})
+public class MasterOrderStatusCountersTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class AuditingConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MasterOrderStatusCounters counters;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MasterOrderCounterReconcileJob reconcileJob;
+
+    private Shop shop;
+
+    private MasterOrder masterOrder;
+    private Order first;
+    private Order second;
+
+    @BeforeEach
+    public void setUp() {
+        User buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+        User seller = entityManager.persist(User.builder().email("seller@example.com").passwordHash("x").build());
+        shop = entityManager.persist(Shop.builder().user(seller).name("Shop").slug("shop").build());
+
+        masterOrder = MasterOrder.builder()
+                .orderGroupNumber("MO1").user(buyer).customerEmail(buyer.getEmail())
+                .shippingAddressSnapshot("HCM").totalAmountPaid(BigDecimal.TEN).build();
+        first = order(masterOrder, shop, "ORD1");
+        second = order(masterOrder, shop, "ORD2");
+        counters.initialize(masterOrder, List.of(first, second));
+
+        entityManager.persist(masterOrder);
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.flush();
+    }
+
+    @Test
+    public void testTransitionsDeriveOverallStatus() {
+        assertEquals(MasterOrderStatus.AWAITING_CONFIRMATION, masterOrder.getOverallStatus());
+
+        assertEquals(MasterOrderStatus.PROCESSING, transition(first, OrderStatus.PROCESSING));
+        assertEquals(MasterOrderStatus.PARTIALLY_CANCELLED, transition(second, OrderStatus.CANCELLED_BY_USER));
+        assertEquals(MasterOrderStatus.CANCELLED, transition(first, OrderStatus.CANCELLED_BY_SELLER));
+
+        MasterOrderCounterCheckResponse check = counters.verify(List.of(masterOrder.getId()), false);
+        assertEquals(0, check.getMismatched());
+    }
+
+    @Test
+    public void testMissingCountersAreRebuilt() {
+        entityManager.getEntityManager()
+                .createQuery("UPDATE MasterOrder mo SET mo.childOrderCount = NULL WHERE mo.id = :id")
+                .setParameter("id", masterOrder.getId())
+                .executeUpdate();
+
+        MasterOrderCounterCheckResponse check = counters.verify(List.of(masterOrder.getId()), false);
+        assertEquals(1, check.getMismatched());
+
+        assertEquals(MasterOrderStatus.PROCESSING, transition(first, OrderStatus.PROCESSING));
+        assertEquals(0, counters.verify(List.of(masterOrder.getId()), false).getMismatched());
+    }
+
+    @Test
+    public void testBulkTransitionUpdatesOrdersAndCountersOnce() {
+        List<Long> ids = List.of(first.getId(), second.getId());
+        OrderCreatedAtBounds.Range createdAt = OrderCreatedAtBounds.of(List.of(first, second));
+        assertEquals(2, orderRepository.findAllForStatusUpdate(ids, shop.getId(), createdAt.from(), createdAt.to()).size());
+        // Rows outside the created_at range are not matched
+        assertEquals(0, orderRepository.findAllForStatusUpdate(ids, shop.getId(),
+                createdAt.to(), createdAt.to().plusDays(1)).size());
+
+        OffsetDateTime now = OffsetDateTime.now();
+        int updated = orderRepository.bulkUpdateStatus(ids, OrderStatus.AWAITING_CONFIRMATION,
+                OrderStatus.PROCESSING, "packed", now, now.toLocalDateTime(), createdAt.from(), createdAt.to());
+        assertEquals(2, updated);
+        // Rows that already left the source status are not touched again
+        assertEquals(0, orderRepository.bulkUpdateStatus(ids, OrderStatus.AWAITING_CONFIRMATION,
+                OrderStatus.PROCESSING, null, now, now.toLocalDateTime(), createdAt.from(), createdAt.to()));
+
+        Map<Long, MasterOrderStatus> statuses = counters.applyTransitions(List.of(
+                new MasterOrderStatusCounters.Transition(masterOrder, OrderStatus.AWAITING_CONFIRMATION, OrderStatus.PROCESSING),
+                new MasterOrderStatusCounters.Transition(masterOrder, OrderStatus.AWAITING_CONFIRMATION, OrderStatus.PROCESSING)));
+        assertEquals(MasterOrderStatus.PROCESSING, statuses.get(masterOrder.getId()));
+
+        Order reloaded = orderRepository.findById(first.getId()).orElseThrow();
+        assertEquals(OrderStatus.PROCESSING, reloaded.getOrderStatus());
+        assertEquals("packed", reloaded.getInternalNotes());
+        assertEquals(0, counters.verify(List.of(masterOrder.getId()), false).getMismatched());
+    }
+
+    @Test
+    public void testReconcileRebuildsCountersAndOverallStatus() {
+        // Children changed behind the counters' back, and the counters were never built
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Order o SET o.orderStatus = :status WHERE o.id = :id")
+                .setParameter("status", OrderStatus.CANCELLED_BY_ADMIN)
+                .setParameter("id", first.getId())
+                .executeUpdate();
+        entityManager.getEntityManager()
+                .createQuery("UPDATE MasterOrder mo SET mo.childOrderCount = NULL WHERE mo.id = :id")
+                .setParameter("id", masterOrder.getId())
+                .executeUpdate();
+
+        assertEquals(1, reconcileJob.runOnce());
+        assertEquals(0, counters.verify(List.of(masterOrder.getId()), false).getMismatched());
+        entityManager.clear();
+        MasterOrder reloaded = entityManager.find(MasterOrder.class, masterOrder.getId());
+        assertEquals(2, reloaded.getChildOrderCount());
+        assertEquals(1, reloaded.getCancelledCount());
+        assertEquals(MasterOrderStatus.PARTIALLY_CANCELLED, reloaded.getOverallStatus());
+
+        // Nothing left to fix
+        assertEquals(0, reconcileJob.runOnce());
+    }
+
+    private MasterOrderStatus transition(Order order, OrderStatus to) {
+        OrderStatus from = order.getOrderStatus();
+        order.setOrderStatus(to);
+        MasterOrderStatus status = counters.applyTransition(masterOrder, from, to);
+        // Entity flush must not overwrite counters maintained by bulk updates
+        masterOrder.setOverallStatus(status);
+        entityManager.flush();
+        return status;
+    }
+
+    private Order order(MasterOrder masterOrder, Shop shop, String number) {
+        return Order.builder()
+                .masterOrder(masterOrder).orderNumber(number).shop(shop)
+                .orderStatus(OrderStatus.AWAITING_CONFIRMATION)
+                .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build();
+    }
+}
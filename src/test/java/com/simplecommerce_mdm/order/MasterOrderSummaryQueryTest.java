@@ -0,0 +1,127 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderItemStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderItem;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.order.repository.OrderRepository.MasterOrderChildSummaryRow;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(MasterOrderSummaryQueryTest.AuditingConfig.class)
+public class MasterOrderSummaryQueryTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class AuditingConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private User buyer;
+    private Shop shop;
+    private ProductVariant variant;
+
+    @BeforeEach
+    public void setUp() {
+        buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+        User seller = entityManager.persist(User.builder().email("seller@example.com").passwordHash("x").build());
+        shop = entityManager.persist(Shop.builder().user(seller).name("Shop").slug("shop").build());
+        Product product = entityManager.persist(Product.builder()
+                .shop(shop).name("Product").slug("product").basePrice(BigDecimal.TEN).build());
+        variant = entityManager.persist(ProductVariant.builder()
+                .product(product).sku("SKU-1").options("{}").finalPrice(BigDecimal.TEN).stockQuantity(100).build());
+    }
+
+    @Test
+    public void testSummariesGroupByMasterOrderAndStatus() {
+        MasterOrder mixed = masterOrder("MO1");
+        order(mixed, "ORD1", OrderStatus.DELIVERED, 2, 3);
+        order(mixed, "ORD2", OrderStatus.DELIVERED, 1, 1);
+        order(mixed, "ORD3", OrderStatus.CANCELLED_BY_USER, 1, 4);
+        order(mixed, "ORD4", OrderStatus.PROCESSING, 0, 0);
+
+        MasterOrder single = masterOrder("MO2");
+        order(single, "ORD5", OrderStatus.AWAITING_CONFIRMATION, 3, 1);
+
+        MasterOrder notRequested = masterOrder("MO3");
+        order(notRequested, "ORD6", OrderStatus.DELIVERED, 1, 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<Long, List<MasterOrderChildSummaryRow>> rows = orderRepository
+                .summarizeByMasterOrderIds(List.of(mixed.getId(), single.getId())).stream()
+                .collect(Collectors.groupingBy(MasterOrderChildSummaryRow::getMasterOrderId));
+
+        assertEquals(2, rows.size());
+        assertFalse(rows.containsKey(notRequested.getId()));
+
+        Map<OrderStatus, MasterOrderChildSummaryRow> mixedRows = byStatus(rows.get(mixed.getId()));
+        assertEquals(3, mixedRows.size());
+        assertRow(mixedRows.get(OrderStatus.DELIVERED), 2, 3, 7);
+        assertRow(mixedRows.get(OrderStatus.CANCELLED_BY_USER), 1, 1, 4);
+        // An order without items still counts, with no items and zero quantity
+        assertRow(mixedRows.get(OrderStatus.PROCESSING), 1, 0, 0);
+
+        Map<OrderStatus, MasterOrderChildSummaryRow> singleRows = byStatus(rows.get(single.getId()));
+        assertEquals(1, singleRows.size());
+        assertRow(singleRows.get(OrderStatus.AWAITING_CONFIRMATION), 1, 3, 3);
+    }
+
+    private static Map<OrderStatus, MasterOrderChildSummaryRow> byStatus(List<MasterOrderChildSummaryRow> rows) {
+        return rows.stream().collect(Collectors.toMap(MasterOrderChildSummaryRow::getOrderStatus, row -> row));
+    }
+
+    private static void assertRow(MasterOrderChildSummaryRow row, long orders, long items, long quantity) {
+        assertNotNull(row);
+        assertEquals(orders, row.getOrderCount());
+        assertEquals(items, row.getItemCount());
+        assertEquals(quantity, row.getQuantity());
+    }
+
+    private MasterOrder masterOrder(String number) {
+        return entityManager.persist(MasterOrder.builder()
+                .orderGroupNumber(number).user(buyer).customerEmail(buyer.getEmail())
+                .shippingAddressSnapshot("HCM").overallStatus(MasterOrderStatus.PROCESSING)
+                .totalAmountPaid(BigDecimal.TEN).build());
+    }
+
+    private void order(MasterOrder masterOrder, String number, OrderStatus status, int items, int quantityEach) {
+        Order order = entityManager.persist(Order.builder()
+                .masterOrder(masterOrder).orderNumber(number).shop(shop).orderStatus(status)
+                .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build());
+        for (int i = 0; i < items; i++) {
+            entityManager.persist(OrderItem.builder()
+                    .order(order).variant(variant).productNameSnapshot("Product").variantSkuSnapshot("SKU-1")
+                    .variantOptionsSnapshot("{}").quantity(quantityEach).unitPrice(BigDecimal.TEN).subtotal(BigDecimal.TEN)
+                    .status(OrderItemStatus.PENDING).build());
+        }
+    }
+}
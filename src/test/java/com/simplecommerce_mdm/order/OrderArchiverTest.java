@@ -0,0 +1,270 @@
+package com.simplecommerce_mdm.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.cloudinary.service.CloudinaryService;
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderItemStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.common.enums.PaymentStatus;
+import com.simplecommerce_mdm.order.dto.ArchivedOrder;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderItem;
+import com.simplecommerce_mdm.order.model.Payment;
+import com.simplecommerce_mdm.order.dto.OrderResponse;
+import com.simplecommerce_mdm.order.model.PaymentMethod;
+import com.simplecommerce_mdm.order.repository.BuyerOrderViewRepository;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.order.repository.OrderRepository.MasterOrderChildSummaryRow;
+import com.simplecommerce_mdm.order.repository.PaymentRepository;
+import com.simplecommerce_mdm.order.service.BuyerOrderViewProjector;
+import com.simplecommerce_mdm.order.service.MasterOrderStatusCounters;
+import com.simplecommerce_mdm.order.service.OrderArchiveStore;
+import com.simplecommerce_mdm.order.service.OrderArchiver;
+import com.simplecommerce_mdm.order.service.OrderDetailAssembler;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "business.order.archive.dir=" + OrderArchiverTest.ARCHIVE_DIR,
+        "business.order.archive.rescan-ms=0"
+})
+@Import({OrderArchiver.class, OrderArchiveStore.class, OrderDetailAssembler.class, BuyerOrderViewProjector.class,
+        MasterOrderStatusCounters.class, OrderArchiverTest.TestConfig.class})
+public class OrderArchiverTest {
+
+    static final String ARCHIVE_DIR = "target/order-archive-test";
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class TestConfig {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderArchiveStore orderArchiveStore;
+
+    @Autowired
+    private BuyerOrderViewProjector buyerOrderViewProjector;
+
+    @Autowired
+    private BuyerOrderViewRepository buyerOrderViewRepository;
+
+    @Autowired
+    private MasterOrderStatusCounters masterOrderStatusCounters;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private CloudinaryService cloudinaryService;
+
+    private MasterOrder oldMasterOrder;
+    private final List<Long> oldOrderIds = new ArrayList<>();
+    private Long openOrderId;
+
+    @BeforeEach
+    public void setUp() {
+        FileSystemUtils.deleteRecursively(Paths.get(ARCHIVE_DIR).toFile());
+        User buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+        User seller = entityManager.persist(User.builder().email("seller@example.com").passwordHash("x").build());
+        Shop shop = entityManager.persist(Shop.builder().user(seller).name("Shop").slug("shop").build());
+        Product product = entityManager.persist(Product.builder()
+                .shop(shop).name("Product").slug("product").basePrice(BigDecimal.TEN).build());
+        ProductVariant variant = entityManager.persist(ProductVariant.builder()
+                .product(product).sku("SKU-1").options("{}").finalPrice(BigDecimal.TEN).stockQuantity(10).build());
+        PaymentMethod cod = entityManager.persist(PaymentMethod.builder().name("COD").code("COD").build());
+
+        oldMasterOrder = persistMasterOrder("MO1", buyer);
+        List<Order> oldOrders = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Order order = persistOrder(oldMasterOrder, "ORD" + i, shop, OrderStatus.COMPLETED, variant);
+            oldOrders.add(order);
+            oldOrderIds.add(order.getId());
+        }
+        entityManager.persist(Payment.builder().masterOrder(oldMasterOrder).paymentMethod(cod)
+                .amount(BigDecimal.TEN).status(PaymentStatus.COMPLETED).build());
+
+        MasterOrder openMasterOrder = persistMasterOrder("MO2", buyer);
+        openOrderId = persistOrder(openMasterOrder, "ORD9", shop, OrderStatus.PROCESSING, variant).getId();
+        entityManager.flush();
+        buyerOrderViewProjector.backfill(oldOrders);
+        entityManager.flush();
+
+        List<Long> allOrderIds = new ArrayList<>(oldOrderIds);
+        allOrderIds.add(openOrderId);
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(400);
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Order o SET o.createdAt = :at, o.updatedAt = :at WHERE o.id IN :ids")
+                .setParameter("at", longAgo).setParameter("ids", allOrderIds).executeUpdate();
+        entityManager.getEntityManager()
+                .createQuery("UPDATE MasterOrder mo SET mo.createdAt = :at")
+                .setParameter("at", longAgo).executeUpdate();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testArchivesFinishedOrdersAndServesThemFromTheArchive() {
+        assertEquals(2, orderArchiver.runOnce());
+
+        for (Long id : oldOrderIds) {
+            assertTrue(orderRepository.findById(id).isEmpty());
+            ArchivedOrder archived = orderArchiveStore.find(id).orElseThrow();
+            assertEquals(id, archived.getOrder().getId());
+            assertEquals(1, archived.getOrder().getOrderItems().size());
+            assertEquals(1, archived.getPayments().size());
+            assertEquals("COD", archived.getPayments().get(0).getPaymentMethodCode());
+        }
+        assertTrue(paymentRepository.findByMasterOrderIdOrderByCreatedAtDesc(oldMasterOrder.getId()).isEmpty());
+        assertNotNull(entityManager.find(MasterOrder.class, oldMasterOrder.getId()));
+
+        // Orders that are still in progress stay live
+        assertTrue(orderRepository.findById(openOrderId).isPresent());
+        assertTrue(orderArchiveStore.find(openOrderId).isEmpty());
+
+        Iterator<ArchivedOrder> scanned = orderArchiveStore.scan(
+                LocalDateTime.now().minusDays(401), LocalDateTime.now(), null);
+        int count = 0;
+        while (scanned.hasNext()) {
+            scanned.next();
+            count++;
+        }
+        assertEquals(2, count);
+
+        // Nothing left to archive
+        assertEquals(0, orderArchiver.runOnce());
+    }
+
+    @Test
+    public void testArchivedMasterOrderKeepsBuyerHistoryAndCounters() {
+        assertEquals(2, orderArchiver.runOnce());
+        entityManager.clear();
+
+        // Buyers still see the orders in their history
+        assertEquals(2, buyerOrderViewRepository.findAllById(oldOrderIds).size());
+
+        MasterOrder archived = entityManager.find(MasterOrder.class, oldMasterOrder.getId());
+        assertNotNull(archived.getArchivedAt());
+        assertEquals(2, archived.getChildOrderCount());
+        assertEquals(2, archived.getCompletedCount());
+
+        // No live children to check against: the reconcile leaves the counters alone
+        assertEquals(0, masterOrderStatusCounters.verify(List.of(oldMasterOrder.getId()), true).getChecked());
+        assertEquals(2, entityManager.find(MasterOrder.class, oldMasterOrder.getId()).getChildOrderCount());
+
+        List<MasterOrderChildSummaryRow> summary = buyerOrderViewRepository.summarizeByMasterOrderIds(
+                List.of(oldMasterOrder.getId()));
+        assertEquals(1, summary.size());
+        assertEquals(OrderStatus.COMPLETED, summary.get(0).getOrderStatus());
+        assertEquals(2L, summary.get(0).getOrderCount());
+        assertEquals(2L, summary.get(0).getQuantity());
+    }
+
+    @Test
+    public void testSegmentsWrittenByAnotherNodeAreRescannedAndCompacted() throws IOException {
+        Path shared = Paths.get(ARCHIVE_DIR, "shared");
+        OrderArchiveStore writer = new OrderArchiveStore(objectMapper, shared.toString(), 0, 0);
+        OrderArchiveStore reader = new OrderArchiveStore(objectMapper, shared.toString(), 0, 0);
+        YearMonth month = YearMonth.of(2024, 3);
+        LocalDateTime createdAt = month.atDay(10).atTime(12, 0);
+
+        assertTrue(reader.find(1001L).isEmpty());
+        writer.write(Map.of(month, List.of(archivedOrder(1001L, createdAt))));
+        assertTrue(reader.find(1001L).isPresent());
+
+        writer.write(Map.of(month, List.of(archivedOrder(1002L, createdAt.plusDays(1)))));
+        assertEquals(1, reader.compact());
+
+        try (Stream<Path> files = Files.list(shared)) {
+            List<String> names = files.map(file -> file.getFileName().toString()).toList();
+            assertEquals(1, names.size(), names.toString());
+            assertTrue(names.get(0).matches("orders-202403-c\\d+\\.arc"), names.toString());
+        }
+        assertTrue(writer.find(1001L).isPresent());
+        assertTrue(writer.find(1002L).isPresent());
+        Iterator<ArchivedOrder> scanned = reader.scan(month.atDay(1).atStartOfDay(),
+                month.plusMonths(1).atDay(1).atStartOfDay(), null);
+        assertEquals(1001L, scanned.next().getOrder().getId());
+        assertEquals(1002L, scanned.next().getOrder().getId());
+        assertFalse(scanned.hasNext());
+
+        // A single segment per month is left alone
+        assertEquals(0, reader.compact());
+    }
+
+    private ArchivedOrder archivedOrder(Long orderId, LocalDateTime createdAt) {
+        return ArchivedOrder.builder()
+                .userId(1L)
+                .order(OrderResponse.builder().id(orderId).shopId(1L).createdAt(createdAt).build())
+                .payments(List.of())
+                .archivedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private MasterOrder persistMasterOrder(String number, User buyer) {
+        return entityManager.persist(MasterOrder.builder()
+                .orderGroupNumber(number).user(buyer).customerEmail(buyer.getEmail())
+                .shippingAddressSnapshot("HCM").overallStatus(MasterOrderStatus.COMPLETED)
+                .childOrderCount(2).pendingPaymentCount(0).awaitingConfirmationCount(0)
+                .completedCount(2).cancelledCount(0)
+                .totalAmountPaid(BigDecimal.TEN).build());
+    }
+
+    private Order persistOrder(MasterOrder masterOrder, String number, Shop shop, OrderStatus status, ProductVariant variant) {
+        Order order = entityManager.persist(Order.builder()
+                .masterOrder(masterOrder).orderNumber(number).shop(shop).orderStatus(status)
+                .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build());
+        entityManager.persist(OrderItem.builder()
+                .order(order).variant(variant).productNameSnapshot("Product").variantSkuSnapshot("SKU-1")
+                .variantOptionsSnapshot("{}").quantity(1).unitPrice(BigDecimal.TEN).subtotal(BigDecimal.TEN)
+                .status(OrderItemStatus.DELIVERED).build());
+        return order;
+    }
+}
@@ -0,0 +1,147 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderItemStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.config.BusinessConfigService;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderItem;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.order.service.BuyerOrderViewProjector;
+import com.simplecommerce_mdm.order.service.MasterOrderStatusCounters;
+import com.simplecommerce_mdm.order.service.OrderExpiryJob;
+import com.simplecommerce_mdm.order.service.OrderStatusHistoryWriter;
+import com.simplecommerce_mdm.order.service.OrderStatusTransitionExecutor;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "business.order.expiry.chunk-size=2")
+@Import({OrderExpiryJob.class, OrderStatusTransitionExecutor.class, MasterOrderStatusCounters.class,
+        OrderStatusHistoryWriter.class, BuyerOrderViewProjector.class,
+        OrderExpiryJobTest.TestConfig.class})
+public class OrderExpiryJobTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class TestConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderExpiryJob orderExpiryJob;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private BusinessConfigService businessConfigService;
+
+    private ProductVariant variant;
+    private final List<Long> overdueIds = new ArrayList<>();
+    private Long recentId;
+
+    @BeforeEach
+    public void setUp() {
+        when(businessConfigService.getConfirmationDeadlineHours()).thenReturn(24);
+
+        User buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+        User seller = entityManager.persist(User.builder().email("seller@example.com").passwordHash("x").build());
+        Shop shop = entityManager.persist(Shop.builder().user(seller).name("Shop").slug("shop").build());
+        Product product = entityManager.persist(Product.builder()
+                .shop(shop).name("Product").slug("product").basePrice(BigDecimal.TEN).build());
+        variant = entityManager.persist(ProductVariant.builder()
+                .product(product).sku("SKU-1").options("{}").finalPrice(BigDecimal.TEN).stockQuantity(10).build());
+
+        MasterOrder masterOrder = entityManager.persist(MasterOrder.builder()
+                .orderGroupNumber("MO1").user(buyer).customerEmail(buyer.getEmail())
+                .shippingAddressSnapshot("HCM").overallStatus(MasterOrderStatus.AWAITING_CONFIRMATION)
+                .childOrderCount(4).pendingPaymentCount(0).awaitingConfirmationCount(4)
+                .completedCount(0).cancelledCount(0)
+                .totalAmountPaid(BigDecimal.TEN).build());
+
+        for (int i = 0; i < 4; i++) {
+            Order order = entityManager.persist(Order.builder()
+                    .masterOrder(masterOrder).orderNumber("ORD" + i).shop(shop)
+                    .orderStatus(OrderStatus.AWAITING_CONFIRMATION)
+                    .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build());
+            entityManager.persist(OrderItem.builder()
+                    .order(order).variant(variant).productNameSnapshot("Product").variantSkuSnapshot("SKU-1")
+                    .variantOptionsSnapshot("{}").quantity(2).unitPrice(BigDecimal.TEN).subtotal(BigDecimal.TEN)
+                    .status(OrderItemStatus.PENDING).build());
+            if (i < 3) {
+                overdueIds.add(order.getId());
+            } else {
+                recentId = order.getId();
+            }
+        }
+        entityManager.flush();
+
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Order o SET o.createdAt = :createdAt WHERE o.id IN :ids")
+                .setParameter("createdAt", LocalDateTime.now().minusHours(30))
+                .setParameter("ids", overdueIds)
+                .executeUpdate();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testCancelsOverdueOrdersInChunks() {
+        assertEquals(3, orderExpiryJob.runOnce());
+
+        for (Long id : overdueIds) {
+            assertEquals(OrderStatus.CANCELLED_EXPIRED, orderRepository.findById(id).orElseThrow().getOrderStatus());
+        }
+        assertEquals(OrderStatus.AWAITING_CONFIRMATION, orderRepository.findById(recentId).orElseThrow().getOrderStatus());
+
+        // 3 cancelled orders x 2 units given back
+        ProductVariant reloaded = entityManager.find(ProductVariant.class, variant.getId());
+        assertEquals(16, reloaded.getStockQuantity());
+
+        MasterOrder masterOrder = orderRepository.findById(recentId).orElseThrow().getMasterOrder();
+        assertEquals(MasterOrderStatus.PARTIALLY_CANCELLED, masterOrder.getOverallStatus());
+        assertEquals(3, masterOrder.getCancelledCount());
+
+        assertEquals(3.0, meterRegistry.get("orders.expiry.cancelled").counter().count());
+        assertEquals(2.0, meterRegistry.get("orders.expiry.chunks").counter().count());
+        assertEquals(0.0, meterRegistry.get("orders.expiry.lag.seconds").gauge().value());
+
+        // Nothing left to do on the next run
+        assertEquals(0, orderExpiryJob.runOnce());
+    }
+}
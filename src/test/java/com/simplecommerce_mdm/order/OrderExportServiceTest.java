@@ -0,0 +1,137 @@
+package com.simplecommerce_mdm.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.common.enums.ExportFormat;
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderItemStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderItem;
+import com.simplecommerce_mdm.order.service.OrderArchiveStore;
+import com.simplecommerce_mdm.order.service.OrderExportService;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "business.order.archive.dir=target/order-archive-export-test")
+@Import({OrderExportService.class, OrderArchiveStore.class, OrderExportServiceTest.TestConfig.class})
+public class OrderExportServiceTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class TestConfig {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    private Shop shop;
+
+    @BeforeEach
+    public void setUp() {
+        User buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+        User seller = entityManager.persist(User.builder().email("seller@example.com").passwordHash("x").build());
+        User otherSeller = entityManager.persist(User.builder().email("other@example.com").passwordHash("x").build());
+        shop = entityManager.persist(Shop.builder().user(seller).name("Shop, One").slug("shop").build());
+        Shop otherShop = entityManager.persist(Shop.builder().user(otherSeller).name("Other").slug("other").build());
+        Product product = entityManager.persist(Product.builder()
+                .shop(shop).name("Product").slug("product").basePrice(BigDecimal.TEN).build());
+        ProductVariant variant = entityManager.persist(ProductVariant.builder()
+                .product(product).sku("SKU-1").options("{}").finalPrice(BigDecimal.TEN).stockQuantity(10).build());
+
+        MasterOrder masterOrder = entityManager.persist(MasterOrder.builder()
+                .orderGroupNumber("MO1").user(buyer).customerEmail(buyer.getEmail())
+                .shippingAddressSnapshot("HCM").overallStatus(MasterOrderStatus.AWAITING_CONFIRMATION)
+                .childOrderCount(2).pendingPaymentCount(0).awaitingConfirmationCount(2)
+                .completedCount(0).cancelledCount(0)
+                .totalAmountPaid(BigDecimal.TEN).build());
+
+        Order order = entityManager.persist(Order.builder()
+                .masterOrder(masterOrder).orderNumber("ORD1").shop(shop)
+                .orderStatus(OrderStatus.AWAITING_CONFIRMATION)
+                .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build());
+        for (String name : new String[]{"Plain", "=HYPERLINK(\"x\")"}) {
+            entityManager.persist(OrderItem.builder()
+                    .order(order).variant(variant).productNameSnapshot(name).variantSkuSnapshot("SKU-1")
+                    .variantOptionsSnapshot("{}").quantity(1).unitPrice(BigDecimal.TEN).subtotal(BigDecimal.TEN)
+                    .status(OrderItemStatus.PENDING).build());
+        }
+        entityManager.persist(Order.builder()
+                .masterOrder(masterOrder).orderNumber("ORD2").shop(otherShop)
+                .orderStatus(OrderStatus.AWAITING_CONFIRMATION)
+                .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testCsvExportOneLinePerItemWithEscaping() throws Exception {
+        String csv = export(ExportFormat.CSV, shop.getId(), false);
+
+        String[] lines = csv.split("\r\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("order_number,"));
+        assertTrue(lines[1].contains("\"Shop, One\""));
+        assertTrue(lines[2].contains("\"'=HYPERLINK(\"\"x\"\")\""));
+        assertFalse(csv.contains("ORD2"));
+    }
+
+    @Test
+    public void testNdjsonExportOneLinePerOrderGzipped() throws Exception {
+        String ndjson = export(ExportFormat.NDJSON, null, true);
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"orderNumber\":\"ORD1\""));
+        assertEquals(2, lines[0].split("\"variantSku\"").length - 1);
+        assertTrue(lines[1].contains("\"orderNumber\":\"ORD2\""));
+        assertTrue(lines[1].endsWith("\"items\":[]}"));
+    }
+
+    private String export(ExportFormat format, Long shopId, boolean gzip) throws Exception {
+        ResponseEntity<StreamingResponseBody> response = orderExportService.exportOrders(format, null, null, null, shopId, gzip);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        byte[] bytes = out.toByteArray();
+        if (gzip) {
+            assertEquals("gzip", response.getHeaders().getFirst("Content-Encoding"));
+            assertFalse(response.getHeaders().getContentDisposition().getFilename().endsWith(".gz"));
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = in.readAllBytes();
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,247 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.cloudinary.service.CloudinaryService;
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderItemStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.dto.OrderListResponse;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderItem;
+import com.simplecommerce_mdm.order.repository.BuyerOrderViewRepository;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.order.service.BuyerOrderViewProjector;
+import com.simplecommerce_mdm.order.service.BuyerOrderViewReadiness;
+import com.simplecommerce_mdm.order.service.OrderListAssembler;
+import com.simplecommerce_mdm.order.service.OrderSearchText;
+import com.simplecommerce_mdm.order.service.OrderSearchTextBackfillJob;
+import com.simplecommerce_mdm.product.model.Product;
+import com.simplecommerce_mdm.product.model.ProductVariant;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({OrderListAssembler.class, BuyerOrderViewProjector.class, OrderSearchTextBackfillJob.class,
+        OrderListAssemblerQueryCountTest.AuditingConfig.class})
+public class OrderListAssemblerQueryCountTest {
+
+    private static final int ORDER_COUNT = 12;
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class AuditingConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderListAssembler orderListAssembler;
+
+    @Autowired
+    private BuyerOrderViewProjector buyerOrderViewProjector;
+
+    @Autowired
+    private BuyerOrderViewRepository buyerOrderViewRepository;
+
+    @Autowired
+    private OrderSearchTextBackfillJob orderSearchTextBackfillJob;
+
+    @MockBean
+    private CloudinaryService cloudinaryService;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setUp() {
+        when(cloudinaryService.getImageUrl(anyString())).thenAnswer(inv -> "https://img/" + inv.getArgument(0));
+
+        User buyer = entityManager.persist(User.builder()
+                .email("buyer@example.com").passwordHash("x").build());
+        User seller = entityManager.persist(User.builder()
+                .email("seller@example.com").passwordHash("x").build());
+        Shop shop = entityManager.persist(Shop.builder()
+                .user(seller).name("Shop").slug("shop").build());
+        Product product = entityManager.persist(Product.builder()
+                .shop(shop).name("Product").slug("product").basePrice(BigDecimal.TEN).build());
+        ProductVariant variant = entityManager.persist(ProductVariant.builder()
+                .product(product).sku("SKU-1").options("{}").finalPrice(BigDecimal.TEN).stockQuantity(100).build());
+
+        MasterOrder masterOrder = entityManager.persist(MasterOrder.builder()
+                .orderGroupNumber("MO1").user(buyer).customerEmail(buyer.getEmail())
+                .shippingAddressSnapshot("HCM").overallStatus(MasterOrderStatus.AWAITING_CONFIRMATION)
+                .totalAmountPaid(BigDecimal.TEN).build());
+
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = Order.builder()
+                    .masterOrder(masterOrder).orderNumber("ORD" + i).shop(shop)
+                    .orderStatus(OrderStatus.AWAITING_CONFIRMATION)
+                    .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build();
+            order.setSearchText(OrderSearchText.of(order));
+            entityManager.persist(order);
+            for (int j = 0; j < 3; j++) {
+                entityManager.persist(OrderItem.builder()
+                        .order(order).variant(variant).productNameSnapshot("Product").variantSkuSnapshot("SKU-1")
+                        .variantOptionsSnapshot("{}").variantImageCloudinaryPublicIdSnapshot("img-" + j)
+                        .quantity(j + 1).unitPrice(BigDecimal.TEN).subtotal(BigDecimal.TEN)
+                        .status(OrderItemStatus.PENDING).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        userId = buyer.getId();
+    }
+
+    @Test
+    public void testQueryCountDoesNotGrowWithPageSize() {
+        long smallPage = countQueries(2);
+        long largePage = countQueries(10);
+
+        // page query + count query + one item query
+        assertEquals(3, smallPage);
+        assertEquals(smallPage, largePage);
+    }
+
+    @Test
+    public void testItemAggregatesAndImages() {
+        Page<OrderListResponse> page = orderListAssembler.toResponsePage(
+                orderRepository.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, 5)));
+
+        assertEquals(ORDER_COUNT, page.getTotalElements());
+        OrderListResponse first = page.getContent().get(0);
+        assertEquals(3, first.getTotalItems());
+        assertEquals(6, first.getTotalQuantity());
+        assertEquals(3, first.getProductImageUrls().size());
+        assertEquals("Shop", first.getShopName());
+        assertEquals("MO1", first.getOrderGroupNumber());
+    }
+
+    @Test
+    public void testBuyerViewPageIsSingleRangeScan() {
+        assertEquals(ORDER_COUNT, buyerOrderViewProjector.backfill(
+                orderRepository.findWithoutBuyerOrderView(PageRequest.of(0, 100))));
+        assertTrue(orderRepository.findWithoutBuyerOrderView(PageRequest.of(0, 100)).isEmpty());
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Page<OrderListResponse> page = orderListAssembler.toResponsePageFromView(
+                buyerOrderViewRepository.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, 5)));
+
+        // page query + count query, nothing per row
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(ORDER_COUNT, page.getTotalElements());
+        OrderListResponse first = page.getContent().get(0);
+        assertEquals(3, first.getTotalItems());
+        assertEquals(6, first.getTotalQuantity());
+        assertEquals(3, first.getProductImageUrls().size());
+        assertEquals("Shop", first.getShopName());
+        assertEquals("MO1", first.getOrderGroupNumber());
+    }
+
+    @Test
+    public void testBuyerViewIsUsedOnlyOnceEveryOrderHasARow() {
+        BuyerOrderViewReadiness readiness = new BuyerOrderViewReadiness(orderRepository, 0);
+        assertFalse(readiness.isComplete());
+
+        buyerOrderViewProjector.backfill(orderRepository.findWithoutBuyerOrderView(PageRequest.of(0, 5)));
+        entityManager.flush();
+        assertFalse(readiness.isComplete());
+
+        buyerOrderViewProjector.backfill(orderRepository.findWithoutBuyerOrderView(PageRequest.of(0, 100)));
+        entityManager.flush();
+        assertTrue(readiness.isComplete());
+    }
+
+    @Test
+    public void testSearchKeysetPaging() {
+        String pattern = OrderSearchText.containsPattern(" Ord1 ");
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now().plusDays(1);
+
+        // ORD1, ORD10, ORD11
+        List<Order> first = orderRepository.searchOrdersKeyset(pattern, null, from, to,
+                LocalDateTime.of(9999, 1, 1, 0, 0), Long.MAX_VALUE, PageRequest.of(0, 2));
+        assertEquals(2, first.size());
+        Order last = first.get(1);
+        List<Order> second = orderRepository.searchOrdersKeyset(pattern, OrderStatus.AWAITING_CONFIRMATION, from, to,
+                last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+        assertEquals(1, second.size());
+        assertFalse(first.contains(second.get(0)));
+
+        assertTrue(orderRepository.searchOrdersKeyset(pattern, OrderStatus.SHIPPED, from, to,
+                LocalDateTime.of(9999, 1, 1, 0, 0), Long.MAX_VALUE, PageRequest.of(0, 2)).isEmpty());
+        // LIKE wildcards in the keyword are literal
+        assertEquals(0, orderRepository.searchOrders(OrderSearchText.containsPattern("ord_"), PageRequest.of(0, 5))
+                .getTotalElements());
+        assertEquals(ORDER_COUNT, orderRepository.searchOrders(OrderSearchText.containsPattern("SHOP"), PageRequest.of(0, 5))
+                .getTotalElements());
+    }
+
+    @Test
+    public void testBackfillFillsMissingSearchText() {
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Order o SET o.searchText = NULL WHERE o.orderNumber IN ('ORD1', 'ORD2')")
+                .executeUpdate();
+        entityManager.clear();
+        String pattern = OrderSearchText.containsPattern("ord2");
+        assertEquals(0, orderRepository.searchOrders(pattern, PageRequest.of(0, 5)).getTotalElements());
+
+        assertEquals(2, orderSearchTextBackfillJob.runOnce());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, orderRepository.searchOrders(pattern, PageRequest.of(0, 5)).getTotalElements());
+        assertEquals(0, orderSearchTextBackfillJob.runOnce());
+    }
+
+    private long countQueries(int pageSize) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<OrderListResponse> page = orderListAssembler.toResponsePage(
+                orderRepository.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, pageSize)));
+        page.getContent().forEach(response -> assertNotNull(response.getShopName()));
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,79 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.order.service.OrderNumberGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderNumberGeneratorTest {
+
+    @Test
+    public void testConcurrentIdsAreUniqueAndMonotonicPerThread() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(7);
+        int threads = 16;
+        int perThread = 50_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long last = -1;
+                    boolean monotonic = true;
+                    for (int i = 0; i < perThread; i++) {
+                        long id = generator.nextId();
+                        monotonic &= id > last;
+                        last = id;
+                        ids.add(id);
+                    }
+                    return monotonic;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    public void testDifferentNodesNeverCollide() {
+        OrderNumberGenerator nodeA = new OrderNumberGenerator(1);
+        OrderNumberGenerator nodeB = new OrderNumberGenerator(2);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(ids.add(nodeA.nextId()));
+            assertTrue(ids.add(nodeB.nextId()));
+        }
+    }
+
+    @Test
+    public void testPrefixesAndColumnLength() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(0);
+        String groupNumber = generator.nextOrderGroupNumber();
+        String orderNumber = generator.nextOrderNumber();
+        assertTrue(groupNumber.startsWith("MO"));
+        assertTrue(orderNumber.startsWith("ORD"));
+        assertTrue(orderNumber.length() <= 50);
+    }
+
+    @Test
+    public void testInvalidNodeIdIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderNumberGenerator(1024));
+    }
+}
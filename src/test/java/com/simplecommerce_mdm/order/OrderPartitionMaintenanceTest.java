@@ -0,0 +1,30 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.order.service.OrderPartitionMaintenance;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderPartitionMaintenanceTest {
+
+    @Test
+    public void testMonthsToCoverSpanYearEnd() {
+        assertEquals(List.of(YearMonth.of(2026, 11), YearMonth.of(2026, 12), YearMonth.of(2027, 1)),
+                OrderPartitionMaintenance.monthsToCover(YearMonth.of(2026, 11), 2));
+    }
+
+    @Test
+    public void testPartitionNamesRoundTrip() {
+        String name = OrderPartitionMaintenance.partitionName("orders", YearMonth.of(2026, 3));
+        assertEquals("orders_p202603", name);
+        assertEquals(Optional.of(YearMonth.of(2026, 3)), OrderPartitionMaintenance.partitionMonth("orders", name));
+
+        assertTrue(OrderPartitionMaintenance.partitionMonth("orders", "orders_default").isEmpty());
+        // order_items partitions are not partitions of orders
+        assertTrue(OrderPartitionMaintenance.partitionMonth("orders", "order_items_p202603").isEmpty());
+    }
+}
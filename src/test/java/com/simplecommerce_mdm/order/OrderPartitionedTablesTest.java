@@ -0,0 +1,129 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.repository.OrderRepository;
+import com.simplecommerce_mdm.order.service.BuyerOrderViewProjector;
+import com.simplecommerce_mdm.order.service.OrderCreatedAtBounds;
+import com.simplecommerce_mdm.order.service.OrderPartitionMaintenance;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a PostgreSQL database whose order tables were partitioned with
+ * docker/postgres/partitioning/partition-order-tables.sql ({@code make test-partitioned}).
+ * Skipped unless PARTITION_TEST_DB_URL is set; every test rolls back.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=${PARTITION_TEST_DB_URL}",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.datasource.username=${PARTITION_TEST_DB_USER:postgres}",
+        "spring.datasource.password=${PARTITION_TEST_DB_PASSWORD:}",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@EnabledIfEnvironmentVariable(named = "PARTITION_TEST_DB_URL", matches = ".+")
+@Import({BuyerOrderViewProjector.class, OrderCreatedAtBounds.class, OrderPartitionedTablesTest.AuditingConfig.class})
+public class OrderPartitionedTablesTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class AuditingConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private BuyerOrderViewProjector buyerOrderViewProjector;
+
+    @Autowired
+    private OrderCreatedAtBounds orderCreatedAtBounds;
+
+    private Order order;
+
+    @BeforeEach
+    public void setUp() {
+        Object partitioned = entityManager.getEntityManager()
+                .createNativeQuery("SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('orders')")
+                .getSingleResult();
+        assertEquals(1L, ((Number) partitioned).longValue(), "orders is not partitioned, run make db-partition first");
+
+        String suffix = Long.toString(System.nanoTime());
+        User buyer = entityManager.persist(User.builder().email("buyer-" + suffix + "@example.com").passwordHash("x").build());
+        User seller = entityManager.persist(User.builder().email("seller-" + suffix + "@example.com").passwordHash("x").build());
+        Shop shop = entityManager.persist(Shop.builder().user(seller).name("Shop").slug("shop-" + suffix).build());
+        MasterOrder masterOrder = entityManager.persist(MasterOrder.builder()
+                .orderGroupNumber("MO" + suffix).user(buyer).customerEmail(buyer.getEmail())
+                .shippingAddressSnapshot("HCM").overallStatus(MasterOrderStatus.AWAITING_CONFIRMATION)
+                .totalAmountPaid(BigDecimal.TEN).build());
+        order = entityManager.persist(Order.builder()
+                .masterOrder(masterOrder).orderNumber("ORD" + suffix).shop(shop)
+                .orderStatus(OrderStatus.AWAITING_CONFIRMATION).orderedAt(OffsetDateTime.now())
+                .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build());
+        buyerOrderViewProjector.backfill(List.of(order));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testFindAndUpdateWithinCreatedAtBounds() {
+        OrderCreatedAtBounds.Range createdAt = orderCreatedAtBounds.forOrderIds(List.of(order.getId()));
+        assertNotEquals(OrderCreatedAtBounds.UNBOUNDED, createdAt);
+
+        Order found = orderRepository.findByIdCreatedBetween(order.getId(), createdAt.from(), createdAt.to()).orElseThrow();
+        assertEquals(order.getOrderNumber(), found.getOrderNumber());
+
+        // Entity update: Hibernate adds created_at (the partition key) to the WHERE clause
+        found.setInternalNotes("checked");
+        entityManager.flush();
+        entityManager.clear();
+
+        OffsetDateTime now = OffsetDateTime.now();
+        assertEquals(1, orderRepository.bulkUpdateStatus(List.of(order.getId()), OrderStatus.AWAITING_CONFIRMATION,
+                OrderStatus.PROCESSING, null, now, now.toLocalDateTime(), createdAt.from(), createdAt.to()));
+
+        Order reloaded = orderRepository.findById(order.getId()).orElseThrow();
+        assertEquals(OrderStatus.PROCESSING, reloaded.getOrderStatus());
+        assertEquals("checked", reloaded.getInternalNotes());
+    }
+
+    @Test
+    public void testBoundedLookupScansOnlyTheOrdersPartition() {
+        OrderCreatedAtBounds.Range createdAt = orderCreatedAtBounds.forOrderIds(List.of(order.getId()));
+        String plan = String.join("\n", entityManager.getEntityManager().createNativeQuery(
+                "EXPLAIN SELECT * FROM orders WHERE id = " + order.getId()
+                        + " AND created_at BETWEEN '" + createdAt.from() + "' AND '" + createdAt.to() + "'")
+                .getResultList().stream().map(Object::toString).toList());
+
+        String partition = OrderPartitionMaintenance.partitionName("orders", YearMonth.from(order.getCreatedAt()));
+        assertTrue(plan.contains(partition), plan);
+        assertFalse(plan.contains("orders_default"), plan);
+        // One partition, or two when the widened range crosses a month boundary
+        assertTrue(plan.split("orders_p\\d{6}").length - 1 <= 2, plan);
+    }
+}
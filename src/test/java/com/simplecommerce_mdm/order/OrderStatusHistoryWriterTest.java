@@ -0,0 +1,155 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.model.OrderStatusHistory;
+import com.simplecommerce_mdm.order.repository.OrderStatusHistoryRepository;
+import com.simplecommerce_mdm.order.repository.OrderStatusHistoryRepository.StatusDurationRow;
+import com.simplecommerce_mdm.order.service.OrderStatusHistoryWriter;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// History rows are written right before commit, so fixtures and transitions run in real transactions
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderStatusHistoryWriter.class, OrderStatusHistoryWriterTest.AuditingConfig.class})
+public class OrderStatusHistoryWriterTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class AuditingConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderStatusHistoryWriter writer;
+
+    @Autowired
+    private OrderStatusHistoryRepository orderStatusHistoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private OffsetDateTime now;
+    private Long shopId;
+    private Long orderId;
+
+    @BeforeEach
+    public void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        now = OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        transaction.executeWithoutResult(status -> {
+            User buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+            User seller = entityManager.persist(User.builder().email("seller@example.com").passwordHash("x").build());
+            Shop shop = entityManager.persist(Shop.builder().user(seller).name("Shop").slug("shop").build());
+            MasterOrder masterOrder = entityManager.persist(MasterOrder.builder()
+                    .orderGroupNumber("MO1").user(buyer).customerEmail(buyer.getEmail())
+                    .shippingAddressSnapshot("HCM").overallStatus(MasterOrderStatus.AWAITING_CONFIRMATION)
+                    .totalAmountPaid(BigDecimal.TEN).build());
+            Order order = entityManager.persist(Order.builder()
+                    .masterOrder(masterOrder).orderNumber("ORD1").shop(shop)
+                    .orderStatus(OrderStatus.AWAITING_CONFIRMATION).orderedAt(now.minusHours(3))
+                    .subtotalAmount(BigDecimal.TEN).shippingFee(BigDecimal.ONE).build());
+            shopId = shop.getId();
+            orderId = order.getId();
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transaction.executeWithoutResult(status -> {
+            for (String entity : List.of("OrderStatusHistory", "Order", "MasterOrder", "Shop", "User")) {
+                entityManager.getEntityManager().createQuery("DELETE FROM " + entity).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    public void testTransitionsStoreTimeInPreviousStatusAndStampTheOrder() {
+        transaction.executeWithoutResult(status -> {
+            Order order = entityManager.find(Order.class, orderId);
+            writer.record(order, OrderStatus.AWAITING_CONFIRMATION, OrderStatus.PROCESSING, null, null, now.minusHours(2));
+            writer.record(order, OrderStatus.PROCESSING, OrderStatus.SHIPPED, null, "picked up", now);
+        });
+
+        List<OrderStatusHistory> rows = transaction.execute(status -> orderStatusHistoryRepository.findAll().stream()
+                .sorted(Comparator.comparing(OrderStatusHistory::getChangedAt))
+                .collect(Collectors.toList()));
+        assertEquals(2, rows.size());
+        // Entered AWAITING_CONFIRMATION when ordered, PROCESSING at the first change
+        assertEquals(Duration.ofHours(1).toMillis(), rows.get(0).getTimeInPreviousStatusMs());
+        assertEquals(Duration.ofHours(2).toMillis(), rows.get(1).getTimeInPreviousStatusMs());
+        assertEquals("picked up", rows.get(1).getNotes());
+
+        OffsetDateTime statusUpdatedAt = transaction.execute(status ->
+                entityManager.find(Order.class, orderId).getStatusUpdatedAt());
+        assertNotNull(statusUpdatedAt);
+        assertEquals(now.toInstant(), statusUpdatedAt.toInstant());
+    }
+
+    @Test
+    public void testRolledBackTransitionsWriteNothing() {
+        transaction.executeWithoutResult(status -> {
+            writer.record(entityManager.find(Order.class, orderId),
+                    OrderStatus.AWAITING_CONFIRMATION, OrderStatus.PROCESSING, null, null, now);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, orderStatusHistoryRepository.count());
+        assertNull(transaction.execute(status -> entityManager.find(Order.class, orderId).getStatusUpdatedAt()));
+    }
+
+    @Test
+    public void testShopDurationsAreAggregatedFromHistory() {
+        transaction.executeWithoutResult(status -> {
+            Order order = entityManager.find(Order.class, orderId);
+            writer.record(order, null, OrderStatus.AWAITING_CONFIRMATION, null, null, now.minusHours(3));
+            writer.record(order, OrderStatus.AWAITING_CONFIRMATION, OrderStatus.PROCESSING, null, null, now.minusHours(2));
+            writer.record(order, OrderStatus.PROCESSING, OrderStatus.SHIPPED, null, null, now);
+        });
+
+        Map<OrderStatus, StatusDurationRow> durations = orderStatusHistoryRepository
+                .summarizeTimeInStatusByShop(shopId, now.minusDays(1)).stream()
+                .collect(Collectors.toMap(StatusDurationRow::getStatus, row -> row));
+        // The initial status row has no previous status and is left out
+        assertEquals(2, durations.size());
+        assertEquals(1L, durations.get(OrderStatus.AWAITING_CONFIRMATION).getTransitions());
+        assertEquals(Duration.ofHours(1).toMillis(), durations.get(OrderStatus.AWAITING_CONFIRMATION).getMaxMillis());
+        assertEquals(Duration.ofHours(2).toMillis(), durations.get(OrderStatus.PROCESSING).getAverageMillis(), 0.5);
+
+        // Only transitions inside the window count
+        assertEquals(1, orderStatusHistoryRepository.summarizeTimeInStatusByShop(shopId, now.minusMinutes(1)).size());
+        assertTrue(orderStatusHistoryRepository.summarizeTimeInStatusByShop(shopId + 1, now.minusDays(1)).isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package com.simplecommerce_mdm.order;
+
+import com.simplecommerce_mdm.order.model.ShippingMethod;
+import com.simplecommerce_mdm.order.model.ShippingRate;
+import com.simplecommerce_mdm.order.service.ShippingRateTable;
+import com.simplecommerce_mdm.product.model.Shop;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShippingRateTableTest {
+
+    private static final BigDecimal DEFAULT_FEE = BigDecimal.valueOf(30000);
+    private static final BigDecimal DEFAULT_THRESHOLD = BigDecimal.valueOf(500000);
+
+    private final Shop shop = Shop.builder().id(7L).name("Shop").build();
+    private final ShippingMethod express = ShippingMethod.builder()
+            .id(2).name("Express").baseCost(BigDecimal.valueOf(50000))
+            .estimatedDeliveryTimeMinDays(1).estimatedDeliveryTimeMaxDays(2).build();
+
+    private final ShippingRateTable table = ShippingRateTable.compile(List.of(
+            // Marketplace-wide standard rates by weight
+            rate(null, null, null, 0, 1000, 20000, null),
+            rate(null, null, null, 1000, null, 40000, null),
+            // Marketplace-wide rate for Hanoi
+            rate(null, null, "Hà Nội", 0, null, 15000, null),
+            // The shop ships free above 200k anywhere, and has its own Ho Chi Minh City rate
+            rate(shop, null, null, 0, null, 25000, 200000),
+            rate(shop, null, "TP. Hồ Chí Minh", 0, null, 10000, null),
+            rate(null, express, null, 0, null, 60000, null)
+    ), List.of(express), DEFAULT_FEE, DEFAULT_THRESHOLD);
+
+    @Test
+    public void testMarketplaceRatesByWeightAndRegion() {
+        assertEquals(BigDecimal.valueOf(20000), table.quote(99L, null, null, 999, BigDecimal.ONE).fee());
+        assertEquals(BigDecimal.valueOf(40000), table.quote(99L, null, null, 1000, BigDecimal.ONE).fee());
+        assertEquals(BigDecimal.valueOf(15000),
+                table.quote(99L, null, ShippingRateTable.normalizeRegion("Ha Noi"), 5000, BigDecimal.ONE).fee());
+    }
+
+    @Test
+    public void testShopRatesTakePrecedence() {
+        String hcm = ShippingRateTable.normalizeRegion("Hồ Chí Minh");
+        assertEquals(BigDecimal.valueOf(10000), table.quote(7L, null, hcm, 0, BigDecimal.ONE).fee());
+        assertEquals(BigDecimal.valueOf(25000), table.quote(7L, null, "da nang", 0, BigDecimal.ONE).fee());
+
+        ShippingRateTable.Quote free = table.quote(7L, null, "da nang", 0, BigDecimal.valueOf(200000));
+        assertTrue(free.freeShipping());
+        assertEquals(0, free.fee().signum());
+        // Quotes are prebuilt and shared
+        assertSame(free, table.quote(7L, null, "hue", 100, BigDecimal.valueOf(300000)));
+    }
+
+    @Test
+    public void testShippingMethodsAndDefaults() {
+        ShippingRateTable.Quote quote = table.quote(99L, 2, null, 0, BigDecimal.ONE);
+        assertEquals(BigDecimal.valueOf(60000), quote.fee());
+        assertEquals("Express", quote.shippingMethodName());
+        assertEquals(2, quote.estimatedDeliveryMaxDays());
+        assertTrue(table.hasMethod(2));
+        assertFalse(table.hasMethod(3));
+
+        ShippingRateTable empty = ShippingRateTable.compile(List.of(), List.of(express), DEFAULT_FEE, DEFAULT_THRESHOLD);
+        assertEquals(DEFAULT_FEE, empty.quote(1L, null, null, 0, BigDecimal.ONE).fee());
+        assertTrue(empty.quote(1L, null, null, 0, DEFAULT_THRESHOLD).freeShipping());
+        assertEquals(BigDecimal.valueOf(50000), empty.quote(1L, 2, null, 0, BigDecimal.ONE).fee());
+    }
+
+    private static ShippingRate rate(Shop shop, ShippingMethod method, String region, int minWeight,
+                                     Integer maxWeight, long fee, Integer freeThreshold) {
+        return ShippingRate.builder()
+                .shop(shop).shippingMethod(method).region(region)
+                .minWeightGrams(minWeight).maxWeightGrams(maxWeight)
+                .fee(BigDecimal.valueOf(fee))
+                .freeShippingThreshold(freeThreshold != null ? BigDecimal.valueOf(freeThreshold) : null)
+                .build();
+    }
+}
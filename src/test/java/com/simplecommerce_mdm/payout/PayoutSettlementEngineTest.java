@@ -0,0 +1,225 @@
+package com.simplecommerce_mdm.payout;
+
+import com.simplecommerce_mdm.common.enums.MasterOrderStatus;
+import com.simplecommerce_mdm.common.enums.OrderStatus;
+import com.simplecommerce_mdm.common.enums.PayoutEntryType;
+import com.simplecommerce_mdm.config.BusinessConfigService;
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.order.model.MasterOrder;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.order.repository.JobCheckpointRepository;
+import com.simplecommerce_mdm.payout.dto.PayoutSettlementResponse;
+import com.simplecommerce_mdm.payout.dto.PayoutStatementResponse;
+import com.simplecommerce_mdm.payout.model.PayoutLedgerEntry;
+import com.simplecommerce_mdm.payout.repository.PayoutLedgerRepository;
+import com.simplecommerce_mdm.payout.service.PayoutService;
+import com.simplecommerce_mdm.payout.service.PayoutSettlementEngine;
+import com.simplecommerce_mdm.payout.service.impl.PayoutServiceImpl;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+// Shops are settled on pool threads, so fixtures are committed instead of living in a rollback-only test transaction
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "business.payout.settlement.chunk-size=2")
+@Import({PayoutSettlementEngine.class, PayoutServiceImpl.class, PayoutSettlementEngineTest.TestConfig.class})
+public class PayoutSettlementEngineTest {
+
+    private static final ZoneOffset VN = ZoneOffset.ofHours(7);
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class TestConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private BusinessConfigService businessConfigService;
+
+    @Autowired
+    private PayoutSettlementEngine engine;
+
+    @Autowired
+    private PayoutService payoutService;
+
+    @Autowired
+    private PayoutLedgerRepository payoutLedgerRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Long shopA;
+    private Long shopB;
+
+    @BeforeEach
+    public void setUp() {
+        when(businessConfigService.getAdminCommissionRate()).thenReturn(new BigDecimal("0.10"));
+        when(businessConfigService.getPaymentGatewayCommissionRate()).thenReturn(new BigDecimal("0.02"));
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            User buyer = entityManager.persist(User.builder().email("buyer@example.com").passwordHash("x").build());
+            MasterOrder masterOrder = entityManager.persist(MasterOrder.builder()
+                    .orderGroupNumber("MO1").user(buyer).customerEmail(buyer.getEmail())
+                    .shippingAddressSnapshot("HCM").overallStatus(MasterOrderStatus.COMPLETED)
+                    .totalAmountPaid(BigDecimal.TEN).build());
+            Shop a = shop("a");
+            Shop b = shop("b");
+            shopA = a.getId();
+            shopB = b.getId();
+
+            order(masterOrder, a, "A1", OrderStatus.COMPLETED, OffsetDateTime.of(2026, 1, 5, 10, 0, 0, 0, VN));
+            order(masterOrder, a, "A2", OrderStatus.COMPLETED, OffsetDateTime.of(2026, 1, 15, 10, 0, 0, 0, VN));
+            order(masterOrder, a, "A3", OrderStatus.COMPLETED, OffsetDateTime.of(2026, 1, 31, 23, 0, 0, 0, VN));
+            // Not completed, and completed in February local time (still January in UTC)
+            order(masterOrder, a, "A4", OrderStatus.SHIPPED, OffsetDateTime.of(2026, 1, 20, 10, 0, 0, 0, VN));
+            order(masterOrder, a, "A5", OrderStatus.COMPLETED, OffsetDateTime.of(2026, 2, 1, 0, 30, 0, 0, VN));
+            order(masterOrder, b, "B1", OrderStatus.COMPLETED, OffsetDateTime.of(2026, 1, 10, 10, 0, 0, 0, VN));
+            order(masterOrder, b, "B0", OrderStatus.COMPLETED, OffsetDateTime.of(2025, 12, 20, 10, 0, 0, 0, VN));
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transaction.executeWithoutResult(status -> {
+            for (String entity : List.of("PayoutLedgerEntry", "JobCheckpoint", "Order", "MasterOrder", "Shop", "User")) {
+                entityManager.getEntityManager().createQuery("DELETE FROM " + entity).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    public void testSettlesCompletedOrdersOfTheMonthOnceAndBuildsStatements() {
+        PayoutSettlementResponse first = engine.settle(YearMonth.of(2026, 1));
+        assertEquals(2, first.getShopsSettled());
+        assertEquals(4L, first.getEntriesWritten());
+        assertTrue(first.getFailedShopIds().isEmpty());
+
+        // 100 + 10 shipping - 5 discount = 105; 10% commission, 2% gateway fee
+        PayoutLedgerEntry entry = payoutLedgerRepository.findAll().stream()
+                .filter(e -> e.getOrderNumber().equals("A1")).findFirst().orElseThrow();
+        assertEquals(new BigDecimal("105.00"), entry.getGrossAmount());
+        assertEquals(new BigDecimal("10.50"), entry.getCommissionAmount());
+        assertEquals(new BigDecimal("2.10"), entry.getGatewayFeeAmount());
+        assertEquals(new BigDecimal("92.40"), entry.getNetAmount());
+
+        // Shop A took two chunks and its checkpoint sits on its last January order
+        Long lastOrderId = payoutLedgerRepository.findAll().stream()
+                .filter(e -> e.getShopId().equals(shopA))
+                .max(Comparator.comparing(PayoutLedgerEntry::getOrderId)).orElseThrow().getOrderId();
+        assertEquals(lastOrderId, jobCheckpointRepository.findById("payout-settlement:2026-01:shop:" + shopA)
+                .orElseThrow().getCursorId());
+
+        // Re-running writes nothing
+        PayoutSettlementResponse rerun = engine.settle(YearMonth.of(2026, 1));
+        assertEquals(0, rerun.getShopsSettled());
+        assertEquals(0L, rerun.getEntriesWritten());
+        assertEquals(4, payoutLedgerRepository.count());
+
+        List<PayoutStatementResponse> statements = payoutService.getShopStatements(shopA);
+        assertEquals(1, statements.size());
+        assertEquals("2026-01", statements.get(0).getPeriod());
+        assertEquals(3L, statements.get(0).getOrderCount());
+        assertEquals(0, new BigDecimal("277.20").compareTo(statements.get(0).getNetAmount()));
+
+        PayoutStatementResponse statement = payoutService.getShopStatement(shopB, "2026-01", PageRequest.of(0, 10));
+        assertEquals(1, statement.getEntries().size());
+        assertEquals(2, payoutService.getPeriodStatements("2026-01", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    public void testCatchesUpEveryClosedPeriodAndReversesReturnedOrders() {
+        List<PayoutSettlementResponse> results = engine.runOnce();
+        assertEquals("2025-12", results.get(0).getPeriod());
+        assertEquals(engine.lastClosedPeriod().toString(), results.get(results.size() - 1).getPeriod());
+        assertEquals(6L, results.stream().mapToLong(PayoutSettlementResponse::getEntriesWritten).sum());
+        assertEquals(6, payoutLedgerRepository.count());
+
+        // Once caught up, a run only repeats the last closed period
+        assertEquals(1, engine.runOnce().size());
+
+        // A1 is returned in March, after its January settlement
+        transaction.executeWithoutResult(status -> entityManager.getEntityManager()
+                .createQuery("UPDATE Order o SET o.orderStatus = :status, o.statusUpdatedAt = :at WHERE o.orderNumber = 'A1'")
+                .setParameter("status", OrderStatus.RETURNED)
+                .setParameter("at", OffsetDateTime.of(2026, 3, 3, 10, 0, 0, 0, VN))
+                .executeUpdate());
+
+        assertEquals(0L, engine.settle(YearMonth.of(2026, 2)).getEntriesReversed());
+        assertEquals(1L, engine.settle(YearMonth.of(2026, 3)).getEntriesReversed());
+        assertEquals(0L, engine.settle(YearMonth.of(2026, 3)).getEntriesReversed());
+
+        PayoutLedgerEntry reversal = payoutLedgerRepository.findAll().stream()
+                .filter(e -> e.getEntryType() == PayoutEntryType.REVERSAL).findFirst().orElseThrow();
+        assertEquals("A1", reversal.getOrderNumber());
+        assertEquals("2026-03", reversal.getPeriod());
+        assertEquals(new BigDecimal("-92.40"), reversal.getNetAmount());
+
+        // January stays as paid out; March carries the reversal
+        List<PayoutStatementResponse> statements = payoutService.getShopStatements(shopA);
+        assertEquals("2026-03", statements.get(0).getPeriod());
+        assertEquals(-1L, statements.get(0).getOrderCount());
+        assertEquals(0, new BigDecimal("-92.40").compareTo(statements.get(0).getNetAmount()));
+        assertEquals(3L, statements.stream().filter(st -> st.getPeriod().equals("2026-01"))
+                .findFirst().orElseThrow().getOrderCount());
+    }
+
+    @Test
+    public void testRejectsPeriodsThatAreNotClosed() {
+        assertThrows(InvalidDataException.class, () -> engine.settle(YearMonth.now(VN)));
+        assertThrows(InvalidDataException.class, () -> payoutService.settle("2026/01"));
+    }
+
+    private Shop shop(String name) {
+        User seller = entityManager.persist(User.builder().email(name + "@example.com").passwordHash("x").build());
+        return entityManager.persist(Shop.builder().user(seller).name(name).slug(name).build());
+    }
+
+    private void order(MasterOrder masterOrder, Shop shop, String number, OrderStatus status, OffsetDateTime at) {
+        entityManager.persist(Order.builder()
+                .masterOrder(masterOrder).orderNumber(number).shop(shop).orderStatus(status)
+                .subtotalAmount(BigDecimal.valueOf(100)).shippingFee(BigDecimal.TEN)
+                .itemDiscountAmount(BigDecimal.valueOf(5))
+                .orderedAt(at.minusDays(3)).statusUpdatedAt(at).build());
+    }
+}
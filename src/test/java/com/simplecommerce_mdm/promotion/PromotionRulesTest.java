@@ -0,0 +1,118 @@
+package com.simplecommerce_mdm.promotion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.common.enums.PromotionDiscountType;
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
+import com.simplecommerce_mdm.promotion.model.Promotion;
+import com.simplecommerce_mdm.promotion.service.PromotionCart;
+import com.simplecommerce_mdm.promotion.service.PromotionRules;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PromotionRulesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testStackableDiscountsAreScopedAndSplitByShop() {
+        PromotionRules rules = PromotionRules.compile(List.of(
+                promotion(1, PromotionDiscountType.PERCENTAGE, 10, "{\"shopIds\": [1]}"),
+                promotion(2, PromotionDiscountType.FIXED_AMOUNT, 30000, "{\"minSpend\": 300000}"),
+                promotion(3, PromotionDiscountType.FIXED_AMOUNT, 40000, "{\"categoryIds\": [20], \"exclusive\": true}"),
+                promotion(4, PromotionDiscountType.FIXED_AMOUNT, 10000, "{\"minSpend\": 400000}"),
+                promotion(5, PromotionDiscountType.FIXED_AMOUNT, 90000, "not json")
+        ), objectMapper);
+        assertEquals(4, rules.size());
+
+        PromotionEvaluation evaluation = rules.evaluate(cart());
+        // 10% of shop 1's 200k plus 30k for spending 350k beats the 40k exclusive one
+        assertEquals(List.of(2, 1), evaluation.getPromotions().stream()
+                .map(PromotionEvaluation.AppliedPromotion::getPromotionId).toList());
+        assertEquals(0, BigDecimal.valueOf(50000).compareTo(evaluation.getItemDiscount()));
+        assertEquals(0, evaluation.getShippingDiscount().signum());
+
+        PromotionEvaluation.AppliedPromotion fixed = evaluation.getPromotions().get(0);
+        assertEquals(new BigDecimal("17142.85"), fixed.getDiscountByShop().get(1L));
+        assertEquals(new BigDecimal("12857.15"), fixed.getDiscountByShop().get(2L));
+        assertEquals(List.of(1L), List.copyOf(evaluation.getPromotions().get(1).getDiscountByShop().keySet()));
+    }
+
+    @Test
+    public void testBestExclusivePromotionWinsWhenItSavesMore() {
+        Promotion expired = promotion(3, PromotionDiscountType.FIXED_AMOUNT, 100000, "{}");
+        expired.setEndDate(OffsetDateTime.now().minusDays(1));
+        PromotionRules rules = PromotionRules.compile(List.of(
+                promotion(1, PromotionDiscountType.PERCENTAGE, 10, "{\"shopIds\": [1]}"),
+                promotion(2, PromotionDiscountType.FIXED_AMOUNT, 60000, "{\"categoryIds\": [20], \"exclusive\": true}"),
+                expired
+        ), objectMapper);
+
+        PromotionEvaluation evaluation = rules.evaluate(cart());
+        assertEquals(1, evaluation.getPromotions().size());
+        assertEquals(2, evaluation.getPromotions().get(0).getPromotionId());
+        assertEquals(0, BigDecimal.valueOf(60000).compareTo(evaluation.getItemDiscount()));
+    }
+
+    @Test
+    public void testFirstOrderIsOnlyCheckedWhenAPromotionNeedsIt() {
+        AtomicInteger lookups = new AtomicInteger();
+        PromotionCart cart = cart().firstOrder(() -> lookups.incrementAndGet() > 0);
+
+        PromotionRules withoutFirstOrder = PromotionRules.compile(List.of(
+                promotion(1, PromotionDiscountType.PERCENTAGE, 10, "{}")), objectMapper);
+        withoutFirstOrder.evaluate(cart);
+        assertEquals(0, lookups.get());
+
+        PromotionRules rules = PromotionRules.compile(List.of(
+                promotion(1, PromotionDiscountType.PERCENTAGE, 50, "{\"firstOrderOnly\": true, \"maxDiscount\": 100000}"),
+                promotion(2, PromotionDiscountType.PERCENTAGE, 10, "{\"firstOrderOnly\": true, \"shopIds\": [2]}")
+        ), objectMapper);
+        PromotionEvaluation evaluation = rules.evaluate(cart);
+        assertEquals(1, lookups.get());
+        // 50% of 350k capped at 100k, plus 10% of shop 2's 150k
+        assertEquals(0, BigDecimal.valueOf(115000).compareTo(evaluation.getItemDiscount()));
+
+        assertTrue(rules.evaluate(cart().firstOrder(() -> false)).getPromotions().isEmpty());
+    }
+
+    @Test
+    public void testFreeShippingAndBuyXGetY() {
+        PromotionRules rules = PromotionRules.compile(List.of(
+                promotion(1, PromotionDiscountType.FREE_SHIPPING, 0, "{\"shopIds\": [2]}"),
+                promotion(2, PromotionDiscountType.FREE_SHIPPING, 0, "{}"),
+                promotion(3, PromotionDiscountType.BUY_X_GET_Y, 0, "{\"categoryIds\": [20], \"buyQuantity\": 2, \"getQuantity\": 1}")
+        ), objectMapper);
+
+        PromotionEvaluation evaluation = rules.evaluate(cart()
+                .shippingFee(1L, BigDecimal.valueOf(30000))
+                .shippingFee(2L, BigDecimal.valueOf(25000)));
+        // Buy 2 get 1 of the three 50k items; only the best free-shipping promotion counts
+        assertEquals(0, BigDecimal.valueOf(50000).compareTo(evaluation.getItemDiscount()));
+        assertEquals(0, BigDecimal.valueOf(55000).compareTo(evaluation.getShippingDiscount()));
+        PromotionEvaluation.AppliedPromotion freeShipping = evaluation.getPromotions().stream()
+                .filter(promotion -> promotion.getPromotionType() == PromotionDiscountType.FREE_SHIPPING)
+                .findFirst().orElseThrow();
+        assertEquals(2, freeShipping.getPromotionId());
+        assertEquals(new BigDecimal("25000.00"), freeShipping.getDiscountByShop().get(2L));
+    }
+
+    // Shop 1: 2 x 100k in category 10; shop 2: 3 x 50k in category 20
+    private static PromotionCart cart() {
+        return new PromotionCart(2)
+                .add(1L, 10L, BigDecimal.valueOf(100000), 2)
+                .add(2L, 20L, BigDecimal.valueOf(50000), 3);
+    }
+
+    private static Promotion promotion(int id, PromotionDiscountType type, long value, String conditions) {
+        return Promotion.builder()
+                .id(id).name("Promotion " + id).promotionType(type).value(BigDecimal.valueOf(value))
+                .conditions(conditions).startDate(OffsetDateTime.now().minusDays(1))
+                .build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.simplecommerce_mdm.promotion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.common.enums.PromotionDiscountType;
+import com.simplecommerce_mdm.exception.InvalidDataException;
+import com.simplecommerce_mdm.order.model.Order;
+import com.simplecommerce_mdm.product.model.Shop;
+import com.simplecommerce_mdm.promotion.dto.AppliedVoucher;
+import com.simplecommerce_mdm.promotion.model.RedemptionCounter;
+import com.simplecommerce_mdm.promotion.model.Voucher;
+import com.simplecommerce_mdm.promotion.repository.RedemptionCounterRepository;
+import com.simplecommerce_mdm.promotion.repository.VoucherRepository;
+import com.simplecommerce_mdm.promotion.service.VoucherService;
+import com.simplecommerce_mdm.promotion.service.VoucherUsageCounters;
+import com.simplecommerce_mdm.promotion.service.VoucherUsageSyncJob;
+import com.simplecommerce_mdm.promotion.service.impl.VoucherServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Reservations run in checkout transactions that commit or roll back, so the tests run without the usual
+// rollback-only test transaction
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({VoucherServiceImpl.class, VoucherUsageCounters.class, VoucherUsageSyncJob.class, VoucherServiceTest.TestConfig.class})
+public class VoucherServiceTest {
+
+    @TestConfiguration
+    @EnableJpaAuditing
+    static class TestConfig {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+    }
+
+    @Autowired
+    private VoucherService voucherService;
+
+    @Autowired
+    private VoucherUsageCounters voucherUsageCounters;
+
+    @Autowired
+    private VoucherRepository voucherRepository;
+
+    @Autowired
+    private RedemptionCounterRepository redemptionCounterRepository;
+
+    @Autowired
+    private VoucherUsageSyncJob voucherUsageSyncJob;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testConcurrentReservationsNeverExceedTheLimit() throws Exception {
+        VoucherUsageCounters.Limit limit = new VoucherUsageCounters.Limit("voucher:test-concurrent", 5, 4, () -> 0);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return transaction.execute(status -> voucherUsageCounters.reserve(List.of(limit)));
+                }));
+            }
+            start.countDown();
+            int reserved = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get(10, TimeUnit.SECONDS)) {
+                    reserved++;
+                }
+            }
+            assertEquals(5, reserved);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int used = redemptionCounterRepository.findAll().stream()
+                .filter(counter -> counter.getCounterKey().equals("voucher:test-concurrent"))
+                .mapToInt(RedemptionCounter::getTimesUsed)
+                .sum();
+        assertEquals(5, used);
+    }
+
+    @Test
+    public void testPercentageVoucherIsSpreadOverShopOrdersAndLimitedPerUser() {
+        Voucher voucher = voucherRepository.save(Voucher.builder()
+                .code("SALE10").discountType(PromotionDiscountType.PERCENTAGE)
+                .discountValue(BigDecimal.TEN).maxDiscountAmount(BigDecimal.valueOf(15000))
+                .minOrderValue(BigDecimal.valueOf(100000))
+                .startDate(OffsetDateTime.now().minusDays(1))
+                .usageLimitTotal(100).usageLimitPerUser(1)
+                .build());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // A checkout that rolls back gives its use back
+        transaction.executeWithoutResult(status -> {
+            voucherService.applyVoucher(1L, "sale10", orders());
+            status.setRollbackOnly();
+        });
+
+        List<Order> orders = orders();
+        AppliedVoucher applied = transaction.execute(status -> voucherService.applyVoucher(1L, "SALE10", orders));
+        // 10% of 200k capped at 15k, split 1:3 by subtotal
+        assertEquals(0, BigDecimal.valueOf(15000).compareTo(applied.getDiscountAmount()));
+        assertEquals(0, BigDecimal.valueOf(3750).compareTo(orders.get(0).getItemDiscountAmount()));
+        assertEquals(0, BigDecimal.valueOf(11250).compareTo(orders.get(1).getItemDiscountAmount()));
+
+        assertThrows(InvalidDataException.class,
+                () -> transaction.execute(status -> voucherService.applyVoucher(1L, "SALE10", orders())));
+        assertNotNull(transaction.execute(status -> voucherService.applyVoucher(2L, "SALE10", orders())));
+
+        // times_used follows the global counter: two committed redemptions
+        assertEquals(1, voucherUsageSyncJob.runOnce());
+        assertEquals(2, voucherRepository.findById(voucher.getId()).orElseThrow().getTimesUsed());
+        assertEquals(0, voucherUsageSyncJob.runOnce());
+    }
+
+    private static List<Order> orders() {
+        return List.of(
+                Order.builder().shop(Shop.builder().id(1L).build())
+                        .subtotalAmount(BigDecimal.valueOf(50000)).shippingFee(BigDecimal.valueOf(30000)).build(),
+                Order.builder().shop(Shop.builder().id(2L).build())
+                        .subtotalAmount(BigDecimal.valueOf(150000)).shippingFee(BigDecimal.valueOf(30000)).build());
+    }
+}
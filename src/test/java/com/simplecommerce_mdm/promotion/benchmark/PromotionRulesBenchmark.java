@@ -0,0 +1,150 @@
+package com.simplecommerce_mdm.promotion.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplecommerce_mdm.common.enums.PromotionDiscountType;
+import com.simplecommerce_mdm.promotion.dto.PromotionEvaluation;
+import com.simplecommerce_mdm.promotion.model.Promotion;
+import com.simplecommerce_mdm.promotion.service.PromotionCart;
+import com.simplecommerce_mdm.promotion.service.PromotionRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluating a cart against 1k active promotions: the compiled rules against parsing every
+ * promotion's conditions per cart. Promotions are mostly shop or category scoped, as on the marketplace.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.simplecommerce_mdm.promotion.benchmark.PromotionRulesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromotionRulesBenchmark {
+
+    private static final int SHOPS = 200;
+    private static final int CATEGORIES = 100;
+
+    @Param({"1000"})
+    private int promotionCount;
+
+    @Param({"5", "30"})
+    private int cartLines;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Promotion> promotions;
+    private PromotionRules rules;
+    private PromotionCart cart;
+    private long[][] lines;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        OffsetDateTime now = OffsetDateTime.now();
+        promotions = new ArrayList<>(promotionCount);
+        for (int i = 0; i < promotionCount; i++) {
+            String conditions;
+            int kind = i % 20;
+            if (kind == 0) {
+                conditions = "{\"minSpend\": 500000, \"exclusive\": true}";
+            } else if (kind < 12) {
+                conditions = "{\"shopIds\": [" + random.nextInt(SHOPS) + "], \"minSpend\": " + random.nextInt(300000) + "}";
+            } else if (kind < 19) {
+                conditions = "{\"categoryIds\": [" + random.nextInt(CATEGORIES) + ", " + random.nextInt(CATEGORIES)
+                        + "], \"maxDiscount\": 50000}";
+            } else {
+                conditions = "{\"firstOrderOnly\": true, \"maxDiscount\": 100000}";
+            }
+            promotions.add(Promotion.builder()
+                    .id(i).name("Promotion " + i)
+                    .promotionType(i % 3 == 0 ? PromotionDiscountType.FIXED_AMOUNT : PromotionDiscountType.PERCENTAGE)
+                    .value(BigDecimal.valueOf(i % 3 == 0 ? 20000 : 5 + random.nextInt(10)))
+                    .conditions(conditions)
+                    .startDate(now.minusDays(1)).endDate(now.plusDays(30))
+                    .build());
+        }
+        rules = PromotionRules.compile(promotions, objectMapper);
+
+        lines = new long[cartLines][];
+        cart = new PromotionCart(cartLines).firstOrder(() -> false);
+        for (int i = 0; i < cartLines; i++) {
+            lines[i] = new long[]{random.nextInt(SHOPS), random.nextInt(CATEGORIES), 10000 + random.nextInt(500000), 1 + random.nextInt(3)};
+            cart.add(lines[i][0], lines[i][1], BigDecimal.valueOf(lines[i][2]), (int) lines[i][3]);
+        }
+    }
+
+    @Benchmark
+    public PromotionEvaluation compiledRules() {
+        return rules.evaluate(cart);
+    }
+
+    /**
+     * Baseline: read every promotion's conditions and walk the cart for each of them
+     */
+    @Benchmark
+    public long parsePerCart() throws IOException {
+        long best = 0;
+        OffsetDateTime now = OffsetDateTime.now();
+        for (Promotion promotion : promotions) {
+            JsonNode conditions = objectMapper.readTree(promotion.getConditions());
+            if (now.isBefore(promotion.getStartDate()) || !now.isBefore(promotion.getEndDate())
+                    || conditions.path("firstOrderOnly").asBoolean(false)) {
+                continue;
+            }
+            long scoped = 0;
+            for (long[] line : lines) {
+                if (contains(conditions.path("shopIds"), line[0]) && contains(conditions.path("categoryIds"), line[1])) {
+                    scoped += line[2] * line[3];
+                }
+            }
+            if (scoped == 0 || scoped < conditions.path("minSpend").asLong(0)) {
+                continue;
+            }
+            long discount = promotion.getPromotionType() == PromotionDiscountType.FIXED_AMOUNT
+                    ? Math.min(scoped, promotion.getValue().longValue())
+                    : scoped * promotion.getValue().longValue() / 100;
+            best += Math.min(discount, conditions.path("maxDiscount").asLong(Long.MAX_VALUE));
+        }
+        return best;
+    }
+
+    private static boolean contains(JsonNode ids, long id) {
+        if (!ids.isArray()) {
+            return true;
+        }
+        for (JsonNode node : ids) {
+            if (node.asLong() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PromotionRulesBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}